@@ -0,0 +1,116 @@
+package benchmark.jmh;
+
+import benchmark.GeradorDados;
+import controller.CatalogoController;
+import model.Ator;
+import model.Diretor;
+import model.Filme;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import service.AtorService;
+import service.DiretorService;
+import service.FilmeService;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Classe Acervo - Catálogo sintético compartilhado pelos benchmarks JMH
+ *
+ * Montado uma vez por fork e tamanho, como no BenchmarkCatalogo: um ator para
+ * cada dez filmes, um diretor para cada cem, três atores e um diretor por
+ * filme. As entradas das consultas são sorteadas na montagem, fora da medição,
+ * e percorridas em ciclo pelos benchmarks.
+ *
+ * Os filmes cadastrados durante uma iteração são removidos ao fim dela, então
+ * o catálogo volta ao tamanho medido antes da iteração seguinte.
+ */
+@State(Scope.Benchmark)
+public class Acervo {
+
+    /** Quantas entradas sorteadas há para as consultas (potência de 2, para o ciclo usar máscara). */
+    static final int CONSULTAS = 4096;
+    static final int TAMANHO_PAGINA = 50;
+    private static final int ATORES_POR_FILME = 3;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int tamanho;
+
+    FilmeService filmeService;
+    AtorService atorService;
+    DiretorService diretorService;
+    CatalogoController controller;
+
+    Filme[] filmesConsultados;
+    Ator[] atoresConsultados;
+    String[] trechos;
+    // Nunca fica em elenco nenhum: associar e remover este ator não mexe no catálogo medido
+    Ator atorAvulso;
+
+    private final AtomicInteger novos = new AtomicInteger();
+    private int primeiroIdNovo;
+
+    @Setup(Level.Trial)
+    public void montar() {
+        GeradorDados gerador = new GeradorDados(42);
+        atorService = new AtorService();
+        diretorService = new DiretorService();
+        filmeService = new FilmeService(atorService, diretorService);
+        controller = new CatalogoController(filmeService, atorService, diretorService);
+
+        Ator[] atores = new Ator[Math.max(10, tamanho / 10)];
+        for (int i = 0; i < atores.length; i++) {
+            atores[i] = gerador.ator(i);
+        }
+        atorService.importar(Arrays.stream(atores));
+        Diretor[] diretores = new Diretor[Math.max(5, tamanho / 100)];
+        for (int i = 0; i < diretores.length; i++) {
+            diretores[i] = gerador.diretor(i);
+        }
+        diretorService.importar(Arrays.stream(diretores));
+        Filme[] filmes = new Filme[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            filmes[i] = gerador.filme(i);
+        }
+        filmeService.importar(Arrays.stream(filmes));
+        for (Filme filme : filmes) {
+            filmeService.associarDiretor(filme, diretores[gerador.inteiro(diretores.length)]);
+            for (int a = 0; a < ATORES_POR_FILME; a++) {
+                filmeService.associarAtor(filme, atores[gerador.inteiro(atores.length)]);
+            }
+        }
+        atorAvulso = gerador.ator(atores.length);
+        atorService.cadastrar(atorAvulso);
+
+        filmesConsultados = new Filme[CONSULTAS];
+        atoresConsultados = new Ator[CONSULTAS];
+        trechos = new String[CONSULTAS];
+        for (int i = 0; i < CONSULTAS; i++) {
+            filmesConsultados[i] = filmes[gerador.inteiro(tamanho)];
+            atoresConsultados[i] = atores[gerador.inteiro(atores.length)];
+            trechos[i] = gerador.trecho();
+        }
+        primeiroIdNovo = filmes[tamanho - 1].getId() + 1;
+    }
+
+    // Os IDs dos cadastros são seguidos, a partir do seguinte ao último filme do catálogo
+    @TearDown(Level.Iteration)
+    public void removerCadastrados() {
+        int id = primeiroIdNovo;
+        while (filmeService.remover(id)) {
+            id++;
+        }
+        primeiroIdNovo = id;
+    }
+
+    /**
+     * @return um nome de filme que ainda não foi usado (vale entre threads)
+     */
+    String nomeNovo() {
+        return "Novo " + novos.getAndIncrement();
+    }
+}
@@ -0,0 +1,77 @@
+package benchmark.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Classe CatalogoControllerJmh - Métodos *String do CatalogoController sobre o Acervo
+ *
+ * Medem a fachada inteira: conversão das entradas, chamada ao serviço e
+ * montagem do texto devolvido. Mesmas configurações do FilmeServiceJmh.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx16g"})
+public class CatalogoControllerJmh {
+
+    private static final int LIMITE_AUTOCOMPLETAR = 10;
+
+    private int proxima;
+
+    @Benchmark
+    public String visualizarDetalhesFilme(Acervo acervo) {
+        return acervo.controller.visualizarDetalhesFilmeString(acervo.filmesConsultados[indice()].getId());
+    }
+
+    @Benchmark
+    public String buscarAtorPorId(Acervo acervo) {
+        return acervo.controller.buscarAtorPorIdString(acervo.atoresConsultados[indice()].getId());
+    }
+
+    @Benchmark
+    public String pesquisarFilmePorNome(Acervo acervo) {
+        return acervo.controller.pesquisarFilmePorNomeString(acervo.filmesConsultados[indice()].getNome());
+    }
+
+    @Benchmark
+    public String autocompletar(Acervo acervo) {
+        return acervo.controller.autocompletarString(acervo.trechos[indice()], LIMITE_AUTOCOMPLETAR);
+    }
+
+    @Benchmark
+    public String listarFilmes(Acervo acervo) {
+        return acervo.controller.listarFilmesString();
+    }
+
+    // Os filmes cadastrados saem ao fim de cada iteração (Acervo.removerCadastrados)
+    @Benchmark
+    public String cadastrarFilme(Acervo acervo) {
+        return acervo.controller.cadastrarFilmeString(acervo.nomeNovo(), "2001-01-01", "1000000", null);
+    }
+
+    // Associa e tira o ator avulso, então o elenco medido não muda
+    @Benchmark
+    public void associarERemoverAtorFilme(Acervo acervo, Blackhole resultado) {
+        int filmeId = acervo.filmesConsultados[indice()].getId();
+        int atorId = acervo.atorAvulso.getId();
+        resultado.consume(acervo.controller.associarAtorFilmeString(filmeId, atorId));
+        resultado.consume(acervo.controller.removerAtorFilmeString(filmeId, atorId));
+    }
+
+    private int indice() {
+        return proxima++ & (Acervo.CONSULTAS - 1);
+    }
+}
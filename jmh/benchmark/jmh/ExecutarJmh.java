@@ -0,0 +1,32 @@
+package benchmark.jmh;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Classe ExecutarJmh - Ponto de entrada do benchmarks.jar
+ *
+ * Aceita as mesmas opções do JMH (ex: FilmeServiceJmh -p tamanho=1000,10000)
+ * e acrescenta sempre o profiler gc, que informa a alocação por operação
+ * (gc.alloc.rate.norm) ao lado de cada tempo. Pedidos de ajuda e de listagem
+ * (-h, -l, -lp, -lprof) vão direto para o JMH.
+ */
+public class ExecutarJmh {
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions linhaDeComando = new CommandLineOptions(args);
+        if (linhaDeComando.shouldHelp() || linhaDeComando.shouldList() || linhaDeComando.shouldListWithParams()
+                || linhaDeComando.shouldListProfilers() || linhaDeComando.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        Options opcoes = new OptionsBuilder()
+                .parent(linhaDeComando)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(opcoes).run();
+    }
+}
@@ -0,0 +1,80 @@
+package benchmark.jmh;
+
+import model.Filme;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Classe FilmeServiceJmh - Consultas e cadastro do FilmeService sobre o Acervo
+ *
+ * Cada thread percorre as entradas sorteadas do Acervo em ciclo. O heap de
+ * 16 GB do fork é o necessário para o catálogo de 10.000.000 filmes; para
+ * medir só os menores use -p tamanho=1000,10000.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx16g"})
+public class FilmeServiceJmh {
+
+    private static final LocalDate DATA_CADASTRO = LocalDate.of(2001, 1, 1);
+
+    private int proxima;
+
+    @Benchmark
+    public Filme buscarPorId(Acervo acervo) {
+        return acervo.filmeService.buscarPorId(filme(acervo).getId());
+    }
+
+    @Benchmark
+    public List<Filme> buscarPorNome(Acervo acervo) {
+        return acervo.filmeService.buscarPorNome(filme(acervo).getNome());
+    }
+
+    @Benchmark
+    public List<Filme> buscarPorNomeParcial(Acervo acervo) {
+        return acervo.filmeService.buscarPorNomeParcial(acervo.trechos[indice()]);
+    }
+
+    @Benchmark
+    public List<Filme> listarOrdenadoPorNome(Acervo acervo) {
+        return acervo.filmeService.listarOrdenadoPorNome();
+    }
+
+    @Benchmark
+    public List<Filme> listarOrdenadoPorNomePagina(Acervo acervo) {
+        return acervo.filmeService.listarOrdenadoPorNome(0, Acervo.TAMANHO_PAGINA);
+    }
+
+    @Benchmark
+    public List<Filme> buscarPorAtor(Acervo acervo) {
+        return acervo.filmeService.buscarPorAtor(acervo.atoresConsultados[indice()]);
+    }
+
+    // Os filmes cadastrados saem ao fim de cada iteração (Acervo.removerCadastrados)
+    @Benchmark
+    public boolean cadastrar(Acervo acervo) {
+        return acervo.filmeService.cadastrar(new Filme(acervo.nomeNovo(), DATA_CADASTRO));
+    }
+
+    private Filme filme(Acervo acervo) {
+        return acervo.filmesConsultados[indice()];
+    }
+
+    private int indice() {
+        return proxima++ & (Acervo.CONSULTAS - 1);
+    }
+}
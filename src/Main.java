@@ -1,13 +1,60 @@
+import cache.CacheTinyLfu;
+import cache.CacheVisualizacoes;
 import controller.CatalogoController;
+import diagnostico.DiagnosticoConsole;
+import diagnostico.Diagnosticos;
+import interfaces.IDiagnostico;
+import model.Ator;
+import model.Diretor;
+import model.Filme;
+import model.FilmeAtor;
+import model.ResultadoOperacao;
+import multiversao.CatalogoMultiversao;
+import multiversao.RetratoCatalogo;
+import persistencia.InstantaneoCatalogo;
+import persistencia.LogAlteracoes;
+import service.AtorService;
+import service.DiretorService;
+import service.FilmeService;
+import transacao.TransacaoCatalogo;
+import transacao.TransacoesCatalogo;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 public class Main {
     
     public static void main(String[] args) {
+        Diagnosticos.setDestino(new DiagnosticoConsole());
+        
         System.out.println("TESTE DO SISTEMA DE CATÁLOGO DE FILMES ");
         System.out.println("================================================");
         
         CatalogoController controller = new CatalogoController();
         
+        // Com um diretório como argumento, o catálogo começa com os arquivos dele
+        if (args.length > 0) {
+            System.out.println(controller.carregarCatalogoString(args[0]));
+            System.out.println(controller.listarFilmesString());
+        }
+        
         System.out.println("\nTESTE 1: CADASTRANDO ATORES");
         System.out.println("--------------------------------");
         testarCadastroAtores(controller);
@@ -48,6 +95,30 @@ public class Main {
         System.out.println("-----------------------------------");
         testarValidacoes(controller);
         
+        System.out.println("\nTESTE 11: TESTANDO CONCORRÊNCIA");
+        System.out.println("------------------------------------");
+        testarConcorrencia();
+        
+        System.out.println("\nTESTE 12: TESTANDO CACHE DE VISUALIZAÇÕES");
+        System.out.println("----------------------------------------------");
+        testarCache();
+        
+        System.out.println("\nTESTE 13: TESTANDO LOG DE ALTERAÇÕES");
+        System.out.println("------------------------------------------");
+        testarLogAlteracoes();
+        
+        System.out.println("\nTESTE 14: TESTANDO INSTANTÂNEO DO CATÁLOGO");
+        System.out.println("-----------------------------------------------");
+        testarInstantaneo();
+        
+        System.out.println("\nTESTE 15: TESTANDO RETRATOS DO CATÁLOGO");
+        System.out.println("--------------------------------------------");
+        testarRetratos();
+        
+        System.out.println("\nTESTE 16: TESTANDO TRANSAÇÕES");
+        System.out.println("----------------------------------");
+        testarTransacoes();
+        
         System.out.println("\nTODOS OS TESTES CONCLUÍDOS!");
         System.out.println("Sistema funcionando corretamente! ");
     }
@@ -115,7 +186,7 @@ public class Main {
     private static void testarAssociacoes(CatalogoController controller) {
         System.out.println("Testando associações...");
         
-        String associacao1 = controller.associarAtorFilmeString(1, 1);
+        String associacao1 = controller.associarAtorFilmeString(1, 1, "Jack Dawson");
         System.out.println("Associação Ator-Filme: " + associacao1);
         
         String associacao2 = controller.associarDiretorFilmeString(1, 1);
@@ -136,6 +207,9 @@ public class Main {
         
         String pesquisa2 = controller.pesquisarFilmePorNomeString("Avatar");
         System.out.println("Pesquisa 'Avatar': " + pesquisa2);
+        
+        String sugestoes = controller.autocompletarString("t", 5);
+        System.out.println("Autocompletar 't': " + sugestoes);
     }
     
     private static void testarAtualizacoes(CatalogoController controller) {
@@ -167,4 +241,509 @@ public class Main {
         String resultado3 = controller.associarAtorFilmeString(999, 999);
         System.out.println("Associação IDs inválidos: " + resultado3);
     }
-}
\ No newline at end of file
+    
+    private static void testarConcorrencia() {
+        final int threads = 8;
+        final int filmesPorThread = 100;
+        System.out.println("Cadastrando e associando em " + threads + " threads...");
+        
+        AtorService atorService = new AtorService();
+        FilmeService filmeService = new FilmeService(atorService, new DiretorService());
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        AtomicBoolean executando = new AtomicBoolean(true);
+        AtomicInteger leituras = new AtomicInteger();
+        List<Ator> atores = new ArrayList<>();
+        
+        // As mensagens dos serviços ficam em silêncio durante o teste
+        IDiagnostico diagnostico = Diagnosticos.getDestino();
+        Diagnosticos.setDestino(null);
+        try {
+            Future<?> leitor = executor.submit(() -> {
+                while (executando.get()) {
+                    filmeService.buscarPorNomeParcial("Filme 3");
+                    filmeService.listarOrdenadoPorNome(0, 20);
+                    filmeService.buscarPorPeriodo(LocalDate.of(2000, 1, 1), LocalDate.of(2000, 3, 1)).count();
+                    leituras.incrementAndGet();
+                }
+            });
+            
+            // Fase 1: cada thread cadastra um ator e os seus filmes
+            List<Future<Ator>> cadastros = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                cadastros.add(executor.submit(() -> {
+                    Ator ator = new Ator("Ator Concorrente " + thread);
+                    atorService.cadastrar(ator);
+                    for (int i = 0; i < filmesPorThread; i++) {
+                        filmeService.cadastrar(new Filme("Filme " + thread + "-" + i, LocalDate.of(2000, 1, 1).plusDays(i)));
+                    }
+                    return ator;
+                }));
+            }
+            for (Future<Ator> cadastro : cadastros) {
+                atores.add(cadastro.get());
+            }
+            
+            // Fase 2: todas as threads associam e desassociam atores dos mesmos filmes
+            List<Future<?>> associacoes = new ArrayList<>();
+            for (Ator ator : atores) {
+                associacoes.add(executor.submit(() -> {
+                    for (Filme filme : filmeService.listarTodos()) {
+                        filmeService.associarAtor(filme.getId(), ator.getId());
+                        if ((filme.getId() + ator.getId()) % 3 == 0) {
+                            filmeService.removerAtor(filme.getId(), ator.getId());
+                        }
+                    }
+                }));
+            }
+            for (Future<?> associacao : associacoes) {
+                associacao.get();
+            }
+            executando.set(false);
+            leitor.get();
+        } catch (Exception e) {
+            System.out.println("Erro durante o teste de concorrência: " + e);
+            return;
+        } finally {
+            Diagnosticos.setDestino(diagnostico);
+            executor.shutdown();
+        }
+        
+        List<String> erros = verificarConsistencia(filmeService, atores, threads * filmesPorThread);
+        System.out.println("Filmes cadastrados: " + filmeService.contarFilmes());
+        System.out.println("Leituras concorrentes: " + leituras.get());
+        System.out.println(erros.isEmpty() ? "Consistência: OK" : "Inconsistências: " + erros);
+    }
+    
+    private static void testarCache() {
+        System.out.println("Enchendo o cache com pesos variados e alterando entidades usadas...");
+        List<String> erros = new ArrayList<>();
+        
+        // Uma entrada pequena e popular, depois uma que sozinha quase enche o cache e uma maior que ele
+        CacheTinyLfu<String> cache = new CacheTinyLfu<>(1000, String::length);
+        try {
+            cache.guardar(1, "popular");
+            for (int i = 0; i < 20; i++) {
+                cache.buscar(1);
+            }
+            cache.guardar(2, "x".repeat(995));
+            cache.guardar(3, "y".repeat(2000));
+            if (cache.buscar(3) != null) {
+                erros.add("valor maior que o cache foi guardado");
+            }
+            
+            // Pesos misturados: cada chave devolve null ou o último valor guardado nela
+            Random aleatorio = new Random(42);
+            String[] ultimos = new String[64];
+            for (int i = 0; i < 20000; i++) {
+                int chave = aleatorio.nextInt(ultimos.length);
+                if (aleatorio.nextInt(3) == 0) {
+                    int tamanho = 1 + aleatorio.nextInt(aleatorio.nextInt(10) == 0 ? 1500 : 40);
+                    String valor = i + ":" + "v".repeat(tamanho);
+                    cache.guardar(chave, valor);
+                    ultimos[chave] = valor;
+                } else {
+                    String guardado = cache.buscar(chave);
+                    if (guardado != null && !guardado.equals(ultimos[chave])) {
+                        erros.add("chave " + chave + " devolveu um valor antigo");
+                    }
+                }
+                if (cache.getPeso() > cache.getPesoMaximo()) {
+                    erros.add("peso " + cache.getPeso() + " acima do máximo");
+                    break;
+                }
+            }
+        } catch (RuntimeException e) {
+            erros.add("erro no cache: " + e);
+        }
+        
+        // Um texto guardado deixa de valer quando o filme usado para montá-lo muda
+        IDiagnostico diagnostico = Diagnosticos.getDestino();
+        Diagnosticos.setDestino(null);
+        try {
+            AtorService atorService = new AtorService();
+            DiretorService diretorService = new DiretorService();
+            FilmeService filmeService = new FilmeService(atorService, diretorService);
+            CacheVisualizacoes visualizacoes = new CacheVisualizacoes();
+            visualizacoes.observar(filmeService, atorService, diretorService);
+            Filme filme = new Filme("Filme do Cache", LocalDate.of(2001, 1, 1));
+            filmeService.cadastrar(filme);
+            CacheVisualizacoes.Renderizador nome = dependencias -> {
+                dependencias.filme(filme.getId());
+                return filmeService.buscarPorId(filme.getId()).getNome();
+            };
+            visualizacoes.buscar(filme.getId(), nome);
+            visualizacoes.buscar(filme.getId(), nome);
+            filme.setNome("Filme Renomeado");
+            if (!"Filme Renomeado".equals(visualizacoes.buscar(filme.getId(), nome))) {
+                erros.add("texto desatualizado depois de renomear o filme");
+            }
+            if (visualizacoes.getAcertos() != 1 || visualizacoes.getInvalidacoes() != 1) {
+                erros.add(visualizacoes.getAcertos() + " acerto(s) e " + visualizacoes.getInvalidacoes()
+                        + " invalidação(ões), esperados 1 e 1");
+            }
+        } finally {
+            Diagnosticos.setDestino(diagnostico);
+        }
+        System.out.println(erros.isEmpty() ? "Cache: OK" : "Inconsistências: " + erros);
+    }
+    
+    private static void testarLogAlteracoes() {
+        System.out.println("Gravando alterações no log, reabrindo e cortando o fim do arquivo...");
+        List<String> erros = new ArrayList<>();
+        
+        IDiagnostico diagnostico = Diagnosticos.getDestino();
+        Diagnosticos.setDestino(null);
+        Path diretorio = null;
+        try {
+            diretorio = Files.createTempDirectory("catalogo-log");
+            Path arquivo = diretorio.resolve("catalogo.log");
+            AtorService atorService = new AtorService();
+            DiretorService diretorService = new DiretorService();
+            FilmeService filmeService = new FilmeService(atorService, diretorService);
+            String antesDoUltimo;
+            String esperado;
+            try (LogAlteracoes log = LogAlteracoes.abrir(arquivo, filmeService, atorService, diretorService)) {
+                Ator ator = new Ator("Ator do Log");
+                ator.setIdade(40);
+                ator.setNacionalidade("Brasileira");
+                atorService.cadastrar(ator);
+                Diretor diretor = new Diretor("Diretor do Log");
+                diretor.setNacionalidade("Brasileira");
+                diretor.setEstilo("Drama");
+                diretorService.cadastrar(diretor);
+                Filme primeiro = new Filme("Primeiro do Log", LocalDate.of(2001, 1, 1));
+                Filme segundo = new Filme("Segundo do Log", LocalDate.of(2002, 2, 2));
+                filmeService.cadastrar(primeiro);
+                filmeService.cadastrar(segundo);
+                filmeService.associarAtor(primeiro, ator, "Protagonista");
+                filmeService.associarDiretor(primeiro, diretor);
+                primeiro.setOrcamento(new BigDecimal("1500000"));
+                antesDoUltimo = estadoCatalogo(filmeService, atorService, diretorService);
+                filmeService.remover(segundo.getId());
+                esperado = estadoCatalogo(filmeService, atorService, diretorService);
+                if (log.getRegistros() == 0) {
+                    erros.add("nenhuma alteração foi registrada no log");
+                }
+            }
+            long tamanho = Files.size(arquivo);
+            
+            // Serviços vazios reabrindo o log devem chegar ao mesmo catálogo
+            if (!esperado.equals(recuperarCatalogo(arquivo, null))) {
+                erros.add("catálogo diferente depois de reaplicar o log");
+            }
+            
+            // Um registro incompleto no fim (queda no meio da gravação) é descartado e o arquivo volta ao tamanho válido
+            Files.write(arquivo, new byte[] {0, 0, 0, 50, 1, 2, 3}, StandardOpenOption.APPEND);
+            if (!esperado.equals(recuperarCatalogo(arquivo, null))) {
+                erros.add("catálogo diferente depois de um registro incompleto no fim");
+            }
+            if (Files.size(arquivo) != tamanho) {
+                erros.add("registro incompleto não foi cortado do arquivo");
+            }
+            
+            // Cortado no meio do último registro, o catálogo volta ao estado anterior a ele
+            try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.WRITE)) {
+                canal.truncate(tamanho - 3);
+            }
+            if (!antesDoUltimo.equals(recuperarCatalogo(arquivo, null))) {
+                erros.add("último registro cortado não foi descartado");
+            }
+        } catch (IOException | RuntimeException e) {
+            erros.add("erro no log: " + e);
+        } finally {
+            Diagnosticos.setDestino(diagnostico);
+            apagarDiretorio(diretorio);
+        }
+        System.out.println(erros.isEmpty() ? "Log de alterações: OK" : "Inconsistências: " + erros);
+    }
+    
+    private static void testarInstantaneo() {
+        System.out.println("Gravando um instantâneo no meio do log e recuperando os dois...");
+        List<String> erros = new ArrayList<>();
+        
+        IDiagnostico diagnostico = Diagnosticos.getDestino();
+        Diagnosticos.setDestino(null);
+        Path diretorio = null;
+        try {
+            diretorio = Files.createTempDirectory("catalogo-instantaneo");
+            Path arquivo = diretorio.resolve("catalogo.log");
+            Path instantaneo = diretorio.resolve("catalogo.instantaneo");
+            AtorService atorService = new AtorService();
+            DiretorService diretorService = new DiretorService();
+            FilmeService filmeService = new FilmeService(atorService, diretorService);
+            String esperado;
+            long geracao;
+            long registrosDepois;
+            try (LogAlteracoes log = LogAlteracoes.abrir(arquivo, instantaneo, filmeService, atorService, diretorService)) {
+                Ator ator = new Ator("Ator do Instantâneo");
+                atorService.cadastrar(ator);
+                Filme filme = new Filme("Filme do Instantâneo", LocalDate.of(2003, 3, 3));
+                filmeService.cadastrar(filme);
+                filmeService.associarAtor(filme, ator, "Narrador");
+                
+                InstantaneoCatalogo gravado = log.gravarInstantaneo(instantaneo);
+                geracao = log.getGeracao();
+                if (geracao != gravado.getGeracaoLog() + 1) {
+                    erros.add("log na geração " + geracao + " depois do instantâneo da geração " + gravado.getGeracaoLog());
+                }
+                long registrosAntes = log.getRegistros();
+                
+                // Alterações depois do instantâneo ficam só no log da geração nova
+                Filme outro = new Filme("Depois do Instantâneo", LocalDate.of(2004, 4, 4));
+                filmeService.cadastrar(outro);
+                filmeService.associarAtor(outro, ator, "Vilão");
+                filme.setNome("Filme Renomeado do Instantâneo");
+                registrosDepois = log.getRegistros() - registrosAntes;
+                esperado = estadoCatalogo(filmeService, atorService, diretorService);
+            }
+            
+            AtorService atoresRecuperados = new AtorService();
+            DiretorService diretoresRecuperados = new DiretorService();
+            FilmeService filmesRecuperados = new FilmeService(atoresRecuperados, diretoresRecuperados);
+            try (LogAlteracoes recuperado = LogAlteracoes.abrir(arquivo, instantaneo, filmesRecuperados,
+                    atoresRecuperados, diretoresRecuperados)) {
+                if (!esperado.equals(estadoCatalogo(filmesRecuperados, atoresRecuperados, diretoresRecuperados))) {
+                    erros.add("catálogo diferente depois de carregar o instantâneo e o log");
+                }
+                if (recuperado.getGeracao() != geracao || recuperado.getRegistrosRecuperados() != registrosDepois) {
+                    erros.add(recuperado.getRegistrosRecuperados() + " registro(s) reaplicados na geração "
+                            + recuperado.getGeracao() + ", esperados " + registrosDepois + " na " + geracao);
+                }
+            }
+            
+            // Sem o instantâneo, o log de uma geração posterior não pode ser reaplicado sozinho
+            try {
+                recuperarCatalogo(arquivo, diretorio.resolve("inexistente.instantaneo"));
+                erros.add("log da geração " + geracao + " aberto sem o instantâneo");
+            } catch (IOException e) {
+                // Esperado
+            }
+        } catch (IOException | RuntimeException e) {
+            erros.add("erro no instantâneo: " + e);
+        } finally {
+            Diagnosticos.setDestino(diagnostico);
+            apagarDiretorio(diretorio);
+        }
+        System.out.println(erros.isEmpty() ? "Instantâneo: OK" : "Inconsistências: " + erros);
+    }
+    
+    private static void testarRetratos() {
+        System.out.println("Alterando o catálogo com um retrato antigo aberto...");
+        List<String> erros = new ArrayList<>();
+        
+        IDiagnostico diagnostico = Diagnosticos.getDestino();
+        Diagnosticos.setDestino(null);
+        CatalogoMultiversao catalogo = null;
+        try {
+            AtorService atorService = new AtorService();
+            DiretorService diretorService = new DiretorService();
+            FilmeService filmeService = new FilmeService(atorService, diretorService);
+            Ator ator = new Ator("Ator do Retrato");
+            atorService.cadastrar(ator);
+            Filme renomeado = new Filme("Filme Original", LocalDate.of(2005, 5, 5));
+            Filme removido = new Filme("Filme Removido", LocalDate.of(2006, 6, 6));
+            filmeService.cadastrar(renomeado);
+            filmeService.cadastrar(removido);
+            catalogo = CatalogoMultiversao.acompanhar(filmeService, atorService, diretorService);
+            
+            try (RetratoCatalogo antigo = catalogo.abrirRetrato()) {
+                renomeado.setNome("Filme Renomeado");
+                filmeService.associarAtor(renomeado, ator, "Detetive");
+                filmeService.remover(removido.getId());
+                Filme novo = new Filme("Filme Novo", LocalDate.of(2007, 7, 7));
+                filmeService.cadastrar(novo);
+                
+                // O retrato antigo continua vendo o catálogo de quando foi aberto
+                Filme visto = antigo.buscarFilme(renomeado.getId());
+                if (visto == null || !"Filme Original".equals(visto.getNome())
+                        || !antigo.listarElenco(renomeado.getId()).isEmpty()) {
+                    erros.add("retrato antigo viu a alteração do filme");
+                }
+                if (antigo.buscarFilme(removido.getId()) == null || antigo.buscarFilme(novo.getId()) != null) {
+                    erros.add("retrato antigo viu a remoção ou o cadastro");
+                }
+                if (catalogo.contarVersoesAntigas() == 0) {
+                    erros.add("versões antigas descartadas com o retrato aberto");
+                }
+                
+                try (RetratoCatalogo atual = catalogo.abrirRetrato()) {
+                    visto = atual.buscarFilme(renomeado.getId());
+                    if (visto == null || !"Filme Renomeado".equals(visto.getNome())
+                            || atual.listarElenco(renomeado.getId()).size() != 1
+                            || atual.buscarFilme(removido.getId()) != null || atual.buscarFilme(novo.getId()) == null) {
+                        erros.add("retrato novo não viu as alterações");
+                    }
+                }
+            }
+            
+            // Fechados os retratos, as versões antigas não são mais necessárias
+            if (catalogo.getRetratosAbertos() != 0 || catalogo.contarVersoesAntigas() != 0) {
+                erros.add(catalogo.getRetratosAbertos() + " retrato(s) aberto(s) e " + catalogo.contarVersoesAntigas()
+                        + " versão(ões) antiga(s) depois de fechar todos");
+            }
+        } catch (RuntimeException e) {
+            erros.add("erro nos retratos: " + e);
+        } finally {
+            Diagnosticos.setDestino(diagnostico);
+            if (catalogo != null) {
+                catalogo.encerrar();
+            }
+        }
+        System.out.println(erros.isEmpty() ? "Retratos: OK" : "Inconsistências: " + erros);
+    }
+    
+    private static void testarTransacoes() {
+        System.out.println("Confirmando transações com alteração recusada e com conflito...");
+        List<String> erros = new ArrayList<>();
+        
+        IDiagnostico diagnostico = Diagnosticos.getDestino();
+        Diagnosticos.setDestino(null);
+        TransacoesCatalogo transacoes = null;
+        try {
+            AtorService atorService = new AtorService();
+            DiretorService diretorService = new DiretorService();
+            FilmeService filmeService = new FilmeService(atorService, diretorService);
+            Diretor diretor = new Diretor("Diretor da Transação");
+            diretor.setNacionalidade("Brasileira");
+            diretor.setEstilo("Suspense");
+            diretorService.cadastrar(diretor);
+            Filme filme = new Filme("Filme da Transação", LocalDate.of(2008, 8, 8));
+            filmeService.cadastrar(filme);
+            filmeService.associarDiretor(filme, diretor);
+            List<Ator> atores = new ArrayList<>();
+            for (int i = 1; i <= 3; i++) {
+                Ator ator = new Ator("Ator da Transação " + i);
+                atorService.cadastrar(ator);
+                filmeService.associarAtor(filme, ator, "Papel " + i);
+                atores.add(ator);
+            }
+            transacoes = TransacoesCatalogo.acompanhar(filmeService, atorService, diretorService);
+            String antes = estadoCatalogo(filmeService, atorService, diretorService);
+            
+            // A última alteração é recusada (ator repetido): as anteriores são desfeitas e o elenco volta na mesma ordem
+            TransacaoCatalogo recusada = transacoes.iniciar();
+            recusada.removerAtor(atores.get(1).getId())
+                    .removerDiretor(diretor.getId())
+                    .associarAtor(recusada.buscarFilme(filme.getId()), atores.get(0), null);
+            ResultadoOperacao resultado = recusada.confirmar();
+            if (resultado.isSucesso() || recusada.teveConflito() || transacoes.getDesfeitas() != 1) {
+                erros.add("transação com alteração recusada não foi desfeita: " + resultado.getMensagem());
+            }
+            if (!antes.equals(estadoCatalogo(filmeService, atorService, diretorService))) {
+                erros.add("catálogo diferente depois de desfazer a transação");
+            }
+            
+            // O filme muda fora da transação depois de lido: a confirmação é recusada sem alterar nada
+            TransacaoCatalogo atrasada = transacoes.iniciar();
+            atrasada.definirPersonagem(atrasada.buscarFilme(filme.getId()), atores.get(0), "Papel Atrasado");
+            filme.setDescricao("Alterado fora da transação");
+            resultado = atrasada.confirmar();
+            if (resultado.isSucesso() || !atrasada.teveConflito() || transacoes.getConflitos() != 1) {
+                erros.add("conflito não detectado: " + resultado.getMensagem());
+            }
+            
+            // executar repete o corpo numa transação nova até confirmar
+            resultado = transacoes.executar(transacao -> transacao.definirPersonagem(
+                    transacao.buscarFilme(filme.getId()), transacao.buscarAtor(atores.get(0).getId()), "Papel Novo"));
+            FilmeAtor papel = filmeService.listarElenco(filme.getId()).get(0);
+            if (!resultado.isSucesso() || !"Papel Novo".equals(papel.getPersonagem()) || transacoes.getConfirmadas() != 1) {
+                erros.add("transação repetida não foi confirmada: " + resultado.getMensagem());
+            }
+        } catch (RuntimeException e) {
+            erros.add("erro nas transações: " + e);
+        } finally {
+            Diagnosticos.setDestino(diagnostico);
+            if (transacoes != null) {
+                transacoes.encerrar();
+            }
+        }
+        System.out.println(erros.isEmpty() ? "Transações: OK" : "Inconsistências: " + erros);
+    }
+    
+    // Abre o log (e o instantâneo, se houver) em serviços novos e devolve o catálogo recuperado
+    private static String recuperarCatalogo(Path log, Path instantaneo) throws IOException {
+        AtorService atorService = new AtorService();
+        DiretorService diretorService = new DiretorService();
+        FilmeService filmeService = new FilmeService(atorService, diretorService);
+        LogAlteracoes recuperado = LogAlteracoes.abrir(log, instantaneo, filmeService, atorService, diretorService);
+        try {
+            return estadoCatalogo(filmeService, atorService, diretorService);
+        } finally {
+            recuperado.close();
+        }
+    }
+    
+    // Resume o catálogo em ordem de ID: dois catálogos iguais dão o mesmo texto, mesmo com as listagens em outra ordem
+    private static String estadoCatalogo(FilmeService filmeService, AtorService atorService, DiretorService diretorService) {
+        StringBuilder estado = new StringBuilder();
+        List<Ator> atores = new ArrayList<>(atorService.listarTodos());
+        atores.sort(Comparator.comparing(Ator::getId));
+        for (Ator ator : atores) {
+            estado.append("ator ").append(ator.getId()).append(' ').append(ator.getNome()).append(' ')
+                  .append(ator.getIdade()).append(' ').append(ator.getNacionalidade()).append('\n');
+        }
+        List<Diretor> diretores = new ArrayList<>(diretorService.listarTodos());
+        diretores.sort(Comparator.comparing(Diretor::getId));
+        for (Diretor diretor : diretores) {
+            estado.append("diretor ").append(diretor.getId()).append(' ').append(diretor.getNome()).append(' ')
+                  .append(diretor.getEstilo()).append('\n');
+        }
+        List<Filme> filmes = new ArrayList<>(filmeService.listarTodos());
+        filmes.sort(Comparator.comparing(Filme::getId));
+        for (Filme filme : filmes) {
+            estado.append("filme ").append(filme.getId()).append(' ').append(filme.getNome()).append(' ')
+                  .append(filme.getDataLancamento()).append(' ').append(filme.getOrcamento()).append(' ')
+                  .append(filme.getDiretor() != null ? filme.getDiretor().getId() : "-");
+            for (FilmeAtor papel : filmeService.listarElenco(filme.getId())) {
+                estado.append(' ').append(papel.getAtorId()).append(':').append(papel.getPersonagem());
+            }
+            estado.append('\n');
+        }
+        return estado.toString();
+    }
+    
+    private static void apagarDiretorio(Path diretorio) {
+        if (diretorio == null) {
+            return;
+        }
+        try (Stream<Path> arquivos = Files.walk(diretorio)) {
+            arquivos.sorted(Comparator.reverseOrder()).forEach(arquivo -> arquivo.toFile().delete());
+        } catch (IOException e) {
+            // Diretório temporário: o que não puder ser apagado fica para o sistema
+        }
+    }
+    
+    private static List<String> verificarConsistencia(FilmeService filmeService, List<Ator> atores, int totalEsperado) {
+        List<String> erros = new ArrayList<>();
+        List<Filme> filmes = filmeService.listarTodos();
+        if (filmes.size() != totalEsperado) {
+            erros.add("esperados " + totalEsperado + " filmes, encontrados " + filmes.size());
+        }
+        
+        Set<Integer> ids = new HashSet<>();
+        for (Filme filme : filmes) {
+            if (!ids.add(filme.getId())) {
+                erros.add("ID repetido: " + filme.getId());
+            }
+            Set<Integer> elenco = new HashSet<>();
+            for (FilmeAtor papel : filmeService.listarElenco(filme.getId())) {
+                elenco.add(papel.getAtorId());
+            }
+            for (Ator ator : atores) {
+                boolean esperado = (filme.getId() + ator.getId()) % 3 != 0;
+                if (elenco.contains(ator.getId()) != esperado || filme.temAtor(ator) != esperado
+                        || ator.temFilme(filme) != esperado) {
+                    erros.add("filme " + filme.getId() + " / ator " + ator.getId());
+                }
+            }
+        }
+        
+        for (Ator ator : atores) {
+            if (filmeService.buscarPorAtor(ator).size() != ator.contarFilmes()) {
+                erros.add("filmografia do ator " + ator.getId());
+            }
+        }
+        return erros;
+    }
+}
@@ -0,0 +1,195 @@
+package benchmark;
+
+import interfaces.IArmazenamento;
+import model.Ator;
+import model.Diretor;
+import model.Filme;
+import repository.ArmazenamentoColunarFilmes;
+import repository.ArmazenamentoForaDoHeapFilmes;
+import repository.RepositorioEntidades;
+import service.AtorService;
+import service.DiretorService;
+import service.FilmeService;
+import service.ModoArmazenamento;
+import util.MapaIntObjeto;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Arrays;
+
+/**
+ * Classe BenchmarkArmazenamento - Memória e tempo de consulta de cada ModoArmazenamento
+ *
+ * Para cada modo e tamanho monta o mesmo acervo sintético (como o
+ * BenchmarkCatalogo), descarta as referências aos filmes e mede o heap ocupado
+ * depois de um GC completo. O número inclui os índices do serviço, que são os
+ * mesmos em todos os modos; a diferença entre as linhas é o que o modo economiza.
+ * A coluna "fora MB" é a memória direta (ByteBuffer.allocateDirect) reservada,
+ * usada pelo modo FORA_DO_HEAP. A coluna "armaz. B/filme" mede só o
+ * armazenamento: os mesmos filmes, já com diretor e elenco, num armazenamento
+ * avulso, sem os índices do serviço nem as filmografias dos atores (heap e
+ * memória direta somados). Também mede buscarPorId e a listagem completa.
+ *
+ * Uso: java -cp out benchmark.BenchmarkArmazenamento [tamanhos...]
+ * Sem argumentos mede 100.000 e 1.000.000 filmes.
+ */
+public class BenchmarkArmazenamento {
+
+    private static final int[] TAMANHOS_PADRAO = {100_000, 1_000_000};
+    private static final int OPERACOES = 100_000;
+    private static final int ATORES_POR_FILME = 3;
+
+    // Consome os resultados das consultas para o JIT não eliminá-las
+    private static volatile long sumidouro;
+
+    public static void main(String[] args) {
+        int[] tamanhos = TAMANHOS_PADRAO;
+        if (args.length > 0) {
+            tamanhos = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                tamanhos[i] = Integer.parseInt(args[i].replace("_", ""));
+            }
+        }
+
+        System.out.printf("%-12s %12s %10s %10s %12s %15s %16s %10s%n", "modo", "filmes", "heap MB", "fora MB",
+                "bytes/filme", "armaz. B/filme", "buscarPorId ns", "listar ms");
+        for (int tamanho : tamanhos) {
+            for (ModoArmazenamento modo : ModoArmazenamento.values()) {
+                executar(modo, tamanho);
+            }
+        }
+    }
+
+    private static void executar(ModoArmazenamento modo, int tamanho) {
+        MemoryMXBean memoria = ManagementFactory.getMemoryMXBean();
+        long antes = heapOcupado(memoria);
+        long foraAntes = memoriaDireta();
+
+        GeradorDados gerador = new GeradorDados(42);
+        AtorService atorService = new AtorService();
+        DiretorService diretorService = new DiretorService();
+        FilmeService filmeService = new FilmeService(atorService, diretorService, modo);
+        Ator[] atores = new Ator[Math.max(10, tamanho / 10)];
+        for (int i = 0; i < atores.length; i++) {
+            atores[i] = gerador.ator(i);
+        }
+        atorService.importar(Arrays.stream(atores));
+        Diretor[] diretores = new Diretor[Math.max(5, tamanho / 100)];
+        for (int i = 0; i < diretores.length; i++) {
+            diretores[i] = gerador.diretor(i);
+        }
+        diretorService.importar(Arrays.stream(diretores));
+        Filme[] filmes = new Filme[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            filmes[i] = gerador.filme(i);
+        }
+        filmeService.importar(Arrays.stream(filmes));
+        int[] ids = new int[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            ids[i] = filmes[i].getId();
+            filmeService.associarDiretor(filmes[i], diretores[gerador.inteiro(diretores.length)]);
+            for (int a = 0; a < ATORES_POR_FILME; a++) {
+                filmeService.associarAtor(filmes[i], atores[gerador.inteiro(atores.length)]);
+            }
+            filmes[i] = null;
+        }
+        filmes = null;
+        atores = null;
+        diretores = null;
+
+        long ocupado = heapOcupado(memoria) - antes;
+        long fora = memoriaDireta() - foraAntes;
+
+        int[] consultados = new int[OPERACOES];
+        for (int i = 0; i < OPERACOES; i++) {
+            consultados[i] = ids[gerador.inteiro(tamanho)];
+        }
+        long soma = 0;
+        long melhorBusca = Long.MAX_VALUE;
+        for (int repeticao = 0; repeticao < 5; repeticao++) {
+            long inicio = System.nanoTime();
+            for (int id : consultados) {
+                soma += filmeService.buscarPorId(id).getDataLancamento().getYear();
+            }
+            melhorBusca = Math.min(melhorBusca, System.nanoTime() - inicio);
+        }
+        long melhorListagem = Long.MAX_VALUE;
+        for (int repeticao = 0; repeticao < 3; repeticao++) {
+            long inicio = System.nanoTime();
+            soma += filmeService.listarTodos().size();
+            melhorListagem = Math.min(melhorListagem, System.nanoTime() - inicio);
+        }
+
+        sumidouro = soma;
+        filmeService = null;
+        long armazenamento = bytesDoArmazenamento(modo, tamanho);
+
+        System.out.printf("%-12s %,12d %,10.1f %,10.1f %,12d %,15d %,16d %,10d%n", modo, tamanho, ocupado / 1e6,
+                fora / 1e6, (ocupado + fora) / tamanho, armazenamento / tamanho, melhorBusca / OPERACOES,
+                melhorListagem / 1_000_000);
+    }
+
+    private static long bytesDoArmazenamento(ModoArmazenamento modo, int tamanho) {
+        GeradorDados gerador = new GeradorDados(42);
+        MapaIntObjeto<Ator> atores = new MapaIntObjeto<>();
+        Ator[] elenco = new Ator[Math.max(10, tamanho / 10)];
+        for (int i = 0; i < elenco.length; i++) {
+            elenco[i] = gerador.ator(i);
+            atores.inserir(elenco[i].getId(), elenco[i]);
+        }
+        MapaIntObjeto<Diretor> diretores = new MapaIntObjeto<>();
+        Diretor[] direcao = new Diretor[Math.max(5, tamanho / 100)];
+        for (int i = 0; i < direcao.length; i++) {
+            direcao[i] = gerador.diretor(i);
+            diretores.inserir(direcao[i].getId(), direcao[i]);
+        }
+
+        MemoryMXBean memoria = ManagementFactory.getMemoryMXBean();
+        long antes = heapOcupado(memoria);
+        long foraAntes = memoriaDireta();
+        IArmazenamento<Filme> armazenamento;
+        if (modo == ModoArmazenamento.COLUNAR) {
+            armazenamento = new ArmazenamentoColunarFilmes(atores::buscar, diretores::buscar, null);
+        } else if (modo == ModoArmazenamento.FORA_DO_HEAP) {
+            armazenamento = new ArmazenamentoForaDoHeapFilmes(atores::buscar, diretores::buscar, null);
+        } else {
+            armazenamento = new RepositorioEntidades<>(Filme::getId);
+        }
+        for (int i = 0; i < tamanho; i++) {
+            Filme filme = gerador.filme(i);
+            filme.setId(i + 1);
+            filme.setDiretor(direcao[gerador.inteiro(direcao.length)]);
+            int primeiro = gerador.inteiro(elenco.length);
+            for (int a = 0; a < ATORES_POR_FILME; a++) {
+                filme.adicionarAtor(elenco[(primeiro + a) % elenco.length]);
+            }
+            armazenamento.adicionar(filme);
+        }
+        long ocupado = heapOcupado(memoria) - antes + memoriaDireta() - foraAntes;
+        sumidouro += armazenamento.tamanho();
+        return ocupado;
+    }
+
+    // Repete o GC até o heap parar de diminuir: as referências fracas e os buffers diretos
+    // de uma medição anterior são liberados por outras threads, depois do GC que os encontrou
+    private static long heapOcupado(MemoryMXBean memoria) {
+        long anterior = Long.MAX_VALUE;
+        long ocupado = memoria.getHeapMemoryUsage().getUsed() + memoriaDireta();
+        for (int i = 0; i < 20 && (i < 3 || ocupado < anterior); i++) {
+            System.gc();
+            anterior = ocupado;
+            ocupado = memoria.getHeapMemoryUsage().getUsed() + memoriaDireta();
+        }
+        return memoria.getHeapMemoryUsage().getUsed();
+    }
+
+    private static long memoriaDireta() {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                return pool.getMemoryUsed();
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,140 @@
+package benchmark;
+
+import controller.CatalogoController;
+import model.Ator;
+import model.Diretor;
+import model.Filme;
+import service.AtorService;
+import service.DiretorService;
+import service.FilmeService;
+
+import java.util.Arrays;
+
+/**
+ * Classe BenchmarkCatalogo - Tempos aproximados das consultas e cadastros dos serviços e do controller
+ *
+ * Para cada tamanho de catálogo monta um acervo sintético (com atores, diretores
+ * e elenco) e cronometra com o Medidor algumas consultas e cadastros de
+ * FilmeService e métodos *String do CatalogoController. São tempos indicativos
+ * (veja o Medidor), não uma medição rigorosa. As mensagens de diagnóstico ficam no destino
+ * padrão (DiagnosticoNulo), então nenhuma é montada durante as medições.
+ *
+ * Uso: java -cp out benchmark.BenchmarkCatalogo [tamanhos...]
+ * Sem argumentos mede 1.000, 10.000 e 100.000 filmes. Catálogos de milhões
+ * de filmes precisam de um heap maior (por exemplo -Xmx16g para 10.000.000).
+ */
+public class BenchmarkCatalogo {
+
+    private static final int[] TAMANHOS_PADRAO = {1_000, 10_000, 100_000};
+    private static final int OPERACOES = 10_000;
+    private static final int ITERACOES_AQUECIMENTO = 5;
+    private static final int ITERACOES = 10;
+    private static final int ATORES_POR_FILME = 3;
+    private static final int TAMANHO_PAGINA = 50;
+
+    public static void main(String[] args) {
+        int[] tamanhos = TAMANHOS_PADRAO;
+        if (args.length > 0) {
+            tamanhos = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                tamanhos[i] = Integer.parseInt(args[i].replace("_", ""));
+            }
+        }
+
+        Medidor medidor = new Medidor(ITERACOES_AQUECIMENTO, ITERACOES, System.out);
+        for (int tamanho : tamanhos) {
+            executar(tamanho, medidor);
+        }
+    }
+
+    private static void executar(int tamanho, Medidor medidor) {
+        GeradorDados gerador = new GeradorDados(42);
+        AtorService atorService = new AtorService();
+        DiretorService diretorService = new DiretorService();
+        FilmeService filmeService = new FilmeService(atorService, diretorService);
+        CatalogoController controller = new CatalogoController(filmeService, atorService, diretorService);
+
+        long inicio = System.nanoTime();
+        Ator[] atores = new Ator[Math.max(10, tamanho / 10)];
+        for (int i = 0; i < atores.length; i++) {
+            atores[i] = gerador.ator(i);
+        }
+        atorService.importar(Arrays.stream(atores));
+        Diretor[] diretores = new Diretor[Math.max(5, tamanho / 100)];
+        for (int i = 0; i < diretores.length; i++) {
+            diretores[i] = gerador.diretor(i);
+        }
+        diretorService.importar(Arrays.stream(diretores));
+        Filme[] filmes = new Filme[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            filmes[i] = gerador.filme(i);
+        }
+        long inicioImportacao = System.nanoTime();
+        filmeService.importar(Arrays.stream(filmes));
+        long importacaoNs = System.nanoTime() - inicioImportacao;
+        for (int i = 0; i < tamanho; i++) {
+            filmeService.associarDiretor(filmes[i], diretores[gerador.inteiro(diretores.length)]);
+            for (int a = 0; a < ATORES_POR_FILME; a++) {
+                filmeService.associarAtor(filmes[i], atores[gerador.inteiro(atores.length)]);
+            }
+        }
+        long montagemMs = (System.nanoTime() - inicio) / 1_000_000;
+
+        // As entradas das consultas são sorteadas antes, fora da medição
+        Filme[] filmesConsultados = new Filme[OPERACOES];
+        Ator[] atoresConsultados = new Ator[OPERACOES];
+        String[] trechos = new String[OPERACOES];
+        for (int i = 0; i < OPERACOES; i++) {
+            filmesConsultados[i] = filmes[gerador.inteiro(tamanho)];
+            atoresConsultados[i] = atores[gerador.inteiro(atores.length)];
+            trechos[i] = gerador.trecho();
+        }
+        int operacoesLineares = Math.max(1, Math.min(OPERACOES, 10_000_000 / tamanho));
+
+        medidor.cabecalho(String.format("Catálogo com %,d filmes, %,d atores e %,d diretores (montado em %,d ms, "
+                        + "importação a %,.0f filmes/s)",
+                tamanho, atores.length, diretores.length, montagemMs, tamanho * 1e9 / importacaoNs));
+
+        medidor.medir("FilmeService.buscarPorId", OPERACOES,
+                i -> filmeService.buscarPorId(filmesConsultados[i].getId()));
+        medidor.medir("FilmeService.buscarPorNome", OPERACOES,
+                i -> filmeService.buscarPorNome(filmesConsultados[i].getNome()));
+        medidor.medir("FilmeService.buscarPorNomeParcial", operacoesLineares,
+                i -> filmeService.buscarPorNomeParcial(trechos[i]));
+        medidor.medir("FilmeService.listarOrdenadoPorNome(0, 50)", OPERACOES,
+                i -> filmeService.listarOrdenadoPorNome(0, TAMANHO_PAGINA));
+        medidor.medir("FilmeService.listarOrdenadoPorNomeApos", OPERACOES,
+                i -> filmeService.listarOrdenadoPorNomeApos(filmesConsultados[i], TAMANHO_PAGINA));
+        medidor.medir("FilmeService.listarOrdenadoPorNome", operacoesLineares,
+                i -> filmeService.listarOrdenadoPorNome());
+        medidor.medir("FilmeService.buscarPorAtor", OPERACOES,
+                i -> filmeService.buscarPorAtor(atoresConsultados[i]));
+
+        medidor.medir("CatalogoController.visualizarDetalhesFilme", OPERACOES,
+                i -> controller.visualizarDetalhesFilmeString(filmesConsultados[i].getId()));
+        medidor.medir("CatalogoController.buscarAtorPorId", OPERACOES,
+                i -> controller.buscarAtorPorIdString(atoresConsultados[i].getId()));
+        medidor.medir("CatalogoController.pesquisarFilmePorNome", OPERACOES,
+                i -> controller.pesquisarFilmePorNomeString(filmesConsultados[i].getNome()));
+        medidor.medir("CatalogoController.autocompletar", OPERACOES,
+                i -> controller.autocompletarString(trechos[i], 10));
+        medidor.medir("CatalogoController.listarFilmes", operacoesLineares,
+                i -> controller.listarFilmesString());
+
+        // Os cadastros ficam por último porque aumentam o catálogo; cada execução usa um filme novo
+        int execucoes = (ITERACOES_AQUECIMENTO + ITERACOES) * OPERACOES;
+        Filme[] novos = new Filme[execucoes];
+        String[] nomesNovos = new String[execucoes];
+        for (int i = 0; i < execucoes; i++) {
+            novos[i] = gerador.filme(tamanho + i);
+            nomesNovos[i] = gerador.nomeFilme(tamanho + execucoes + i);
+        }
+        int[] proximo = {0, 0, 0};
+        medidor.medir("FilmeService.cadastrar", OPERACOES,
+                i -> filmeService.cadastrar(novos[proximo[0]++]));
+        medidor.medir("CatalogoController.cadastrarFilme", OPERACOES,
+                i -> controller.cadastrarFilmeString(nomesNovos[proximo[1]++], "2001-01-01", "1000000", null));
+        medidor.medir("CatalogoController.associarAtorFilme", OPERACOES,
+                i -> controller.associarAtorFilmeString(novos[proximo[2]++].getId(), atoresConsultados[i].getId()));
+    }
+}
@@ -0,0 +1,115 @@
+package benchmark;
+
+import model.Ator;
+import model.Diretor;
+import model.Filme;
+import persistencia.InstantaneoCatalogo;
+import service.AtorService;
+import service.DiretorService;
+import service.FilmeService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Classe BenchmarkInstantaneo - Tempo de gravação e de carga do InstantaneoCatalogo
+ *
+ * Para cada tamanho de catálogo monta um acervo sintético (como o
+ * BenchmarkCatalogo), grava o instantâneo num arquivo temporário e o carrega
+ * em serviços novos, algumas vezes, informando o melhor tempo de cada um.
+ *
+ * Uso: java -cp out benchmark.BenchmarkInstantaneo [tamanhos...]
+ * Sem argumentos mede 10.000, 100.000 e 1.000.000 filmes. O catálogo original
+ * é descartado antes das cargas, então só um catálogo fica no heap por vez.
+ */
+public class BenchmarkInstantaneo {
+
+    private static final int[] TAMANHOS_PADRAO = {10_000, 100_000, 1_000_000};
+    private static final int REPETICOES = 3;
+    private static final int ATORES_POR_FILME = 3;
+
+    public static void main(String[] args) throws IOException {
+        int[] tamanhos = TAMANHOS_PADRAO;
+        if (args.length > 0) {
+            tamanhos = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                tamanhos[i] = Integer.parseInt(args[i].replace("_", ""));
+            }
+        }
+
+        System.out.printf("%12s %12s %12s %14s %12s %14s%n", "filmes", "associações", "arquivo MB",
+                "gravação ms", "carga ms", "carga filmes/s");
+        Path arquivo = Files.createTempFile("catalogo", ".inst");
+        try {
+            for (int tamanho : tamanhos) {
+                executar(tamanho, arquivo);
+            }
+        } finally {
+            Files.deleteIfExists(arquivo);
+        }
+    }
+
+    private static void executar(int tamanho, Path arquivo) throws IOException {
+        long[] gravacao = montarEGravar(tamanho, arquivo);
+
+        long melhorCarga = Long.MAX_VALUE;
+        for (int i = 0; i < REPETICOES; i++) {
+            AtorService atorService = new AtorService();
+            DiretorService diretorService = new DiretorService();
+            FilmeService filmeService = new FilmeService(atorService, diretorService);
+            long inicio = System.nanoTime();
+            InstantaneoCatalogo.carregar(arquivo, filmeService, atorService, diretorService);
+            melhorCarga = Math.min(melhorCarga, System.nanoTime() - inicio);
+            if (filmeService.contarFilmes() != tamanho) {
+                throw new IllegalStateException("Instantâneo carregou " + filmeService.contarFilmes() + " filmes");
+            }
+        }
+
+        System.out.printf("%,12d %,12d %,12.1f %,14d %,12d %,14.0f%n", tamanho, gravacao[1],
+                Files.size(arquivo) / 1e6, gravacao[0] / 1_000_000, melhorCarga / 1_000_000,
+                tamanho * 1e9 / melhorCarga);
+    }
+
+    // Monta o catálogo sintético e grava o instantâneo; devolve o melhor tempo (ns) e o número de associações
+    private static long[] montarEGravar(int tamanho, Path arquivo) throws IOException {
+        GeradorDados gerador = new GeradorDados(42);
+        AtorService atorService = new AtorService();
+        DiretorService diretorService = new DiretorService();
+        FilmeService filmeService = new FilmeService(atorService, diretorService);
+
+        Ator[] atores = new Ator[Math.max(10, tamanho / 10)];
+        for (int i = 0; i < atores.length; i++) {
+            atores[i] = gerador.ator(i);
+        }
+        atorService.importar(Arrays.stream(atores));
+        Diretor[] diretores = new Diretor[Math.max(5, tamanho / 100)];
+        for (int i = 0; i < diretores.length; i++) {
+            diretores[i] = gerador.diretor(i);
+        }
+        diretorService.importar(Arrays.stream(diretores));
+        Filme[] filmes = new Filme[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            filmes[i] = gerador.filme(i);
+        }
+        filmeService.importar(Arrays.stream(filmes));
+        for (int i = 0; i < tamanho; i++) {
+            filmeService.associarDiretor(filmes[i], diretores[gerador.inteiro(diretores.length)]);
+            for (int a = 0; a < ATORES_POR_FILME; a++) {
+                filmeService.associarAtor(filmes[i], atores[gerador.inteiro(atores.length)],
+                        a == 0 ? gerador.trecho() : null);
+            }
+        }
+        filmes = null;
+
+        long melhorGravacao = Long.MAX_VALUE;
+        InstantaneoCatalogo retrato = null;
+        for (int i = 0; i < REPETICOES; i++) {
+            long inicio = System.nanoTime();
+            retrato = InstantaneoCatalogo.gravar(arquivo, filmeService, atorService, diretorService);
+            melhorGravacao = Math.min(melhorGravacao, System.nanoTime() - inicio);
+        }
+        return new long[]{melhorGravacao, retrato.getAssociacoes()};
+    }
+}
@@ -0,0 +1,104 @@
+package benchmark;
+
+import consulta.ConsultaFilmes;
+import model.Filme;
+import service.FilmeService;
+import util.VarreduraParalela;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.function.IntSupplier;
+
+/**
+ * Classe BenchmarkVarredura - Escalabilidade das varreduras completas com o número de threads
+ *
+ * Monta um catálogo só de filmes e mede, para 1, 2, 4... threads (até os
+ * processadores disponíveis), duas buscas que nenhum índice resolve:
+ * buscarPorNomeParcial com duas letras (confere todos os nomes) e uma
+ * ConsultaFilmes com faixas de data e orçamento que cobrem quase o catálogo
+ * inteiro (o planejador percorre todos os filmes). Informa o melhor tempo, a
+ * aceleração em relação a uma thread e a aceleração que a própria varredura
+ * mediu (CPU dos trechos / tempo total) com a decisão de continuar dividindo.
+ * Numa máquina de um processador mede também 2 threads, para mostrar a
+ * varredura voltando a ser sequencial.
+ *
+ * Uso: java -Xmx... -cp out benchmark.BenchmarkVarredura [tamanhos...]
+ * Sem argumentos mede 1.000.000 filmes; 10.000.000 precisa de um heap de ~20 GB.
+ */
+public class BenchmarkVarredura {
+
+    private static final int[] TAMANHOS_PADRAO = {1_000_000};
+    private static final int REPETICOES = 5;
+
+    private static volatile int sumidouro;
+
+    public static void main(String[] args) {
+        int[] tamanhos = TAMANHOS_PADRAO;
+        if (args.length > 0) {
+            tamanhos = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                tamanhos[i] = Integer.parseInt(args[i].replace("_", ""));
+            }
+        }
+
+        System.out.printf("%12s %8s %16s %10s %8s %16s %10s %8s %10s%n", "filmes", "threads", "nome parcial ms",
+                "aceleração", "medida", "consulta ms", "aceleração", "medida", "dividindo");
+        for (int tamanho : tamanhos) {
+            executar(tamanho);
+        }
+    }
+
+    private static void executar(int tamanho) {
+        GeradorDados gerador = new GeradorDados(42);
+        FilmeService filmeService = new FilmeService();
+        Filme[] filmes = new Filme[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            filmes[i] = gerador.filme(i);
+        }
+        filmeService.importar(Arrays.stream(filmes));
+        filmes = null;
+
+        ConsultaFilmes consulta = ConsultaFilmes.filmes()
+                .lancadosEntre(LocalDate.of(1951, 1, 1), null)
+                .comOrcamentoEntre(BigDecimal.valueOf(1_000_000), null);
+        VarreduraParalela varredura = filmeService.getVarredura();
+        int maximo = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+        long baseNome = 0;
+        long baseConsulta = 0;
+        for (int threads = 1; threads <= maximo; threads = proximo(threads, maximo)) {
+            varredura.setParalelismo(threads);
+            long nome = melhorTempo(() -> filmeService.buscarPorNomeParcial("ra").size());
+            double medidaNome = varredura.getAceleracaoMedida();
+            long busca = melhorTempo(() -> filmeService.buscar(consulta).size());
+            double medidaConsulta = varredura.getAceleracaoMedida();
+            if (threads == 1) {
+                baseNome = nome;
+                baseConsulta = busca;
+            }
+            System.out.printf("%,12d %8d %,16d %10.2f %8s %,16d %10.2f %8s %10s%n", tamanho, threads,
+                    nome / 1_000_000, (double) baseNome / nome, formatar(medidaNome), busca / 1_000_000,
+                    (double) baseConsulta / busca, formatar(medidaConsulta),
+                    varredura.dividiria(tamanho) ? "sim" : "não");
+        }
+    }
+
+    private static String formatar(double aceleracao) {
+        return Double.isNaN(aceleracao) ? "-" : String.format("%.2f", aceleracao);
+    }
+
+    private static int proximo(int threads, int maximo) {
+        return threads == maximo ? maximo + 1 : Math.min(threads * 2, maximo);
+    }
+
+    private static long melhorTempo(IntSupplier operacao) {
+        long melhor = Long.MAX_VALUE;
+        for (int i = 0; i < REPETICOES; i++) {
+            long inicio = System.nanoTime();
+            sumidouro = operacao.getAsInt();
+            melhor = Math.min(melhor, System.nanoTime() - inicio);
+        }
+        return melhor;
+    }
+}
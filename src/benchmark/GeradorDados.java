@@ -0,0 +1,91 @@
+package benchmark;
+
+import model.Ator;
+import model.Diretor;
+import model.Filme;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Classe GeradorDados - Gera filmes, atores e diretores sintéticos para os benchmarks
+ *
+ * Os nomes combinam palavras de uma lista fixa com o número do registro em base 36,
+ * então são únicos e ainda têm trechos em comum para as buscas parciais. A mesma
+ * semente sempre gera os mesmos dados.
+ */
+public class GeradorDados {
+
+    private static final String[] PALAVRAS = {
+            "Noite", "Estrela", "Cidade", "Guerra", "Amor", "Sombra", "Mar", "Destino",
+            "Fogo", "Vento", "Segredo", "Jornada", "Caminho", "Tempo", "Sonho", "Lenda",
+            "Silencio", "Ouro", "Tempestade", "Horizonte", "Ultimo", "Perdido", "Grande", "Eterno"
+    };
+    private static final String[] PRENOMES = {
+            "Ana", "Bruno", "Carla", "Diego", "Elisa", "Felipe", "Gabriela", "Hugo",
+            "Isabela", "Joao", "Larissa", "Marcos", "Natalia", "Otavio", "Paula", "Rafael"
+    };
+    private static final String[] SOBRENOMES = {
+            "Silva", "Souza", "Costa", "Santos", "Oliveira", "Pereira", "Lima", "Carvalho",
+            "Ferreira", "Almeida", "Ribeiro", "Gomes", "Martins", "Rocha", "Barros", "Freitas"
+    };
+    private static final String[] NACIONALIDADES = {"Brasileira", "Estadunidense", "Britânica", "Francesa", "Japonesa"};
+    private static final String[] ESTILOS = {"Drama", "Ação", "Comédia", "Suspense", "Documentário"};
+    private static final LocalDate PRIMEIRA_DATA = LocalDate.of(1950, 1, 1);
+    private static final int DIAS = 70 * 365;
+
+    private final Random aleatorio;
+
+    public GeradorDados(long semente) {
+        this.aleatorio = new Random(semente);
+    }
+
+    public String nomeFilme(int numero) {
+        return palavra() + " " + palavra() + " " + Integer.toString(numero, 36);
+    }
+
+    public Filme filme(int numero) {
+        Filme filme = new Filme(nomeFilme(numero), PRIMEIRA_DATA.plusDays(aleatorio.nextInt(DIAS)));
+        filme.setOrcamento(BigDecimal.valueOf(100_000L + aleatorio.nextInt(300_000_000)));
+        return filme;
+    }
+
+    public Ator ator(int numero) {
+        Ator ator = new Ator(nomePessoa(numero));
+        ator.setIdade(18 + aleatorio.nextInt(60));
+        ator.setNacionalidade(NACIONALIDADES[aleatorio.nextInt(NACIONALIDADES.length)]);
+        return ator;
+    }
+
+    public Diretor diretor(int numero) {
+        Diretor diretor = new Diretor(nomePessoa(numero));
+        diretor.setIdade(21 + aleatorio.nextInt(60));
+        diretor.setNacionalidade(NACIONALIDADES[aleatorio.nextInt(NACIONALIDADES.length)]);
+        diretor.setEstilo(ESTILOS[aleatorio.nextInt(ESTILOS.length)]);
+        return diretor;
+    }
+
+    /**
+     * @return um trecho de três a cinco letras de uma das palavras usadas nos nomes
+     */
+    public String trecho() {
+        String palavra = palavra();
+        int tamanho = Math.min(palavra.length(), 3 + aleatorio.nextInt(3));
+        int inicio = aleatorio.nextInt(palavra.length() - tamanho + 1);
+        return palavra.substring(inicio, inicio + tamanho);
+    }
+
+    public int inteiro(int limite) {
+        return aleatorio.nextInt(limite);
+    }
+
+    private String nomePessoa(int numero) {
+        return PRENOMES[aleatorio.nextInt(PRENOMES.length)] + " "
+                + SOBRENOMES[aleatorio.nextInt(SOBRENOMES.length)] + " " + Integer.toString(numero, 36);
+    }
+
+    private String palavra() {
+        return PALAVRAS[aleatorio.nextInt(PALAVRAS.length)];
+    }
+}
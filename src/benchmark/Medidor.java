@@ -0,0 +1,95 @@
+package benchmark;
+
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Classe Medidor - Cronômetro simples de uma operação repetida, para os mains deste pacote
+ *
+ * Cada medição roda algumas iterações de aquecimento (para o JIT compilar o
+ * caminho medido) e depois as iterações que contam. Além do tempo médio por
+ * operação, informa os bytes alocados pela thread e as coletas de lixo que
+ * aconteceram. O resultado de cada operação é guardado num campo volatile para
+ * o JIT não eliminar a chamada.
+ *
+ * Não é um harness de benchmark: todas as medições rodam na mesma JVM, uma
+ * depois da outra, sem forks nem intervalo de confiança, e o perfil que o JIT
+ * montou para uma operação influencia as seguintes. Os números servem para
+ * comparar ordens de grandeza (ex: antes e depois de uma mudança, na mesma
+ * máquina), não como medida exata. As medições com JMH ficam em jmh/ (perfil
+ * jmh do Maven).
+ */
+public class Medidor {
+
+    private final int iteracoesAquecimento;
+    private final int iteracoes;
+    private final PrintStream saida;
+    private final com.sun.management.ThreadMXBean threads;
+    private final List<GarbageCollectorMXBean> coletores;
+    private volatile Object consumido;
+
+    public Medidor(int iteracoesAquecimento, int iteracoes, PrintStream saida) {
+        this.iteracoesAquecimento = iteracoesAquecimento;
+        this.iteracoes = iteracoes;
+        this.saida = saida;
+        this.threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        this.coletores = ManagementFactory.getGarbageCollectorMXBeans();
+    }
+
+    public void cabecalho(String titulo) {
+        saida.println();
+        saida.println(titulo);
+        saida.printf("%-44s %14s %14s %10s %10s%n", "Operação", "ns/op", "B/op", "gc.count", "gc.ms");
+    }
+
+    /**
+     * Executa a operação para os índices 0..operacoes-1 em cada iteração e imprime o resultado.
+     */
+    public void medir(String nome, int operacoes, IntFunction<?> operacao) {
+        for (int i = 0; i < iteracoesAquecimento; i++) {
+            executar(operacoes, operacao);
+        }
+
+        long tempoTotal = 0;
+        long bytesTotal = 0;
+        long coletasAntes = contarColetas();
+        long tempoColetaAntes = tempoColetas();
+        long idThread = Thread.currentThread().getId();
+        for (int i = 0; i < iteracoes; i++) {
+            long bytesAntes = threads.getThreadAllocatedBytes(idThread);
+            long inicio = System.nanoTime();
+            executar(operacoes, operacao);
+            tempoTotal += System.nanoTime() - inicio;
+            bytesTotal += threads.getThreadAllocatedBytes(idThread) - bytesAntes;
+        }
+
+        double total = (double) operacoes * iteracoes;
+        saida.printf("%-44s %14.1f %14.1f %10d %10d%n", nome, tempoTotal / total, bytesTotal / total,
+                contarColetas() - coletasAntes, tempoColetas() - tempoColetaAntes);
+    }
+
+    private void executar(int operacoes, IntFunction<?> operacao) {
+        for (int i = 0; i < operacoes; i++) {
+            consumido = operacao.apply(i);
+        }
+    }
+
+    private long contarColetas() {
+        long total = 0;
+        for (GarbageCollectorMXBean coletor : coletores) {
+            total += Math.max(0, coletor.getCollectionCount());
+        }
+        return total;
+    }
+
+    private long tempoColetas() {
+        long total = 0;
+        for (GarbageCollectorMXBean coletor : coletores) {
+            total += Math.max(0, coletor.getCollectionTime());
+        }
+        return total;
+    }
+}
@@ -0,0 +1,278 @@
+package cache;
+
+import util.MapaLongObjeto;
+
+/**
+ * Classe CacheTinyLfu - Cache limitado por peso com política W-TinyLFU
+ *
+ * As entradas novas entram numa janela LRU pequena (1% do peso). Quem sai da
+ * janela só entra na área principal (LRU segmentada: probatória e protegida,
+ * 20% / 80%) se já foi pedido mais vezes que a entrada que teria de sair de
+ * lá; a frequência vem de um Count-Min Sketch de contadores de 4 bits que são
+ * divididos por dois de tempos em tempos, para esquecer o passado. Assim uma
+ * varredura de chaves usadas uma vez só não expulsa as entradas populares.
+ *
+ * Todos os métodos são sincronizados: as operações são curtas (O(1) exceto
+ * pelo envelhecimento do sketch, que é raro).
+ *
+ * @param <V> O tipo dos valores guardados
+ */
+public class CacheTinyLfu<V> {
+
+    /**
+     * Calcula o peso de um valor (ex: tamanho aproximado em bytes).
+     */
+    public interface Pesador<V> {
+        int peso(V valor);
+    }
+
+    private static final int JANELA = 0;
+    private static final int PROBATORIA = 1;
+    private static final int PROTEGIDA = 2;
+
+    private final long pesoMaximo;
+    private final long pesoMaximoJanela;
+    private final long pesoMaximoProtegida;
+    private final Pesador<? super V> pesador;
+    private final MapaLongObjeto<No<V>> nos;
+    private final Lista<V> janela;
+    private final Lista<V> probatoria;
+    private final Lista<V> protegida;
+    private final SketchFrequencia sketch;
+    private long despejos;
+    private long recusas;
+
+    /**
+     * @param pesoMaximo soma máxima dos pesos das entradas guardadas
+     * @param pesador    calcula o peso de cada valor (deve ser positivo)
+     */
+    public CacheTinyLfu(long pesoMaximo, Pesador<? super V> pesador) {
+        if (pesoMaximo <= 0) {
+            throw new IllegalArgumentException("Erro: Peso máximo do cache deve ser positivo!");
+        }
+        if (pesador == null) {
+            throw new IllegalArgumentException("Erro: Pesador não pode ser null!");
+        }
+        this.pesoMaximo = pesoMaximo;
+        this.pesoMaximoJanela = Math.max(1, pesoMaximo / 100);
+        this.pesoMaximoProtegida = (pesoMaximo - pesoMaximoJanela) * 4 / 5;
+        this.pesador = pesador;
+        this.nos = new MapaLongObjeto<>();
+        this.janela = new Lista<>();
+        this.probatoria = new Lista<>();
+        this.protegida = new Lista<>();
+        this.sketch = new SketchFrequencia(pesoMaximo);
+    }
+
+    /**
+     * Conta o acesso e devolve o valor guardado (null se não estiver no cache).
+     */
+    public synchronized V buscar(long chave) {
+        sketch.incrementar(chave);
+        No<V> no = nos.buscar(chave);
+        if (no == null) {
+            return null;
+        }
+        promover(no);
+        return no.valor;
+    }
+
+    /**
+     * Guarda (ou troca) o valor da chave. Um valor mais pesado que o cache inteiro não é guardado.
+     */
+    public synchronized void guardar(long chave, V valor) {
+        if (valor == null) {
+            throw new IllegalArgumentException("Erro: Valor não pode ser null!");
+        }
+        int peso = pesador.peso(valor);
+        if (peso <= 0) {
+            throw new IllegalArgumentException("Erro: Peso deve ser positivo: " + peso);
+        }
+
+        No<V> existente = nos.buscar(chave);
+        if (existente != null) {
+            listaDe(existente).ajustarPeso(peso - existente.peso);
+            existente.valor = valor;
+            existente.peso = peso;
+            promover(existente);
+        } else if (peso > pesoMaximo) {
+            recusas++;
+            return;
+        } else {
+            No<V> no = new No<>(chave, valor, peso);
+            nos.inserir(chave, no);
+            no.regiao = JANELA;
+            janela.adicionarRecente(no);
+        }
+        ajustar();
+    }
+
+    public synchronized boolean remover(long chave) {
+        No<V> no = nos.remover(chave);
+        if (no == null) {
+            return false;
+        }
+        listaDe(no).remover(no);
+        return true;
+    }
+
+    public synchronized void limpar() {
+        nos.limpar();
+        janela.limpar();
+        probatoria.limpar();
+        protegida.limpar();
+    }
+
+    public synchronized int getQuantidade() {
+        return nos.tamanho();
+    }
+
+    public synchronized long getPeso() {
+        return janela.peso + probatoria.peso + protegida.peso;
+    }
+
+    public long getPesoMaximo() {
+        return pesoMaximo;
+    }
+
+    /**
+     * @return quantas entradas saíram para abrir espaço (inclusive as recusadas na admissão)
+     */
+    public synchronized long getDespejos() {
+        return despejos;
+    }
+
+    /**
+     * @return quantos valores não foram guardados por pesarem mais que o cache inteiro
+     */
+    public synchronized long getRecusas() {
+        return recusas;
+    }
+
+    private Lista<V> listaDe(No<V> no) {
+        return no.regiao == JANELA ? janela : no.regiao == PROBATORIA ? probatoria : protegida;
+    }
+
+    // Acesso a uma entrada: na janela e na protegida vai para o fim da fila; na probatória sobe para a protegida
+    private void promover(No<V> no) {
+        if (no.regiao != PROBATORIA) {
+            listaDe(no).moverParaRecente(no);
+            return;
+        }
+        probatoria.remover(no);
+        no.regiao = PROTEGIDA;
+        protegida.adicionarRecente(no);
+        while (protegida.peso > pesoMaximoProtegida && protegida.cabeca.proximo != no) {
+            No<V> rebaixado = protegida.maisAntigo();
+            protegida.remover(rebaixado);
+            rebaixado.regiao = PROBATORIA;
+            probatoria.adicionarRecente(rebaixado);
+        }
+    }
+
+    private void ajustar() {
+        while (janela.peso > pesoMaximoJanela) {
+            No<V> candidato = janela.maisAntigo();
+            janela.remover(candidato);
+            admitir(candidato);
+        }
+        // Uma entrada que cresceu ao ser trocada pode deixar o total acima do máximo
+        while (getPeso() > pesoMaximo) {
+            despejar(!probatoria.vazia() ? probatoria.maisAntigo()
+                    : !protegida.vazia() ? protegida.maisAntigo() : janela.maisAntigo());
+        }
+    }
+
+    // O candidato que saiu da janela disputa com as entradas mais antigas da área principal
+    private void admitir(No<V> candidato) {
+        long espaco = pesoMaximo - janela.peso;
+        while (probatoria.peso + protegida.peso + candidato.peso > espaco) {
+            // Área principal vazia e o candidato ainda não cabe (o resto está na janela): ele sai
+            if (probatoria.vazia() && protegida.vazia()) {
+                nos.remover(candidato.chave);
+                despejos++;
+                return;
+            }
+            No<V> vitima = !probatoria.vazia() ? probatoria.maisAntigo() : protegida.maisAntigo();
+            if (sketch.frequencia(candidato.chave) <= sketch.frequencia(vitima.chave)) {
+                nos.remover(candidato.chave);
+                despejos++;
+                return;
+            }
+            despejar(vitima);
+        }
+        candidato.regiao = PROBATORIA;
+        probatoria.adicionarRecente(candidato);
+    }
+
+    private void despejar(No<V> no) {
+        listaDe(no).remover(no);
+        nos.remover(no.chave);
+        despejos++;
+    }
+
+    private static final class No<V> {
+        private final long chave;
+        private V valor;
+        private int peso;
+        private int regiao;
+        private No<V> anterior;
+        private No<V> proximo;
+
+        private No(long chave, V valor, int peso) {
+            this.chave = chave;
+            this.valor = valor;
+            this.peso = peso;
+        }
+    }
+
+    // Lista duplamente ligada com sentinela: cabeca.proximo é o mais antigo, cabeca.anterior o mais recente
+    private static final class Lista<V> {
+        private final No<V> cabeca = new No<>(0, null, 0);
+        private long peso;
+
+        private Lista() {
+            cabeca.anterior = cabeca;
+            cabeca.proximo = cabeca;
+        }
+
+        private boolean vazia() {
+            return cabeca.proximo == cabeca;
+        }
+
+        private No<V> maisAntigo() {
+            return cabeca.proximo;
+        }
+
+        private void adicionarRecente(No<V> no) {
+            no.anterior = cabeca.anterior;
+            no.proximo = cabeca;
+            cabeca.anterior.proximo = no;
+            cabeca.anterior = no;
+            peso += no.peso;
+        }
+
+        private void remover(No<V> no) {
+            no.anterior.proximo = no.proximo;
+            no.proximo.anterior = no.anterior;
+            no.anterior = null;
+            no.proximo = null;
+            peso -= no.peso;
+        }
+
+        private void moverParaRecente(No<V> no) {
+            remover(no);
+            adicionarRecente(no);
+        }
+
+        private void ajustarPeso(int diferenca) {
+            peso += diferenca;
+        }
+
+        private void limpar() {
+            cabeca.anterior = cabeca;
+            cabeca.proximo = cabeca;
+            peso = 0;
+        }
+    }
+}
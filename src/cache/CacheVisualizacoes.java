@@ -0,0 +1,208 @@
+package cache;
+
+import service.AtorService;
+import service.DiretorService;
+import service.FilmeService;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Classe CacheVisualizacoes - Guarda os textos montados pelo controller até uma entidade usada por eles mudar
+ *
+ * Quem pede um texto informa uma chave e como montá-lo (leitura direta: se não
+ * estiver guardado, é montado e guardado). Ao montar, o Renderizador declara
+ * de quais entidades o texto depende (ex: o filme, seu diretor e seus atores);
+ * o texto é guardado com as versões delas (VersoesCatalogo) e só é devolvido
+ * de novo enquanto nenhuma tiver mudado. As versões vêm dos avisos dos
+ * serviços, então o cache precisa ser registrado neles com observar().
+ *
+ * O espaço é limitado pelo peso aproximado dos textos em bytes e as entradas
+ * que saem são escolhidas pela política W-TinyLFU (CacheTinyLfu).
+ */
+public class CacheVisualizacoes {
+
+    public static final long PESO_MAXIMO_PADRAO = 16L << 20;
+
+    /**
+     * Monta o texto de uma visualização registrando as entidades usadas.
+     */
+    public interface Renderizador {
+        String renderizar(Dependencias dependencias);
+    }
+
+    private final VersoesCatalogo versoes;
+    private final CacheTinyLfu<Visualizacao> cache;
+    private final LongAdder acertos = new LongAdder();
+    private final LongAdder faltas = new LongAdder();
+    private final LongAdder invalidacoes = new LongAdder();
+
+    public CacheVisualizacoes() {
+        this(PESO_MAXIMO_PADRAO);
+    }
+
+    /**
+     * @param pesoMaximo espaço aproximado, em bytes, dos textos guardados
+     */
+    public CacheVisualizacoes(long pesoMaximo) {
+        this.versoes = new VersoesCatalogo();
+        this.cache = new CacheTinyLfu<>(pesoMaximo, Visualizacao::peso);
+    }
+
+    /**
+     * Passa a receber as alterações dos serviços (sem afetar o ouvinte definido por setOuvinte, ex: o log).
+     */
+    public void observar(FilmeService filmeService, AtorService atorService, DiretorService diretorService) {
+        filmeService.adicionarOuvinte(versoes);
+        atorService.adicionarOuvinte(versoes);
+        diretorService.adicionarOuvinte(versoes);
+    }
+
+    public static long chave(int tipoVisualizacao, int id) {
+        return ((long) tipoVisualizacao << 32) | (id & 0xFFFF_FFFFL);
+    }
+
+    /**
+     * Devolve o texto guardado na chave se ainda for válido; senão o monta com o renderizador e o guarda.
+     * Um texto null não é guardado.
+     */
+    public String buscar(long chave, Renderizador renderizador) {
+        Visualizacao guardada = cache.buscar(chave);
+        if (guardada != null) {
+            if (guardada.valida(versoes)) {
+                acertos.increment();
+                return guardada.texto;
+            }
+            invalidacoes.increment();
+        }
+        faltas.increment();
+
+        long inicio = versoes.getSequencia();
+        Dependencias dependencias = new Dependencias();
+        String texto = renderizador.renderizar(dependencias);
+        if (texto == null) {
+            return null;
+        }
+        // Uma alteração durante a montagem pode ter deixado o texto pela metade: nesse caso não é guardado
+        long[] chaves = dependencias.chaves();
+        long[] versoesLidas = new long[chaves.length];
+        for (int i = 0; i < chaves.length; i++) {
+            versoesLidas[i] = versoes.versao(chaves[i]);
+            if (versoesLidas[i] > inicio) {
+                cache.remover(chave);
+                return texto;
+            }
+        }
+        cache.guardar(chave, new Visualizacao(texto, chaves, versoesLidas));
+        return texto;
+    }
+
+    public void limpar() {
+        cache.limpar();
+    }
+
+    public long getAcertos() {
+        return acertos.sum();
+    }
+
+    public long getFaltas() {
+        return faltas.sum();
+    }
+
+    /**
+     * @return quantas buscas acharam o texto guardado, mas desatualizado (contam também como faltas)
+     */
+    public long getInvalidacoes() {
+        return invalidacoes.sum();
+    }
+
+    /**
+     * @return acertos / buscas, entre 0 e 1 (0 se não houve buscas)
+     */
+    public double getTaxaAcerto() {
+        long acertos = getAcertos();
+        long total = acertos + getFaltas();
+        return total == 0 ? 0 : (double) acertos / total;
+    }
+
+    public long getDespejos() {
+        return cache.getDespejos();
+    }
+
+    public int getQuantidade() {
+        return cache.getQuantidade();
+    }
+
+    public long getPeso() {
+        return cache.getPeso();
+    }
+
+    public long getPesoMaximo() {
+        return cache.getPesoMaximo();
+    }
+
+    /**
+     * Classe Dependencias - Entidades usadas para montar um texto
+     */
+    public static final class Dependencias {
+        private long[] chaves = new long[4];
+        private int quantidade;
+
+        private Dependencias() {
+        }
+
+        public Dependencias filme(Integer id) {
+            return adicionar(VersoesCatalogo.FILME, id);
+        }
+
+        public Dependencias ator(Integer id) {
+            return adicionar(VersoesCatalogo.ATOR, id);
+        }
+
+        public Dependencias diretor(Integer id) {
+            return adicionar(VersoesCatalogo.DIRETOR, id);
+        }
+
+        // Entidades sem id (não cadastradas) não geram avisos, então não há o que acompanhar
+        private Dependencias adicionar(int tipo, Integer id) {
+            if (id == null) {
+                return this;
+            }
+            if (quantidade == chaves.length) {
+                chaves = Arrays.copyOf(chaves, quantidade * 2);
+            }
+            chaves[quantidade++] = VersoesCatalogo.chave(tipo, id);
+            return this;
+        }
+
+        private long[] chaves() {
+            return Arrays.copyOf(chaves, quantidade);
+        }
+    }
+
+    private static final class Visualizacao {
+        private final String texto;
+        private final long[] chaves;
+        private final long[] versoes;
+
+        private Visualizacao(String texto, long[] chaves, long[] versoes) {
+            this.texto = texto;
+            this.chaves = chaves;
+            this.versoes = versoes;
+        }
+
+        private boolean valida(VersoesCatalogo atuais) {
+            for (int i = 0; i < chaves.length; i++) {
+                if (atuais.versao(chaves[i]) != versoes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // Texto em UTF-16 mais as duas tabelas e os cabeçalhos dos objetos
+        private int peso() {
+            return 2 * texto.length() + 16 * chaves.length + 96;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package cache;
+
+/**
+ * Classe SketchFrequencia - Count-Min Sketch de contadores de 4 bits para o CacheTinyLfu
+ *
+ * Cada chave incrementa quatro contadores (um por função de espalhamento) e a
+ * frequência estimada é o menor deles; colisões só fazem a estimativa subir.
+ * Os contadores ficam 16 por long e param em 15. Depois de 10 incrementos por
+ * contador-linha todos são divididos por dois, para que chaves que foram
+ * populares e deixaram de ser percam a vez para as novas.
+ */
+class SketchFrequencia {
+
+    private static final long[] SEMENTES = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L};
+    private static final long METADES = 0x7777_7777_7777_7777L;
+    private static final int MINIMO = 64;
+    private static final int MAXIMO = 1 << 24;
+
+    private final long[] tabela;
+    private final int mascara;
+    private final int limiteAmostra;
+    private int amostras;
+
+    /**
+     * @param pesoMaximo peso do cache; supõe ~256 de peso por entrada para dimensionar a tabela
+     */
+    SketchFrequencia(long pesoMaximo) {
+        long entradas = Math.max(MINIMO, Math.min(MAXIMO, pesoMaximo / 256));
+        int tamanho = Integer.highestOneBit((int) entradas - 1) << 1;
+        this.tabela = new long[tamanho];
+        this.mascara = tamanho - 1;
+        this.limiteAmostra = 10 * tamanho;
+    }
+
+    void incrementar(long chave) {
+        boolean incrementou = false;
+        for (int i = 0; i < SEMENTES.length; i++) {
+            long espalhado = espalhar(chave, i);
+            int indice = (int) espalhado & mascara;
+            int deslocamento = (int) (espalhado >>> 60) << 2;
+            if (((tabela[indice] >>> deslocamento) & 0xF) < 0xF) {
+                tabela[indice] += 1L << deslocamento;
+                incrementou = true;
+            }
+        }
+        if (incrementou && ++amostras >= limiteAmostra) {
+            envelhecer();
+        }
+    }
+
+    int frequencia(long chave) {
+        int menor = 0xF;
+        for (int i = 0; i < SEMENTES.length; i++) {
+            long espalhado = espalhar(chave, i);
+            int indice = (int) espalhado & mascara;
+            int deslocamento = (int) (espalhado >>> 60) << 2;
+            menor = Math.min(menor, (int) ((tabela[indice] >>> deslocamento) & 0xF));
+        }
+        return menor;
+    }
+
+    private void envelhecer() {
+        for (int i = 0; i < tabela.length; i++) {
+            tabela[i] = (tabela[i] >>> 1) & METADES;
+        }
+        amostras /= 2;
+    }
+
+    private static long espalhar(long chave, int funcao) {
+        long h = (chave + SEMENTES[funcao]) * SEMENTES[(funcao + 1) & 3];
+        h ^= h >>> 31;
+        h *= 0xBF58476D1CE4E5B9L;
+        return h ^ (h >>> 29);
+    }
+}
@@ -0,0 +1,119 @@
+package cache;
+
+import interfaces.IOuvinteCatalogo;
+import model.Ator;
+import model.Diretor;
+import model.Filme;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Classe VersoesCatalogo - Versão de cada filme, ator e diretor, trocada a cada alteração avisada pelos serviços
+ *
+ * Cada aviso tira um número novo de uma sequência global e o grava na versão
+ * das entidades afetadas; uma visualização guardada com as versões das
+ * entidades que usou continua válida enquanto nenhuma delas mudar. As versões
+ * ficam numa tabela de tamanho fixo indexada pelo espalhamento de (tipo, id):
+ * duas entidades na mesma posição só fazem uma invalidar a outra à toa, sem
+ * precisar de memória para cada entidade do catálogo.
+ */
+public class VersoesCatalogo implements IOuvinteCatalogo {
+
+    public static final int FILME = 0;
+    public static final int ATOR = 1;
+    public static final int DIRETOR = 2;
+
+    private static final int POSICOES = 1 << 16;
+
+    private final AtomicLong sequencia = new AtomicLong();
+    private final AtomicLongArray versoes = new AtomicLongArray(POSICOES);
+
+    /**
+     * @return o último número tirado; visualizações montadas depois dele só valem se nenhuma versão passar dele
+     */
+    public long getSequencia() {
+        return sequencia.get();
+    }
+
+    public long versao(int tipo, int id) {
+        return versoes.get(posicao(tipo, id));
+    }
+
+    public long versao(long chave) {
+        return versoes.get(posicao(chave));
+    }
+
+    public static long chave(int tipo, int id) {
+        return ((long) tipo << 32) | (id & 0xFFFF_FFFFL);
+    }
+
+    @Override
+    public void filmeSalvo(Filme filme) {
+        long numero = sequencia.incrementAndGet();
+        alterar(FILME, filme.getId(), numero);
+        // O diretor novo ganha o filme; o anterior já depende do filme, cuja versão mudou
+        Diretor diretor = filme.getDiretor();
+        if (diretor != null && diretor.getId() != null) {
+            alterar(DIRETOR, diretor.getId(), numero);
+        }
+    }
+
+    @Override
+    public void filmeRemovido(int id) {
+        alterar(FILME, id, sequencia.incrementAndGet());
+    }
+
+    @Override
+    public void atorSalvo(Ator ator) {
+        alterar(ATOR, ator.getId(), sequencia.incrementAndGet());
+    }
+
+    @Override
+    public void atorRemovido(int id) {
+        alterar(ATOR, id, sequencia.incrementAndGet());
+    }
+
+    @Override
+    public void diretorSalvo(Diretor diretor) {
+        alterar(DIRETOR, diretor.getId(), sequencia.incrementAndGet());
+    }
+
+    @Override
+    public void diretorRemovido(int id) {
+        alterar(DIRETOR, id, sequencia.incrementAndGet());
+    }
+
+    @Override
+    public void atorAssociado(int filmeId, int atorId, String personagem) {
+        long numero = sequencia.incrementAndGet();
+        alterar(FILME, filmeId, numero);
+        alterar(ATOR, atorId, numero);
+    }
+
+    @Override
+    public void atorDesassociado(int filmeId, int atorId) {
+        long numero = sequencia.incrementAndGet();
+        alterar(FILME, filmeId, numero);
+        alterar(ATOR, atorId, numero);
+    }
+
+    @Override
+    public void personagemDefinido(int filmeId, int atorId, String personagem) {
+        alterar(FILME, filmeId, sequencia.incrementAndGet());
+    }
+
+    // Avisos de serviços diferentes podem chegar fora da ordem dos números: a versão nunca volta
+    private void alterar(int tipo, int id, long numero) {
+        versoes.accumulateAndGet(posicao(tipo, id), numero, Math::max);
+    }
+
+    private static int posicao(int tipo, int id) {
+        return posicao(chave(tipo, id));
+    }
+
+    private static int posicao(long chave) {
+        long h = chave * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 48) & (POSICOES - 1);
+    }
+}
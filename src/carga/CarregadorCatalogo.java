@@ -0,0 +1,225 @@
+package carga;
+
+import diagnostico.Diagnosticos;
+import model.Ator;
+import model.Diretor;
+import model.Filme;
+import model.ResultadoOperacao;
+import service.AtorService;
+import service.DiretorService;
+import service.FilmeService;
+import util.MapaIntObjeto;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Classe CarregadorCatalogo - Carrega o catálogo a partir de arquivos CSV/TSV
+ *
+ * Cada arquivo é lido com LeitorMapeado e entregue aos serviços em lotes de
+ * tamanhoLote registros (por importar), então só um lote fica no heap além do
+ * próprio catálogo. Os arquivos têm uma linha de cabeçalho e estas colunas:
+ * <ul>
+ *   <li>atores: id, nome, idade, nacionalidade</li>
+ *   <li>diretores: id, nome, idade, nacionalidade, estilo</li>
+ *   <li>filmes: id, nome, dataLancamento (aaaa-mm-dd), orcamento, descricao, diretorId</li>
+ *   <li>elenco (formato de FilmeAtor): filmeId, atorId, personagem</li>
+ * </ul>
+ * Os IDs dos arquivos só ligam os registros entre si (o catálogo gera os
+ * seus), por isso atores e diretores devem ser carregados antes dos filmes e
+ * os filmes antes do elenco, pelo mesmo carregador.
+ */
+public class CarregadorCatalogo {
+
+    private static final int TAMANHO_LOTE_PADRAO = 10_000;
+
+    private final FilmeService filmeService;
+    private final AtorService atorService;
+    private final DiretorService diretorService;
+    private final int tamanhoLote;
+    private final MapaIntObjeto<Filme> filmesPorIdArquivo;
+    private final MapaIntObjeto<Ator> atoresPorIdArquivo;
+    private final MapaIntObjeto<Diretor> diretoresPorIdArquivo;
+
+    public CarregadorCatalogo(FilmeService filmeService, AtorService atorService, DiretorService diretorService) {
+        this(filmeService, atorService, diretorService, TAMANHO_LOTE_PADRAO);
+    }
+
+    public CarregadorCatalogo(FilmeService filmeService, AtorService atorService, DiretorService diretorService,
+                              int tamanhoLote) {
+        if (filmeService == null || atorService == null || diretorService == null) {
+            throw new IllegalArgumentException("Erro: Serviços não podem ser null!");
+        }
+        if (tamanhoLote <= 0) {
+            throw new IllegalArgumentException("Erro: Tamanho do lote inválido: " + tamanhoLote);
+        }
+        this.filmeService = filmeService;
+        this.atorService = atorService;
+        this.diretorService = diretorService;
+        this.tamanhoLote = tamanhoLote;
+        this.filmesPorIdArquivo = new MapaIntObjeto<>();
+        this.atoresPorIdArquivo = new MapaIntObjeto<>();
+        this.diretoresPorIdArquivo = new MapaIntObjeto<>();
+    }
+
+    public ResultadoOperacao carregarAtores(Path arquivo) {
+        return carregarEntidades(arquivo, "ator(es)", leitor -> {
+            Ator ator = new Ator(leitor.texto(1));
+            ator.setIdade(leitor.inteiro(2));
+            if (!leitor.vazio(3)) {
+                ator.setNacionalidade(leitor.texto(3));
+            }
+            atoresPorIdArquivo.inserir(leitor.inteiro(0), ator);
+            return ator;
+        }, atorService::importar);
+    }
+
+    public ResultadoOperacao carregarDiretores(Path arquivo) {
+        return carregarEntidades(arquivo, "diretor(es)", leitor -> {
+            Diretor diretor = new Diretor(leitor.texto(1));
+            diretor.setIdade(leitor.inteiro(2));
+            if (!leitor.vazio(3)) {
+                diretor.setNacionalidade(leitor.texto(3));
+            }
+            if (!leitor.vazio(4)) {
+                diretor.setEstilo(leitor.texto(4));
+            }
+            diretoresPorIdArquivo.inserir(leitor.inteiro(0), diretor);
+            return diretor;
+        }, diretorService::importar);
+    }
+
+    public ResultadoOperacao carregarFilmes(Path arquivo) {
+        List<Filme> lote = new ArrayList<>();
+        List<Diretor> diretoresDoLote = new ArrayList<>();
+        return carregarEntidades(arquivo, "filme(s)", leitor -> {
+            Filme filme = new Filme(leitor.texto(1), leitor.data(2));
+            filme.setOrcamento(leitor.decimal(3));
+            if (!leitor.vazio(4)) {
+                filme.setDescricao(leitor.texto(4));
+            }
+            Diretor diretor = null;
+            if (!leitor.vazio(5)) {
+                diretor = diretoresPorIdArquivo.buscar(leitor.inteiro(5));
+                if (diretor == null) {
+                    throw new IllegalArgumentException("Linha " + leitor.getLinha() + ": diretor "
+                            + leitor.texto(5) + " não foi carregado");
+                }
+            }
+            filmesPorIdArquivo.inserir(leitor.inteiro(0), filme);
+            lote.add(filme);
+            diretoresDoLote.add(diretor);
+            return filme;
+        }, filmes -> {
+            ResultadoOperacao resultado = filmeService.importar(filmes);
+            if (resultado.isSucesso()) {
+                for (int i = 0; i < lote.size(); i++) {
+                    if (diretoresDoLote.get(i) != null) {
+                        filmeService.associarDiretor(lote.get(i), diretoresDoLote.get(i));
+                    }
+                }
+            }
+            lote.clear();
+            diretoresDoLote.clear();
+            return resultado;
+        });
+    }
+
+    /**
+     * Associa os atores aos filmes já carregados, linha a linha.
+     */
+    public ResultadoOperacao carregarElenco(Path arquivo) {
+        if (arquivo == null) {
+            return ResultadoOperacao.criarErro("Arquivo não pode ser null!");
+        }
+        long associacoes = 0;
+        try (LeitorMapeado leitor = new LeitorMapeado(arquivo, FormatoArquivo.doArquivo(arquivo))) {
+            pularCabecalho(leitor);
+            while (leitor.proximo()) {
+                Filme filme = filmesPorIdArquivo.buscar(leitor.inteiro(0));
+                Ator ator = atoresPorIdArquivo.buscar(leitor.inteiro(1));
+                if (filme == null || ator == null) {
+                    return interromper(arquivo, associacoes, "associação(ões)", "Linha " + leitor.getLinha()
+                            + ": " + (filme == null ? "filme " + leitor.texto(0) : "ator " + leitor.texto(1))
+                            + " não foi carregado");
+                }
+                if (filmeService.associarAtor(filme, ator, leitor.texto(2))) {
+                    associacoes++;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            return interromper(arquivo, associacoes, "associação(ões)", e.getMessage());
+        }
+        return concluir(arquivo, associacoes, "associação(ões)");
+    }
+
+    // Lê o arquivo convertendo cada registro e entrega os lotes ao serviço
+    private <T> ResultadoOperacao carregarEntidades(Path arquivo, String rotulo, Function<LeitorMapeado, T> conversor,
+                                                    Function<Stream<T>, ResultadoOperacao> importar) {
+        if (arquivo == null) {
+            return ResultadoOperacao.criarErro("Arquivo não pode ser null!");
+        }
+        long carregados = 0;
+        List<T> lote = new ArrayList<>(tamanhoLote);
+        try (LeitorMapeado leitor = new LeitorMapeado(arquivo, FormatoArquivo.doArquivo(arquivo))) {
+            pularCabecalho(leitor);
+            while (true) {
+                boolean temRegistro = leitor.proximo();
+                if (temRegistro) {
+                    lote.add(converter(leitor, conversor));
+                }
+                if (lote.size() == tamanhoLote || (!temRegistro && !lote.isEmpty())) {
+                    ResultadoOperacao resultado = importar.apply(lote.stream());
+                    if (!resultado.isSucesso()) {
+                        return interromper(arquivo, carregados, rotulo, "Lote terminado na linha "
+                                + leitor.getLinha() + ": " + resultado.getMensagem());
+                    }
+                    carregados += lote.size();
+                    lote.clear();
+                }
+                if (!temRegistro) {
+                    break;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            return interromper(arquivo, carregados, rotulo, e.getMessage());
+        }
+        return concluir(arquivo, carregados, rotulo);
+    }
+
+    // Os erros de validação dos construtores dos modelos ganham o número da linha
+    private static <T> T converter(LeitorMapeado leitor, Function<LeitorMapeado, T> conversor) {
+        try {
+            return conversor.apply(leitor);
+        } catch (IllegalArgumentException e) {
+            if (e.getMessage() != null && e.getMessage().startsWith("Linha ")) {
+                throw e;
+            }
+            throw new IllegalArgumentException("Linha " + leitor.getLinha() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static void pularCabecalho(LeitorMapeado leitor) throws IOException {
+        leitor.proximo();
+    }
+
+    private static ResultadoOperacao concluir(Path arquivo, long quantidade, String rotulo) {
+        String mensagem = quantidade + " " + rotulo + " carregado(s)!";
+        Diagnosticos.info(CarregadorCatalogo.class, "Arquivo {}: {}", arquivo.getFileName(), mensagem);
+        ResultadoOperacao resultado = ResultadoOperacao.criarSucesso(mensagem);
+        resultado.setDados(quantidade);
+        return resultado;
+    }
+
+    private static ResultadoOperacao interromper(Path arquivo, long quantidade, String rotulo, String problema) {
+        Diagnosticos.aviso(CarregadorCatalogo.class, "Carga de {} interrompida. {}", arquivo.getFileName(), problema);
+        ResultadoOperacao resultado = ResultadoOperacao.criarErro("Erro ao carregar " + arquivo.getFileName()
+                + " (" + quantidade + " " + rotulo + " já carregado(s)): " + problema);
+        resultado.setDados(quantidade);
+        return resultado;
+    }
+}
@@ -0,0 +1,38 @@
+package carga;
+
+import java.nio.file.Path;
+
+/**
+ * Enum FormatoArquivo - Formatos de arquivo aceitos pela carga do catálogo
+ *
+ * No CSV os campos podem vir entre aspas (com "" representando uma aspa);
+ * no TSV o tab nunca aparece dentro de um campo, então as aspas não são tratadas.
+ */
+public enum FormatoArquivo {
+    CSV((byte) ',', true),
+    TSV((byte) '\t', false);
+
+    private final byte separador;
+    private final boolean aceitaAspas;
+
+    FormatoArquivo(byte separador, boolean aceitaAspas) {
+        this.separador = separador;
+        this.aceitaAspas = aceitaAspas;
+    }
+
+    public byte getSeparador() {
+        return separador;
+    }
+
+    public boolean aceitaAspas() {
+        return aceitaAspas;
+    }
+
+    /**
+     * @return TSV para arquivos .tsv ou .tab, CSV para os demais
+     */
+    public static FormatoArquivo doArquivo(Path arquivo) {
+        String nome = arquivo.getFileName().toString().toLowerCase();
+        return nome.endsWith(".tsv") || nome.endsWith(".tab") ? TSV : CSV;
+    }
+}
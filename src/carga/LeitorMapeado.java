@@ -0,0 +1,376 @@
+package carga;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Classe LeitorMapeado - Lê um arquivo CSV/TSV registro a registro direto da memória mapeada
+ *
+ * O arquivo é mapeado em janelas (por padrão de 256 MB), então arquivos de
+ * vários GB são lidos sem passar pelo heap: cada chamada a proximo() só
+ * marca onde começa e termina cada campo do registro atual. Números, datas
+ * (aaaa-mm-dd) e valores decimais são convertidos direto dos bytes; só
+ * texto(i) cria uma String. Um registro que atravessa o fim da janela faz a
+ * próxima janela começar nele.
+ *
+ * Não é thread-safe: cada arquivo é lido por uma thread.
+ */
+public class LeitorMapeado implements AutoCloseable {
+
+    private static final long JANELA_PADRAO = 1L << 28;
+    private static final int DIGITOS_LONG = 18;
+
+    private final FileChannel canal;
+    private final FormatoArquivo formato;
+    private final long tamanhoArquivo;
+    private final long janela;
+    private MappedByteBuffer buffer;
+    private long inicioJanela;
+    private int posicao;
+    private long linha;
+
+    // Limites de cada campo do registro atual, relativos à janela; nos campos entre
+    // aspas as aspas já ficam de fora, e escapado indica que há "" para desfazer
+    private int campos;
+    private int[] inicios = new int[16];
+    private int[] fins = new int[16];
+    private boolean[] escapados = new boolean[16];
+    private byte[] auxiliar = new byte[256];
+
+    public LeitorMapeado(Path arquivo, FormatoArquivo formato) throws IOException {
+        this(arquivo, formato, JANELA_PADRAO);
+    }
+
+    /**
+     * @param janela quantos bytes do arquivo ficam mapeados de cada vez; limita o tamanho de um registro
+     */
+    public LeitorMapeado(Path arquivo, FormatoArquivo formato, long janela) throws IOException {
+        if (formato == null) {
+            throw new IllegalArgumentException("Erro: Formato não pode ser null!");
+        }
+        if (janela <= 0 || janela > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Erro: Janela inválida: " + janela);
+        }
+        this.canal = FileChannel.open(arquivo, StandardOpenOption.READ);
+        this.formato = formato;
+        this.tamanhoArquivo = canal.size();
+        this.janela = janela;
+        mapear(0);
+        pularMarcaUtf8();
+    }
+
+    /**
+     * Avança para o próximo registro, pulando linhas em branco.
+     *
+     * @return false quando o arquivo acabou
+     */
+    public boolean proximo() throws IOException {
+        while (true) {
+            if (posicao >= buffer.limit()) {
+                if (fimDoArquivo()) {
+                    return false;
+                }
+                mapear(inicioJanela + posicao);
+                continue;
+            }
+
+            int inicioRegistro = posicao;
+            if (!lerRegistro()) {
+                // O registro atravessa o fim da janela: a próxima janela começa nele
+                if (inicioRegistro == 0) {
+                    throw new IOException("Linha " + (linha + 1) + " é maior que a janela de leitura");
+                }
+                mapear(inicioJanela + inicioRegistro);
+                continue;
+            }
+            linha++;
+            if (campos > 1 || fins[0] > inicios[0] || escapados[0]) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return o número do registro atual, contando o cabeçalho e as linhas em branco
+     */
+    public long getLinha() {
+        return linha;
+    }
+
+    public int getCampos() {
+        return campos;
+    }
+
+    public boolean vazio(int campo) {
+        return campo >= campos || fins[campo] == inicios[campo];
+    }
+
+    /**
+     * @return o texto do campo, ou null se o campo estiver vazio ou não existir
+     */
+    public String texto(int campo) {
+        if (vazio(campo)) {
+            return null;
+        }
+        int inicio = inicios[campo];
+        int tamanho = fins[campo] - inicio;
+        if (auxiliar.length < tamanho) {
+            auxiliar = new byte[Math.max(tamanho, auxiliar.length * 2)];
+        }
+        buffer.get(inicio, auxiliar, 0, tamanho);
+        if (escapados[campo]) {
+            tamanho = desfazerAspas(auxiliar, tamanho);
+        }
+        return new String(auxiliar, 0, tamanho, StandardCharsets.UTF_8);
+    }
+
+    public int inteiro(int campo) {
+        long valor = longo(campo);
+        if (valor < Integer.MIN_VALUE || valor > Integer.MAX_VALUE) {
+            throw erro(campo, "número fora do intervalo");
+        }
+        return (int) valor;
+    }
+
+    public long longo(int campo) {
+        int inicio = primeiroNaoBranco(campo);
+        int fim = ultimoNaoBranco(campo);
+        if (inicio >= fim) {
+            throw erro(campo, "número vazio");
+        }
+        boolean negativo = buffer.get(inicio) == '-';
+        if (negativo || buffer.get(inicio) == '+') {
+            inicio++;
+        }
+        if (inicio >= fim || fim - inicio > DIGITOS_LONG) {
+            throw erro(campo, "número inválido");
+        }
+        long valor = 0;
+        for (int i = inicio; i < fim; i++) {
+            int digito = buffer.get(i) - '0';
+            if (digito < 0 || digito > 9) {
+                throw erro(campo, "número inválido");
+            }
+            valor = valor * 10 + digito;
+        }
+        return negativo ? -valor : valor;
+    }
+
+    /**
+     * @return a data no formato aaaa-mm-dd, ou null se o campo estiver vazio
+     */
+    public LocalDate data(int campo) {
+        if (vazio(campo)) {
+            return null;
+        }
+        int inicio = primeiroNaoBranco(campo);
+        if (ultimoNaoBranco(campo) - inicio != 10 || buffer.get(inicio + 4) != '-' || buffer.get(inicio + 7) != '-') {
+            throw erro(campo, "data inválida (esperado aaaa-mm-dd)");
+        }
+        try {
+            return LocalDate.of(digitos(campo, inicio, 4), digitos(campo, inicio + 5, 2), digitos(campo, inicio + 8, 2));
+        } catch (DateTimeException e) {
+            throw erro(campo, "data inválida");
+        }
+    }
+
+    /**
+     * @return o valor decimal do campo, ou null se o campo estiver vazio
+     */
+    public BigDecimal decimal(int campo) {
+        if (vazio(campo)) {
+            return null;
+        }
+        int inicio = primeiroNaoBranco(campo);
+        int fim = ultimoNaoBranco(campo);
+        boolean negativo = inicio < fim && buffer.get(inicio) == '-';
+        if (negativo || (inicio < fim && buffer.get(inicio) == '+')) {
+            inicio++;
+        }
+
+        long semEscala = 0;
+        int escala = -1;
+        int digitosLidos = 0;
+        for (int i = inicio; i < fim; i++) {
+            byte atual = buffer.get(i);
+            if (atual == '.' && escala < 0) {
+                escala = 0;
+            } else if (atual >= '0' && atual <= '9' && digitosLidos < DIGITOS_LONG) {
+                semEscala = semEscala * 10 + (atual - '0');
+                digitosLidos++;
+                if (escala >= 0) {
+                    escala++;
+                }
+            } else {
+                // Notação científica ou muitos dígitos: deixa o BigDecimal interpretar
+                return decimalPorTexto(campo);
+            }
+        }
+        if (digitosLidos == 0) {
+            throw erro(campo, "valor decimal inválido");
+        }
+        return BigDecimal.valueOf(negativo ? -semEscala : semEscala, Math.max(escala, 0));
+    }
+
+    @Override
+    public void close() throws IOException {
+        buffer = null;
+        canal.close();
+    }
+
+    private void mapear(long inicio) throws IOException {
+        long tamanho = Math.min(janela, tamanhoArquivo - inicio);
+        buffer = canal.map(FileChannel.MapMode.READ_ONLY, inicio, tamanho);
+        inicioJanela = inicio;
+        posicao = 0;
+    }
+
+    private boolean fimDoArquivo() {
+        return inicioJanela + buffer.limit() >= tamanhoArquivo;
+    }
+
+    private void pularMarcaUtf8() {
+        if (buffer.limit() >= 3 && buffer.get(0) == (byte) 0xEF && buffer.get(1) == (byte) 0xBB
+                && buffer.get(2) == (byte) 0xBF) {
+            posicao = 3;
+        }
+    }
+
+    // Marca os campos do registro que começa em posicao; false se a janela acabou antes do fim da linha
+    private boolean lerRegistro() {
+        byte separador = formato.getSeparador();
+        int limite = buffer.limit();
+        int i = posicao;
+        campos = 0;
+
+        while (true) {
+            garantirCampos();
+            boolean entreAspas = formato.aceitaAspas() && i < limite && buffer.get(i) == '"';
+            boolean escapado = false;
+            int inicio = i;
+            int fim;
+            if (entreAspas) {
+                inicio = ++i;
+                while (true) {
+                    if (i >= limite) {
+                        return false;
+                    }
+                    if (buffer.get(i) == '"') {
+                        if (i + 1 < limite && buffer.get(i + 1) == '"') {
+                            escapado = true;
+                            i += 2;
+                            continue;
+                        }
+                        if (i + 1 >= limite && !fimDoArquivo()) {
+                            return false;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                fim = i++;
+            } else {
+                while (i < limite && buffer.get(i) != separador && buffer.get(i) != '\n') {
+                    i++;
+                }
+                fim = i;
+            }
+
+            inicios[campos] = inicio;
+            fins[campos] = fim;
+            escapados[campos] = escapado;
+            campos++;
+
+            if (i < limite && buffer.get(i) == separador) {
+                i++;
+                continue;
+            }
+            if (i >= limite && !fimDoArquivo()) {
+                return false;
+            }
+            // Fim da linha (ou do arquivo): tira o \r de quem gravou com quebra de linha do Windows
+            int ultimo = campos - 1;
+            if (!entreAspas && fins[ultimo] > inicios[ultimo] && buffer.get(fins[ultimo] - 1) == '\r') {
+                fins[ultimo]--;
+            }
+            while (i < limite && buffer.get(i) != '\n') {
+                i++;
+            }
+            posicao = Math.min(i + 1, limite);
+            return true;
+        }
+    }
+
+    private void garantirCampos() {
+        if (campos == inicios.length) {
+            inicios = Arrays.copyOf(inicios, campos * 2);
+            fins = Arrays.copyOf(fins, campos * 2);
+            escapados = Arrays.copyOf(escapados, campos * 2);
+        }
+    }
+
+    private static int desfazerAspas(byte[] bytes, int tamanho) {
+        int destino = 0;
+        for (int i = 0; i < tamanho; i++) {
+            bytes[destino++] = bytes[i];
+            if (bytes[i] == '"' && i + 1 < tamanho && bytes[i + 1] == '"') {
+                i++;
+            }
+        }
+        return destino;
+    }
+
+    private int digitos(int campo, int inicio, int quantidade) {
+        int valor = 0;
+        for (int i = inicio; i < inicio + quantidade; i++) {
+            int digito = buffer.get(i) - '0';
+            if (digito < 0 || digito > 9) {
+                throw erro(campo, "data inválida (esperado aaaa-mm-dd)");
+            }
+            valor = valor * 10 + digito;
+        }
+        return valor;
+    }
+
+    private BigDecimal decimalPorTexto(int campo) {
+        try {
+            return new BigDecimal(texto(campo).trim());
+        } catch (NumberFormatException e) {
+            throw erro(campo, "valor decimal inválido");
+        }
+    }
+
+    private int primeiroNaoBranco(int campo) {
+        if (campo >= campos) {
+            return 0;
+        }
+        int i = inicios[campo];
+        while (i < fins[campo] && buffer.get(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private int ultimoNaoBranco(int campo) {
+        if (campo >= campos) {
+            return 0;
+        }
+        int i = fins[campo];
+        while (i > inicios[campo] && buffer.get(i - 1) == ' ') {
+            i--;
+        }
+        return i;
+    }
+
+    private IllegalArgumentException erro(int campo, String problema) {
+        return new IllegalArgumentException("Linha " + linha + ", campo " + (campo + 1) + ": " + problema);
+    }
+}
@@ -0,0 +1,217 @@
+package consulta;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Classe ConsultaFilmes - Descrição de uma busca de filmes com vários critérios
+ *
+ * Cada método acrescenta um critério (todos precisam ser atendidos) e devolve
+ * a própria consulta, para encadear as chamadas:
+ *
+ * <pre>
+ * ConsultaFilmes.filmes()
+ *         .lancadosEntre(LocalDate.of(2000, 1, 1), null)
+ *         .comDiretorDeNacionalidade("Brasileira")
+ *         .ordenarPor(OrdemConsulta.DATA_LANCAMENTO).decrescente()
+ *         .limitar(10);
+ * </pre>
+ *
+ * A consulta só descreve o que se quer; quem a executa (FilmeService.buscar)
+ * escolhe por qual índice começar. Uma mesma consulta pode ser executada de novo.
+ */
+public class ConsultaFilmes {
+
+    private String nome;
+    private String trechoNome;
+    private LocalDate lancadoDesde;
+    private LocalDate lancadoAte;
+    private boolean filtraOrcamento;
+    private BigDecimal orcamentoMinimo;
+    private BigDecimal orcamentoMaximo;
+    private Integer diretorId;
+    private final List<Integer> atoresIds;
+    private String nacionalidadeDiretor;
+    private OrdemConsulta ordem;
+    private boolean decrescente;
+    private int deslocamento;
+    private int limite;
+
+    public ConsultaFilmes() {
+        this.atoresIds = new ArrayList<>();
+        this.ordem = OrdemConsulta.ID;
+        this.limite = Integer.MAX_VALUE;
+    }
+
+    public static ConsultaFilmes filmes() {
+        return new ConsultaFilmes();
+    }
+
+    /**
+     * Nome exato, sem diferenciar maiúsculas e acentos (como FilmeService.buscarPorNome).
+     */
+    public ConsultaFilmes comNome(String nome) {
+        this.nome = exigirTexto(nome, "Nome");
+        return this;
+    }
+
+    /**
+     * Nome contendo o trecho, sem diferenciar maiúsculas (como FilmeService.buscarPorNomeParcial).
+     */
+    public ConsultaFilmes comNomeContendo(String trecho) {
+        this.trechoNome = exigirTexto(trecho, "Trecho do nome");
+        return this;
+    }
+
+    /**
+     * Lançados entre as datas (inclusive); null deixa a faixa aberta daquele lado.
+     */
+    public ConsultaFilmes lancadosEntre(LocalDate inicio, LocalDate fim) {
+        if (inicio != null && fim != null && inicio.isAfter(fim)) {
+            throw new IllegalArgumentException("Erro: Data inicial posterior à data final!");
+        }
+        this.lancadoDesde = inicio;
+        this.lancadoAte = fim;
+        return this;
+    }
+
+    /**
+     * Orçamento entre os valores (inclusive); null deixa a faixa aberta daquele lado.
+     * Filmes sem orçamento nunca atendem este critério.
+     */
+    public ConsultaFilmes comOrcamentoEntre(BigDecimal minimo, BigDecimal maximo) {
+        if (minimo != null && maximo != null && minimo.compareTo(maximo) > 0) {
+            throw new IllegalArgumentException("Erro: Orçamento mínimo maior que o máximo!");
+        }
+        this.filtraOrcamento = true;
+        this.orcamentoMinimo = minimo;
+        this.orcamentoMaximo = maximo;
+        return this;
+    }
+
+    public ConsultaFilmes dirigidosPor(int diretorId) {
+        this.diretorId = exigirId(diretorId);
+        return this;
+    }
+
+    /**
+     * Pode ser chamado mais de uma vez: o filme precisa ter todos os atores informados.
+     */
+    public ConsultaFilmes comAtor(int atorId) {
+        this.atoresIds.add(exigirId(atorId));
+        return this;
+    }
+
+    public ConsultaFilmes comDiretorDeNacionalidade(String nacionalidade) {
+        this.nacionalidadeDiretor = exigirTexto(nacionalidade, "Nacionalidade").trim();
+        return this;
+    }
+
+    public ConsultaFilmes ordenarPor(OrdemConsulta ordem) {
+        if (ordem == null) {
+            throw new IllegalArgumentException("Erro: Ordem não pode ser null!");
+        }
+        this.ordem = ordem;
+        return this;
+    }
+
+    public ConsultaFilmes decrescente() {
+        this.decrescente = true;
+        return this;
+    }
+
+    /**
+     * Pula os primeiros filmes do resultado (já ordenado).
+     */
+    public ConsultaFilmes pular(int quantidade) {
+        if (quantidade < 0) {
+            throw new IllegalArgumentException("Erro: Deslocamento não pode ser negativo!");
+        }
+        this.deslocamento = quantidade;
+        return this;
+    }
+
+    public ConsultaFilmes limitar(int quantidade) {
+        if (quantidade < 0) {
+            throw new IllegalArgumentException("Erro: Limite não pode ser negativo!");
+        }
+        this.limite = quantidade;
+        return this;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    public String getTrechoNome() {
+        return trechoNome;
+    }
+
+    public LocalDate getLancadoDesde() {
+        return lancadoDesde;
+    }
+
+    public LocalDate getLancadoAte() {
+        return lancadoAte;
+    }
+
+    public boolean filtraData() {
+        return lancadoDesde != null || lancadoAte != null;
+    }
+
+    public boolean filtraOrcamento() {
+        return filtraOrcamento;
+    }
+
+    public BigDecimal getOrcamentoMinimo() {
+        return orcamentoMinimo;
+    }
+
+    public BigDecimal getOrcamentoMaximo() {
+        return orcamentoMaximo;
+    }
+
+    public Integer getDiretorId() {
+        return diretorId;
+    }
+
+    public List<Integer> getAtoresIds() {
+        return new ArrayList<>(atoresIds);
+    }
+
+    public String getNacionalidadeDiretor() {
+        return nacionalidadeDiretor;
+    }
+
+    public OrdemConsulta getOrdem() {
+        return ordem;
+    }
+
+    public boolean isDecrescente() {
+        return decrescente;
+    }
+
+    public int getDeslocamento() {
+        return deslocamento;
+    }
+
+    public int getLimite() {
+        return limite;
+    }
+
+    private static String exigirTexto(String valor, String campo) {
+        if (valor == null || valor.trim().isEmpty()) {
+            throw new IllegalArgumentException("Erro: " + campo + " não pode ser vazio!");
+        }
+        return valor;
+    }
+
+    private static int exigirId(int id) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("Erro: ID inválido: " + id);
+        }
+        return id;
+    }
+}
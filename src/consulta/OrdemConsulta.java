@@ -0,0 +1,13 @@
+package consulta;
+
+/**
+ * Enum OrdemConsulta - Ordem dos filmes devolvidos por uma ConsultaFilmes
+ */
+public enum OrdemConsulta {
+    /** Ordem de cadastro (IDs crescentes). */
+    ID,
+    NOME,
+    DATA_LANCAMENTO,
+    /** Filmes sem orçamento ficam no fim. */
+    ORCAMENTO
+}
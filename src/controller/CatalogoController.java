@@ -1,16 +1,35 @@
 package controller;
 
+import cache.CacheVisualizacoes;
+import carga.CarregadorCatalogo;
+import consulta.ConsultaFilmes;
+import diagnostico.Diagnosticos;
+import persistencia.InstantaneoCatalogo;
+import persistencia.LogAlteracoes;
 import model.Ator;
 import model.Diretor;
 import model.Filme;
 import model.ResultadoOperacao;
+import multiversao.CatalogoMultiversao;
+import multiversao.RetratoCatalogo;
 import service.AtorService;
 import service.DiretorService;
 import service.FilmeService;
+import service.ModoArmazenamento;
+import transacao.TransacaoCatalogo;
+import transacao.TransacoesCatalogo;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * CatalogoController - Classe principal que controla o sistema de filmes
@@ -25,12 +44,46 @@ public class CatalogoController {
     private final FilmeService filmeService;
     private final AtorService atorService;
     private final DiretorService diretorService;
+    private final CacheVisualizacoes visualizacoes;
+    private final TransacoesCatalogo transacoes;
+    private LogAlteracoes logAlteracoes;
+    private CatalogoMultiversao multiversao;
+
+    // Tipos de texto guardados no cache de visualizações (chave = tipo + id)
+    private static final int DETALHES_FILME = 0;
+    private static final int BUSCA_ATOR = 1;
+    private static final int BUSCA_DIRETOR = 2;
+    private static final int EXIBICAO_FILME = 3;
+    private static final int EXIBICAO_ATOR = 4;
+    private static final int EXIBICAO_DIRETOR = 5;
 
     public CatalogoController() {
-        this.filmeService = new FilmeService();
+        this(ModoArmazenamento.OBJETOS);
+    }
+
+    /**
+     * Cria os serviços guardando os filmes no modo informado (ex: COLUNAR ou FORA_DO_HEAP para catálogos grandes).
+     */
+    public CatalogoController(ModoArmazenamento modo) {
         this.atorService = new AtorService();
         this.diretorService = new DiretorService();
-        System.out.println("CatalogoController criado!");
+        this.filmeService = new FilmeService(atorService, diretorService, modo);
+        this.visualizacoes = new CacheVisualizacoes();
+        visualizacoes.observar(filmeService, atorService, diretorService);
+        this.transacoes = TransacoesCatalogo.acompanhar(filmeService, atorService, diretorService);
+        Diagnosticos.info(CatalogoController.class, "CatalogoController criado!");
+    }
+
+    /**
+     * Usa serviços já criados, por exemplo com um catálogo já carregado.
+     */
+    public CatalogoController(FilmeService filmeService, AtorService atorService, DiretorService diretorService) {
+        this.atorService = atorService;
+        this.diretorService = diretorService;
+        this.filmeService = filmeService;
+        this.visualizacoes = new CacheVisualizacoes();
+        visualizacoes.observar(filmeService, atorService, diretorService);
+        this.transacoes = TransacoesCatalogo.acompanhar(filmeService, atorService, diretorService);
     }
 
     // ========== MÉTODOS PÚBLICOS QUE SEGUEM O PADRÃO FACADE -->  usar apenas parâmetros primitivos (padrão Facade)==========
@@ -41,11 +94,7 @@ public class CatalogoController {
         }
         
         try {
-            Ator ator = new Ator(nome);
-            ator.setIdade(idade);
-            if (nacionalidade != null && !nacionalidade.trim().isEmpty()) {
-                ator.setNacionalidade(nacionalidade);
-            }
+            Ator ator = criarAtor(nome, idade, nacionalidade);
             
             boolean cadastrou = atorService.cadastrar(ator);
             return cadastrou ? "Ator cadastrado!" : "Erro ao cadastrar ator";
@@ -59,14 +108,7 @@ public class CatalogoController {
         }
         
         try {
-            Diretor diretor = new Diretor(nome);
-            diretor.setIdade(idade);
-            if (nacionalidade != null && !nacionalidade.trim().isEmpty()) {
-                diretor.setNacionalidade(nacionalidade);
-            }
-            if (estilo != null && !estilo.trim().isEmpty()) {
-                diretor.setEstilo(estilo);
-            }
+            Diretor diretor = criarDiretor(nome, idade, nacionalidade, estilo);
             
             boolean cadastrou = diretorService.cadastrar(diretor);
             return cadastrou ? "Diretor cadastrado!" : "Erro ao cadastrar diretor";
@@ -80,13 +122,7 @@ public class CatalogoController {
         }
         
         try {
-            Filme filme = new Filme(nome, LocalDate.parse(dataLancamento));
-            if (orcamento != null && !orcamento.trim().isEmpty()) {
-                filme.setOrcamento(new BigDecimal(orcamento));
-            }
-            if (descricao != null && !descricao.trim().isEmpty()) {
-                filme.setDescricao(descricao);
-            }
+            Filme filme = criarFilme(nome, dataLancamento, orcamento, descricao);
             
             boolean cadastrou = filmeService.cadastrar(filme);
             return cadastrou ? "Filme cadastrado!" : "Erro ao cadastrar filme";
@@ -94,6 +130,171 @@ public class CatalogoController {
             return "Erro ao criar filme: " + e.getMessage();
         }
     }
+    /**
+     * Importa filmes em lote. Cada registro é {nome, dataLancamento, orcamento, descricao};
+     * os registros são convertidos na ordem do lote e ele só é cadastrado se todos forem válidos.
+     */
+    public String importarFilmesString(Iterator<String[]> registros) {
+        if (registros == null) {
+            return "Lote de filmes não pode ser null!";
+        }
+        try {
+            List<Filme> filmes = converterRegistros(registros,
+                    campos -> criarFilme(campo(campos, 0), campo(campos, 1), campo(campos, 2), campo(campos, 3)));
+            return filmeService.importar(filmes.stream()).getMensagem();
+        } catch (RegistroInvalidoException e) {
+            return "Erro ao importar filmes: " + e.getMessage();
+        }
+    }
+    /**
+     * Importa atores em lote. Cada registro é {nome, idade, nacionalidade}.
+     */
+    public String importarAtoresString(Iterator<String[]> registros) {
+        if (registros == null) {
+            return "Lote de atores não pode ser null!";
+        }
+        try {
+            List<Ator> atores = converterRegistros(registros,
+                    campos -> criarAtor(campo(campos, 0), Integer.parseInt(campo(campos, 1).trim()), campo(campos, 2)));
+            return atorService.importar(atores.stream()).getMensagem();
+        } catch (RegistroInvalidoException e) {
+            return "Erro ao importar atores: " + e.getMessage();
+        }
+    }
+    /**
+     * Importa diretores em lote. Cada registro é {nome, idade, nacionalidade, estilo}.
+     */
+    public String importarDiretoresString(Iterator<String[]> registros) {
+        if (registros == null) {
+            return "Lote de diretores não pode ser null!";
+        }
+        try {
+            List<Diretor> diretores = converterRegistros(registros,
+                    campos -> criarDiretor(campo(campos, 0), Integer.parseInt(campo(campos, 1).trim()),
+                            campo(campos, 2), campo(campos, 3)));
+            return diretorService.importar(diretores.stream()).getMensagem();
+        } catch (RegistroInvalidoException e) {
+            return "Erro ao importar diretores: " + e.getMessage();
+        }
+    }
+    /**
+     * Carrega os arquivos atores, diretores, filmes e elenco (.csv ou .tsv) que existirem
+     * no diretório, nessa ordem. Veja o formato das colunas em CarregadorCatalogo.
+     */
+    public String carregarCatalogoString(String diretorio) {
+        if (diretorio == null || diretorio.trim().isEmpty()) {
+            return "Diretório não pode ser vazio!";
+        }
+        Path pasta = Paths.get(diretorio);
+        if (!Files.isDirectory(pasta)) {
+            return "Diretório não encontrado: " + diretorio;
+        }
+
+        CarregadorCatalogo carregador = new CarregadorCatalogo(filmeService, atorService, diretorService);
+        StringBuilder resumo = new StringBuilder();
+        String[] nomes = {"atores", "diretores", "filmes", "elenco"};
+        for (String nome : nomes) {
+            Path arquivo = localizarArquivo(pasta, nome);
+            if (arquivo == null) {
+                continue;
+            }
+            ResultadoOperacao resultado;
+            switch (nome) {
+                case "atores": resultado = carregador.carregarAtores(arquivo); break;
+                case "diretores": resultado = carregador.carregarDiretores(arquivo); break;
+                case "filmes": resultado = carregador.carregarFilmes(arquivo); break;
+                default: resultado = carregador.carregarElenco(arquivo); break;
+            }
+            if (!resultado.isSucesso()) {
+                return resultado.getMensagem();
+            }
+            if (resumo.length() > 0) {
+                resumo.append(", ");
+            }
+            resumo.append(resultado.getMensagem());
+        }
+        return resumo.length() > 0 ? "Catálogo carregado: " + resumo : "Nenhum arquivo de catálogo em: " + diretorio;
+    }
+    /**
+     * Recupera o catálogo gravado no arquivo de log e passa a gravar nele cada alteração.
+     * Deve ser chamado com o catálogo ainda vazio, logo após criar o controller.
+     */
+    public synchronized String ativarPersistenciaString(String arquivo) {
+        return ativarPersistenciaString(arquivo, null);
+    }
+
+    /**
+     * Como ativarPersistenciaString(arquivo), mas carrega antes o instantâneo
+     * (se existir) e reaplica só o log gravado depois dele.
+     */
+    public synchronized String ativarPersistenciaString(String arquivo, String instantaneo) {
+        if (arquivo == null || arquivo.trim().isEmpty()) {
+            return "Arquivo de log não pode ser vazio!";
+        }
+        if (logAlteracoes != null) {
+            return "Persistência já está ativada!";
+        }
+        try {
+            logAlteracoes = LogAlteracoes.abrir(Paths.get(arquivo),
+                    instantaneo != null ? Paths.get(instantaneo) : null, filmeService, atorService, diretorService);
+            return "Persistência ativada: " + logAlteracoes.getRegistrosRecuperados() + " alteração(ões) recuperada(s)";
+        } catch (IOException | RuntimeException e) {
+            return "Erro ao abrir o log: " + e.getMessage();
+        }
+    }
+
+    /**
+     * Grava o catálogo inteiro no instantâneo e recomeça o log vazio.
+     */
+    public synchronized String gravarInstantaneoString(String instantaneo) {
+        if (instantaneo == null || instantaneo.trim().isEmpty()) {
+            return "Arquivo do instantâneo não pode ser vazio!";
+        }
+        if (logAlteracoes == null) {
+            return "Persistência não está ativada!";
+        }
+        try {
+            InstantaneoCatalogo retrato = logAlteracoes.gravarInstantaneo(Paths.get(instantaneo));
+            return "Instantâneo gravado: " + retrato.getFilmes() + " filme(s), " + retrato.getAtores()
+                    + " ator(es), " + retrato.getDiretores() + " diretor(es)";
+        } catch (IOException | RuntimeException e) {
+            return "Erro ao gravar o instantâneo: " + e.getMessage();
+        }
+    }
+    public synchronized String encerrarPersistenciaString() {
+        if (logAlteracoes == null) {
+            return "Persistência não está ativada!";
+        }
+        try {
+            logAlteracoes.close();
+            return "Persistência encerrada!";
+        } catch (IOException e) {
+            return "Erro ao fechar o log: " + e.getMessage();
+        } finally {
+            logAlteracoes = null;
+        }
+    }
+
+    /**
+     * Executa cadastros, associações e remoções em filmes, atores e diretores como uma
+     * transação só (ver transacao.TransacaoCatalogo), repetindo o corpo se houver conflito.
+     */
+    public ResultadoOperacao executarTransacao(Consumer<TransacaoCatalogo> corpo) {
+        return transacoes.executar(corpo);
+    }
+
+    /**
+     * Abre um retrato do catálogo inteiro como está agora, para leituras longas
+     * (relatórios, exportações) sem segurar as travas dos serviços. Na primeira
+     * chamada o catálogo passa a ser acompanhado pelo CatalogoMultiversao.
+     * O retrato deve ser fechado ao terminar (try-with-resources).
+     */
+    public synchronized RetratoCatalogo abrirRetrato() {
+        if (multiversao == null) {
+            multiversao = CatalogoMultiversao.acompanhar(filmeService, atorService, diretorService);
+        }
+        return multiversao.abrirRetrato();
+    }
     public String editarFilmeString(int id, String nome, String dataLancamento, String orcamento, String descricao) {
         if (id <= 0) {
             return "ID do filme inválido!";
@@ -125,78 +326,173 @@ public class CatalogoController {
         }
     }
     public String listarAtoresString() {
-        List<Ator> atores = atorService.listarTodos();
-        if (atores != null && !atores.isEmpty()) {
-            return "Total: " + atores.size() + " ator(es)";
-        } else {
-            return "Nenhum ator cadastrado";
-        }
+        int total = atorService.contarAtores();
+        return total > 0 ? "Total: " + total + " ator(es)" : "Nenhum ator cadastrado";
     }
     public String listarDiretoresString() {
-        List<Diretor> diretores = diretorService.listarTodos();
-        if (diretores != null && !diretores.isEmpty()) {
-            return "Total: " + diretores.size() + " diretor(es)";
-        } else {
-            return "Nenhum diretor cadastrado";
-        }
+        int total = diretorService.contarDiretores();
+        return total > 0 ? "Total: " + total + " diretor(es)" : "Nenhum diretor cadastrado";
     }
     public String listarFilmesString() {
-        List<Filme> filmes = filmeService.listarTodos();
-        if (filmes != null && !filmes.isEmpty()) {
-            return "Total: " + filmes.size() + " filme(s)";
-        } else {
-            return "Nenhum filme cadastrado";
+        int total = filmeService.contarFilmes();
+        return total > 0 ? "Total: " + total + " filme(s)" : "Nenhum filme cadastrado";
+    }
+    /**
+     * Resumo do catálogo a partir dos totais mantidos pelos serviços (não percorre os cadastros).
+     */
+    public String estatisticasCatalogoString() {
+        StringBuilder resumo = new StringBuilder();
+        resumo.append(filmeService.contarFilmes()).append(" filme(s), ")
+                .append(atorService.contarAtores()).append(" ator(es), ")
+                .append(diretorService.contarDiretores()).append(" diretor(es)");
+        BigDecimal medio = filmeService.getOrcamentoMedio();
+        if (medio != null) {
+            resumo.append("; orçamento total R$ ").append(filmeService.getOrcamentoTotal())
+                    .append(" em ").append(filmeService.contarComOrcamento()).append(" filme(s), médio R$ ")
+                    .append(medio);
         }
+        return "Catálogo: " + resumo;
     }
     public String buscarAtorPorIdString(int id) {
         if (id <= 0) {
             return "ID do ator inválido";
         }
         
-        try {
-            Ator ator = atorService.buscarPorId(id);
-            return ator != null ? "Ator encontrado: " + ator.getNome() : "Ator ID " + id + " não encontrado";
-        } catch (Exception e) {
-            return "Erro ao buscar ator: " + e.getMessage();
-        }
+        return visualizacoes.buscar(CacheVisualizacoes.chave(BUSCA_ATOR, id), dependencias -> {
+            dependencias.ator(id);
+            try {
+                Ator ator = atorService.buscarPorId(id);
+                return ator != null ? "Ator encontrado: " + ator.getNome() : "Ator ID " + id + " não encontrado";
+            } catch (Exception e) {
+                return "Erro ao buscar ator: " + e.getMessage();
+            }
+        });
     }
     public String buscarDiretorPorIdString(int id) {
         if (id <= 0) {
             return "ID do diretor inválido";
         }
         
-        Diretor diretor = diretorService.buscarPorId(id);
-        return diretor != null ? "Diretor encontrado: " + diretor.getNome() : "Diretor ID " + id + " não encontrado";
+        return visualizacoes.buscar(CacheVisualizacoes.chave(BUSCA_DIRETOR, id), dependencias -> {
+            dependencias.diretor(id);
+            Diretor diretor = diretorService.buscarPorId(id);
+            return diretor != null ? "Diretor encontrado: " + diretor.getNome() : "Diretor ID " + id + " não encontrado";
+        });
     }
     public String visualizarDetalhesFilmeString(int id) {
         if (id <= 0) {
             return "ID do filme inválido";
         }
         
-        Filme filme = filmeService.buscarPorId(id);
-        return filme != null ? "Filme encontrado: " + filme.getNome() : "Filme ID " + id + " não encontrado";
+        return visualizacoes.buscar(CacheVisualizacoes.chave(DETALHES_FILME, id), dependencias -> {
+            dependencias.filme(id);
+            Filme filme = filmeService.buscarPorId(id);
+            return filme != null ? "Filme encontrado: " + filme.getNome() : "Filme ID " + id + " não encontrado";
+        });
+    }
+    /**
+     * Ficha completa do filme (Filme.exibirInformacoes), guardada até o filme, seu diretor ou um ator do elenco mudar.
+     */
+    public String exibirFilmeString(int id) {
+        if (id <= 0) {
+            return "ID do filme inválido";
+        }
+
+        return visualizacoes.buscar(CacheVisualizacoes.chave(EXIBICAO_FILME, id), dependencias -> {
+            dependencias.filme(id);
+            Filme filme = filmeService.buscarPorId(id);
+            if (filme == null) {
+                return "Filme ID " + id + " não encontrado";
+            }
+            if (filme.getDiretor() != null) {
+                dependencias.diretor(filme.getDiretor().getId());
+            }
+            for (Ator ator : filme.getAtores()) {
+                dependencias.ator(ator.getId());
+            }
+            return filme.exibirInformacoes();
+        });
+    }
+    /**
+     * Ficha completa do ator com a filmografia, guardada até o ator ou um de seus filmes mudar.
+     */
+    public String exibirAtorString(int id) {
+        if (id <= 0) {
+            return "ID do ator inválido";
+        }
+
+        return visualizacoes.buscar(CacheVisualizacoes.chave(EXIBICAO_ATOR, id), dependencias -> {
+            dependencias.ator(id);
+            try {
+                Ator ator = atorService.buscarPorId(id);
+                // O Ator só guarda a própria lista (na ordem das associações) no modo OBJETOS; nos outros ela vem do elenco
+                List<Filme> filmografia = ator.getFilmografia();
+                if (filmografia.isEmpty()) {
+                    filmografia = filmeService.buscarPorAtor(ator);
+                }
+                for (Filme filme : filmografia) {
+                    dependencias.filme(filme.getId());
+                }
+                return ator.exibirInformacoes(filmografia);
+            } catch (Exception e) {
+                return "Erro ao buscar ator: " + e.getMessage();
+            }
+        });
+    }
+    /**
+     * Ficha completa do diretor com os filmes dirigidos, guardada até o diretor ou um de seus filmes mudar.
+     */
+    public String exibirDiretorString(int id) {
+        if (id <= 0) {
+            return "ID do diretor inválido";
+        }
+
+        return visualizacoes.buscar(CacheVisualizacoes.chave(EXIBICAO_DIRETOR, id), dependencias -> {
+            dependencias.diretor(id);
+            Diretor diretor = diretorService.buscarPorId(id);
+            if (diretor == null) {
+                return "Diretor ID " + id + " não encontrado";
+            }
+            List<Filme> filmesDirigidos = diretor.getFilmesDirigidos();
+            if (filmesDirigidos.isEmpty()) {
+                filmesDirigidos = filmeService.buscarPorDiretor(diretor);
+            }
+            for (Filme filme : filmesDirigidos) {
+                dependencias.filme(filme.getId());
+            }
+            return diretor.exibirInformacoes(filmesDirigidos);
+        });
+    }
+    public String estatisticasCacheString() {
+        return String.format("Cache de visualizações: %d acerto(s), %d falta(s) (%.1f%% de acerto), "
+                        + "%d invalidada(s), %d despejo(s), %d entrada(s), %d de %d KB",
+                visualizacoes.getAcertos(), visualizacoes.getFaltas(), 100 * visualizacoes.getTaxaAcerto(),
+                visualizacoes.getInvalidacoes(), visualizacoes.getDespejos(), visualizacoes.getQuantidade(),
+                visualizacoes.getPeso() / 1024, visualizacoes.getPesoMaximo() / 1024);
     }
     public String associarAtorFilmeString(int filmeId, int atorId) {
+        return associarAtorFilmeString(filmeId, atorId, null);
+    }
+    public String associarAtorFilmeString(int filmeId, int atorId, String personagem) {
         if (filmeId <= 0 || atorId <= 0) {
             return "IDs inválidos!";
         }
         
-        Filme filme = filmeService.buscarPorId(filmeId);
-        if (filme == null) {
-            return "Filme não encontrado!";
-        }
-        
-        try {
-            Ator ator = atorService.buscarPorId(atorId);
+        // Filme e ator ainda existem e não mudaram quando a associação é feita
+        ResultadoOperacao resultado = transacoes.executar(transacao -> {
+            Filme filme = transacao.buscarFilme(filmeId);
+            if (filme == null) {
+                transacao.cancelar("Filme não encontrado!");
+                return;
+            }
+            Ator ator = transacao.buscarAtor(atorId);
             if (ator == null) {
-                return "Ator não encontrado!";
+                transacao.cancelar("Ator não encontrado!");
+                return;
             }
-            
-            boolean associou = filmeService.associarAtor(filme, ator);
-            return associou ? "Ator associado ao filme!" : "Erro ao associar ator";
-        } catch (Exception e) {
-            return "Erro ao buscar ator: " + e.getMessage();
-        }
+            transacao.associarAtor(filme, ator, personagem);
+        });
+        return resultado.isSucesso() ? "Ator associado ao filme!" : resultado.getMensagem();
     }
     public String associarDiretorFilmeString(int filmeId, int diretorId) {
         if (filmeId <= 0 || diretorId <= 0) {
@@ -258,4 +554,135 @@ public class CatalogoController {
             return "Nenhum filme encontrado: " + nome;
         }
     }
+    /**
+     * Busca com vários critérios (ver consulta.ConsultaFilmes), ex:
+     * buscarFilmesString(ConsultaFilmes.filmes().comAtor(3).ordenarPor(OrdemConsulta.NOME).limitar(10)).
+     */
+    public String buscarFilmesString(ConsultaFilmes consulta) {
+        if (consulta == null) {
+            return "Consulta não pode ser vazia";
+        }
+
+        List<Filme> filmes = filmeService.buscar(consulta);
+        if (filmes.isEmpty()) {
+            return "Nenhum filme encontrado";
+        }
+        StringBuilder nomes = new StringBuilder();
+        for (Filme filme : filmes) {
+            if (nomes.length() > 0) {
+                nomes.append(", ");
+            }
+            nomes.append(filme.getNome());
+        }
+        return "Encontrados " + filmes.size() + " filme(s): " + nomes;
+    }
+    public String autocompletarString(String prefixo, int limite) {
+        if (prefixo == null || prefixo.trim().isEmpty()) {
+            return "Prefixo não pode ser vazio";
+        }
+        if (limite <= 0) {
+            return "Limite de sugestões inválido!";
+        }
+        
+        StringBuilder sugestoes = new StringBuilder();
+        for (Filme filme : filmeService.autocompletar(prefixo, limite)) {
+            adicionarSugestao(sugestoes, filme.getNome(), "filme");
+        }
+        for (Ator ator : atorService.autocompletar(prefixo, limite)) {
+            adicionarSugestao(sugestoes, ator.getNome(), "ator");
+        }
+        for (Diretor diretor : diretorService.autocompletar(prefixo, limite)) {
+            adicionarSugestao(sugestoes, diretor.getNome(), "diretor");
+        }
+        
+        if (sugestoes.length() == 0) {
+            return "Nenhuma sugestão para: " + prefixo;
+        }
+        return "Sugestões: " + sugestoes;
+    }
+
+    private void adicionarSugestao(StringBuilder sugestoes, String nome, String tipo) {
+        if (sugestoes.length() > 0) {
+            sugestoes.append(", ");
+        }
+        sugestoes.append(nome).append(" (").append(tipo).append(")");
+    }
+
+    private Filme criarFilme(String nome, String dataLancamento, String orcamento, String descricao) {
+        Filme filme = new Filme(nome, LocalDate.parse(dataLancamento));
+        if (orcamento != null && !orcamento.trim().isEmpty()) {
+            filme.setOrcamento(new BigDecimal(orcamento));
+        }
+        if (descricao != null && !descricao.trim().isEmpty()) {
+            filme.setDescricao(descricao);
+        }
+        return filme;
+    }
+
+    private Ator criarAtor(String nome, int idade, String nacionalidade) {
+        Ator ator = new Ator(nome);
+        ator.setIdade(idade);
+        if (nacionalidade != null && !nacionalidade.trim().isEmpty()) {
+            ator.setNacionalidade(nacionalidade);
+        }
+        return ator;
+    }
+
+    private Diretor criarDiretor(String nome, int idade, String nacionalidade, String estilo) {
+        Diretor diretor = new Diretor(nome);
+        diretor.setIdade(idade);
+        if (nacionalidade != null && !nacionalidade.trim().isEmpty()) {
+            diretor.setNacionalidade(nacionalidade);
+        }
+        if (estilo != null && !estilo.trim().isEmpty()) {
+            diretor.setEstilo(estilo);
+        }
+        return diretor;
+    }
+
+    // Converte os registros em ordem (atores e diretores recebem o ID ao serem criados, então os IDs seguem o lote);
+    // o primeiro registro inválido interrompe a importação. A validação em paralelo fica com o importar dos serviços.
+    private static <T> List<T> converterRegistros(Iterator<String[]> registros, Function<String[], T> conversor) {
+        List<T> convertidos = new ArrayList<>();
+        while (registros.hasNext()) {
+            String[] campos = registros.next();
+            int numero = convertidos.size() + 1;
+            if (campos == null) {
+                throw new RegistroInvalidoException("registro " + numero + ": registro vazio");
+            }
+            T convertido;
+            try {
+                convertido = conversor.apply(campos);
+            } catch (RuntimeException e) {
+                throw new RegistroInvalidoException("registro " + numero + ": " + e.getMessage());
+            }
+            if (convertido == null) {
+                throw new RegistroInvalidoException("registro " + numero + ": null");
+            }
+            convertidos.add(convertido);
+        }
+        return convertidos;
+    }
+
+    private static Path localizarArquivo(Path pasta, String nome) {
+        for (String extensao : new String[]{".csv", ".tsv"}) {
+            Path arquivo = pasta.resolve(nome + extensao);
+            if (Files.isRegularFile(arquivo)) {
+                return arquivo;
+            }
+        }
+        return null;
+    }
+
+    private static String campo(String[] campos, int posicao) {
+        return posicao < campos.length ? campos[posicao] : null;
+    }
+
+    private static final class RegistroInvalidoException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private RegistroInvalidoException(String mensagem) {
+            super(mensagem);
+        }
+    }
 }
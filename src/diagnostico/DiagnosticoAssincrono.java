@@ -0,0 +1,145 @@
+package diagnostico;
+
+import interfaces.IDiagnostico;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Classe DiagnosticoAssincrono - Entrega as mensagens a outro destino numa thread separada
+ *
+ * As threads que emitem só reservam uma posição num anel de tamanho fixo
+ * (uma operação compare-and-set) e publicam o evento; uma única thread de
+ * fundo lê o anel em ordem, formata as mensagens e repassa ao destino. Quem
+ * emite nunca espera pelo console: com o anel cheio o evento é descartado e
+ * contado em getDescartados().
+ */
+public class DiagnosticoAssincrono implements IDiagnostico, AutoCloseable {
+
+    private static final int CAPACIDADE_PADRAO = 8192;
+    private static final long ESPERA_NANOS = 200_000;
+
+    private final IDiagnostico destino;
+    private final EventoDiagnostico[] anel;
+    private final AtomicLongArray publicados;
+    private final int mascara;
+    private final AtomicLong proximaEscrita;
+    private final LongAdder descartados;
+    private final Thread consumidor;
+    private volatile long proximaLeitura;
+    private volatile boolean aberto;
+
+    public DiagnosticoAssincrono(IDiagnostico destino) {
+        this(destino, CAPACIDADE_PADRAO);
+    }
+
+    /**
+     * @param capacidade quantos eventos podem esperar no anel; é arredondada para uma potência de 2
+     */
+    public DiagnosticoAssincrono(IDiagnostico destino, int capacidade) {
+        if (destino == null) {
+            throw new IllegalArgumentException("Erro: Destino não pode ser null!");
+        }
+        if (capacidade <= 0 || capacidade > (1 << 30)) {
+            throw new IllegalArgumentException("Erro: Capacidade inválida: " + capacidade);
+        }
+        int tamanho = Integer.highestOneBit(capacidade);
+        if (tamanho < capacidade) {
+            tamanho <<= 1;
+        }
+
+        this.destino = destino;
+        this.anel = new EventoDiagnostico[tamanho];
+        this.publicados = new AtomicLongArray(tamanho);
+        for (int i = 0; i < tamanho; i++) {
+            publicados.set(i, -1);
+        }
+        this.mascara = tamanho - 1;
+        this.proximaEscrita = new AtomicLong();
+        this.descartados = new LongAdder();
+        this.aberto = true;
+        this.consumidor = new Thread(this::consumir, "diagnostico-assincrono");
+        this.consumidor.setDaemon(true);
+        this.consumidor.start();
+    }
+
+    @Override
+    public boolean ativo(NivelDiagnostico nivel) {
+        return aberto && destino.ativo(nivel);
+    }
+
+    @Override
+    public void registrar(EventoDiagnostico evento) {
+        if (!aberto) {
+            descartados.increment();
+            return;
+        }
+        long sequencia;
+        do {
+            sequencia = proximaEscrita.get();
+            if (sequencia - proximaLeitura >= anel.length) {
+                descartados.increment();
+                return;
+            }
+        } while (!proximaEscrita.compareAndSet(sequencia, sequencia + 1));
+
+        int posicao = (int) sequencia & mascara;
+        anel[posicao] = evento;
+        // A escrita ordenada publica o evento para a thread de fundo
+        publicados.lazySet(posicao, sequencia);
+    }
+
+    public long getDescartados() {
+        return descartados.sum();
+    }
+
+    /**
+     * @return quantos eventos ainda esperam para ser entregues
+     */
+    public int getPendentes() {
+        return (int) (proximaEscrita.get() - proximaLeitura);
+    }
+
+    /**
+     * Para de aceitar eventos, entrega os que já estavam no anel e encerra a thread de fundo.
+     */
+    @Override
+    public void close() {
+        aberto = false;
+        LockSupport.unpark(consumidor);
+        boolean interrompida = false;
+        while (consumidor.isAlive()) {
+            try {
+                consumidor.join();
+            } catch (InterruptedException e) {
+                interrompida = true;
+            }
+        }
+        if (interrompida) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void consumir() {
+        long leitura = proximaLeitura;
+        while (true) {
+            int posicao = (int) leitura & mascara;
+            if (publicados.get(posicao) == leitura) {
+                EventoDiagnostico evento = anel[posicao];
+                anel[posicao] = null;
+                proximaLeitura = ++leitura;
+                try {
+                    destino.registrar(evento);
+                } catch (RuntimeException e) {
+                    descartados.increment();
+                }
+            } else if (!aberto && leitura == proximaEscrita.get()) {
+                return;
+            } else {
+                LockSupport.parkNanos(this, ESPERA_NANOS);
+            }
+        }
+    }
+}
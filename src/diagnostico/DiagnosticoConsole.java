@@ -0,0 +1,41 @@
+package diagnostico;
+
+import interfaces.IDiagnostico;
+
+import java.io.PrintStream;
+
+/**
+ * Classe DiagnosticoConsole - Escreve as mensagens no console, uma por linha
+ *
+ * Mostra apenas o texto da mensagem, como o sistema sempre fez com
+ * System.out.println. Mensagens abaixo do nível mínimo são ignoradas.
+ */
+public class DiagnosticoConsole implements IDiagnostico {
+
+    private final PrintStream saida;
+    private final NivelDiagnostico nivelMinimo;
+
+    public DiagnosticoConsole() {
+        this(System.out, NivelDiagnostico.INFO);
+    }
+
+    public DiagnosticoConsole(PrintStream saida, NivelDiagnostico nivelMinimo) {
+        if (saida == null || nivelMinimo == null) {
+            throw new IllegalArgumentException("Erro: Saída e nível mínimo não podem ser null!");
+        }
+        this.saida = saida;
+        this.nivelMinimo = nivelMinimo;
+    }
+
+    @Override
+    public boolean ativo(NivelDiagnostico nivel) {
+        return nivel.compareTo(nivelMinimo) >= 0;
+    }
+
+    @Override
+    public void registrar(EventoDiagnostico evento) {
+        if (ativo(evento.getNivel())) {
+            saida.println(evento.getMensagem());
+        }
+    }
+}
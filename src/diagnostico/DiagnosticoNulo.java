@@ -0,0 +1,23 @@
+package diagnostico;
+
+import interfaces.IDiagnostico;
+
+/**
+ * Classe DiagnosticoNulo - Descarta todas as mensagens (destino padrão)
+ */
+public final class DiagnosticoNulo implements IDiagnostico {
+
+    public static final DiagnosticoNulo INSTANCIA = new DiagnosticoNulo();
+
+    private DiagnosticoNulo() {
+    }
+
+    @Override
+    public boolean ativo(NivelDiagnostico nivel) {
+        return false;
+    }
+
+    @Override
+    public void registrar(EventoDiagnostico evento) {
+    }
+}
@@ -0,0 +1,77 @@
+package diagnostico;
+
+import interfaces.IDiagnostico;
+
+/**
+ * Classe Diagnosticos - Ponto único por onde modelos e serviços emitem mensagens
+ *
+ * O destino começa como DiagnosticoNulo, então por padrão nada é impresso nem
+ * montado. Cada método confere o nível antes de criar o evento: com o destino
+ * desligado a chamada custa uma leitura de campo e uma comparação. Os modelos
+ * usam "{}" no lugar de cada argumento, que só é convertido em texto se a
+ * mensagem for lida.
+ */
+public final class Diagnosticos {
+
+    private static volatile IDiagnostico destino = DiagnosticoNulo.INSTANCIA;
+
+    private Diagnosticos() {
+    }
+
+    public static IDiagnostico getDestino() {
+        return destino;
+    }
+
+    /**
+     * Troca o destino de todas as mensagens; null volta para o DiagnosticoNulo.
+     */
+    public static void setDestino(IDiagnostico novoDestino) {
+        destino = novoDestino != null ? novoDestino : DiagnosticoNulo.INSTANCIA;
+    }
+
+    public static boolean ativo(NivelDiagnostico nivel) {
+        return destino.ativo(nivel);
+    }
+
+    public static void info(Class<?> origem, String modelo) {
+        IDiagnostico atual = destino;
+        if (atual.ativo(NivelDiagnostico.INFO)) {
+            atual.registrar(new EventoDiagnostico(NivelDiagnostico.INFO, origem, modelo));
+        }
+    }
+
+    public static void info(Class<?> origem, String modelo, Object argumento) {
+        IDiagnostico atual = destino;
+        if (atual.ativo(NivelDiagnostico.INFO)) {
+            atual.registrar(new EventoDiagnostico(NivelDiagnostico.INFO, origem, modelo, argumento));
+        }
+    }
+
+    public static void info(Class<?> origem, String modelo, Object primeiro, Object segundo) {
+        IDiagnostico atual = destino;
+        if (atual.ativo(NivelDiagnostico.INFO)) {
+            atual.registrar(new EventoDiagnostico(NivelDiagnostico.INFO, origem, modelo, primeiro, segundo));
+        }
+    }
+
+    public static void aviso(Class<?> origem, String modelo) {
+        IDiagnostico atual = destino;
+        if (atual.ativo(NivelDiagnostico.AVISO)) {
+            atual.registrar(new EventoDiagnostico(NivelDiagnostico.AVISO, origem, modelo));
+        }
+    }
+
+    public static void aviso(Class<?> origem, String modelo, Object argumento) {
+        IDiagnostico atual = destino;
+        if (atual.ativo(NivelDiagnostico.AVISO)) {
+            atual.registrar(new EventoDiagnostico(NivelDiagnostico.AVISO, origem, modelo, argumento));
+        }
+    }
+
+    public static void aviso(Class<?> origem, String modelo, Object primeiro, Object segundo) {
+        IDiagnostico atual = destino;
+        if (atual.ativo(NivelDiagnostico.AVISO)) {
+            atual.registrar(new EventoDiagnostico(NivelDiagnostico.AVISO, origem, modelo, primeiro, segundo));
+        }
+    }
+}
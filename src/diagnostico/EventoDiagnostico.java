@@ -0,0 +1,78 @@
+package diagnostico;
+
+/**
+ * Classe EventoDiagnostico - Uma mensagem emitida por um modelo ou serviço
+ *
+ * Guarda o modelo do texto e os argumentos separados; cada "{}" do modelo é
+ * trocado pelo próximo argumento só na primeira chamada de getMensagem(),
+ * que pode acontecer em outra thread (ver DiagnosticoAssincrono).
+ */
+public class EventoDiagnostico {
+
+    private static final Object[] SEM_ARGUMENTOS = new Object[0];
+
+    private final NivelDiagnostico nivel;
+    private final Class<?> origem;
+    private final String modelo;
+    private final Object[] argumentos;
+    private final long instante;
+    private String mensagem;
+
+    public EventoDiagnostico(NivelDiagnostico nivel, Class<?> origem, String modelo, Object... argumentos) {
+        this.nivel = nivel;
+        this.origem = origem;
+        this.modelo = modelo;
+        this.argumentos = argumentos != null ? argumentos : SEM_ARGUMENTOS;
+        this.instante = System.currentTimeMillis();
+    }
+
+    public NivelDiagnostico getNivel() {
+        return nivel;
+    }
+
+    public Class<?> getOrigem() {
+        return origem;
+    }
+
+    public String getModelo() {
+        return modelo;
+    }
+
+    public Object[] getArgumentos() {
+        return argumentos.clone();
+    }
+
+    /**
+     * @return o momento da emissão, em milissegundos desde a época
+     */
+    public long getInstante() {
+        return instante;
+    }
+
+    public String getMensagem() {
+        if (mensagem == null) {
+            mensagem = formatar(modelo, argumentos);
+        }
+        return mensagem;
+    }
+
+    @Override
+    public String toString() {
+        return nivel + " [" + origem.getSimpleName() + "] " + getMensagem();
+    }
+
+    private static String formatar(String modelo, Object[] argumentos) {
+        if (argumentos.length == 0) {
+            return modelo;
+        }
+        StringBuilder texto = new StringBuilder(modelo.length() + 16 * argumentos.length);
+        int inicio = 0;
+        int usados = 0;
+        int marcador;
+        while (usados < argumentos.length && (marcador = modelo.indexOf("{}", inicio)) >= 0) {
+            texto.append(modelo, inicio, marcador).append(argumentos[usados++]);
+            inicio = marcador + 2;
+        }
+        return texto.append(modelo, inicio, modelo.length()).toString();
+    }
+}
@@ -0,0 +1,11 @@
+package diagnostico;
+
+/**
+ * Enum NivelDiagnostico - Gravidade de uma mensagem de diagnóstico
+ */
+public enum NivelDiagnostico {
+    /** Operação concluída (cadastros, associações, validações bem-sucedidas). */
+    INFO,
+    /** Operação recusada por dados inválidos ou registros inexistentes. */
+    AVISO
+}
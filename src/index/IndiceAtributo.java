@@ -0,0 +1,156 @@
+package index;
+
+import util.Dicionario;
+import util.ListaInt;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Classe IndiceAtributo - IDs agrupados por um atributo de texto com poucos valores distintos
+ *
+ * Ex: nacionalidade ou estilo dos diretores. Cada valor recebe um código num
+ * Dicionario deste índice, e os IDs ficam num IndiceReverso pelo código: os
+ * filtros e contagens comparam ints, não textos. O dicionário é do serviço que
+ * mantém o índice, então valores digitados em outros serviços (ou recusados
+ * antes de chegar aqui) não ocupam espaço nele.
+ *
+ * Os códigos nunca são reaproveitados, por isso o dicionário tem um limite.
+ * Atingido o limite, os valores novos ficam guardados como texto, num mapa à
+ * parte que perde a entrada quando o último ID dela sai: o índice continua
+ * correto, só esses valores não ganham código. Não é sincronizado; o serviço
+ * usa com a sua trava.
+ */
+public class IndiceAtributo {
+
+    private static final int[] NENHUM = new int[0];
+
+    private final Dicionario dicionario;
+    private final IndiceReverso porCodigo;
+    private final Map<String, ListaInt> semCodigo;
+
+    /**
+     * @param limite quantos valores diferentes ganham código
+     */
+    public IndiceAtributo(int limite) {
+        this.dicionario = new Dicionario(limite);
+        this.porCodigo = new IndiceReverso();
+        this.semCodigo = new LinkedHashMap<>();
+    }
+
+    /**
+     * Associa o ID ao valor (null é ignorado).
+     *
+     * @return a instância do valor guardada no índice, para as entidades compartilharem uma só String
+     */
+    public String adicionar(String valor, int id) {
+        if (valor == null) {
+            return null;
+        }
+        int codigo = dicionario.codificar(valor);
+        if (codigo != Dicionario.NAO_ENCONTRADO) {
+            porCodigo.adicionar(codigo, id);
+            return dicionario.valor(codigo);
+        }
+        ListaInt ids = semCodigo.get(valor);
+        if (ids == null) {
+            ids = new ListaInt();
+            semCodigo.put(valor, ids);
+        }
+        ids.adicionar(id);
+        return valor;
+    }
+
+    public void remover(String valor, int id) {
+        if (valor == null) {
+            return;
+        }
+        int codigo = dicionario.buscarCodigo(valor);
+        if (codigo != Dicionario.NAO_ENCONTRADO) {
+            porCodigo.remover(codigo, id);
+            return;
+        }
+        ListaInt ids = semCodigo.get(valor);
+        if (ids != null && ids.remover(id) && ids.estaVazia()) {
+            semCodigo.remove(valor);
+        }
+    }
+
+    /**
+     * @return os IDs com o valor, em ordem crescente
+     */
+    public int[] buscar(String valor) {
+        if (valor == null) {
+            return NENHUM;
+        }
+        int codigo = dicionario.buscarCodigo(valor);
+        if (codigo != Dicionario.NAO_ENCONTRADO) {
+            return porCodigo.buscar(codigo);
+        }
+        ListaInt ids = semCodigo.get(valor);
+        return ids != null ? ids.paraArray() : NENHUM;
+    }
+
+    public int contar(String valor) {
+        if (valor == null) {
+            return 0;
+        }
+        int codigo = dicionario.buscarCodigo(valor);
+        if (codigo != Dicionario.NAO_ENCONTRADO) {
+            return porCodigo.contar(codigo);
+        }
+        ListaInt ids = semCodigo.get(valor);
+        return ids != null ? ids.tamanho() : 0;
+    }
+
+    /**
+     * @return os IDs com o valor neste índice e com valorOutro no outro, em ordem crescente
+     */
+    public int[] buscarEmComum(String valor, IndiceAtributo outro, String valorOutro) {
+        int codigo = dicionario.buscarCodigo(valor);
+        int codigoOutro = outro.dicionario.buscarCodigo(valorOutro);
+        if (codigo > Dicionario.SEM_VALOR && codigoOutro > Dicionario.SEM_VALOR) {
+            return porCodigo.buscarEmComum(codigo, outro.porCodigo, codigoOutro);
+        }
+        // Algum dos valores ficou sem código: cruza as duas listas ordenadas
+        int[] ids = buscar(valor);
+        int[] idsOutro = outro.buscar(valorOutro);
+        ListaInt comuns = new ListaInt(Math.min(ids.length, idsOutro.length));
+        for (int i = 0, j = 0; i < ids.length && j < idsOutro.length; ) {
+            if (ids[i] < idsOutro[j]) {
+                i++;
+            } else if (ids[i] > idsOutro[j]) {
+                j++;
+            } else {
+                comuns.adicionar(ids[i]);
+                i++;
+                j++;
+            }
+        }
+        return comuns.paraArray();
+    }
+
+    /**
+     * @return quantos IDs há com cada valor, na ordem em que os valores apareceram (os sem código por último)
+     */
+    public Map<String, Integer> contarPorValor() {
+        Map<String, Integer> contagem = new LinkedHashMap<>();
+        for (int codigo = 1; codigo <= dicionario.tamanho(); codigo++) {
+            int quantidade = porCodigo.contar(codigo);
+            if (quantidade > 0) {
+                contagem.put(dicionario.valor(codigo), quantidade);
+            }
+        }
+        for (Map.Entry<String, ListaInt> entrada : semCodigo.entrySet()) {
+            contagem.put(entrada.getKey(), entrada.getValue().tamanho());
+        }
+        return contagem;
+    }
+
+    /**
+     * @return quantos valores diferentes ganharam código
+     */
+    public int valoresCodificados() {
+        return dicionario.tamanho();
+    }
+}
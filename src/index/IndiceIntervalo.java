@@ -0,0 +1,403 @@
+package index;
+
+import util.MapaIntLong;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Classe IndiceIntervalo - Índice ordenado de chaves long para consultas por faixa
+ *
+ * Guarda pares (chave, id) em blocos de arrays primitivos ordenados, como as
+ * folhas de uma árvore B. Inserir e remover mexem em um único bloco e uma
+ * consulta por faixa localiza o primeiro bloco por busca binária e depois só
+ * lê arrays em sequência, sem boxing nem comparações de objetos.
+ * O empate entre chaves iguais é decidido pelo ID.
+ */
+public class IndiceIntervalo {
+
+    private static final int CAPACIDADE_BLOCO = 256;
+    // Blocos montados em lote ficam com folga para as inserções seguintes
+    private static final int PREENCHIMENTO_LOTE = CAPACIDADE_BLOCO * 3 / 4;
+    // Lotes menores que 1/LIMIAR_LOTE do índice são inseridos um a um
+    private static final int LIMIAR_LOTE = 16;
+    private static final int[] NENHUM = new int[0];
+
+    private final List<Bloco> blocos;
+    private final MapaIntLong chavePorId;
+
+    public IndiceIntervalo() {
+        this.blocos = new ArrayList<>();
+        this.chavePorId = new MapaIntLong();
+    }
+
+    public void adicionar(int id, long chave) {
+        remover(id);
+        chavePorId.inserir(id, chave);
+
+        if (blocos.isEmpty()) {
+            blocos.add(new Bloco());
+        }
+        int indiceBloco = localizarBloco(chave, id);
+        Bloco bloco = blocos.get(indiceBloco);
+        bloco.inserir(chave, id);
+        if (bloco.tamanho == CAPACIDADE_BLOCO) {
+            blocos.add(indiceBloco + 1, bloco.dividir());
+        }
+    }
+
+    public void remover(int id) {
+        if (!chavePorId.contem(id)) {
+            return;
+        }
+        long chave = chavePorId.buscar(id, 0);
+        chavePorId.remover(id);
+        int indiceBloco = localizarBloco(chave, id);
+        Bloco bloco = blocos.get(indiceBloco);
+        bloco.remover(chave, id);
+        if (bloco.tamanho == 0) {
+            blocos.remove(indiceBloco);
+        }
+    }
+
+    /**
+     * Adiciona vários pares (IDs distintos) de uma vez. Um lote grande em relação
+     * ao índice é ordenado e intercalado com os blocos atuais, que são remontados
+     * numa única passada; um lote pequeno usa adicionar para cada par.
+     */
+    public void adicionarTodos(int[] ids, long[] chaves) {
+        if (ids.length != chaves.length) {
+            throw new IllegalArgumentException("Erro: Quantidade de IDs e de chaves não confere!");
+        }
+        if ((long) ids.length * LIMIAR_LOTE < chavePorId.tamanho()) {
+            for (int i = 0; i < ids.length; i++) {
+                adicionar(ids[i], chaves[i]);
+            }
+            return;
+        }
+
+        for (int id : ids) {
+            remover(id);
+        }
+        chavePorId.reservar(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            chavePorId.inserir(ids[i], chaves[i]);
+        }
+
+        long[] novasChaves = chaves.clone();
+        int[] novosIds = ids.clone();
+        ordenar(novasChaves, novosIds);
+
+        List<Bloco> remontados = new ArrayList<>(chavePorId.tamanho() / PREENCHIMENTO_LOTE + 1);
+        Bloco destino = new Bloco();
+        int bloco = 0;
+        int posicao = 0;
+        int novo = 0;
+        while (bloco < blocos.size() || novo < novasChaves.length) {
+            Bloco atual = bloco < blocos.size() ? blocos.get(bloco) : null;
+            if (atual != null && (novo == novasChaves.length
+                    || comparar(atual.chaves[posicao], atual.ids[posicao], novasChaves[novo], novosIds[novo]) < 0)) {
+                destino.acrescentar(atual.chaves[posicao], atual.ids[posicao]);
+                if (++posicao == atual.tamanho) {
+                    bloco++;
+                    posicao = 0;
+                }
+            } else {
+                destino.acrescentar(novasChaves[novo], novosIds[novo]);
+                novo++;
+            }
+            if (destino.tamanho == PREENCHIMENTO_LOTE) {
+                remontados.add(destino);
+                destino = new Bloco();
+            }
+        }
+        if (destino.tamanho > 0) {
+            remontados.add(destino);
+        }
+        blocos.clear();
+        blocos.addAll(remontados);
+    }
+
+    public void atualizar(int id, long chave) {
+        if (chavePorId.contem(id) && chavePorId.buscar(id, 0) == chave) {
+            return;
+        }
+        adicionar(id, chave);
+    }
+
+    public int tamanho() {
+        return chavePorId.tamanho();
+    }
+
+    /**
+     * @return os IDs com chave entre minimo e maximo (inclusive), na ordem do índice, lidos sob demanda
+     */
+    public IntStream buscarIntervalo(long minimo, long maximo) {
+        if (minimo > maximo || blocos.isEmpty()) {
+            return IntStream.empty();
+        }
+        Cursor inicio = posicaoDe(minimo, Integer.MIN_VALUE);
+        Spliterator.OfInt spliterator = new Spliterators.AbstractIntSpliterator(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            private int bloco = inicio.bloco;
+            private int posicao = inicio.posicao;
+
+            @Override
+            public boolean tryAdvance(IntConsumer acao) {
+                while (bloco < blocos.size() && posicao >= blocos.get(bloco).tamanho) {
+                    bloco++;
+                    posicao = 0;
+                }
+                if (bloco >= blocos.size()) {
+                    return false;
+                }
+                Bloco atual = blocos.get(bloco);
+                if (atual.chaves[posicao] > maximo) {
+                    bloco = blocos.size();
+                    return false;
+                }
+                acao.accept(atual.ids[posicao++]);
+                return true;
+            }
+        };
+        return StreamSupport.intStream(spliterator, false);
+    }
+
+    /**
+     * @return todos os IDs na ordem do índice (ou na inversa), lidos sob demanda
+     */
+    public IntStream percorrer(boolean decrescente) {
+        if (!decrescente) {
+            return buscarIntervalo(Long.MIN_VALUE, Long.MAX_VALUE);
+        }
+        Spliterator.OfInt spliterator = new Spliterators.AbstractIntSpliterator(chavePorId.tamanho(),
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            private int bloco = blocos.size() - 1;
+            private int posicao = bloco >= 0 ? blocos.get(bloco).tamanho - 1 : -1;
+
+            @Override
+            public boolean tryAdvance(IntConsumer acao) {
+                while (bloco >= 0 && posicao < 0) {
+                    bloco--;
+                    posicao = bloco >= 0 ? blocos.get(bloco).tamanho - 1 : -1;
+                }
+                if (bloco < 0) {
+                    return false;
+                }
+                acao.accept(blocos.get(bloco).ids[posicao--]);
+                return true;
+            }
+        };
+        return StreamSupport.intStream(spliterator, false);
+    }
+
+    /**
+     * @return quantos IDs têm chave entre minimo e maximo (inclusive), sem percorrê-los
+     */
+    public int contarIntervalo(long minimo, long maximo) {
+        if (minimo > maximo || blocos.isEmpty()) {
+            return 0;
+        }
+        return posicaoAbsoluta(posicaoDe(maximo, Integer.MAX_VALUE))
+                - posicaoAbsoluta(posicaoDe(minimo, Integer.MIN_VALUE));
+    }
+
+    public int[] listar() {
+        return pagina(0, chavePorId.tamanho());
+    }
+
+    /**
+     * @return até limite IDs, pulando os deslocamento primeiros; blocos inteiros são pulados de uma vez
+     */
+    public int[] pagina(int deslocamento, int limite) {
+        if (deslocamento < 0 || limite <= 0 || deslocamento >= chavePorId.tamanho()) {
+            return NENHUM;
+        }
+        int bloco = 0;
+        int restante = deslocamento;
+        while (restante >= blocos.get(bloco).tamanho) {
+            restante -= blocos.get(bloco).tamanho;
+            bloco++;
+        }
+        return copiar(new Cursor(bloco, restante), limite);
+    }
+
+    /**
+     * @return até limite IDs que vêm depois do cursor (chave, id) na ordem do índice
+     */
+    public int[] paginaApos(long chaveCursor, int idCursor, int limite) {
+        if (limite <= 0 || blocos.isEmpty()) {
+            return NENHUM;
+        }
+        Cursor cursor = posicaoDe(chaveCursor, idCursor);
+        Bloco bloco = cursor.posicao < blocos.get(cursor.bloco).tamanho ? blocos.get(cursor.bloco) : null;
+        if (bloco != null && bloco.chaves[cursor.posicao] == chaveCursor && bloco.ids[cursor.posicao] == idCursor) {
+            cursor = new Cursor(cursor.bloco, cursor.posicao + 1);
+        }
+        return copiar(cursor, limite);
+    }
+
+    private int[] copiar(Cursor inicio, int limite) {
+        int[] ids = new int[Math.min(limite, chavePorId.tamanho())];
+        int total = 0;
+        int posicao = inicio.posicao;
+        for (int b = inicio.bloco; b < blocos.size() && total < ids.length; b++) {
+            Bloco bloco = blocos.get(b);
+            int quantidade = Math.min(bloco.tamanho - posicao, ids.length - total);
+            if (quantidade > 0) {
+                System.arraycopy(bloco.ids, posicao, ids, total, quantidade);
+                total += quantidade;
+            }
+            posicao = 0;
+        }
+        return total == ids.length ? ids : Arrays.copyOf(ids, total);
+    }
+
+    // Primeira posição cujo par (chave, id) é maior ou igual ao informado
+    private Cursor posicaoDe(long chave, int id) {
+        int indiceBloco = localizarBloco(chave, id);
+        Bloco bloco = blocos.get(indiceBloco);
+        int posicao = bloco.procurar(chave, id);
+        return new Cursor(indiceBloco, posicao < 0 ? -posicao - 1 : posicao);
+    }
+
+    private int posicaoAbsoluta(Cursor cursor) {
+        int total = cursor.posicao;
+        for (int b = 0; b < cursor.bloco; b++) {
+            total += blocos.get(b).tamanho;
+        }
+        return total;
+    }
+
+    // Último bloco cujo primeiro par é menor ou igual ao informado (ou o primeiro bloco)
+    private int localizarBloco(long chave, int id) {
+        int inicio = 0;
+        int fim = blocos.size() - 1;
+        while (inicio < fim) {
+            int meio = (inicio + fim + 1) >>> 1;
+            Bloco bloco = blocos.get(meio);
+            if (comparar(bloco.chaves[0], bloco.ids[0], chave, id) <= 0) {
+                inicio = meio;
+            } else {
+                fim = meio - 1;
+            }
+        }
+        return inicio;
+    }
+
+    // Merge sort de baixo para cima sobre os dois arrays, sem criar objetos por par
+    private static void ordenar(long[] chaves, int[] ids) {
+        int quantidade = chaves.length;
+        long[] chavesOrigem = chaves;
+        int[] idsOrigem = ids;
+        long[] chavesDestino = new long[quantidade];
+        int[] idsDestino = new int[quantidade];
+
+        for (int largura = 1; largura < quantidade; largura *= 2) {
+            for (int inicio = 0; inicio < quantidade; inicio += 2 * largura) {
+                int meio = Math.min(inicio + largura, quantidade);
+                int fim = Math.min(inicio + 2 * largura, quantidade);
+                int a = inicio;
+                int b = meio;
+                for (int k = inicio; k < fim; k++) {
+                    if (b >= fim || (a < meio && comparar(chavesOrigem[a], idsOrigem[a], chavesOrigem[b], idsOrigem[b]) <= 0)) {
+                        chavesDestino[k] = chavesOrigem[a];
+                        idsDestino[k] = idsOrigem[a++];
+                    } else {
+                        chavesDestino[k] = chavesOrigem[b];
+                        idsDestino[k] = idsOrigem[b++];
+                    }
+                }
+            }
+            long[] chavesTroca = chavesOrigem;
+            chavesOrigem = chavesDestino;
+            chavesDestino = chavesTroca;
+            int[] idsTroca = idsOrigem;
+            idsOrigem = idsDestino;
+            idsDestino = idsTroca;
+        }
+        if (chavesOrigem != chaves) {
+            System.arraycopy(chavesOrigem, 0, chaves, 0, quantidade);
+            System.arraycopy(idsOrigem, 0, ids, 0, quantidade);
+        }
+    }
+
+    private static int comparar(long chaveA, int idA, long chaveB, int idB) {
+        int comparacao = Long.compare(chaveA, chaveB);
+        return comparacao != 0 ? comparacao : Integer.compare(idA, idB);
+    }
+
+    private static final class Cursor {
+        private final int bloco;
+        private final int posicao;
+
+        private Cursor(int bloco, int posicao) {
+            this.bloco = bloco;
+            this.posicao = posicao;
+        }
+    }
+
+    private static final class Bloco {
+        private final long[] chaves = new long[CAPACIDADE_BLOCO];
+        private final int[] ids = new int[CAPACIDADE_BLOCO];
+        private int tamanho;
+
+        private int procurar(long chave, int id) {
+            int inicio = 0;
+            int fim = tamanho - 1;
+            while (inicio <= fim) {
+                int meio = (inicio + fim) >>> 1;
+                int comparacao = comparar(chaves[meio], ids[meio], chave, id);
+                if (comparacao < 0) {
+                    inicio = meio + 1;
+                } else if (comparacao > 0) {
+                    fim = meio - 1;
+                } else {
+                    return meio;
+                }
+            }
+            return -(inicio + 1);
+        }
+
+        private void inserir(long chave, int id) {
+            int posicao = -procurar(chave, id) - 1;
+            System.arraycopy(chaves, posicao, chaves, posicao + 1, tamanho - posicao);
+            System.arraycopy(ids, posicao, ids, posicao + 1, tamanho - posicao);
+            chaves[posicao] = chave;
+            ids[posicao] = id;
+            tamanho++;
+        }
+
+        private void remover(long chave, int id) {
+            int posicao = procurar(chave, id);
+            if (posicao < 0) {
+                return;
+            }
+            System.arraycopy(chaves, posicao + 1, chaves, posicao, tamanho - posicao - 1);
+            System.arraycopy(ids, posicao + 1, ids, posicao, tamanho - posicao - 1);
+            tamanho--;
+        }
+
+        private void acrescentar(long chave, int id) {
+            chaves[tamanho] = chave;
+            ids[tamanho] = id;
+            tamanho++;
+        }
+
+        private Bloco dividir() {
+            Bloco novo = new Bloco();
+            int metade = tamanho / 2;
+            novo.tamanho = tamanho - metade;
+            System.arraycopy(chaves, metade, novo.chaves, 0, novo.tamanho);
+            System.arraycopy(ids, metade, novo.ids, 0, novo.tamanho);
+            tamanho = metade;
+            return novo;
+        }
+    }
+}
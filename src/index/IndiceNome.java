@@ -0,0 +1,104 @@
+package index;
+
+import util.MapaIntObjeto;
+import util.NormalizadorTexto;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Classe IndiceNome - Índice de nomes normalizados para os IDs das entidades
+ * 
+ * A chave é o nome sem acentos, sem espaços nas pontas e em minúsculas
+ * (ver util.NormalizadorTexto). Mais de um ID pode compartilhar a mesma chave;
+ * cabe ao serviço decidir se isso é permitido.
+ */
+public class IndiceNome {
+
+    private static final int[] NENHUM = new int[0];
+
+    private final Map<String, int[]> idsPorChave;
+    private final MapaIntObjeto<String> chavePorId;
+
+    public IndiceNome() {
+        this.idsPorChave = new HashMap<>();
+        this.chavePorId = new MapaIntObjeto<>();
+    }
+
+    public void adicionar(int id, String nome) {
+        String chave = NormalizadorTexto.normalizar(nome);
+        if (chave == null) {
+            return;
+        }
+
+        chavePorId.inserir(id, chave);
+        int[] ids = idsPorChave.get(chave);
+        if (ids == null) {
+            idsPorChave.put(chave, new int[] { id });
+            return;
+        }
+
+        int posicao = Arrays.binarySearch(ids, id);
+        if (posicao >= 0) {
+            return;
+        }
+        posicao = -posicao - 1;
+        int[] novos = new int[ids.length + 1];
+        System.arraycopy(ids, 0, novos, 0, posicao);
+        novos[posicao] = id;
+        System.arraycopy(ids, posicao, novos, posicao + 1, ids.length - posicao);
+        idsPorChave.put(chave, novos);
+    }
+
+    public void remover(int id) {
+        String chave = chavePorId.remover(id);
+        if (chave == null) {
+            return;
+        }
+
+        int[] ids = idsPorChave.get(chave);
+        int posicao = ids != null ? Arrays.binarySearch(ids, id) : -1;
+        if (posicao < 0) {
+            return;
+        }
+        if (ids.length == 1) {
+            idsPorChave.remove(chave);
+            return;
+        }
+        int[] novos = new int[ids.length - 1];
+        System.arraycopy(ids, 0, novos, 0, posicao);
+        System.arraycopy(ids, posicao + 1, novos, posicao, ids.length - posicao - 1);
+        idsPorChave.put(chave, novos);
+    }
+
+    public void atualizar(int id, String nome) {
+        String novaChave = NormalizadorTexto.normalizar(nome);
+        if (novaChave != null && novaChave.equals(chavePorId.buscar(id))) {
+            return;
+        }
+        remover(id);
+        adicionar(id, nome);
+    }
+
+    /**
+     * @return os IDs com o mesmo nome normalizado, em ordem crescente (não modificar)
+     */
+    public int[] buscar(String nome) {
+        String chave = NormalizadorTexto.normalizar(nome);
+        if (chave == null) {
+            return NENHUM;
+        }
+        int[] ids = idsPorChave.get(chave);
+        return ids != null ? ids : NENHUM;
+    }
+
+    public boolean existeOutro(String nome, int idIgnorado) {
+        for (int id : buscar(nome)) {
+            if (id != idIgnorado) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
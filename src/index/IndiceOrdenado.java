@@ -0,0 +1,255 @@
+package index;
+
+import util.MapaIntObjeto;
+
+import java.util.ArrayList;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+
+/**
+ * Classe IndiceOrdenado - Mantém os IDs ordenados por um valor (ex: nome, data)
+ *
+ * O empate entre valores iguais é decidido pelo ID, então a ordem é estável.
+ * Cada alteração custa O(log n) e as listagens não precisam reordenar nada:
+ * basta percorrer o índice a partir de uma posição (deslocamento) ou de um
+ * cursor (o último valor/ID da página anterior).
+ *
+ * @param <K> O tipo do valor usado na ordenação
+ */
+public class IndiceOrdenado<K extends Comparable<? super K>> {
+
+    private static final int[] NENHUM = new int[0];
+    // Lotes menores que 1/LIMIAR_LOTE do índice são inseridos um a um
+    private static final int LIMIAR_LOTE = 16;
+
+    private NavigableSet<Chave<K>> chaves;
+    private final MapaIntObjeto<Chave<K>> chavePorId;
+
+    public IndiceOrdenado() {
+        this.chaves = new TreeSet<>();
+        this.chavePorId = new MapaIntObjeto<>();
+    }
+
+    public void adicionar(int id, K valor) {
+        if (valor == null) {
+            return;
+        }
+        remover(id);
+        Chave<K> chave = new Chave<>(valor, id);
+        chaves.add(chave);
+        chavePorId.inserir(id, chave);
+    }
+
+    /**
+     * Adiciona vários pares (IDs distintos) de uma vez. Um lote grande em relação
+     * ao índice é ordenado e intercalado com as chaves atuais, e a árvore é
+     * remontada a partir da sequência já ordenada, em tempo linear e sem rebalanceamentos.
+     */
+    public void adicionarTodos(int[] ids, List<? extends K> valores) {
+        if (ids.length != valores.size()) {
+            throw new IllegalArgumentException("Erro: Quantidade de IDs e de valores não confere!");
+        }
+        if ((long) ids.length * LIMIAR_LOTE < chaves.size()) {
+            for (int i = 0; i < ids.length; i++) {
+                adicionar(ids[i], valores.get(i));
+            }
+            return;
+        }
+
+        List<Chave<K>> novas = new ArrayList<>(ids.length);
+        boolean vazio = chavePorId.estaVazio();
+        chavePorId.reservar(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            if (valores.get(i) != null) {
+                if (!vazio) {
+                    remover(ids[i]);
+                }
+                Chave<K> chave = new Chave<>(valores.get(i), ids[i]);
+                novas.add(chave);
+                chavePorId.inserir(ids[i], chave);
+            }
+        }
+        novas.sort(null);
+
+        List<Chave<K>> todas = new ArrayList<>(chaves.size() + novas.size());
+        Iterator<Chave<K>> atuais = chaves.iterator();
+        Chave<K> atual = atuais.hasNext() ? atuais.next() : null;
+        for (Chave<K> nova : novas) {
+            while (atual != null && atual.compareTo(nova) < 0) {
+                todas.add(atual);
+                atual = atuais.hasNext() ? atuais.next() : null;
+            }
+            todas.add(nova);
+        }
+        while (atual != null) {
+            todas.add(atual);
+            atual = atuais.hasNext() ? atuais.next() : null;
+        }
+        chaves = new TreeSet<>(new SequenciaOrdenada<>(todas));
+    }
+
+    public void remover(int id) {
+        Chave<K> chave = chavePorId.remover(id);
+        if (chave != null) {
+            chaves.remove(chave);
+        }
+    }
+
+    public void atualizar(int id, K valor) {
+        Chave<K> atual = chavePorId.buscar(id);
+        if (atual != null && valor != null && atual.valor.compareTo(valor) == 0) {
+            return;
+        }
+        adicionar(id, valor);
+    }
+
+    public int tamanho() {
+        return chavePorId.tamanho();
+    }
+
+    public int[] listar() {
+        return copiar(chaves.iterator(), chaves.size());
+    }
+
+    /**
+     * @return todos os IDs na ordem do índice (ou na inversa), lidos sob demanda e sem cópia
+     */
+    public IntStream percorrer(boolean decrescente) {
+        return (decrescente ? chaves.descendingSet() : chaves).stream().mapToInt(chave -> chave.id);
+    }
+
+    /**
+     * @return até limite IDs, pulando os deslocamento primeiros na ordem do índice
+     */
+    public int[] pagina(int deslocamento, int limite) {
+        if (deslocamento < 0 || limite <= 0 || deslocamento >= chaves.size()) {
+            return NENHUM;
+        }
+        Iterator<Chave<K>> iterador = chaves.iterator();
+        for (int i = 0; i < deslocamento; i++) {
+            iterador.next();
+        }
+        return copiar(iterador, limite);
+    }
+
+    /**
+     * @return até limite IDs que vêm depois do cursor (valor, id) na ordem do índice
+     */
+    public int[] paginaApos(K valorCursor, int idCursor, int limite) {
+        if (valorCursor == null || limite <= 0) {
+            return NENHUM;
+        }
+        Iterator<Chave<K>> iterador = chaves.tailSet(new Chave<>(valorCursor, idCursor), false).iterator();
+        return copiar(iterador, limite);
+    }
+
+    private int[] copiar(Iterator<Chave<K>> iterador, int limite) {
+        int[] ids = new int[Math.min(limite, chaves.size())];
+        int total = 0;
+        while (total < ids.length && iterador.hasNext()) {
+            ids[total++] = iterador.next().id;
+        }
+        return total == ids.length ? ids : Arrays.copyOf(ids, total);
+    }
+
+    /**
+     * Visão somente leitura de uma lista ordenada e sem repetições como SortedSet.
+     * Recebendo um SortedSet, o construtor de TreeSet monta a árvore em tempo
+     * linear. As faixas (subSet, headSet, tailSet) são sublistas localizadas por
+     * busca binária.
+     */
+    private static final class SequenciaOrdenada<E extends Comparable<? super E>> extends AbstractSet<E>
+            implements SortedSet<E> {
+        private final List<E> elementos;
+
+        private SequenciaOrdenada(List<E> elementos) {
+            this.elementos = elementos;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return Collections.unmodifiableList(elementos).iterator();
+        }
+
+        @Override
+        public int size() {
+            return elementos.size();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean contains(Object elemento) {
+            return elemento != null && Collections.binarySearch(elementos, (E) elemento) >= 0;
+        }
+
+        @Override
+        public Comparator<? super E> comparator() {
+            return null;
+        }
+
+        @Override
+        public E first() {
+            if (elementos.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            return elementos.get(0);
+        }
+
+        @Override
+        public E last() {
+            if (elementos.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            return elementos.get(elementos.size() - 1);
+        }
+
+        @Override
+        public SortedSet<E> subSet(E inicio, E fim) {
+            if (inicio.compareTo(fim) > 0) {
+                throw new IllegalArgumentException("Erro: Início da faixa maior que o fim!");
+            }
+            return new SequenciaOrdenada<>(elementos.subList(posicao(inicio), posicao(fim)));
+        }
+
+        @Override
+        public SortedSet<E> headSet(E fim) {
+            return new SequenciaOrdenada<>(elementos.subList(0, posicao(fim)));
+        }
+
+        @Override
+        public SortedSet<E> tailSet(E inicio) {
+            return new SequenciaOrdenada<>(elementos.subList(posicao(inicio), elementos.size()));
+        }
+
+        // Posição do primeiro elemento maior ou igual ao informado
+        private int posicao(E elemento) {
+            int posicao = Collections.binarySearch(elementos, elemento);
+            return posicao >= 0 ? posicao : -posicao - 1;
+        }
+    }
+
+    private static final class Chave<K extends Comparable<? super K>> implements Comparable<Chave<K>> {
+        private final K valor;
+        private final int id;
+
+        private Chave(K valor, int id) {
+            this.valor = valor;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Chave<K> outra) {
+            int comparacao = valor.compareTo(outra.valor);
+            return comparacao != 0 ? comparacao : Integer.compare(id, outra.id);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package index;
+
+import util.MapaIntObjeto;
+import util.NormalizadorTexto;
+
+import java.util.Arrays;
+
+/**
+ * Classe IndicePrefixo - Trie compacta (radix) de nomes normalizados para autocompletar
+ *
+ * Cada nó guarda os IDs mais bem pontuados de toda a sua subárvore (no máximo
+ * capacidadeTopo), então uma consulta só percorre os caracteres do prefixo e
+ * devolve a lista já pronta, independente de quantos nomes começam com ele.
+ * O ranking é por pontuação decrescente e, no empate, pelo menor ID.
+ *
+ * Sequências sem ramificação ficam numa única aresta: só existem nós onde um
+ * nome termina ou onde os nomes se separam, e o rótulo da aresta não é copiado,
+ * é um trecho da chave de um dos nomes que passam por ela.
+ */
+public class IndicePrefixo {
+
+    private static final int[] NENHUM = new int[0];
+    private static final int CAPACIDADE_TOPO_PADRAO = 10;
+
+    private final int capacidadeTopo;
+    private final No raiz;
+    private final MapaIntObjeto<Entrada> entradas;
+
+    public IndicePrefixo() {
+        this(CAPACIDADE_TOPO_PADRAO);
+    }
+
+    public IndicePrefixo(int capacidadeTopo) {
+        if (capacidadeTopo <= 0) {
+            throw new IllegalArgumentException("Erro: Capacidade do topo deve ser positiva!");
+        }
+        this.capacidadeTopo = capacidadeTopo;
+        this.raiz = new No("", 0, 0);
+        this.entradas = new MapaIntObjeto<>();
+    }
+
+    public int getCapacidadeTopo() {
+        return capacidadeTopo;
+    }
+
+    public void adicionar(int id, String nome, double pontuacao) {
+        String chave = NormalizadorTexto.normalizar(nome);
+        if (chave == null) {
+            return;
+        }
+        if (entradas.contem(id)) {
+            remover(id);
+        }
+
+        entradas.inserir(id, new Entrada(chave, pontuacao));
+        No no = raiz;
+        no.oferecer(id, pontuacao, capacidadeTopo);
+        int profundidade = 0;
+        while (profundidade < chave.length()) {
+            int posicao = no.posicaoFilho(chave.charAt(profundidade));
+            if (posicao < 0) {
+                No folha = new No(chave, profundidade, chave.length());
+                no.inserirFilho(-posicao - 1, folha);
+                no = folha;
+                no.oferecer(id, pontuacao, capacidadeTopo);
+                break;
+            }
+            No filho = no.filhos[posicao];
+            int comum = filho.comum(chave, profundidade);
+            if (comum < filho.fim - filho.inicio) {
+                filho = dividir(no, posicao, comum);
+            }
+            no = filho;
+            no.oferecer(id, pontuacao, capacidadeTopo);
+            profundidade += comum;
+        }
+        no.adicionarTerminal(id);
+    }
+
+    // Quebra a aresta do filho depois de comum caracteres; o nó do meio tem a mesma subárvore, então o mesmo topo
+    private static No dividir(No pai, int posicao, int comum) {
+        No filho = pai.filhos[posicao];
+        No meio = new No(filho.chave, filho.inicio, filho.inicio + comum);
+        meio.inserirFilho(0, filho);
+        meio.topoIds = Arrays.copyOf(filho.topoIds, filho.topoIds.length);
+        meio.topoPontuacoes = Arrays.copyOf(filho.topoPontuacoes, filho.topoPontuacoes.length);
+        meio.topoTamanho = filho.topoTamanho;
+        filho.inicio += comum;
+        pai.filhos[posicao] = meio;
+        return meio;
+    }
+
+    public void remover(int id) {
+        Entrada entrada = entradas.remover(id);
+        if (entrada == null) {
+            return;
+        }
+
+        String chave = entrada.chave;
+        No[] caminho = new No[chave.length() + 1];
+        int[] posicoes = new int[chave.length() + 1];
+        caminho[0] = raiz;
+        int total = 1;
+        for (int profundidade = 0; profundidade < chave.length(); total++) {
+            No pai = caminho[total - 1];
+            posicoes[total] = pai.posicaoFilho(chave.charAt(profundidade));
+            caminho[total] = pai.filhos[posicoes[total]];
+            profundidade = caminho[total].fim;
+        }
+        caminho[total - 1].removerTerminal(id);
+
+        // Recalcula de baixo para cima: o topo de um nó depende do topo dos filhos
+        for (int i = total - 1; i >= 0; i--) {
+            No no = caminho[i];
+            if (no.topoContem(id)) {
+                no.recalcularTopo(entradas, capacidadeTopo);
+            }
+        }
+        // Tira os nós que ficaram vazios e junta à aresta de cima os que ficaram com um único filho
+        for (int i = total - 1; i > 0; i--) {
+            No no = caminho[i];
+            No pai = caminho[i - 1];
+            if (no.estaVazio()) {
+                pai.removerFilho(posicoes[i]);
+            } else if (no.terminais.length == 0 && no.totalFilhos == 1) {
+                No unico = no.filhos[0];
+                unico.inicio = no.inicio;
+                pai.filhos[posicoes[i]] = unico;
+            }
+        }
+    }
+
+    public void atualizar(int id, String nome, double pontuacao) {
+        Entrada atual = entradas.buscar(id);
+        if (atual != null && atual.pontuacao == pontuacao
+                && atual.chave.equals(NormalizadorTexto.normalizar(nome))) {
+            return;
+        }
+        remover(id);
+        adicionar(id, nome, pontuacao);
+    }
+
+    /**
+     * @return até min(limite, capacidadeTopo) IDs cujo nome começa com o prefixo, do melhor para o pior
+     */
+    public int[] buscar(String prefixo, int limite) {
+        String chave = NormalizadorTexto.normalizar(prefixo);
+        if (chave == null || limite <= 0) {
+            return NENHUM;
+        }
+
+        // O prefixo pode terminar no meio de uma aresta: a subárvore é a do nó abaixo dela
+        No no = raiz;
+        int profundidade = 0;
+        while (profundidade < chave.length()) {
+            int posicao = no.posicaoFilho(chave.charAt(profundidade));
+            if (posicao < 0) {
+                return NENHUM;
+            }
+            no = no.filhos[posicao];
+            int comum = no.comum(chave, profundidade);
+            if (comum < no.fim - no.inicio && profundidade + comum < chave.length()) {
+                return NENHUM;
+            }
+            profundidade += comum;
+        }
+        return Arrays.copyOf(no.topoIds, Math.min(limite, no.topoTamanho));
+    }
+
+    private static final class Entrada {
+        private final String chave;
+        private final double pontuacao;
+
+        private Entrada(String chave, double pontuacao) {
+            this.chave = chave;
+            this.pontuacao = pontuacao;
+        }
+    }
+
+    private static final class No {
+        // Arrays vazios compartilhados: a maioria dos nós é folha
+        private static final No[] SEM_FILHOS = new No[0];
+        private static final double[] SEM_PONTUACOES = new double[0];
+
+        // Rótulo da aresta que chega ao nó: chave.substring(inicio, fim), onde fim é a profundidade do nó
+        private final String chave;
+        private int inicio;
+        private final int fim;
+
+        // Ordenados pelo primeiro caractere do rótulo
+        private No[] filhos = SEM_FILHOS;
+        private int totalFilhos;
+
+        private int[] terminais = NENHUM;
+
+        // Arrays do topo crescem sob demanda: folhas costumam ter um único nome
+        private int[] topoIds = NENHUM;
+        private double[] topoPontuacoes = SEM_PONTUACOES;
+        private int topoTamanho;
+
+        private No(String chave, int inicio, int fim) {
+            this.chave = chave;
+            this.inicio = inicio;
+            this.fim = fim;
+        }
+
+        private char primeiro() {
+            return chave.charAt(inicio);
+        }
+
+        // Quantos caracteres do rótulo coincidem com o texto a partir da profundidade
+        private int comum(String texto, int profundidade) {
+            int limite = Math.min(fim - inicio, texto.length() - profundidade);
+            int i = 0;
+            while (i < limite && chave.charAt(inicio + i) == texto.charAt(profundidade + i)) {
+                i++;
+            }
+            return i;
+        }
+
+        // Busca binária pelo primeiro caractere; devolve (-(ponto de inserção) - 1) se não houver
+        private int posicaoFilho(char rotulo) {
+            int baixo = 0;
+            int alto = totalFilhos - 1;
+            while (baixo <= alto) {
+                int meio = (baixo + alto) >>> 1;
+                char atual = filhos[meio].primeiro();
+                if (atual < rotulo) {
+                    baixo = meio + 1;
+                } else if (atual > rotulo) {
+                    alto = meio - 1;
+                } else {
+                    return meio;
+                }
+            }
+            return -(baixo + 1);
+        }
+
+        private void inserirFilho(int posicao, No filho) {
+            if (totalFilhos == filhos.length) {
+                filhos = Arrays.copyOf(filhos, Math.max(2, totalFilhos * 2));
+            }
+            System.arraycopy(filhos, posicao, filhos, posicao + 1, totalFilhos - posicao);
+            filhos[posicao] = filho;
+            totalFilhos++;
+        }
+
+        private void removerFilho(int posicao) {
+            System.arraycopy(filhos, posicao + 1, filhos, posicao, totalFilhos - posicao - 1);
+            totalFilhos--;
+            filhos[totalFilhos] = null;
+        }
+
+        private boolean estaVazio() {
+            return totalFilhos == 0 && terminais.length == 0;
+        }
+
+        private void adicionarTerminal(int id) {
+            terminais = Arrays.copyOf(terminais, terminais.length + 1);
+            terminais[terminais.length - 1] = id;
+        }
+
+        private void removerTerminal(int id) {
+            for (int i = 0; i < terminais.length; i++) {
+                if (terminais[i] == id) {
+                    int[] novos = new int[terminais.length - 1];
+                    System.arraycopy(terminais, 0, novos, 0, i);
+                    System.arraycopy(terminais, i + 1, novos, i, terminais.length - i - 1);
+                    terminais = novos.length > 0 ? novos : NENHUM;
+                    return;
+                }
+            }
+        }
+
+        private boolean topoContem(int id) {
+            for (int i = 0; i < topoTamanho; i++) {
+                if (topoIds[i] == id) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void oferecer(int id, double pontuacao, int capacidade) {
+            if (topoTamanho == capacidade && !melhor(id, pontuacao, topoIds[capacidade - 1], topoPontuacoes[capacidade - 1])) {
+                return;
+            }
+            if (topoTamanho < capacidade && topoTamanho == topoIds.length) {
+                int novaCapacidade = Math.min(capacidade, Math.max(1, topoTamanho * 2));
+                topoIds = Arrays.copyOf(topoIds, novaCapacidade);
+                topoPontuacoes = Arrays.copyOf(topoPontuacoes, novaCapacidade);
+            }
+
+            int posicao = topoTamanho == capacidade ? capacidade - 1 : topoTamanho++;
+            while (posicao > 0 && melhor(id, pontuacao, topoIds[posicao - 1], topoPontuacoes[posicao - 1])) {
+                topoIds[posicao] = topoIds[posicao - 1];
+                topoPontuacoes[posicao] = topoPontuacoes[posicao - 1];
+                posicao--;
+            }
+            topoIds[posicao] = id;
+            topoPontuacoes[posicao] = pontuacao;
+        }
+
+        private void recalcularTopo(MapaIntObjeto<Entrada> entradas, int capacidade) {
+            topoTamanho = 0;
+            for (int id : terminais) {
+                oferecer(id, entradas.buscar(id).pontuacao, capacidade);
+            }
+            for (int f = 0; f < totalFilhos; f++) {
+                No filho = filhos[f];
+                for (int i = 0; i < filho.topoTamanho; i++) {
+                    oferecer(filho.topoIds[i], filho.topoPontuacoes[i], capacidade);
+                }
+            }
+        }
+
+        private static boolean melhor(int id, double pontuacao, int outroId, double outraPontuacao) {
+            if (pontuacao != outraPontuacao) {
+                return pontuacao > outraPontuacao;
+            }
+            return id < outroId;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package index;
+
+import util.ListaInt;
+import util.MapaIntObjeto;
+
+import java.util.Arrays;
+
+/**
+ * Classe IndiceReverso - Lista de ocorrências de uma entidade relacionada para os filmes
+ * 
+ * Ex: para cada ID de diretor, os IDs dos filmes que ele dirigiu; ou, para
+ * cada código de estilo, os IDs dos diretores com esse estilo. Assim as
+ * buscas custam proporcionalmente ao tamanho do resultado, não do catálogo.
+ */
+public class IndiceReverso {
+
+    private static final int[] NENHUM = new int[0];
+
+    private final MapaIntObjeto<ListaInt> ocorrencias;
+
+    public IndiceReverso() {
+        this.ocorrencias = new MapaIntObjeto<>();
+    }
+
+    public void adicionar(int chave, int id) {
+        ListaInt ids = ocorrencias.buscar(chave);
+        if (ids == null) {
+            ids = new ListaInt();
+            ocorrencias.inserir(chave, ids);
+        }
+        ids.adicionar(id);
+    }
+
+    /**
+     * Mesmo efeito de adicionar(chaves[i], ids[i]) para cada i, mas ordena os pares
+     * antes (se já não vierem ordenados): cada lista recebe os seus IDs de uma vez,
+     * já em ordem crescente.
+     */
+    public void adicionarTodos(int[] chaves, int[] ids) {
+        if (chaves.length != ids.length) {
+            throw new IllegalArgumentException("Erro: Chaves e IDs devem ter o mesmo tamanho!");
+        }
+        long[] pares = new long[chaves.length];
+        for (int i = 0; i < pares.length; i++) {
+            pares[i] = ((long) chaves[i] << 32) | (ids[i] & 0xFFFFFFFFL);
+        }
+        boolean ordenados = true;
+        for (int i = 1; i < pares.length && ordenados; i++) {
+            ordenados = pares[i - 1] <= pares[i];
+        }
+        if (!ordenados) {
+            Arrays.sort(pares);
+        }
+        int distintas = 0;
+        for (int i = 0; i < pares.length; i++) {
+            if (i == 0 || (int) (pares[i] >> 32) != (int) (pares[i - 1] >> 32)) {
+                distintas++;
+            }
+        }
+        ocorrencias.reservar(distintas);
+        for (int inicio = 0; inicio < pares.length; ) {
+            int chave = (int) (pares[inicio] >> 32);
+            int fim = inicio + 1;
+            while (fim < pares.length && (int) (pares[fim] >> 32) == chave) {
+                fim++;
+            }
+            ListaInt lista = ocorrencias.buscar(chave);
+            if (lista == null) {
+                lista = new ListaInt(fim - inicio);
+                ocorrencias.inserir(chave, lista);
+            }
+            for (int i = inicio; i < fim; i++) {
+                lista.adicionar((int) pares[i]);
+            }
+            inicio = fim;
+        }
+    }
+
+    public void remover(int chave, int id) {
+        ListaInt ids = ocorrencias.buscar(chave);
+        if (ids != null && ids.remover(id) && ids.estaVazia()) {
+            ocorrencias.remover(chave);
+        }
+    }
+
+    public boolean contem(int chave, int id) {
+        ListaInt ids = ocorrencias.buscar(chave);
+        return ids != null && ids.contem(id);
+    }
+
+    public int contar(int chave) {
+        ListaInt ids = ocorrencias.buscar(chave);
+        return ids != null ? ids.tamanho() : 0;
+    }
+
+    /**
+     * @return os IDs associados à chave, em ordem crescente
+     */
+    public int[] buscar(int chave) {
+        ListaInt ids = ocorrencias.buscar(chave);
+        return ids != null ? ids.paraArray() : NENHUM;
+    }
+
+    /**
+     * @return os IDs associados à chave neste índice e à chaveOutro no outro, em ordem crescente
+     */
+    public int[] buscarEmComum(int chave, IndiceReverso outro, int chaveOutro) {
+        ListaInt ids = ocorrencias.buscar(chave);
+        ListaInt idsOutro = outro.ocorrencias.buscar(chaveOutro);
+        if (ids == null || idsOutro == null) {
+            return NENHUM;
+        }
+        // Percorre a lista menor e confere cada ID na maior por busca binária
+        ListaInt menor = ids.tamanho() <= idsOutro.tamanho() ? ids : idsOutro;
+        ListaInt maior = menor == ids ? idsOutro : ids;
+        ListaInt comuns = new ListaInt(menor.tamanho());
+        for (int i = 0; i < menor.tamanho(); i++) {
+            if (maior.contem(menor.get(i))) {
+                comuns.adicionar(menor.get(i));
+            }
+        }
+        return comuns.paraArray();
+    }
+}
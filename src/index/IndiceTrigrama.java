@@ -0,0 +1,150 @@
+package index;
+
+import util.ListaInt;
+import util.MapaIntObjeto;
+import util.MapaLongObjeto;
+import util.VarreduraParalela;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Classe IndiceTrigrama - Índice invertido de trigramas para busca por substring
+ *
+ * Cada texto é quebrado em sequências de 3 caracteres e cada trigrama aponta
+ * para a lista ordenada dos IDs que o contêm. Uma consulta intersecta as listas
+ * dos seus trigramas e só então confirma os candidatos com String.contains.
+ * O texto já em minúsculas fica guardado para que a confirmação não crie Strings.
+ * Consultas curtas demais para ter trigramas conferem todos os textos, com a
+ * VarreduraParalela recebida.
+ */
+public class IndiceTrigrama {
+
+    private static final int TAMANHO_GRAMA = 3;
+    private static final int[] NENHUM = new int[0];
+
+    private final MapaLongObjeto<ListaInt> ocorrencias;
+    private final MapaIntObjeto<String> textoPorId;
+    private final VarreduraParalela varredura;
+
+    public IndiceTrigrama() {
+        this(new VarreduraParalela(Integer.MAX_VALUE, 1));
+    }
+
+    public IndiceTrigrama(VarreduraParalela varredura) {
+        this.ocorrencias = new MapaLongObjeto<>();
+        this.textoPorId = new MapaIntObjeto<>();
+        this.varredura = varredura;
+    }
+
+    public void adicionar(int id, String texto) {
+        if (texto == null) {
+            return;
+        }
+
+        String minusculo = texto.toLowerCase(Locale.ROOT);
+        textoPorId.inserir(id, minusculo);
+        for (int i = 0; i + TAMANHO_GRAMA <= minusculo.length(); i++) {
+            long grama = codificar(minusculo, i);
+            ListaInt ids = ocorrencias.buscar(grama);
+            if (ids == null) {
+                ids = new ListaInt();
+                ocorrencias.inserir(grama, ids);
+            }
+            ids.adicionar(id);
+        }
+    }
+
+    public void remover(int id) {
+        String minusculo = textoPorId.remover(id);
+        if (minusculo == null) {
+            return;
+        }
+
+        for (int i = 0; i + TAMANHO_GRAMA <= minusculo.length(); i++) {
+            long grama = codificar(minusculo, i);
+            ListaInt ids = ocorrencias.buscar(grama);
+            if (ids != null && ids.remover(id) && ids.estaVazia()) {
+                ocorrencias.remover(grama);
+            }
+        }
+    }
+
+    public void atualizar(int id, String texto) {
+        String atual = textoPorId.buscar(id);
+        if (atual != null && texto != null && atual.equals(texto.toLowerCase(Locale.ROOT))) {
+            return;
+        }
+        remover(id);
+        adicionar(id, texto);
+    }
+
+    /**
+     * @return os IDs cujo texto contém a consulta (sem diferenciar maiúsculas), em ordem crescente
+     */
+    public int[] buscar(String consulta) {
+        if (consulta == null) {
+            return NENHUM;
+        }
+
+        String termo = consulta.toLowerCase(Locale.ROOT).trim();
+        if (termo.length() < TAMANHO_GRAMA) {
+            return varrer(termo);
+        }
+
+        int quantidade = termo.length() - TAMANHO_GRAMA + 1;
+        ListaInt[] listas = new ListaInt[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            listas[i] = ocorrencias.buscar(codificar(termo, i));
+            if (listas[i] == null) {
+                return NENHUM;
+            }
+        }
+        Arrays.sort(listas, (a, b) -> Integer.compare(a.tamanho(), b.tamanho()));
+
+        ListaInt menor = listas[0];
+        int[] posicoes = new int[listas.length];
+        int[] resultado = new int[menor.tamanho()];
+        int encontrados = 0;
+
+        for (int i = 0; i < menor.tamanho(); i++) {
+            int id = menor.get(i);
+            if (estaEmTodas(id, listas, posicoes) && textoPorId.buscar(id).contains(termo)) {
+                resultado[encontrados++] = id;
+            }
+        }
+        return Arrays.copyOf(resultado, encontrados);
+    }
+
+    // As listas são percorridas em ordem, então cada busca binária começa de onde a anterior parou
+    private boolean estaEmTodas(int id, ListaInt[] listas, int[] posicoes) {
+        for (int j = 1; j < listas.length; j++) {
+            int posicao = listas[j].procurar(id, posicoes[j]);
+            if (posicao < 0) {
+                posicoes[j] = -posicao - 1;
+                return false;
+            }
+            posicoes[j] = posicao;
+        }
+        return true;
+    }
+
+    // Consultas menores que um trigrama não têm o que intersectar: confere os textos guardados
+    private int[] varrer(String termo) {
+        int[] ids = varredura.filtrar(textoPorId.totalPosicoes(), posicao -> {
+            String minusculo = textoPorId.valorNaPosicao(posicao);
+            return minusculo != null && minusculo.contains(termo);
+        });
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = textoPorId.chaveNaPosicao(ids[i]);
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    private static long codificar(String texto, int inicio) {
+        return ((long) texto.charAt(inicio) << 32)
+                | ((long) texto.charAt(inicio + 1) << 16)
+                | texto.charAt(inicio + 2);
+    }
+}
@@ -0,0 +1,49 @@
+package interfaces;
+
+import java.util.List;
+
+/**
+ * Interface IArmazenamento - Onde um serviço guarda as suas entidades, indexadas pelo ID
+ *
+ * A implementação padrão (repository.RepositorioEntidades) guarda os próprios
+ * objetos. Outras podem guardar os campos em outro formato e montar o objeto
+ * só quando ele é pedido; nesse caso o serviço chama substituir(...) sempre
+ * que um objeto entregue por buscar(...) for alterado.
+ *
+ * @param <T> O tipo de entidade armazenada (ex: Filme, Ator, Diretor)
+ */
+public interface IArmazenamento<T> extends Iterable<T> {
+
+    /**
+     * @return false se já existir uma entidade com o mesmo ID
+     */
+    boolean adicionar(T entidade);
+
+    /**
+     * Prepara o armazenamento para receber mais quantidade entidades de uma vez (ex: importação em lote).
+     */
+    void reservar(int quantidade);
+
+    T buscar(int id);
+
+    /**
+     * Substitui (ou regrava) a entidade de mesmo ID mantendo sua posição na listagem.
+     *
+     * @return false se não houver entidade com o ID informado
+     */
+    boolean substituir(T entidade);
+
+    /**
+     * @return a entidade removida, ou null se não existia
+     */
+    T remover(int id);
+
+    boolean contem(int id);
+
+    int tamanho();
+
+    /**
+     * @return as entidades na ordem de cadastro, numa lista somente leitura
+     */
+    List<T> listar();
+}
@@ -0,0 +1,52 @@
+package interfaces;
+
+import java.math.BigDecimal;
+
+/**
+ * Interface IColunasFilmes - Campos dos filmes lidos direto de um armazenamento, linha a linha
+ *
+ * Os armazenamentos que guardam os campos em vez dos objetos (colunar, fora do
+ * heap) implementam esta interface para que as varreduras confiram os filtros
+ * sem montar um Filme por linha: só os filmes aceitos precisam ser montados.
+ * As linhas vão de 0 a linhas() - 1 na ordem de cadastro; a linha de um filme
+ * removido fica vazia (ID 0) até a compactação.
+ *
+ * Deve ser usada com a mesma trava das buscas do armazenamento.
+ */
+public interface IColunasFilmes {
+
+    int SEM_LINHA = -1;
+    int SEM_DIRETOR = 0;
+
+    /**
+     * @return quantas linhas existem, contando as vazias
+     */
+    int linhas();
+
+    /**
+     * @return a linha do filme com o ID informado, ou SEM_LINHA
+     */
+    int linha(int id);
+
+    /**
+     * @return o ID do filme da linha, ou 0 se a linha estiver vazia
+     */
+    int id(int linha);
+
+    String nome(int linha);
+
+    /**
+     * @return a data de lançamento em dias desde 1970-01-01 (LocalDate.toEpochDay)
+     */
+    int diaLancamento(int linha);
+
+    /**
+     * @return o orçamento, ou null se o filme não tiver
+     */
+    BigDecimal orcamento(int linha);
+
+    /**
+     * @return o ID do diretor, ou SEM_DIRETOR
+     */
+    int diretorId(int linha);
+}
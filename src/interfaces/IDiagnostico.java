@@ -0,0 +1,17 @@
+package interfaces;
+
+import diagnostico.EventoDiagnostico;
+import diagnostico.NivelDiagnostico;
+
+/**
+ * Interface IDiagnostico - Destino das mensagens emitidas pelos modelos e serviços
+ * 
+ * Quem emite pergunta antes se o nível está ativo; assim, quando ninguém
+ * escuta, nenhum evento é criado e nenhuma mensagem é montada.
+ * O texto do evento só é formatado quando alguém chama getMensagem().
+ */
+public interface IDiagnostico {
+
+    boolean ativo(NivelDiagnostico nivel);
+    void registrar(EventoDiagnostico evento);
+}
@@ -0,0 +1,32 @@
+package interfaces;
+
+/**
+ * Interface IObservadorAlteracao - Recebe avisos quando um campo de uma entidade muda
+ * 
+ * Os serviços se registram como observadores das entidades cadastradas para
+ * manter seus índices atualizados mesmo quando um setter é chamado diretamente
+ * (ex: filme.setNome(...) antes de filmeService.atualizar(filme)).
+ * 
+ * @param <T> O tipo de entidade observada (ex: Filme, Pessoa)
+ */
+public interface IObservadorAlteracao<T> {
+
+    String CAMPO_NOME = "nome";
+    String CAMPO_DATA_LANCAMENTO = "dataLancamento";
+    String CAMPO_ORCAMENTO = "orcamento";
+    String CAMPO_DIRETOR = "diretor";
+    String CAMPO_DESCRICAO = "descricao";
+    String CAMPO_IDADE = "idade";
+    String CAMPO_NACIONALIDADE = "nacionalidade";
+    String CAMPO_ESTILO = "estilo";
+
+    /**
+     * Perguntado pelo setter antes de mudar o campo; false faz o setter lançar
+     * IllegalStateException sem alterar nada.
+     */
+    default boolean aceitaAlteracao(T entidade, String campo) {
+        return true;
+    }
+
+    void aoAlterar(T entidade, String campo, Object valorAnterior);
+}
@@ -0,0 +1,72 @@
+package interfaces;
+
+import model.Ator;
+import model.Diretor;
+import model.Filme;
+
+/**
+ * Interface IOuvinteCatalogo - Recebe cada alteração feita pelos serviços do catálogo
+ *
+ * Os avisos chegam depois que a alteração foi aplicada e ainda com a trava de
+ * escrita do serviço, então a ordem dos avisos é a ordem das alterações. Quem
+ * implementa não pode chamar os serviços nem demorar: só deve registrar o aviso.
+ * Ao terminar a operação, já sem a trava, o serviço chama sincronizar() para
+ * esperar que os avisos fiquem guardados (ex: gravados em disco).
+ *
+ * Antes de mexer em qualquer coisa, já com a trava, o serviço pergunta
+ * aceitaAlteracoes(); se algum ouvinte disser que não, a operação é recusada
+ * (false ou ResultadoOperacao de erro) e o catálogo fica como estava. Os
+ * setters das entidades cadastradas fazem a mesma pergunta e lançam
+ * IllegalStateException sem alterar o campo.
+ *
+ * Todos os métodos têm implementação vazia, então basta sobrescrever os que interessam.
+ */
+public interface IOuvinteCatalogo {
+
+    IOuvinteCatalogo NENHUM = new IOuvinteCatalogo() { };
+
+    /**
+     * Filme cadastrado ou alterado (inclusive por um setter, como setDiretor).
+     */
+    default void filmeSalvo(Filme filme) { }
+
+    default void filmeRemovido(int id) { }
+
+    default void atorSalvo(Ator ator) { }
+
+    default void atorRemovido(int id) { }
+
+    default void diretorSalvo(Diretor diretor) { }
+
+    default void diretorRemovido(int id) { }
+
+    default void atorAssociado(int filmeId, int atorId, String personagem) { }
+
+    default void atorDesassociado(int filmeId, int atorId) { }
+
+    default void personagemDefinido(int filmeId, int atorId, String personagem) { }
+
+    /**
+     * Os avisos até transacaoConcluida() formam um grupo que deve ser guardado
+     * inteiro ou não ser guardado (ex: FilmeService.alterarCatalogo). Grupos
+     * podem se aninhar; vale o mais externo.
+     */
+    default void transacaoIniciada() { }
+
+    /**
+     * Fecha o grupo aberto por transacaoIniciada(), ainda com a trava de escrita.
+     */
+    default void transacaoConcluida() { }
+
+    /**
+     * @return false se o ouvinte não consegue mais guardar avisos (ex: o log falhou ao gravar)
+     */
+    default boolean aceitaAlteracoes() {
+        return true;
+    }
+
+    /**
+     * Espera os avisos recebidos até agora ficarem guardados.
+     */
+    default void sincronizar() { }
+}
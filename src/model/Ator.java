@@ -1,7 +1,11 @@
 package model;
 
+import diagnostico.Diagnosticos;
+
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Classe Ator - Representa um ator no sistema
@@ -10,18 +14,34 @@ import java.util.List;
  * Isso significa que Ator tem tudo que Pessoa tem, mais suas próprias características
  */
 public class Ator extends Pessoa {
-    private List<Filme> filmografia;
+    private final List<Filme> filmografia;
+    // Cópia somente leitura entregue por getFilmografia; refeita na primeira leitura depois de uma alteração
+    private List<Filme> retratoFilmografia;
 
     public Ator(String nome) {
         super(nome);
         this.filmografia = new ArrayList<>();
     }
 
-    public List<Filme> getFilmografia() {
-        return new ArrayList<>(filmografia);
+    public Ator(int id, String nome) {
+        super(id, nome);
+        this.filmografia = new ArrayList<>();
     }
 
-    public void adicionarFilme(Filme filme) {
+    /**
+     * A lista só é mantida pelo FilmeService no modo OBJETOS; nos outros modos ela fica
+     * vazia e a filmografia vem de FilmeService.buscarPorAtor.
+     *
+     * @return os filmes, numa lista somente leitura que não muda se a filmografia mudar depois
+     */
+    public synchronized List<Filme> getFilmografia() {
+        if (retratoFilmografia == null) {
+            retratoFilmografia = List.copyOf(filmografia);
+        }
+        return retratoFilmografia;
+    }
+
+    public synchronized void adicionarFilme(Filme filme) {
         if (filme == null) {
             throw new IllegalArgumentException("Erro: Filme não pode ser null!");
         }
@@ -31,10 +51,33 @@ public class Ator extends Pessoa {
         }
         
         filmografia.add(filme);
-        System.out.println("Filme '" + filme.getNome() + "' adicionado à filmografia!");
+        retratoFilmografia = null;
+        Diagnosticos.info(Ator.class, "Filme '{}' adicionado à filmografia!", filme.getNome());
     }
 
-    public void removerFilme(Filme filme) {
+    /**
+     * Acrescenta, na ordem recebida, os filmes (sem repetição entre si) que ainda não estão
+     * na lista. A conferência usa um conjunto, então o custo é linear mesmo com muitos
+     * filmes (ex: importação em lote).
+     */
+    public synchronized void adicionarFilmesNovos(List<Filme> filmes) {
+        Set<Filme> presentes = filmografia.isEmpty() ? Set.of() : new HashSet<>(filmografia);
+        int antes = filmografia.size();
+        for (Filme filme : filmes) {
+            if (filme == null) {
+                throw new IllegalArgumentException("Erro: Filme não pode ser null!");
+            }
+            if (!presentes.contains(filme)) {
+                filmografia.add(filme);
+            }
+        }
+        if (filmografia.size() > antes) {
+            retratoFilmografia = null;
+            Diagnosticos.info(Ator.class, "{} filme(s) adicionado(s) à filmografia!", filmografia.size() - antes);
+        }
+    }
+
+    public synchronized void removerFilme(Filme filme) {
         if (filme == null) {
             throw new IllegalArgumentException("Erro: Filme não pode ser null!");
         }
@@ -44,32 +87,40 @@ public class Ator extends Pessoa {
         }
         
         filmografia.remove(filme);
-        System.out.println("Filme '" + filme.getNome() + "' removido da filmografia!");
+        retratoFilmografia = null;
+        Diagnosticos.info(Ator.class, "Filme '{}' removido da filmografia!", filme.getNome());
     }
 
     @Override
     public boolean validarDados() {
         if (getNome() == null || getNome().trim().isEmpty()) {
-            System.out.println("Nome inválido!");
+            Diagnosticos.aviso(Ator.class, "Nome inválido!");
             return false;
         }
         
         if (getIdade() != null && getIdade() < 18) {
-            System.out.println("Idade muito baixa para ator profissional!");
+            Diagnosticos.aviso(Ator.class, "Idade muito baixa para ator profissional!");
             return false;
         }
         
         if (getNacionalidade() == null || getNacionalidade().trim().isEmpty()) {
-            System.out.println("Nacionalidade não informada!");
+            Diagnosticos.aviso(Ator.class, "Nacionalidade não informada!");
             return false;
         }
         
-        System.out.println("Dados do ator estão válidos!");
+        Diagnosticos.info(Ator.class, "Dados do ator estão válidos!");
         return true;
     }
     
     @Override
     public String exibirInformacoes() {
+        return exibirInformacoes(getFilmografia());
+    }
+
+    /**
+     * Ficha do ator com a filmografia informada (ex: a de FilmeService.buscarPorAtor).
+     */
+    public String exibirInformacoes(List<Filme> filmografia) {
         StringBuilder informacoes = new StringBuilder();
         
         informacoes.append("ATOR\n");
@@ -104,16 +155,17 @@ public class Ator extends Pessoa {
         return getNome();
     }
 
-    public int contarFilmes() {
+    public synchronized int contarFilmes() {
         return filmografia.size();
     }
 
-    public boolean temFilme(Filme filme) {
+    public synchronized boolean temFilme(Filme filme) {
         return filmografia.contains(filme);
     }
 
-    public void limparFilmografia() {
+    public synchronized void limparFilmografia() {
         filmografia.clear();
-        System.out.println("Filmografia do ator '" + getNome() + "' foi limpa!");
+        retratoFilmografia = null;
+        Diagnosticos.info(Ator.class, "Filmografia do ator '{}' foi limpa!", getNome());
     }
 }
\ No newline at end of file
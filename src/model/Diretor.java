@@ -1,7 +1,13 @@
 package model;
 
+import diagnostico.Diagnosticos;
+import interfaces.IObservadorAlteracao;
+
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Classe Diretor - Representa um diretor no sistema
@@ -11,27 +17,52 @@ import java.util.List;
  */
 public class Diretor extends Pessoa {
 
-    private String estilo;
-    private List<Filme> filmesDirigidos;
+    private volatile String estilo;
+    private final List<Filme> filmesDirigidos;
+    // Cópia somente leitura entregue por getFilmesDirigidos; refeita na primeira leitura depois de uma alteração
+    private List<Filme> retratoFilmes;
 
     public Diretor(String nome) {
         super(nome);
         this.filmesDirigidos = new ArrayList<>();
     }
 
+    public Diretor(int id, String nome) {
+        super(id, nome);
+        this.filmesDirigidos = new ArrayList<>();
+    }
+
     public String getEstilo() {
         return estilo;
     }
     
     public void setEstilo(String estilo) {
-        this.estilo = estilo != null ? estilo.trim() : null;
+        trocarEstilo(estilo != null ? estilo.trim() : null);
+    }
+
+    /**
+     * Como compartilharNacionalidade, para o estilo.
+     */
+    public void compartilharEstilo(String igual) {
+        if (igual != null && igual.equals(estilo)) {
+            this.estilo = igual;
+        }
     }
     
-    public List<Filme> getFilmesDirigidos() {
-        return new ArrayList<>(filmesDirigidos);
+    /**
+     * A lista só é mantida pelo FilmeService no modo OBJETOS; nos outros modos ela fica
+     * vazia e os filmes vêm de FilmeService.buscarPorDiretor.
+     *
+     * @return os filmes, numa lista somente leitura que não muda se a lista do diretor mudar depois
+     */
+    public synchronized List<Filme> getFilmesDirigidos() {
+        if (retratoFilmes == null) {
+            retratoFilmes = List.copyOf(filmesDirigidos);
+        }
+        return retratoFilmes;
     }
     
-    public void adicionarFilme(Filme filme) {
+    public synchronized void adicionarFilme(Filme filme) {
         if (filme == null) {
             throw new IllegalArgumentException("Erro: Filme não pode ser null!");
         }
@@ -41,10 +72,33 @@ public class Diretor extends Pessoa {
         }
         
         filmesDirigidos.add(filme);
-        System.out.println("Filme '" + filme.getNome() + "' adicionado aos filmes dirigidos!");
+        retratoFilmes = null;
+        Diagnosticos.info(Diretor.class, "Filme '{}' adicionado aos filmes dirigidos!", filme.getNome());
     }
     
-    public void removerFilme(Filme filme) {
+    /**
+     * Acrescenta, na ordem recebida, os filmes (sem repetição entre si) que ainda não estão
+     * na lista. A conferência usa um conjunto, então o custo é linear mesmo com muitos
+     * filmes (ex: importação em lote).
+     */
+    public synchronized void adicionarFilmesNovos(List<Filme> filmes) {
+        Set<Filme> presentes = filmesDirigidos.isEmpty() ? Set.of() : new HashSet<>(filmesDirigidos);
+        int antes = filmesDirigidos.size();
+        for (Filme filme : filmes) {
+            if (filme == null) {
+                throw new IllegalArgumentException("Erro: Filme não pode ser null!");
+            }
+            if (!presentes.contains(filme)) {
+                filmesDirigidos.add(filme);
+            }
+        }
+        if (filmesDirigidos.size() > antes) {
+            retratoFilmes = null;
+            Diagnosticos.info(Diretor.class, "{} filme(s) adicionado(s) aos filmes dirigidos!", filmesDirigidos.size() - antes);
+        }
+    }
+
+    public synchronized void removerFilme(Filme filme) {
         if (filme == null) {
             throw new IllegalArgumentException("Erro: Filme não pode ser null!");
         }
@@ -54,37 +108,56 @@ public class Diretor extends Pessoa {
         }
         
         filmesDirigidos.remove(filme);
-        System.out.println("Filme '" + filme.getNome() + "' removido dos filmes dirigidos!");
+        retratoFilmes = null;
+        Diagnosticos.info(Diretor.class, "Filme '{}' removido dos filmes dirigidos!", filme.getNome());
     }
 
     @Override
     public boolean validarDados() {
-        if (getNome() == null || getNome().trim().isEmpty()) {
-            System.out.println("Nome inválido!");
+        String problema = verificarDados();
+        if (problema != null) {
+            Diagnosticos.aviso(Diretor.class, problema);
             return false;
         }
         
+        Diagnosticos.info(Diretor.class, "Dados do diretor estão válidos!");
+        return true;
+    }
+
+    /**
+     * Mesma validação de validarDados, sem emitir mensagens.
+     *
+     * @return a descrição do primeiro dado inválido, ou null se todos estiverem válidos
+     */
+    public String verificarDados() {
+        if (getNome() == null || getNome().trim().isEmpty()) {
+            return "Nome inválido!";
+        }
+        
         if (getIdade() != null && getIdade() < 21) {
-            System.out.println("Idade muito baixa para diretor profissional!");
-            return false;
+            return "Idade muito baixa para diretor profissional!";
         }
         
         if (getNacionalidade() == null || getNacionalidade().trim().isEmpty()) {
-            System.out.println("Nacionalidade não informada!");
-            return false;
+            return "Nacionalidade não informada!";
         }
         
-        if (estilo == null || estilo.trim().isEmpty()) {
-            System.out.println("Estilo de direção não informado!");
-            return false;
+        if (getEstilo() == null || getEstilo().isEmpty()) {
+            return "Estilo de direção não informado!";
         }
         
-        System.out.println("Dados do diretor estão válidos!");
-        return true;
+        return null;
     }
     
     @Override
     public String exibirInformacoes() {
+        return exibirInformacoes(getFilmesDirigidos());
+    }
+
+    /**
+     * Ficha do diretor com os filmes informados (ex: os de FilmeService.buscarPorDiretor).
+     */
+    public String exibirInformacoes(List<Filme> filmesDirigidos) {
         StringBuilder informacoes = new StringBuilder();
         
         informacoes.append("DIRETOR\n");
@@ -100,7 +173,8 @@ public class Diretor extends Pessoa {
             informacoes.append("Nacionalidade: ").append(getNacionalidade()).append("\n");
         }
         
-        if (estilo != null && !estilo.trim().isEmpty()) {
+        String estilo = getEstilo();
+        if (estilo != null && !estilo.isEmpty()) {
             informacoes.append("Estilo: ").append(estilo).append("\n");
         }
         
@@ -123,27 +197,38 @@ public class Diretor extends Pessoa {
         return getNome();
     }
 
-    public int contarFilmes() {
+    public synchronized int contarFilmes() {
         return filmesDirigidos.size();
     }
 
-    public boolean dirigiuFilme(Filme filme) {
+    public synchronized boolean dirigiuFilme(Filme filme) {
         return filmesDirigidos.contains(filme);
     }
 
-    public void limparFilmes() {
+    public synchronized void limparFilmes() {
         filmesDirigidos.clear();
-        System.out.println("Lista de filmes dirigidos do diretor '" + getNome() + "' foi limpa!");
+        retratoFilmes = null;
+        Diagnosticos.info(Diretor.class, "Lista de filmes dirigidos do diretor '{}' foi limpa!", getNome());
     }
 
     public boolean definirEstilo(String estilo) {
         if (estilo == null || estilo.trim().isEmpty()) {
-            System.out.println("Estilo não pode ser vazio!");
+            Diagnosticos.aviso(Diretor.class, "Estilo não pode ser vazio!");
             return false;
         }
         
-        this.estilo = estilo.trim();
-        System.out.println("Estilo definido como: " + this.estilo);
+        trocarEstilo(estilo.trim());
+        Diagnosticos.info(Diretor.class, "Estilo definido como: {}", getEstilo());
         return true;
     }
+
+    private void trocarEstilo(String estilo) {
+        String anterior = this.estilo;
+        if (Objects.equals(anterior, estilo)) {
+            return;
+        }
+        verificarAlteracao(IObservadorAlteracao.CAMPO_ESTILO);
+        this.estilo = estilo;
+        notificar(IObservadorAlteracao.CAMPO_ESTILO, anterior);
+    }
 }
\ No newline at end of file
@@ -1,9 +1,13 @@
 package model;
 
+import diagnostico.Diagnosticos;
+import interfaces.IObservadorAlteracao;
+
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Classe Filme - Representa um filme no sistema
@@ -11,12 +15,15 @@ import java.util.List;
 public class Filme {
 
     private int id;
-    private String nome;
-    private LocalDate dataLancamento;
-    private BigDecimal orcamento;
-    private String descricao;
-    private Diretor diretor;
-    private List<Ator> atores;
+    private volatile String nome;
+    private volatile LocalDate dataLancamento;
+    private volatile BigDecimal orcamento;
+    private volatile String descricao;
+    private volatile Diretor diretor;
+    private final Set<Ator> atores;
+    // Cópia somente leitura entregue por getAtores; refeita na primeira leitura depois de uma alteração
+    private List<Ator> retratoAtores;
+    private volatile IObservadorAlteracao<Filme> observador;
 
     public Filme(String nome, LocalDate dataLancamento) {
         if (nome == null || nome.trim().isEmpty()) {
@@ -33,10 +40,10 @@ public class Filme {
         
         this.nome = nome.trim();
         this.dataLancamento = dataLancamento;
-        this.atores = new ArrayList<>();
+        this.atores = new LinkedHashSet<>();
     }
 
-    public void adicionarAtor(Ator ator) {
+    public synchronized void adicionarAtor(Ator ator) {
         if (ator == null) {
             throw new IllegalArgumentException("Erro: Ator não pode ser null!");
         }
@@ -46,10 +53,11 @@ public class Filme {
         }
         
         atores.add(ator);
-        System.out.println("Ator '" + ator.getNome() + "' adicionado ao filme '" + this.nome + "'!");
+        retratoAtores = null;
+        Diagnosticos.info(Filme.class, "Ator '{}' adicionado ao filme '{}'!", ator.getNome(), this.nome);
     }
 
-    public void removerAtor(Ator ator) {
+    public synchronized void removerAtor(Ator ator) {
         if (ator == null) {
             throw new IllegalArgumentException("Erro: Ator não pode ser null!");
         }
@@ -59,27 +67,40 @@ public class Filme {
         }
         
         atores.remove(ator);
-        System.out.println("Ator '" + ator.getNome() + "' removido do filme '" + this.nome + "'!");
+        retratoAtores = null;
+        Diagnosticos.info(Filme.class, "Ator '{}' removido do filme '{}'!", ator.getNome(), this.nome);
     }
 
     public boolean validarCamposObrigatorios() {
-        if (nome == null || nome.trim().isEmpty()) {
-            System.out.println("Nome do filme é obrigatório!");
+        String problema = verificarCamposObrigatorios();
+        if (problema != null) {
+            Diagnosticos.aviso(Filme.class, problema);
             return false;
         }
         
+        Diagnosticos.info(Filme.class, "Campos obrigatórios do filme estão válidos!");
+        return true;
+    }
+
+    /**
+     * Mesma validação de validarCamposObrigatorios, sem emitir mensagens.
+     *
+     * @return a descrição do primeiro campo inválido, ou null se todos estiverem válidos
+     */
+    public String verificarCamposObrigatorios() {
+        if (nome == null || nome.trim().isEmpty()) {
+            return "Nome do filme é obrigatório!";
+        }
+        
         if (dataLancamento == null) {
-            System.out.println("Data de lançamento é obrigatória!");
-            return false;
+            return "Data de lançamento é obrigatória!";
         }
         
         if (dataLancamento.isAfter(LocalDate.now())) {
-            System.out.println("Data de lançamento não pode ser no futuro!");
-            return false;
+            return "Data de lançamento não pode ser no futuro!";
         }
         
-        System.out.println("Campos obrigatórios do filme estão válidos!");
-        return true;
+        return null;
     }
 
     public int getId() { 
@@ -98,7 +119,10 @@ public class Filme {
         if (nome == null || nome.trim().isEmpty()) {
             throw new IllegalArgumentException("Erro: Nome do filme não pode ser null ou vazio!");
         }
+        verificarAlteracao(IObservadorAlteracao.CAMPO_NOME);
+        String nomeAnterior = this.nome;
         this.nome = nome.trim(); 
+        notificar(IObservadorAlteracao.CAMPO_NOME, nomeAnterior);
     }
 
     public LocalDate getDataLancamento() { 
@@ -112,7 +136,10 @@ public class Filme {
         if (dataLancamento.isAfter(LocalDate.now())) {
             throw new IllegalArgumentException("Erro: Data de lançamento não pode ser no futuro!");
         }
+        verificarAlteracao(IObservadorAlteracao.CAMPO_DATA_LANCAMENTO);
+        LocalDate dataAnterior = this.dataLancamento;
         this.dataLancamento = dataLancamento; 
+        notificar(IObservadorAlteracao.CAMPO_DATA_LANCAMENTO, dataAnterior);
     }
 
     public BigDecimal getOrcamento() { 
@@ -123,7 +150,10 @@ public class Filme {
         if (orcamento != null && orcamento.compareTo(BigDecimal.ZERO) < 0) {
             throw new IllegalArgumentException("Erro: Orçamento não pode ser negativo!");
         }
+        verificarAlteracao(IObservadorAlteracao.CAMPO_ORCAMENTO);
+        BigDecimal orcamentoAnterior = this.orcamento;
         this.orcamento = orcamento; 
+        notificar(IObservadorAlteracao.CAMPO_ORCAMENTO, orcamentoAnterior);
     }
 
     public String getDescricao() { 
@@ -131,7 +161,10 @@ public class Filme {
     }
 
     public void setDescricao(String descricao) { 
+        verificarAlteracao(IObservadorAlteracao.CAMPO_DESCRICAO);
+        String descricaoAnterior = this.descricao;
         this.descricao = descricao != null ? descricao.trim() : null; 
+        notificar(IObservadorAlteracao.CAMPO_DESCRICAO, descricaoAnterior);
     }
 
     public Diretor getDiretor() { 
@@ -139,11 +172,49 @@ public class Filme {
     }
 
     public void setDiretor(Diretor diretor) { 
+        verificarAlteracao(IObservadorAlteracao.CAMPO_DIRETOR);
+        Diretor diretorAnterior = this.diretor;
         this.diretor = diretor; 
+        notificar(IObservadorAlteracao.CAMPO_DIRETOR, diretorAnterior);
     }
 
-    public List<Ator> getAtores() { 
-        return new ArrayList<>(atores);
+    /**
+     * @return os atores, numa lista somente leitura que não muda se o elenco mudar depois
+     * (a mesma lista é devolvida enquanto o elenco não mudar)
+     */
+    public synchronized List<Ator> getAtores() { 
+        if (retratoAtores == null) {
+            retratoAtores = List.copyOf(atores);
+        }
+        return retratoAtores;
+    }
+
+    /**
+     * Troca a lista de atores sem mensagens, como ao montar um filme guardado
+     * em outro formato (ex: repository.ArmazenamentoColunarFilmes).
+     */
+    public synchronized void definirAtores(List<Ator> novosAtores) {
+        atores.clear();
+        atores.addAll(novosAtores);
+        retratoAtores = null;
+    }
+
+    public void setObservador(IObservadorAlteracao<Filme> observador) {
+        this.observador = observador;
+    }
+
+    // O serviço que cadastrou o filme pode recusar a alteração antes que ela aconteça
+    private void verificarAlteracao(String campo) {
+        IObservadorAlteracao<Filme> atual = observador;
+        if (atual != null && !atual.aceitaAlteracao(this, campo)) {
+            throw new IllegalStateException("Erro: O catálogo não aceita mais alterações!");
+        }
+    }
+
+    private void notificar(String campo, Object valorAnterior) {
+        if (observador != null) {
+            observador.aoAlterar(this, campo, valorAnterior);
+        }
     }
 
     @Override
@@ -164,20 +235,21 @@ public class Filme {
         return Integer.hashCode(id);
     }
 
-    public int contarAtores() {
+    public synchronized int contarAtores() {
         return atores.size();
     }
 
-    public boolean temAtor(Ator ator) {
+    public synchronized boolean temAtor(Ator ator) {
         return atores.contains(ator);
     }
 
-    public void limparAtores() {
+    public synchronized void limparAtores() {
         atores.clear();
-        System.out.println("✅ Lista de atores do filme '" + this.nome + "' foi limpa!");
+        retratoAtores = null;
+        Diagnosticos.info(Filme.class, "✅ Lista de atores do filme '{}' foi limpa!", this.nome);
     }
 
-    public String exibirInformacoes() {
+    public synchronized String exibirInformacoes() {
         StringBuilder informacoes = new StringBuilder();
         
         informacoes.append("🎬 FILME\n");
@@ -206,9 +278,9 @@ public class Filme {
             informacoes.append("Nenhum ator registrado\n");
         } else {
             informacoes.append(atores.size()).append(" ator(es)\n");
-            for (int i = 0; i < atores.size(); i++) {
-                Ator ator = atores.get(i);
-                informacoes.append("  ").append(i + 1).append(". ").append(ator.getNome()).append("\n");
+            int posicao = 1;
+            for (Ator ator : atores) {
+                informacoes.append("  ").append(posicao++).append(". ").append(ator.getNome()).append("\n");
             }
         }
         
@@ -1,5 +1,10 @@
 package model;
 
+import interfaces.IObservadorAlteracao;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Classe Pessoa - Classe base para Ator e Diretor
  * 
@@ -10,20 +15,38 @@ package model;
  */
 public abstract class Pessoa {
 
-    private static int proximoId = 1;
+    private static final AtomicInteger proximoId = new AtomicInteger(1);
     
     private final int id;
-    private String nome;
-    private Integer idade;
-    private String nacionalidade;
+    private volatile String nome;
+    private volatile Integer idade;
+    private volatile String nacionalidade;
+    private volatile IObservadorAlteracao<Pessoa> observador;
 
     public Pessoa(String nome) {
         if (nome == null || nome.trim().isEmpty()) {
             throw new IllegalArgumentException("Erro: Nome da pessoa não pode ser null ou vazio!");
         }
         
-        this.id = proximoId++;
+        this.id = proximoId.getAndIncrement();
+        this.nome = nome.trim();
+    }
+
+    /**
+     * Recria uma pessoa com um ID já conhecido (ex: ao recuperar o catálogo do disco).
+     * Os próximos IDs gerados serão maiores que ele.
+     */
+    protected Pessoa(int id, String nome) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("Erro: ID inválido: " + id);
+        }
+        if (nome == null || nome.trim().isEmpty()) {
+            throw new IllegalArgumentException("Erro: Nome da pessoa não pode ser null ou vazio!");
+        }
+
+        this.id = id;
         this.nome = nome.trim();
+        proximoId.accumulateAndGet(id + 1, Math::max);
     }
 
     public abstract boolean validarDados();
@@ -41,7 +64,10 @@ public abstract class Pessoa {
         if (nome == null || nome.trim().isEmpty()) {
             throw new IllegalArgumentException("Erro: Nome da pessoa não pode ser null ou vazio!");
         }
+        verificarAlteracao(IObservadorAlteracao.CAMPO_NOME);
+        String nomeAnterior = this.nome;
         this.nome = nome.trim();
+        notificar(IObservadorAlteracao.CAMPO_NOME, nomeAnterior);
     }
     
     public Integer getIdade() {
@@ -52,7 +78,13 @@ public abstract class Pessoa {
         if (idade != null && idade < 0) {
             throw new IllegalArgumentException("Erro: Idade não pode ser negativa!");
         }
+        Integer anterior = this.idade;
+        if (Objects.equals(anterior, idade)) {
+            return;
+        }
+        verificarAlteracao(IObservadorAlteracao.CAMPO_IDADE);
         this.idade = idade;
+        notificar(IObservadorAlteracao.CAMPO_IDADE, anterior);
     }
     
     public String getNacionalidade() {
@@ -60,9 +92,45 @@ public abstract class Pessoa {
     }
     
     public void setNacionalidade(String nacionalidade) {
-        this.nacionalidade = nacionalidade != null ? nacionalidade.trim() : null;
+        String anterior = this.nacionalidade;
+        String nova = nacionalidade != null ? nacionalidade.trim() : null;
+        if (Objects.equals(anterior, nova)) {
+            return;
+        }
+        verificarAlteracao(IObservadorAlteracao.CAMPO_NACIONALIDADE);
+        this.nacionalidade = nova;
+        notificar(IObservadorAlteracao.CAMPO_NACIONALIDADE, anterior);
+    }
+
+    /**
+     * Troca o texto da nacionalidade por uma instância igual (ex: a guardada no índice
+     * do serviço), para as pessoas da mesma nacionalidade dividirem uma só String.
+     * Não é uma alteração: o observador não é avisado.
+     */
+    public void compartilharNacionalidade(String igual) {
+        if (igual != null && igual.equals(nacionalidade)) {
+            this.nacionalidade = igual;
+        }
     }
     
+    public void setObservador(IObservadorAlteracao<Pessoa> observador) {
+        this.observador = observador;
+    }
+
+    // O serviço que cadastrou a pessoa pode recusar a alteração antes que ela aconteça
+    protected void verificarAlteracao(String campo) {
+        IObservadorAlteracao<Pessoa> atual = observador;
+        if (atual != null && !atual.aceitaAlteracao(this, campo)) {
+            throw new IllegalStateException("Erro: O catálogo não aceita mais alterações!");
+        }
+    }
+
+    protected void notificar(String campo, Object valorAnterior) {
+        if (observador != null) {
+            observador.aoAlterar(this, campo, valorAnterior);
+        }
+    }
+
     @Override
     public String toString() {
         return nome;
@@ -0,0 +1,514 @@
+package multiversao;
+
+import diagnostico.Diagnosticos;
+import interfaces.IOuvinteCatalogo;
+import model.Ator;
+import model.Diretor;
+import model.Filme;
+import model.FilmeAtor;
+import service.AtorService;
+import service.DiretorService;
+import service.FilmeService;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.IntFunction;
+
+/**
+ * Classe CatalogoMultiversao - Guarda versões antigas de filmes, atores e diretores para leituras em retratos
+ *
+ * Recebe os avisos dos três serviços e grava, para cada entidade alterada, um
+ * registro imutável com o número da alteração, na frente dos registros
+ * anteriores da mesma entidade. Um RetratoCatalogo aberto numa versão lê, de
+ * cada entidade, o registro mais novo até aquela versão: vê o catálogo inteiro
+ * como ele estava naquele momento, sem pegar as travas dos serviços e sem
+ * impedir que eles continuem sendo alterados.
+ *
+ * As alterações de uma operação (ex: um lote importado, ou um filme com o
+ * elenco) recebem números na ordem das travas dos serviços, mas só ficam
+ * visíveis quando o serviço chama sincronizar() ao terminar a operação (ele
+ * chama mesmo quando a operação é recusada ou lança exceção no meio); a
+ * versão dos novos retratos é a última antes da primeira alteração ainda não
+ * terminada, então um retrato nunca vê uma operação pela metade.
+ *
+ * Registros que nenhum retrato aberto pode mais ler são descartados: sem
+ * retratos abertos sobra só o registro atual de cada entidade.
+ */
+public class CatalogoMultiversao implements IOuvinteCatalogo {
+
+    private static final int FILME = 0;
+    private static final int ATOR = 1;
+    private static final int DIRETOR = 2;
+
+    private final FilmeService filmeService;
+    private final AtorService atorService;
+    private final DiretorService diretorService;
+    private final List<ConcurrentSkipListMap<Integer, Versao>> cadeias;
+
+    // Protegidos pelo monitor deste objeto
+    private long ultimaVersao;
+    private final Map<Thread, Long> pendentesPorThread = new HashMap<>();
+    private final TreeMap<Long, Thread> pendentes = new TreeMap<>();
+    private final TreeMap<Long, Integer> retratosAbertos = new TreeMap<>();
+    private final Set<Long> comHistorico = new HashSet<>();
+    private boolean encerrado;
+
+    private CatalogoMultiversao(FilmeService filmeService, AtorService atorService, DiretorService diretorService) {
+        this.filmeService = filmeService;
+        this.atorService = atorService;
+        this.diretorService = diretorService;
+        this.cadeias = List.of(new ConcurrentSkipListMap<>(), new ConcurrentSkipListMap<>(),
+                new ConcurrentSkipListMap<>());
+    }
+
+    /**
+     * Grava o estado atual do catálogo como versão 0 e passa a acompanhar as alterações dos serviços.
+     * Os serviços ficam parados (trava de leitura) só durante a cópia inicial.
+     */
+    public static CatalogoMultiversao acompanhar(FilmeService filmeService, AtorService atorService,
+                                                 DiretorService diretorService) {
+        if (filmeService == null || atorService == null || diretorService == null) {
+            throw new IllegalArgumentException("Erro: Os três serviços são obrigatórios!");
+        }
+        CatalogoMultiversao catalogo = new CatalogoMultiversao(filmeService, atorService, diretorService);
+        filmeService.lerCatalogoSemAlteracoes(() -> {
+            for (Ator ator : atorService.listarTodos()) {
+                catalogo.cadeias.get(ATOR).put(ator.getId(), new Versao(0, RegistroPessoa.de(ator)));
+            }
+            for (Diretor diretor : diretorService.listarTodos()) {
+                catalogo.cadeias.get(DIRETOR).put(diretor.getId(), new Versao(0, RegistroPessoa.de(diretor)));
+            }
+            for (Filme filme : filmeService.listarTodos()) {
+                catalogo.cadeias.get(FILME).put(filme.getId(),
+                        new Versao(0, RegistroFilme.de(filme, filmeService.listarElenco(filme.getId()))));
+            }
+            // Ainda com as travas: nenhuma alteração escapa entre a cópia e o primeiro aviso
+            filmeService.adicionarOuvinte(catalogo);
+            atorService.adicionarOuvinte(catalogo);
+            diretorService.adicionarOuvinte(catalogo);
+            return null;
+        });
+        Diagnosticos.info(CatalogoMultiversao.class, "Catálogo multiversão iniciado: {} filme(s)",
+                catalogo.cadeias.get(FILME).size());
+        return catalogo;
+    }
+
+    /**
+     * Deixa de acompanhar os serviços; os retratos já abertos continuam válidos.
+     */
+    public void encerrar() {
+        filmeService.removerOuvinte(this);
+        atorService.removerOuvinte(this);
+        diretorService.removerOuvinte(this);
+        synchronized (this) {
+            encerrado = true;
+        }
+    }
+
+    /**
+     * Abre um retrato na versão mais recente com todas as operações terminadas.
+     * O retrato deve ser fechado (try-with-resources) para liberar as versões antigas.
+     */
+    public synchronized RetratoCatalogo abrirRetrato() {
+        if (encerrado) {
+            throw new IllegalStateException("Erro: Catálogo multiversão já foi encerrado!");
+        }
+        long versao = versaoVisivel();
+        retratosAbertos.merge(versao, 1, Integer::sum);
+        return new RetratoCatalogo(this, versao);
+    }
+
+    /**
+     * @return a versão que um retrato aberto agora veria
+     */
+    public synchronized long getVersao() {
+        return versaoVisivel();
+    }
+
+    public synchronized int getRetratosAbertos() {
+        int total = 0;
+        for (int quantidade : retratosAbertos.values()) {
+            total += quantidade;
+        }
+        return total;
+    }
+
+    /**
+     * @return quantos registros antigos ainda estão guardados por causa dos retratos abertos
+     */
+    public synchronized int contarVersoesAntigas() {
+        int total = 0;
+        for (long chave : comHistorico) {
+            Versao versao = cadeias.get(tipo(chave)).get(id(chave));
+            for (Versao anterior = versao != null ? versao.anterior : null; anterior != null;
+                 anterior = anterior.anterior) {
+                total++;
+            }
+        }
+        return total;
+    }
+
+    synchronized void fecharRetrato(long versao) {
+        retratosAbertos.computeIfPresent(versao, (chave, quantidade) -> quantidade > 1 ? quantidade - 1 : null);
+        limparHistorico();
+    }
+
+    // ========== LEITURA (SEM TRAVAS) ==========
+
+    RegistroFilme filme(int id, long versao) {
+        return (RegistroFilme) ler(FILME, id, versao);
+    }
+
+    RegistroPessoa ator(int id, long versao) {
+        return (RegistroPessoa) ler(ATOR, id, versao);
+    }
+
+    RegistroPessoa diretor(int id, long versao) {
+        return (RegistroPessoa) ler(DIRETOR, id, versao);
+    }
+
+    Iterable<Integer> idsFilmes() {
+        return cadeias.get(FILME).keySet();
+    }
+
+    Iterable<Integer> idsAtores() {
+        return cadeias.get(ATOR).keySet();
+    }
+
+    Iterable<Integer> idsDiretores() {
+        return cadeias.get(DIRETOR).keySet();
+    }
+
+    private Object ler(int tipo, int id, long versao) {
+        Versao atual = cadeias.get(tipo).get(id);
+        while (atual != null && atual.numero > versao) {
+            atual = atual.anterior;
+        }
+        return atual != null ? atual.registro : null;
+    }
+
+    // ========== AVISOS DOS SERVIÇOS (COM A TRAVA DE ESCRITA DE QUEM AVISA) ==========
+
+    @Override
+    public synchronized void filmeSalvo(Filme filme) {
+        RegistroFilme anterior = (RegistroFilme) atual(FILME, filme.getId());
+        gravar(FILME, filme.getId(), RegistroFilme.de(filme, anterior));
+    }
+
+    @Override
+    public synchronized void filmeRemovido(int id) {
+        gravar(FILME, id, null);
+    }
+
+    @Override
+    public synchronized void atorSalvo(Ator ator) {
+        gravar(ATOR, ator.getId(), RegistroPessoa.de(ator));
+    }
+
+    @Override
+    public synchronized void atorRemovido(int id) {
+        gravar(ATOR, id, null);
+    }
+
+    @Override
+    public synchronized void diretorSalvo(Diretor diretor) {
+        gravar(DIRETOR, diretor.getId(), RegistroPessoa.de(diretor));
+    }
+
+    @Override
+    public synchronized void diretorRemovido(int id) {
+        gravar(DIRETOR, id, null);
+    }
+
+    @Override
+    public synchronized void atorAssociado(int filmeId, int atorId, String personagem) {
+        RegistroFilme anterior = (RegistroFilme) atual(FILME, filmeId);
+        if (anterior != null) {
+            gravar(FILME, filmeId, anterior.comAtor(atorId, personagem));
+        }
+    }
+
+    @Override
+    public synchronized void atorDesassociado(int filmeId, int atorId) {
+        RegistroFilme anterior = (RegistroFilme) atual(FILME, filmeId);
+        if (anterior != null) {
+            gravar(FILME, filmeId, anterior.semAtor(atorId));
+        }
+    }
+
+    @Override
+    public synchronized void personagemDefinido(int filmeId, int atorId, String personagem) {
+        RegistroFilme anterior = (RegistroFilme) atual(FILME, filmeId);
+        if (anterior != null) {
+            gravar(FILME, filmeId, anterior.comAtor(atorId, personagem));
+        }
+    }
+
+    /**
+     * Fim da operação da thread atual: as alterações dela ficam visíveis para os próximos retratos.
+     */
+    @Override
+    public synchronized void sincronizar() {
+        Long primeira = pendentesPorThread.remove(Thread.currentThread());
+        if (primeira != null) {
+            pendentes.remove(primeira);
+            // Com retratos abertos cada cadeia já é podada ao ganhar um registro; o resto espera o fechamento
+            if (retratosAbertos.isEmpty()) {
+                limparHistorico();
+            }
+        }
+    }
+
+    // ========== VERSÕES ==========
+
+    private Object atual(int tipo, int id) {
+        Versao versao = cadeias.get(tipo).get(id);
+        return versao != null ? versao.registro : null;
+    }
+
+    private void gravar(int tipo, int id, Object registro) {
+        long numero = ++ultimaVersao;
+        Thread thread = Thread.currentThread();
+        if (!pendentesPorThread.containsKey(thread)) {
+            pendentesPorThread.put(thread, numero);
+            pendentes.put(numero, thread);
+        }
+        ConcurrentSkipListMap<Integer, Versao> cadeia = cadeias.get(tipo);
+        Versao anterior = cadeia.get(id);
+        if (anterior == null && registro == null) {
+            return;
+        }
+        cadeia.put(id, new Versao(numero, registro, anterior));
+        if (anterior != null && !podar(cadeia, id, versaoVisivel(), retratosAbertos)) {
+            comHistorico.add(chave(tipo, id));
+        }
+    }
+
+    // Última versão sem nenhuma alteração pendente até ela; threads que morreram no meio de uma operação são esquecidas
+    private long versaoVisivel() {
+        pendentesPorThread.keySet().removeIf(thread -> {
+            if (thread.isAlive()) {
+                return false;
+            }
+            pendentes.values().remove(thread);
+            return true;
+        });
+        return pendentes.isEmpty() ? ultimaVersao : pendentes.firstKey() - 1;
+    }
+
+    private void limparHistorico() {
+        long visivel = versaoVisivel();
+        comHistorico.removeIf(chave -> podar(cadeias.get(tipo(chave)), id(chave), visivel, retratosAbertos));
+    }
+
+    /**
+     * Descarta os registros da entidade que ninguém pode ler: ficam os ainda pendentes (depois da
+     * versão visível), o mais novo até a versão visível (dos próximos retratos) e, para cada
+     * retrato aberto, o mais novo até a versão dele. Quem está percorrendo a cadeia não se perde,
+     * porque os registros pulados continuam apontando para os mais antigos.
+     *
+     * @return true se a entidade ficou só com o registro atual
+     */
+    private static boolean podar(ConcurrentSkipListMap<Integer, Versao> cadeia, int id, long visivel,
+                                 TreeMap<Long, Integer> retratos) {
+        Versao cabeca = cadeia.get(id);
+        if (cabeca == null) {
+            return true;
+        }
+        Versao mantida = cabeca;
+        while (mantida.numero > visivel && mantida.anterior != null) {
+            mantida = mantida.anterior;
+        }
+        if (mantida.numero <= visivel) {
+            Long retrato = retratos.lowerKey(mantida.numero);
+            while (retrato != null) {
+                Versao lida = mantida.anterior;
+                while (lida != null && lida.numero > retrato) {
+                    lida = lida.anterior;
+                }
+                mantida.anterior = lida;
+                if (lida == null) {
+                    break;
+                }
+                mantida = lida;
+                retrato = retratos.lowerKey(mantida.numero);
+            }
+            mantida.anterior = null;
+        }
+        if (cabeca.anterior != null) {
+            return false;
+        }
+        if (cabeca.registro == null && cabeca.numero <= visivel) {
+            cadeia.remove(id, cabeca);
+        }
+        return true;
+    }
+
+    private static long chave(int tipo, int id) {
+        return ((long) tipo << 32) | (id & 0xFFFF_FFFFL);
+    }
+
+    private static int tipo(long chave) {
+        return (int) (chave >>> 32);
+    }
+
+    private static int id(long chave) {
+        return (int) chave;
+    }
+
+    // Registro de uma entidade a partir de uma versão; registro null = removida
+    private static final class Versao {
+        private final long numero;
+        private final Object registro;
+        private volatile Versao anterior;
+
+        private Versao(long numero, Object registro) {
+            this(numero, registro, null);
+        }
+
+        private Versao(long numero, Object registro, Versao anterior) {
+            this.numero = numero;
+            this.registro = registro;
+            this.anterior = anterior;
+        }
+    }
+
+    /**
+     * Classe RegistroFilme - Campos de um filme numa versão, com o elenco e os personagens
+     */
+    static final class RegistroFilme {
+        final int id;
+        final String nome;
+        final LocalDate dataLancamento;
+        final BigDecimal orcamento;
+        final String descricao;
+        final int diretorId;
+        final int[] atores;
+        final String[] personagens;
+
+        private RegistroFilme(Filme filme, int[] atores, String[] personagens) {
+            this(filme.getId(), filme.getNome(), filme.getDataLancamento(), filme.getOrcamento(),
+                    filme.getDescricao(), filme.getDiretor() != null ? filme.getDiretor().getId() : 0,
+                    atores, personagens);
+        }
+
+        private RegistroFilme(int id, String nome, LocalDate dataLancamento, BigDecimal orcamento, String descricao,
+                              int diretorId, int[] atores, String[] personagens) {
+            this.id = id;
+            this.nome = nome;
+            this.dataLancamento = dataLancamento;
+            this.orcamento = orcamento;
+            this.descricao = descricao;
+            this.diretorId = diretorId;
+            this.atores = atores;
+            this.personagens = personagens;
+        }
+
+        // Os personagens não ficam no Filme: vêm do elenco do serviço
+        private static RegistroFilme de(Filme filme, List<FilmeAtor> elenco) {
+            Map<Integer, String> personagens = new HashMap<>();
+            for (FilmeAtor participacao : elenco) {
+                personagens.put(participacao.getAtorId(), participacao.getPersonagem());
+            }
+            return de(filme, personagens::get);
+        }
+
+        // ... ou do registro anterior do mesmo filme
+        private static RegistroFilme de(Filme filme, RegistroFilme anterior) {
+            return de(filme, atorId -> anterior != null ? anterior.personagem(atorId) : null);
+        }
+
+        private static RegistroFilme de(Filme filme, IntFunction<String> personagem) {
+            List<Ator> elenco = filme.getAtores();
+            int[] atores = new int[elenco.size()];
+            String[] personagens = new String[elenco.size()];
+            int quantidade = 0;
+            for (Ator ator : elenco) {
+                if (ator.getId() != null) {
+                    atores[quantidade] = ator.getId();
+                    personagens[quantidade++] = personagem.apply(ator.getId());
+                }
+            }
+            return new RegistroFilme(filme, Arrays.copyOf(atores, quantidade), Arrays.copyOf(personagens, quantidade));
+        }
+
+        String personagem(int atorId) {
+            for (int i = 0; i < atores.length; i++) {
+                if (atores[i] == atorId) {
+                    return personagens[i];
+                }
+            }
+            return null;
+        }
+
+        private RegistroFilme comAtor(int atorId, String personagem) {
+            for (int i = 0; i < atores.length; i++) {
+                if (atores[i] == atorId) {
+                    String[] novos = personagens.clone();
+                    novos[i] = personagem;
+                    return new RegistroFilme(id, nome, dataLancamento, orcamento, descricao, diretorId, atores, novos);
+                }
+            }
+            int[] novosAtores = Arrays.copyOf(atores, atores.length + 1);
+            String[] novosPersonagens = Arrays.copyOf(personagens, personagens.length + 1);
+            novosAtores[atores.length] = atorId;
+            novosPersonagens[personagens.length] = personagem;
+            return new RegistroFilme(id, nome, dataLancamento, orcamento, descricao, diretorId, novosAtores,
+                    novosPersonagens);
+        }
+
+        private RegistroFilme semAtor(int atorId) {
+            List<Integer> posicoes = new ArrayList<>();
+            for (int i = 0; i < atores.length; i++) {
+                if (atores[i] != atorId) {
+                    posicoes.add(i);
+                }
+            }
+            int[] novosAtores = new int[posicoes.size()];
+            String[] novosPersonagens = new String[posicoes.size()];
+            for (int i = 0; i < novosAtores.length; i++) {
+                novosAtores[i] = atores[posicoes.get(i)];
+                novosPersonagens[i] = personagens[posicoes.get(i)];
+            }
+            return new RegistroFilme(id, nome, dataLancamento, orcamento, descricao, diretorId, novosAtores,
+                    novosPersonagens);
+        }
+    }
+
+    /**
+     * Classe RegistroPessoa - Campos de um ator ou diretor numa versão (estilo só para diretores)
+     */
+    static final class RegistroPessoa {
+        final int id;
+        final String nome;
+        final Integer idade;
+        final String nacionalidade;
+        final String estilo;
+
+        private RegistroPessoa(int id, String nome, Integer idade, String nacionalidade, String estilo) {
+            this.id = id;
+            this.nome = nome;
+            this.idade = idade;
+            this.nacionalidade = nacionalidade;
+            this.estilo = estilo;
+        }
+
+        private static RegistroPessoa de(Ator ator) {
+            return new RegistroPessoa(ator.getId(), ator.getNome(), ator.getIdade(), ator.getNacionalidade(), null);
+        }
+
+        private static RegistroPessoa de(Diretor diretor) {
+            return new RegistroPessoa(diretor.getId(), diretor.getNome(), diretor.getIdade(),
+                    diretor.getNacionalidade(), diretor.getEstilo());
+        }
+    }
+}
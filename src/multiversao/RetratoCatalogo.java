@@ -0,0 +1,206 @@
+package multiversao;
+
+import model.Ator;
+import model.Diretor;
+import model.Filme;
+import model.FilmeAtor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Classe RetratoCatalogo - O catálogo como estava numa versão, lido sem travar os serviços
+ *
+ * Aberto por CatalogoMultiversao.abrirRetrato(). Filmes, atores e diretores
+ * devolvidos são cópias soltas montadas a partir dos registros da versão: não
+ * estão cadastradas nos serviços, e alterá-las não muda o catálogo. Dentro de
+ * um retrato a mesma entidade é sempre o mesmo objeto (o diretor de um filme é
+ * o devolvido por buscarDiretor). Atores e diretores vêm sem a lista de
+ * filmes; use buscarPorAtor / buscarPorDiretor.
+ *
+ * Deve ser fechado ao terminar (try-with-resources), senão o catálogo
+ * multiversão continua guardando as versões antigas para ele.
+ */
+public class RetratoCatalogo implements AutoCloseable {
+
+    private final CatalogoMultiversao catalogo;
+    private final long versao;
+    private final ConcurrentHashMap<Integer, Filme> filmes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Ator> atores = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Diretor> diretores = new ConcurrentHashMap<>();
+    private volatile boolean fechado;
+
+    RetratoCatalogo(CatalogoMultiversao catalogo, long versao) {
+        this.catalogo = catalogo;
+        this.versao = versao;
+    }
+
+    public long getVersao() {
+        return versao;
+    }
+
+    public Filme buscarFilme(int id) {
+        verificarAberto();
+        Filme filme = filmes.get(id);
+        if (filme != null) {
+            return filme;
+        }
+        CatalogoMultiversao.RegistroFilme registro = catalogo.filme(id, versao);
+        if (registro == null) {
+            return null;
+        }
+        Filme montado = new Filme(registro.nome, registro.dataLancamento);
+        montado.setId(registro.id);
+        montado.setOrcamento(registro.orcamento);
+        montado.setDescricao(registro.descricao);
+        if (registro.diretorId != 0) {
+            montado.setDiretor(buscarDiretor(registro.diretorId));
+        }
+        // Atores removidos depois de entrar no elenco não existem nesta versão
+        List<Ator> elenco = new ArrayList<>(registro.atores.length);
+        for (int atorId : registro.atores) {
+            Ator ator = buscarAtor(atorId);
+            if (ator != null) {
+                elenco.add(ator);
+            }
+        }
+        montado.definirAtores(elenco);
+        Filme anterior = filmes.putIfAbsent(id, montado);
+        return anterior != null ? anterior : montado;
+    }
+
+    public Ator buscarAtor(int id) {
+        verificarAberto();
+        Ator ator = atores.get(id);
+        if (ator != null) {
+            return ator;
+        }
+        CatalogoMultiversao.RegistroPessoa registro = catalogo.ator(id, versao);
+        if (registro == null) {
+            return null;
+        }
+        Ator montado = new Ator(registro.id, registro.nome);
+        montado.setIdade(registro.idade);
+        montado.setNacionalidade(registro.nacionalidade);
+        Ator anterior = atores.putIfAbsent(id, montado);
+        return anterior != null ? anterior : montado;
+    }
+
+    public Diretor buscarDiretor(int id) {
+        verificarAberto();
+        Diretor diretor = diretores.get(id);
+        if (diretor != null) {
+            return diretor;
+        }
+        CatalogoMultiversao.RegistroPessoa registro = catalogo.diretor(id, versao);
+        if (registro == null) {
+            return null;
+        }
+        Diretor montado = new Diretor(registro.id, registro.nome);
+        montado.setIdade(registro.idade);
+        montado.setNacionalidade(registro.nacionalidade);
+        montado.setEstilo(registro.estilo);
+        Diretor anterior = diretores.putIfAbsent(id, montado);
+        return anterior != null ? anterior : montado;
+    }
+
+    /**
+     * @return os filmes da versão, em ordem de ID
+     */
+    public List<Filme> listarFilmes() {
+        List<Filme> lista = new ArrayList<>();
+        for (int id : catalogo.idsFilmes()) {
+            Filme filme = buscarFilme(id);
+            if (filme != null) {
+                lista.add(filme);
+            }
+        }
+        return lista;
+    }
+
+    public List<Ator> listarAtores() {
+        List<Ator> lista = new ArrayList<>();
+        for (int id : catalogo.idsAtores()) {
+            Ator ator = buscarAtor(id);
+            if (ator != null) {
+                lista.add(ator);
+            }
+        }
+        return lista;
+    }
+
+    public List<Diretor> listarDiretores() {
+        List<Diretor> lista = new ArrayList<>();
+        for (int id : catalogo.idsDiretores()) {
+            Diretor diretor = buscarDiretor(id);
+            if (diretor != null) {
+                lista.add(diretor);
+            }
+        }
+        return lista;
+    }
+
+    /**
+     * @return o elenco do filme com os personagens, na ordem em que os atores entraram
+     */
+    public List<FilmeAtor> listarElenco(int filmeId) {
+        verificarAberto();
+        List<FilmeAtor> elenco = new ArrayList<>();
+        CatalogoMultiversao.RegistroFilme registro = catalogo.filme(filmeId, versao);
+        if (registro == null) {
+            return elenco;
+        }
+        for (int i = 0; i < registro.atores.length; i++) {
+            if (catalogo.ator(registro.atores[i], versao) != null) {
+                FilmeAtor participacao = new FilmeAtor(filmeId, registro.atores[i]);
+                participacao.setPersonagem(registro.personagens[i]);
+                elenco.add(participacao);
+            }
+        }
+        return elenco;
+    }
+
+    /**
+     * Percorre todos os filmes da versão.
+     */
+    public List<Filme> buscarPorAtor(int atorId) {
+        List<Filme> encontrados = new ArrayList<>();
+        for (Filme filme : listarFilmes()) {
+            for (Ator ator : filme.getAtores()) {
+                if (ator.getId() == atorId) {
+                    encontrados.add(filme);
+                    break;
+                }
+            }
+        }
+        return encontrados;
+    }
+
+    /**
+     * Percorre todos os filmes da versão.
+     */
+    public List<Filme> buscarPorDiretor(int diretorId) {
+        List<Filme> encontrados = new ArrayList<>();
+        for (Filme filme : listarFilmes()) {
+            if (filme.getDiretor() != null && filme.getDiretor().getId() == diretorId) {
+                encontrados.add(filme);
+            }
+        }
+        return encontrados;
+    }
+
+    @Override
+    public void close() {
+        if (!fechado) {
+            fechado = true;
+            catalogo.fecharRetrato(versao);
+        }
+    }
+
+    private void verificarAberto() {
+        if (fechado) {
+            throw new IllegalStateException("Erro: Retrato já foi fechado!");
+        }
+    }
+}
@@ -0,0 +1,635 @@
+package persistencia;
+
+import diagnostico.Diagnosticos;
+import interfaces.IDiagnostico;
+import model.Ator;
+import model.Diretor;
+import model.Filme;
+import model.FilmeAtor;
+import model.ResultadoOperacao;
+import service.AtorService;
+import service.DiretorService;
+import service.FilmeService;
+import util.MapaIntObjeto;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * Classe InstantaneoCatalogo - Retrato binário e colunar do catálogo inteiro
+ *
+ * Cada campo de cada entidade (ex: todos os IDs de filmes, depois todas as
+ * datas, depois todos os nomes) vira uma seção contígua do arquivo, com o seu
+ * próprio CRC32. Números ficam como arrays de tamanho fixo e textos como a
+ * lista de tamanhos seguida dos bytes UTF-8. Na carga cada seção é mapeada
+ * na memória e lida de uma vez, e os serviços recebem as entidades em lote.
+ *
+ * Layout: cabeçalho | seções | tabela de seções (tipo, início, tamanho, CRC).
+ * O cabeçalho guarda a geração e a posição do log de alterações no momento
+ * do retrato, para a recuperação reaplicar só o que veio depois.
+ */
+public final class InstantaneoCatalogo {
+
+    private static final int ASSINATURA = 0x43415453;
+    private static final int VERSAO = 1;
+    // assinatura, versão, geração e posição do log, quantidades, início e CRC da tabela, CRC do cabeçalho
+    private static final int TAMANHO_CABECALHO = 4 + 4 + 8 + 8 + 4 * 4 + 8 + 4 + 4;
+    private static final int TAMANHO_ENTRADA_TABELA = 4 + 8 + 8 + 4;
+    private static final int TAMANHO_BUFFER = 1 << 20;
+
+    private static final int ATOR_ID = 1;
+    private static final int ATOR_IDADE = 2;
+    private static final int ATOR_NOME = 3;
+    private static final int ATOR_NACIONALIDADE = 4;
+    private static final int DIRETOR_ID = 11;
+    private static final int DIRETOR_IDADE = 12;
+    private static final int DIRETOR_NOME = 13;
+    private static final int DIRETOR_NACIONALIDADE = 14;
+    private static final int DIRETOR_ESTILO = 15;
+    private static final int FILME_ID = 21;
+    private static final int FILME_DATA = 22;
+    private static final int FILME_ORCAMENTO = 23;
+    private static final int FILME_NOME = 24;
+    private static final int FILME_DESCRICAO = 25;
+    private static final int FILME_DIRETOR = 26;
+    private static final int ELENCO_FILME = 31;
+    private static final int ELENCO_ATOR = 32;
+    private static final int ELENCO_PERSONAGEM = 33;
+
+    private final long geracaoLog;
+    private final long posicaoLog;
+    private final int atores;
+    private final int diretores;
+    private final int filmes;
+    private final int associacoes;
+
+    private InstantaneoCatalogo(long geracaoLog, long posicaoLog, int atores, int diretores, int filmes,
+                                int associacoes) {
+        this.geracaoLog = geracaoLog;
+        this.posicaoLog = posicaoLog;
+        this.atores = atores;
+        this.diretores = diretores;
+        this.filmes = filmes;
+        this.associacoes = associacoes;
+    }
+
+    public long getGeracaoLog() {
+        return geracaoLog;
+    }
+
+    /**
+     * @return a posição do log de alterações em que o retrato foi tirado
+     */
+    public long getPosicaoLog() {
+        return posicaoLog;
+    }
+
+    public int getAtores() {
+        return atores;
+    }
+
+    public int getDiretores() {
+        return diretores;
+    }
+
+    public int getFilmes() {
+        return filmes;
+    }
+
+    public int getAssociacoes() {
+        return associacoes;
+    }
+
+    // ========== GRAVAÇÃO ==========
+
+    /**
+     * Grava o catálogo sem o log de alterações (geração e posição zero).
+     */
+    public static InstantaneoCatalogo gravar(Path arquivo, FilmeService filmeService, AtorService atorService,
+                                             DiretorService diretorService) throws IOException {
+        return gravar(arquivo, filmeService, atorService, diretorService, 0, 0);
+    }
+
+    /**
+     * Grava um retrato coerente do catálogo: as alterações ficam bloqueadas
+     * enquanto as entidades são lidas e gravadas. O arquivo é sincronizado com o disco.
+     */
+    public static InstantaneoCatalogo gravar(Path arquivo, FilmeService filmeService, AtorService atorService,
+                                             DiretorService diretorService, long geracaoLog, long posicaoLog)
+            throws IOException {
+        try {
+            return filmeService.lerCatalogoSemAlteracoes(() -> {
+                List<Ator> listaAtores = new ArrayList<>(atorService.listarTodos());
+                List<Diretor> listaDiretores = new ArrayList<>(diretorService.listarTodos());
+                List<Filme> listaFilmes = new ArrayList<>(filmeService.listarTodos());
+                listaAtores.sort(Comparator.comparingInt(Ator::getId));
+                listaDiretores.sort(Comparator.comparingInt(Diretor::getId));
+                listaFilmes.sort(Comparator.comparingInt(Filme::getId));
+                List<FilmeAtor> elenco = new ArrayList<>();
+                for (Filme filme : listaFilmes) {
+                    elenco.addAll(filmeService.listarElenco(filme.getId()));
+                }
+                try {
+                    return escrever(arquivo, listaAtores, listaDiretores, listaFilmes, elenco, geracaoLog, posicaoLog);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static InstantaneoCatalogo escrever(Path arquivo, List<Ator> listaAtores, List<Diretor> listaDiretores,
+                                                List<Filme> listaFilmes, List<FilmeAtor> elenco, long geracaoLog,
+                                                long posicaoLog) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            SaidaColunas saida = new SaidaColunas(canal, TAMANHO_CABECALHO);
+
+            saida.secao(ATOR_ID);
+            listaAtores.forEach(ator -> saida.inteiro(ator.getId()));
+            saida.secao(ATOR_IDADE);
+            listaAtores.forEach(ator -> saida.inteiro(ator.getIdade() != null ? ator.getIdade() : -1));
+            saida.textos(ATOR_NOME, listaAtores, Ator::getNome);
+            saida.textos(ATOR_NACIONALIDADE, listaAtores, Ator::getNacionalidade);
+
+            saida.secao(DIRETOR_ID);
+            listaDiretores.forEach(diretor -> saida.inteiro(diretor.getId()));
+            saida.secao(DIRETOR_IDADE);
+            listaDiretores.forEach(diretor -> saida.inteiro(diretor.getIdade() != null ? diretor.getIdade() : -1));
+            saida.textos(DIRETOR_NOME, listaDiretores, Diretor::getNome);
+            saida.textos(DIRETOR_NACIONALIDADE, listaDiretores, Diretor::getNacionalidade);
+            saida.textos(DIRETOR_ESTILO, listaDiretores, Diretor::getEstilo);
+
+            saida.secao(FILME_ID);
+            listaFilmes.forEach(filme -> saida.inteiro(filme.getId()));
+            saida.secao(FILME_DATA);
+            listaFilmes.forEach(filme -> saida.longo(filme.getDataLancamento().toEpochDay()));
+            saida.blocos(FILME_ORCAMENTO, listaFilmes, filme -> codificarDecimal(filme.getOrcamento()));
+            saida.textos(FILME_NOME, listaFilmes, Filme::getNome);
+            saida.textos(FILME_DESCRICAO, listaFilmes, Filme::getDescricao);
+            saida.secao(FILME_DIRETOR);
+            listaFilmes.forEach(filme -> saida.inteiro(filme.getDiretor() != null ? filme.getDiretor().getId() : 0));
+
+            saida.secao(ELENCO_FILME);
+            elenco.forEach(papel -> saida.inteiro(papel.getFilmeId()));
+            saida.secao(ELENCO_ATOR);
+            elenco.forEach(papel -> saida.inteiro(papel.getAtorId()));
+            saida.textos(ELENCO_PERSONAGEM, elenco, FilmeAtor::getPersonagem);
+
+            long inicioTabela = saida.terminar();
+            int crcTabela = saida.gravarTabela();
+
+            ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO);
+            cabecalho.putInt(ASSINATURA).putInt(VERSAO).putLong(geracaoLog).putLong(posicaoLog)
+                    .putInt(listaAtores.size()).putInt(listaDiretores.size()).putInt(listaFilmes.size())
+                    .putInt(elenco.size()).putLong(inicioTabela).putInt(crcTabela);
+            cabecalho.putInt(crc(cabecalho.array(), TAMANHO_CABECALHO - 4));
+            cabecalho.flip();
+            while (cabecalho.hasRemaining()) {
+                canal.write(cabecalho, cabecalho.position());
+            }
+            canal.force(true);
+        }
+        return new InstantaneoCatalogo(geracaoLog, posicaoLog, listaAtores.size(), listaDiretores.size(),
+                listaFilmes.size(), elenco.size());
+    }
+
+    private static byte[] codificarDecimal(BigDecimal valor) {
+        if (valor == null) {
+            return null;
+        }
+        byte[] semEscala = valor.unscaledValue().toByteArray();
+        return ByteBuffer.allocate(4 + semEscala.length).putInt(valor.scale()).put(semEscala).array();
+    }
+
+    // ========== CARGA ==========
+
+    /**
+     * Carrega o retrato nos serviços, que devem estar vazios. Os IDs gravados são
+     * mantidos. As mensagens de diagnóstico ficam desligadas durante a carga.
+     *
+     * @throws IOException se o arquivo não for um instantâneo válido ou algum CRC não conferir
+     */
+    public static InstantaneoCatalogo carregar(Path arquivo, FilmeService filmeService, AtorService atorService,
+                                               DiretorService diretorService) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO);
+            while (cabecalho.hasRemaining() && canal.read(cabecalho, cabecalho.position()) > 0) {
+                // lê até completar o cabeçalho
+            }
+            if (cabecalho.hasRemaining() || cabecalho.getInt(0) != ASSINATURA || cabecalho.getInt(4) != VERSAO) {
+                throw new IOException("Arquivo não é um instantâneo do catálogo (versão " + VERSAO + ")");
+            }
+            if (crc(cabecalho.array(), TAMANHO_CABECALHO - 4) != cabecalho.getInt(TAMANHO_CABECALHO - 4)) {
+                throw new IOException("Cabeçalho do instantâneo corrompido");
+            }
+            cabecalho.position(8);
+            long geracaoLog = cabecalho.getLong();
+            long posicaoLog = cabecalho.getLong();
+            int numAtores = cabecalho.getInt();
+            int numDiretores = cabecalho.getInt();
+            int numFilmes = cabecalho.getInt();
+            int numAssociacoes = cabecalho.getInt();
+            long inicioTabela = cabecalho.getLong();
+            int crcTabela = cabecalho.getInt();
+
+            EntradaColunas entrada = new EntradaColunas(canal, inicioTabela, crcTabela);
+
+            IDiagnostico destinoAnterior = Diagnosticos.getDestino();
+            Diagnosticos.setDestino(null);
+            try {
+                MapaIntObjeto<Ator> atoresPorId = new MapaIntObjeto<>(numAtores);
+                List<Ator> listaAtores = lerAtores(entrada, numAtores, atoresPorId);
+                verificar(atorService.importar(listaAtores.stream()));
+
+                MapaIntObjeto<Diretor> diretoresPorId = new MapaIntObjeto<>(numDiretores);
+                List<Diretor> listaDiretores = lerDiretores(entrada, numDiretores, diretoresPorId);
+                verificar(diretorService.importar(listaDiretores.stream()));
+
+                MapaIntObjeto<Filme> filmesPorId = new MapaIntObjeto<>(numFilmes);
+                List<Filme> listaFilmes = lerFilmes(entrada, numFilmes, diretoresPorId, filmesPorId);
+
+                int[] elencoFilmes = entrada.inteiros(ELENCO_FILME, numAssociacoes);
+                int[] elencoAtores = entrada.inteiros(ELENCO_ATOR, numAssociacoes);
+                String[] personagens = entrada.textos(ELENCO_PERSONAGEM, numAssociacoes);
+                distribuirElenco(elencoFilmes, elencoAtores, filmesPorId, atoresPorId);
+                List<FilmeAtor> papeis = new ArrayList<>();
+                for (int i = 0; i < numAssociacoes; i++) {
+                    if (personagens[i] != null) {
+                        FilmeAtor papel = new FilmeAtor(elencoFilmes[i], elencoAtores[i]);
+                        papel.setPersonagem(personagens[i]);
+                        papeis.add(papel);
+                    }
+                }
+                verificar(filmeService.restaurar(listaFilmes, papeis));
+            } finally {
+                Diagnosticos.setDestino(destinoAnterior);
+            }
+            Diagnosticos.info(InstantaneoCatalogo.class, "Instantâneo carregado: {} filme(s), {} ator(es)",
+                    numFilmes, numAtores);
+            return new InstantaneoCatalogo(geracaoLog, posicaoLog, numAtores, numDiretores, numFilmes, numAssociacoes);
+        }
+    }
+
+    private static List<Ator> lerAtores(EntradaColunas entrada, int quantidade, MapaIntObjeto<Ator> porId)
+            throws IOException {
+        int[] ids = entrada.inteiros(ATOR_ID, quantidade);
+        int[] idades = entrada.inteiros(ATOR_IDADE, quantidade);
+        String[] nomes = entrada.textos(ATOR_NOME, quantidade);
+        String[] nacionalidades = entrada.textos(ATOR_NACIONALIDADE, quantidade);
+        List<Ator> lista = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            Ator ator = new Ator(ids[i], nomes[i]);
+            ator.setIdade(idades[i] >= 0 ? idades[i] : null);
+            ator.setNacionalidade(nacionalidades[i]);
+            porId.inserir(ids[i], ator);
+            lista.add(ator);
+        }
+        return lista;
+    }
+
+    private static List<Diretor> lerDiretores(EntradaColunas entrada, int quantidade, MapaIntObjeto<Diretor> porId)
+            throws IOException {
+        int[] ids = entrada.inteiros(DIRETOR_ID, quantidade);
+        int[] idades = entrada.inteiros(DIRETOR_IDADE, quantidade);
+        String[] nomes = entrada.textos(DIRETOR_NOME, quantidade);
+        String[] nacionalidades = entrada.textos(DIRETOR_NACIONALIDADE, quantidade);
+        String[] estilos = entrada.textos(DIRETOR_ESTILO, quantidade);
+        List<Diretor> lista = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            Diretor diretor = new Diretor(ids[i], nomes[i]);
+            diretor.setIdade(idades[i] >= 0 ? idades[i] : null);
+            diretor.setNacionalidade(nacionalidades[i]);
+            diretor.setEstilo(estilos[i]);
+            porId.inserir(ids[i], diretor);
+            lista.add(diretor);
+        }
+        return lista;
+    }
+
+    private static List<Filme> lerFilmes(EntradaColunas entrada, int quantidade, MapaIntObjeto<Diretor> diretoresPorId,
+                                         MapaIntObjeto<Filme> porId) throws IOException {
+        int[] ids = entrada.inteiros(FILME_ID, quantidade);
+        long[] datas = entrada.longos(FILME_DATA, quantidade);
+        byte[][] orcamentos = entrada.blocos(FILME_ORCAMENTO, quantidade);
+        String[] nomes = entrada.textos(FILME_NOME, quantidade);
+        String[] descricoes = entrada.textos(FILME_DESCRICAO, quantidade);
+        int[] diretores = entrada.inteiros(FILME_DIRETOR, quantidade);
+        List<Filme> lista = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            Filme filme = new Filme(nomes[i], LocalDate.ofEpochDay(datas[i]));
+            filme.setId(ids[i]);
+            if (orcamentos[i] != null) {
+                ByteBuffer orcamento = ByteBuffer.wrap(orcamentos[i]);
+                int escala = orcamento.getInt();
+                byte[] semEscala = new byte[orcamento.remaining()];
+                orcamento.get(semEscala);
+                filme.setOrcamento(new BigDecimal(new BigInteger(semEscala), escala));
+            }
+            filme.setDescricao(descricoes[i]);
+            if (diretores[i] > 0) {
+                filme.setDiretor(diretoresPorId.buscar(diretores[i]));
+            }
+            porId.inserir(ids[i], filme);
+            lista.add(filme);
+        }
+        return lista;
+    }
+
+    // O elenco é gravado agrupado por filme: cada filme recebe a lista inteira de uma vez,
+    // sem as conferências e mensagens de Filme.adicionarAtor
+    private static void distribuirElenco(int[] elencoFilmes, int[] elencoAtores, MapaIntObjeto<Filme> filmesPorId,
+                                         MapaIntObjeto<Ator> atoresPorId) throws IOException {
+        for (int inicio = 0; inicio < elencoFilmes.length; ) {
+            Filme filme = filmesPorId.buscar(elencoFilmes[inicio]);
+            if (filme == null || filme.contarAtores() > 0) {
+                throw new IOException("Associação " + (inicio + 1) + " do instantâneo aponta para um filme inexistente ou fora de ordem");
+            }
+            int fim = inicio;
+            List<Ator> atores = new ArrayList<>();
+            while (fim < elencoFilmes.length && elencoFilmes[fim] == elencoFilmes[inicio]) {
+                Ator ator = atoresPorId.buscar(elencoAtores[fim]);
+                if (ator == null || atores.contains(ator)) {
+                    throw new IOException("Associação " + (fim + 1) + " do instantâneo aponta para um ator inexistente ou repetido");
+                }
+                atores.add(ator);
+                fim++;
+            }
+            filme.definirAtores(atores);
+            inicio = fim;
+        }
+    }
+
+    private static void verificar(ResultadoOperacao resultado) throws IOException {
+        if (!resultado.isSucesso()) {
+            throw new IOException("Instantâneo recusado pelo catálogo: " + resultado.getMensagem());
+        }
+    }
+
+    private static int crc(byte[] bytes, int tamanho) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, tamanho);
+        return (int) crc.getValue();
+    }
+
+    // ========== COLUNAS ==========
+
+    // Grava as seções em sequência por um buffer, calculando o CRC de cada uma
+    private static final class SaidaColunas {
+        private final FileChannel canal;
+        private final ByteBuffer buffer;
+        private final CRC32 crc;
+        private final ByteBuffer tabela;
+        private long posicao;
+        private long inicioSecao;
+        private int tipoSecao;
+        private int secoes;
+
+        private SaidaColunas(FileChannel canal, long inicio) {
+            this.canal = canal;
+            this.buffer = ByteBuffer.allocateDirect(TAMANHO_BUFFER);
+            this.crc = new CRC32();
+            this.tabela = ByteBuffer.allocate(4 + 64 * TAMANHO_ENTRADA_TABELA);
+            this.posicao = inicio;
+            this.inicioSecao = -1;
+        }
+
+        void secao(int tipo) {
+            fecharSecao();
+            tipoSecao = tipo;
+            inicioSecao = posicao + buffer.position();
+            crc.reset();
+        }
+
+        void inteiro(int valor) {
+            garantir(4);
+            buffer.putInt(valor);
+        }
+
+        void longo(long valor) {
+            garantir(8);
+            buffer.putLong(valor);
+        }
+
+        // Tamanhos (-1 para null) seguidos dos bytes UTF-8
+        <T> void textos(int tipo, List<T> entidades, Function<T, String> campo) {
+            secao(tipo);
+            for (T entidade : entidades) {
+                String texto = campo.apply(entidade);
+                inteiro(texto != null ? tamanhoUtf8(texto) : -1);
+            }
+            for (T entidade : entidades) {
+                String texto = campo.apply(entidade);
+                if (texto != null) {
+                    bytes(texto.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        }
+
+        <T> void blocos(int tipo, List<T> entidades, Function<T, byte[]> campo) {
+            secao(tipo);
+            List<byte[]> valores = new ArrayList<>(entidades.size());
+            for (T entidade : entidades) {
+                byte[] valor = campo.apply(entidade);
+                valores.add(valor);
+                inteiro(valor != null ? valor.length : -1);
+            }
+            for (byte[] valor : valores) {
+                if (valor != null) {
+                    bytes(valor);
+                }
+            }
+        }
+
+        void bytes(byte[] valor) {
+            int escrito = 0;
+            while (escrito < valor.length) {
+                garantir(1);
+                int parte = Math.min(buffer.remaining(), valor.length - escrito);
+                buffer.put(valor, escrito, parte);
+                escrito += parte;
+            }
+        }
+
+        long terminar() {
+            fecharSecao();
+            descarregar();
+            return posicao;
+        }
+
+        int gravarTabela() {
+            tabela.flip();
+            ByteBuffer completa = ByteBuffer.allocate(4 + tabela.remaining());
+            completa.putInt(secoes).put(tabela);
+            int crcTabela = crc(completa.array(), completa.position());
+            completa.flip();
+            try {
+                while (completa.hasRemaining()) {
+                    posicao += canal.write(completa, posicao);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return crcTabela;
+        }
+
+        private void fecharSecao() {
+            if (inicioSecao < 0) {
+                return;
+            }
+            descarregar();
+            if (tabela.remaining() < TAMANHO_ENTRADA_TABELA) {
+                throw new IllegalStateException("Erro: Seções demais no instantâneo!");
+            }
+            tabela.putInt(tipoSecao).putLong(inicioSecao).putLong(posicao - inicioSecao).putInt((int) crc.getValue());
+            secoes++;
+            inicioSecao = -1;
+        }
+
+        private void garantir(int bytes) {
+            if (buffer.remaining() < bytes) {
+                descarregar();
+            }
+        }
+
+        private void descarregar() {
+            buffer.flip();
+            crc.update(buffer.duplicate());
+            try {
+                while (buffer.hasRemaining()) {
+                    posicao += canal.write(buffer, posicao);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buffer.clear();
+        }
+
+        private static int tamanhoUtf8(String texto) {
+            int bytes = 0;
+            for (int i = 0; i < texto.length(); i++) {
+                char c = texto.charAt(i);
+                if (c < 0x80) {
+                    bytes++;
+                } else if (c < 0x800) {
+                    bytes += 2;
+                } else if (Character.isHighSurrogate(c) && i + 1 < texto.length()
+                        && Character.isLowSurrogate(texto.charAt(i + 1))) {
+                    bytes += 4;
+                    i++;
+                } else {
+                    // Surrogates soltos viram '?' (1 byte) em getBytes(UTF_8)
+                    bytes += Character.isSurrogate(c) ? 1 : 3;
+                }
+            }
+            return bytes;
+        }
+    }
+
+    // Localiza as seções pela tabela e lê cada uma mapeando-a na memória
+    private static final class EntradaColunas {
+        private final FileChannel canal;
+        private final MapaIntObjeto<long[]> secoes;
+
+        private EntradaColunas(FileChannel canal, long inicioTabela, int crcEsperado) throws IOException {
+            this.canal = canal;
+            long tamanhoTabela = canal.size() - inicioTabela;
+            if (inicioTabela < TAMANHO_CABECALHO || tamanhoTabela < 4 || tamanhoTabela > Integer.MAX_VALUE) {
+                throw new IOException("Tabela de seções do instantâneo inválida");
+            }
+            ByteBuffer tabela = ByteBuffer.allocate((int) tamanhoTabela);
+            while (tabela.hasRemaining() && canal.read(tabela, inicioTabela + tabela.position()) > 0) {
+                // lê a tabela inteira
+            }
+            if (crc(tabela.array(), tabela.position()) != crcEsperado) {
+                throw new IOException("Tabela de seções do instantâneo corrompida");
+            }
+            tabela.flip();
+            int quantidade = tabela.getInt();
+            this.secoes = new MapaIntObjeto<>(quantidade);
+            for (int i = 0; i < quantidade; i++) {
+                int tipo = tabela.getInt();
+                secoes.inserir(tipo, new long[]{tabela.getLong(), tabela.getLong(), tabela.getInt()});
+            }
+        }
+
+        int[] inteiros(int tipo, int quantidade) throws IOException {
+            int[] valores = new int[quantidade];
+            mapear(tipo, (long) quantidade * 4).asIntBuffer().get(valores);
+            return valores;
+        }
+
+        long[] longos(int tipo, int quantidade) throws IOException {
+            long[] valores = new long[quantidade];
+            mapear(tipo, (long) quantidade * 8).asLongBuffer().get(valores);
+            return valores;
+        }
+
+        String[] textos(int tipo, int quantidade) throws IOException {
+            byte[][] blocos = blocos(tipo, quantidade);
+            String[] textos = new String[quantidade];
+            for (int i = 0; i < quantidade; i++) {
+                if (blocos[i] != null) {
+                    textos[i] = new String(blocos[i], StandardCharsets.UTF_8);
+                }
+            }
+            return textos;
+        }
+
+        byte[][] blocos(int tipo, int quantidade) throws IOException {
+            MappedByteBuffer secao = mapear(tipo, -1);
+            int[] tamanhos = new int[quantidade];
+            secao.asIntBuffer().get(tamanhos);
+            int posicao = quantidade * 4;
+            byte[][] valores = new byte[quantidade][];
+            for (int i = 0; i < quantidade; i++) {
+                if (tamanhos[i] >= 0) {
+                    if (tamanhos[i] > secao.limit() - posicao) {
+                        throw new IOException("Seção " + tipo + " do instantâneo está incompleta");
+                    }
+                    valores[i] = new byte[tamanhos[i]];
+                    secao.get(posicao, valores[i]);
+                    posicao += tamanhos[i];
+                }
+            }
+            return valores;
+        }
+
+        // Mapeia a seção e confere o CRC; tamanhoEsperado < 0 aceita qualquer tamanho
+        private MappedByteBuffer mapear(int tipo, long tamanhoEsperado) throws IOException {
+            long[] secao = secoes.buscar(tipo);
+            if (secao == null) {
+                throw new IOException("Seção " + tipo + " não encontrada no instantâneo");
+            }
+            long inicio = secao[0];
+            long tamanho = secao[1];
+            if ((tamanhoEsperado >= 0 && tamanho != tamanhoEsperado) || tamanho > Integer.MAX_VALUE
+                    || inicio + tamanho > canal.size()) {
+                throw new IOException("Seção " + tipo + " do instantâneo tem tamanho inválido");
+            }
+            MappedByteBuffer mapeada = canal.map(FileChannel.MapMode.READ_ONLY, inicio, tamanho);
+            CRC32 crc = new CRC32();
+            crc.update(mapeada.duplicate());
+            if ((int) crc.getValue() != (int) secao[2]) {
+                throw new IOException("CRC da seção " + tipo + " do instantâneo não confere");
+            }
+            return mapeada;
+        }
+    }
+}
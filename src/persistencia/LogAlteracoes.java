@@ -0,0 +1,840 @@
+package persistencia;
+
+import diagnostico.Diagnosticos;
+import exception.PessoaNaoEncontradaException;
+import interfaces.IDiagnostico;
+import interfaces.IOuvinteCatalogo;
+import model.Ator;
+import model.Diretor;
+import model.Filme;
+import service.AtorService;
+import service.DiretorService;
+import service.FilmeService;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Classe LogAlteracoes - Log de escrita antecipada (write-ahead log) do catálogo
+ *
+ * Recebe as alterações dos três serviços como IOuvinteCatalogo e as acrescenta,
+ * em formato binário, ao fim de um arquivo. Cada registro tem o tamanho e um
+ * CRC32 do conteúdo, então um registro cortado por uma queda é reconhecido e
+ * descartado na recuperação.
+ *
+ * Gravação em grupo (group commit): os registros se acumulam num buffer em
+ * memória e o serviço, já sem a sua trava, chama sincronizar(). A primeira
+ * thread que chega grava o buffer inteiro e faz um único fsync; as que chegam
+ * enquanto isso esperam, e a próxima a gravar leva de uma vez tudo o que foi
+ * acumulado. Com muitas threads escrevendo, um fsync confirma várias operações.
+ *
+ * Se uma gravação falhar, quem espera em sincronizar() recebe UncheckedIOException
+ * (aquelas alterações ficam só em memória) e aceitaAlteracoes() passa a responder
+ * false: as operações seguintes dos serviços são recusadas antes de mexer no catálogo.
+ *
+ * Transações: os avisos entre transacaoIniciada() e transacaoConcluida() (ex:
+ * FilmeService.alterarCatalogo e as importações em lote) ficam num buffer da
+ * thread e só entram no arquivo ao final, de uma vez, entre um registro de início
+ * e um de confirmação. Assim a gravação em grupo de outra thread nunca leva metade
+ * de uma transação, e a recuperação descarta um grupo que não chegou à confirmação.
+ *
+ * Use abrir(...) para recuperar o catálogo a partir do arquivo e começar a registrar.
+ * Com gravarInstantaneo(...) o catálogo vira um InstantaneoCatalogo e o log
+ * recomeça vazio numa nova geração; a recuperação então carrega o instantâneo
+ * e reaplica só o log gravado depois dele.
+ */
+public class LogAlteracoes implements IOuvinteCatalogo, AutoCloseable {
+
+    private static final int ASSINATURA = 0x43415457;
+    private static final int VERSAO = 3;
+    // A versão 2 só não tinha os registros de transação, então continua legível
+    private static final int VERSAO_MINIMA = 2;
+    // assinatura, versão e geração
+    private static final int TAMANHO_CABECALHO = 16;
+    private static final int CABECALHO_REGISTRO = 8;
+    private static final int CAPACIDADE_INICIAL = 64 * 1024;
+
+    private static final byte FILME_SALVO = 1;
+    private static final byte FILME_REMOVIDO = 2;
+    private static final byte ATOR_SALVO = 3;
+    private static final byte ATOR_REMOVIDO = 4;
+    private static final byte DIRETOR_SALVO = 5;
+    private static final byte DIRETOR_REMOVIDO = 6;
+    private static final byte ATOR_ASSOCIADO = 7;
+    private static final byte ATOR_DESASSOCIADO = 8;
+    private static final byte PERSONAGEM_DEFINIDO = 9;
+    private static final byte TRANSACAO_INICIADA = 10;
+    private static final byte TRANSACAO_CONFIRMADA = 11;
+
+    /**
+     * Registros de uma transação ainda aberta na thread.
+     */
+    private static final class Grupo {
+        private ByteBuffer dados = ByteBuffer.allocate(1024);
+        private int registros;
+        private int profundidade;
+    }
+
+    private final FileChannel canal;
+    private final FilmeService filmeService;
+    private final AtorService atorService;
+    private final DiretorService diretorService;
+    private final CRC32 crc;
+    private final long registrosRecuperados;
+
+    // Protegidos pelo monitor deste objeto
+    private ByteBuffer pendente;
+    private ByteBuffer reserva;
+    private long anexados;
+    private long duraveis;
+    private boolean gravando;
+    private IOException falha;
+    private int inicioRegistro;
+    private long registros;
+    private long sincronizacoes;
+    // Buffer do registro sendo escrito: pendente, ou o grupo da thread (grupoAtual) numa transação
+    private ByteBuffer atual;
+    private Grupo grupoAtual;
+    private long geracao;
+    // Posição no arquivo = baseArquivo + anexados
+    private long baseArquivo;
+    // Valor de anexados depois do último registro da thread ainda não sincronizado (0 se nenhum)
+    private final ThreadLocal<long[]> ultimoRegistroDaThread = ThreadLocal.withInitial(() -> new long[1]);
+    private final ThreadLocal<Grupo> grupoDaThread = new ThreadLocal<>();
+
+    private LogAlteracoes(FileChannel canal, FilmeService filmeService, AtorService atorService,
+                          DiretorService diretorService, long registrosRecuperados, long geracao) throws IOException {
+        this.canal = canal;
+        this.filmeService = filmeService;
+        this.atorService = atorService;
+        this.diretorService = diretorService;
+        this.crc = new CRC32();
+        this.registrosRecuperados = registrosRecuperados;
+        this.pendente = ByteBuffer.allocate(CAPACIDADE_INICIAL);
+        this.reserva = ByteBuffer.allocate(CAPACIDADE_INICIAL);
+        this.geracao = geracao;
+        this.baseArquivo = canal.size();
+    }
+
+    /**
+     * Reaplica nos serviços (que devem estar vazios) as alterações gravadas no
+     * arquivo e passa a registrar as próximas. O arquivo é criado se não existir.
+     * Durante a recuperação as mensagens de diagnóstico ficam desligadas.
+     */
+    public static LogAlteracoes abrir(Path arquivo, FilmeService filmeService, AtorService atorService,
+                                      DiretorService diretorService) throws IOException {
+        return abrir(arquivo, null, filmeService, atorService, diretorService);
+    }
+
+    /**
+     * Carrega o instantâneo (se o arquivo existir), reaplica o log gravado depois
+     * dele e passa a registrar as próximas alterações.
+     *
+     * @throws IOException se o log não for da geração do instantâneo nem da seguinte
+     */
+    public static LogAlteracoes abrir(Path arquivo, Path instantaneo, FilmeService filmeService,
+                                      AtorService atorService, DiretorService diretorService) throws IOException {
+        if (filmeService == null || atorService == null || diretorService == null) {
+            throw new IllegalArgumentException("Erro: Serviços não podem ser null!");
+        }
+        InstantaneoCatalogo retrato = null;
+        if (instantaneo != null && Files.exists(instantaneo)) {
+            retrato = InstantaneoCatalogo.carregar(instantaneo, filmeService, atorService, diretorService);
+        }
+        FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            LogAlteracoes log;
+            if (canal.size() < TAMANHO_CABECALHO) {
+                // Log novo, ou cortado logo após um instantâneo: tudo o que existe está no instantâneo
+                long geracao = retrato != null ? retrato.getGeracaoLog() + 1 : 1;
+                iniciarArquivo(canal, geracao);
+                log = new LogAlteracoes(canal, filmeService, atorService, diretorService, 0, geracao);
+            } else {
+                log = recuperar(canal, filmeService, atorService, diretorService, retrato);
+            }
+            canal.position(canal.size());
+            filmeService.setOuvinte(log);
+            atorService.setOuvinte(log);
+            diretorService.setOuvinte(log);
+            return log;
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return a geração atual do log; muda a cada instantâneo gravado
+     */
+    public synchronized long getGeracao() {
+        return geracao;
+    }
+
+    public long getRegistrosRecuperados() {
+        return registrosRecuperados;
+    }
+
+    /**
+     * @return quantos registros foram acrescentados desde a abertura
+     */
+    public synchronized long getRegistros() {
+        return registros;
+    }
+
+    /**
+     * @return quantos fsyncs foram feitos desde a abertura; menor que getRegistros() quando a gravação em grupo atua
+     */
+    public synchronized long getSincronizacoes() {
+        return sincronizacoes;
+    }
+
+    // ========== AVISOS DOS SERVIÇOS (chamados com a trava de escrita do serviço) ==========
+
+    @Override
+    public synchronized void filmeSalvo(Filme filme) {
+        iniciar(FILME_SALVO, 64).putInt(filme.getId());
+        escreverTexto(filme.getNome());
+        garantirEspaco(8);
+        atual.putLong(filme.getDataLancamento().toEpochDay());
+        escreverDecimal(filme.getOrcamento());
+        escreverTexto(filme.getDescricao());
+        List<Ator> atores = filme.getAtores();
+        garantirEspaco(8 + atores.size() * 4);
+        atual.putInt(filme.getDiretor() != null ? filme.getDiretor().getId() : 0);
+        atual.putInt(atores.size());
+        for (Ator ator : atores) {
+            atual.putInt(ator.getId());
+        }
+        concluir();
+    }
+
+    @Override
+    public synchronized void filmeRemovido(int id) {
+        iniciar(FILME_REMOVIDO, 4).putInt(id);
+        concluir();
+    }
+
+    @Override
+    public synchronized void atorSalvo(Ator ator) {
+        iniciar(ATOR_SALVO, 8).putInt(ator.getId());
+        escreverTexto(ator.getNome());
+        garantirEspaco(4);
+        atual.putInt(ator.getIdade() != null ? ator.getIdade() : -1);
+        escreverTexto(ator.getNacionalidade());
+        concluir();
+    }
+
+    @Override
+    public synchronized void atorRemovido(int id) {
+        iniciar(ATOR_REMOVIDO, 4).putInt(id);
+        concluir();
+    }
+
+    @Override
+    public synchronized void diretorSalvo(Diretor diretor) {
+        iniciar(DIRETOR_SALVO, 8).putInt(diretor.getId());
+        escreverTexto(diretor.getNome());
+        garantirEspaco(4);
+        atual.putInt(diretor.getIdade() != null ? diretor.getIdade() : -1);
+        escreverTexto(diretor.getNacionalidade());
+        escreverTexto(diretor.getEstilo());
+        concluir();
+    }
+
+    @Override
+    public synchronized void diretorRemovido(int id) {
+        iniciar(DIRETOR_REMOVIDO, 4).putInt(id);
+        concluir();
+    }
+
+    @Override
+    public synchronized void atorAssociado(int filmeId, int atorId, String personagem) {
+        iniciar(ATOR_ASSOCIADO, 8).putInt(filmeId).putInt(atorId);
+        escreverTexto(personagem);
+        concluir();
+    }
+
+    @Override
+    public synchronized void atorDesassociado(int filmeId, int atorId) {
+        iniciar(ATOR_DESASSOCIADO, 8).putInt(filmeId).putInt(atorId);
+        concluir();
+    }
+
+    @Override
+    public synchronized void personagemDefinido(int filmeId, int atorId, String personagem) {
+        iniciar(PERSONAGEM_DEFINIDO, 8).putInt(filmeId).putInt(atorId);
+        escreverTexto(personagem);
+        concluir();
+    }
+
+    @Override
+    public synchronized void transacaoIniciada() {
+        Grupo grupo = grupoDaThread.get();
+        if (grupo == null) {
+            grupo = new Grupo();
+            grupoDaThread.set(grupo);
+        }
+        grupo.profundidade++;
+    }
+
+    /**
+     * Ao fechar a transação mais externa, os registros dela entram no log juntos, entre o
+     * início e a confirmação. Uma transação que não registrou nada não grava nada.
+     */
+    @Override
+    public synchronized void transacaoConcluida() {
+        Grupo grupo = grupoDaThread.get();
+        if (grupo == null || --grupo.profundidade > 0) {
+            return;
+        }
+        grupoDaThread.remove();
+        if (grupo.registros == 0) {
+            return;
+        }
+        iniciar(TRANSACAO_INICIADA, 0);
+        concluir();
+        ByteBuffer dados = grupo.dados;
+        dados.flip();
+        atual = pendente;
+        garantirEspaco(dados.remaining());
+        pendente = atual;
+        anexados += dados.remaining();
+        registros += grupo.registros;
+        pendente.put(dados);
+        iniciar(TRANSACAO_CONFIRMADA, 0);
+        concluir();
+    }
+
+    /**
+     * Depois de uma falha de gravação os serviços passam a recusar as alterações
+     * antes de aplicá-las, então o catálogo em memória não se afasta do que o log
+     * consegue registrar.
+     */
+    @Override
+    public synchronized boolean aceitaAlteracoes() {
+        return falha == null;
+    }
+
+    /**
+     * Espera os registros feitos por esta thread estarem gravados no disco (com fsync);
+     * os das outras threads vão junto. Uma operação que não registrou nada (ex: recusada)
+     * retorna na hora.
+     *
+     * @throws UncheckedIOException se a gravação falhou: as alterações registradas e ainda
+     * não gravadas ficam só em memória, e o log deixa de aceitar alterações
+     */
+    @Override
+    public void sincronizar() {
+        long[] alvoDaThread = ultimoRegistroDaThread.get();
+        long alvo = alvoDaThread[0];
+        alvoDaThread[0] = 0;
+        sincronizarAte(alvo);
+    }
+
+    private void sincronizarTudo() {
+        long alvo;
+        synchronized (this) {
+            alvo = anexados;
+        }
+        sincronizarAte(alvo);
+    }
+
+    private void sincronizarAte(long alvo) {
+        while (true) {
+            ByteBuffer lote;
+            long fimLote;
+            synchronized (this) {
+                while (gravando && duraveis < alvo) {
+                    esperar();
+                }
+                if (duraveis >= alvo) {
+                    return;
+                }
+                if (falha != null) {
+                    throw new UncheckedIOException("Erro: Log de alterações indisponível", falha);
+                }
+                // Esta thread grava tudo o que está acumulado, inclusive o que outras threads acrescentaram
+                gravando = true;
+                lote = pendente;
+                pendente = reserva;
+                reserva = null;
+                fimLote = anexados;
+            }
+
+            IOException erro = null;
+            lote.flip();
+            try {
+                while (lote.hasRemaining()) {
+                    canal.write(lote);
+                }
+                canal.force(false);
+            } catch (IOException e) {
+                erro = e;
+            }
+            lote.clear();
+
+            synchronized (this) {
+                reserva = lote;
+                gravando = false;
+                if (erro != null) {
+                    falha = erro;
+                    Diagnosticos.aviso(LogAlteracoes.class, "Falha ao gravar o log de alterações: {}", erro.getMessage());
+                } else {
+                    duraveis = fimLote;
+                    sincronizacoes++;
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Grava um instantâneo do catálogo e recomeça o log vazio, na geração seguinte.
+     * As alterações ficam bloqueadas enquanto isso. O instantâneo é gravado num
+     * arquivo temporário e renomeado, então o anterior só é substituído quando o
+     * novo está completo no disco; o log só é esvaziado depois disso.
+     */
+    public InstantaneoCatalogo gravarInstantaneo(Path arquivo) throws IOException {
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        try {
+            return filmeService.lerCatalogoSemAlteracoes(() -> {
+                try {
+                    sincronizarTudo();
+                    long geracaoAtual;
+                    long posicao;
+                    synchronized (this) {
+                        geracaoAtual = geracao;
+                        posicao = baseArquivo + anexados;
+                    }
+                    InstantaneoCatalogo retrato = InstantaneoCatalogo.gravar(temporario, filmeService, atorService,
+                            diretorService, geracaoAtual, posicao);
+                    Files.move(temporario, arquivo, StandardCopyOption.ATOMIC_MOVE,
+                            StandardCopyOption.REPLACE_EXISTING);
+                    sincronizarDiretorio(arquivo);
+                    reiniciar(geracaoAtual + 1);
+                    Diagnosticos.info(LogAlteracoes.class, "Instantâneo gravado; log na geração {}", geracaoAtual + 1);
+                    return retrato;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Esvazia o arquivo e grava o cabeçalho da nova geração; chamado sem nada pendente
+    private synchronized void reiniciar(long novaGeracao) throws IOException {
+        while (gravando) {
+            esperar();
+        }
+        if (falha != null) {
+            throw falha;
+        }
+        try {
+            iniciarArquivo(canal, novaGeracao);
+            canal.position(TAMANHO_CABECALHO);
+        } catch (IOException e) {
+            falha = e;
+            throw e;
+        }
+        geracao = novaGeracao;
+        baseArquivo = TAMANHO_CABECALHO - anexados;
+    }
+
+    private static void iniciarArquivo(FileChannel canal, long geracao) throws IOException {
+        canal.truncate(0);
+        ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO).putInt(ASSINATURA).putInt(VERSAO)
+                .putLong(geracao);
+        cabecalho.flip();
+        while (cabecalho.hasRemaining()) {
+            canal.write(cabecalho, cabecalho.position());
+        }
+        canal.force(true);
+    }
+
+    // Garante que a troca de nome do instantâneo chegou ao disco antes de o log ser esvaziado
+    private static void sincronizarDiretorio(Path arquivo) {
+        Path diretorio = arquivo.toAbsolutePath().getParent();
+        try (FileChannel canalDiretorio = FileChannel.open(diretorio, StandardOpenOption.READ)) {
+            canalDiretorio.force(true);
+        } catch (IOException e) {
+            // Nem todo sistema permite abrir um diretório; lá a troca de nome já é durável
+        }
+    }
+
+    /**
+     * Grava o que estiver pendente, desliga o log dos serviços e fecha o arquivo.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            sincronizarTudo();
+        } catch (UncheckedIOException e) {
+            // A falha já foi avisada; o arquivo é fechado do mesmo jeito
+        } finally {
+            filmeService.setOuvinte(null);
+            atorService.setOuvinte(null);
+            diretorService.setOuvinte(null);
+            canal.close();
+        }
+    }
+
+    // ========== CODIFICAÇÃO ==========
+
+    // Reserva o cabeçalho do registro (tamanho e CRC, preenchidos em concluir) e escreve o tipo.
+    // Os marcadores de transação vão direto para pendente; os demais, para o grupo da thread se houver
+    private ByteBuffer iniciar(byte tipo, int tamanhoEstimado) {
+        grupoAtual = tipo < TRANSACAO_INICIADA ? grupoDaThread.get() : null;
+        atual = grupoAtual != null ? grupoAtual.dados : pendente;
+        garantirEspaco(CABECALHO_REGISTRO + 1 + tamanhoEstimado);
+        inicioRegistro = atual.position();
+        atual.position(atual.position() + CABECALHO_REGISTRO);
+        atual.put(tipo);
+        return atual;
+    }
+
+    private void concluir() {
+        int fim = atual.position();
+        int inicio = inicioRegistro;
+        int tamanho = fim - inicio - CABECALHO_REGISTRO;
+        crc.reset();
+        crc.update(atual.array(), inicio + CABECALHO_REGISTRO, tamanho);
+        atual.putInt(inicio, tamanho);
+        atual.putInt(inicio + 4, (int) crc.getValue());
+        if (grupoAtual != null) {
+            grupoAtual.dados = atual;
+            grupoAtual.registros++;
+            return;
+        }
+        pendente = atual;
+        anexados += fim - inicio;
+        registros++;
+        ultimoRegistroDaThread.get()[0] = anexados;
+    }
+
+    private void escreverTexto(String texto) {
+        if (texto == null) {
+            garantirEspaco(4);
+            atual.putInt(-1);
+            return;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        garantirEspaco(4 + bytes.length);
+        atual.putInt(bytes.length).put(bytes);
+    }
+
+    private void escreverDecimal(BigDecimal valor) {
+        if (valor == null) {
+            garantirEspaco(4);
+            atual.putInt(-1);
+            return;
+        }
+        byte[] semEscala = valor.unscaledValue().toByteArray();
+        garantirEspaco(8 + semEscala.length);
+        atual.putInt(semEscala.length).put(semEscala).putInt(valor.scale());
+    }
+
+    // Não lança depois de uma falha: quem já passou por aceitaAlteracoes() aplicou a alteração,
+    // e fica sabendo da falha pela exceção de sincronizar()
+    private void garantirEspaco(int bytes) {
+        if (atual.remaining() >= bytes) {
+            return;
+        }
+        ByteBuffer maior = ByteBuffer.allocate(Math.max(atual.capacity() * 2, atual.position() + bytes));
+        atual.flip();
+        maior.put(atual);
+        atual = maior;
+    }
+
+    private void esperar() {
+        try {
+            wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Erro: Espera pelo log de alterações interrompida!", e);
+        }
+    }
+
+    // ========== RECUPERAÇÃO ==========
+
+    private static LogAlteracoes recuperar(FileChannel canal, FilmeService filmeService, AtorService atorService,
+                                           DiretorService diretorService, InstantaneoCatalogo retrato)
+            throws IOException {
+        ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO);
+        while (cabecalho.hasRemaining() && canal.read(cabecalho, cabecalho.position()) > 0) {
+            // lê até completar o cabeçalho
+        }
+        int versao = cabecalho.getInt(4);
+        if (cabecalho.getInt(0) != ASSINATURA || versao < VERSAO_MINIMA || versao > VERSAO) {
+            throw new IOException("Arquivo não é um log de alterações do catálogo (versão " + VERSAO + ")");
+        }
+        long geracao = cabecalho.getLong(8);
+        long inicio = inicioRecuperacao(geracao, retrato);
+        if (inicio > canal.size()) {
+            throw new IOException("Log de alterações menor que a posição gravada no instantâneo");
+        }
+
+        IDiagnostico destinoAnterior = Diagnosticos.getDestino();
+        Diagnosticos.setDestino(null);
+        long aplicados = 0;
+        long ignorados = 0;
+        long fimValido;
+        // Registros da transação em leitura; só são reaplicados ao encontrar a confirmação
+        List<byte[]> grupo = null;
+        long inicioGrupo = 0;
+        try {
+            canal.position(inicio);
+            InputStream entrada = new BufferedInputStream(Channels.newInputStream(canal), CAPACIDADE_INICIAL);
+            DataInputStream dados = new DataInputStream(entrada);
+
+            LogAlteracoes log = new LogAlteracoes(canal, filmeService, atorService, diretorService, 0, geracao);
+            CRC32 verificador = new CRC32();
+            byte[] conteudo = new byte[256];
+            fimValido = inicio;
+            while (true) {
+                int tamanho;
+                int esperado;
+                try {
+                    tamanho = dados.readInt();
+                    esperado = dados.readInt();
+                    if (tamanho <= 0 || tamanho > canal.size() - fimValido - CABECALHO_REGISTRO) {
+                        break;
+                    }
+                    if (conteudo.length < tamanho) {
+                        conteudo = new byte[Math.max(tamanho, conteudo.length * 2)];
+                    }
+                    dados.readFully(conteudo, 0, tamanho);
+                } catch (EOFException e) {
+                    break;
+                }
+                verificador.reset();
+                verificador.update(conteudo, 0, tamanho);
+                if ((int) verificador.getValue() != esperado) {
+                    break;
+                }
+
+                byte tipo = conteudo[0];
+                if (tipo == TRANSACAO_INICIADA) {
+                    grupo = new ArrayList<>();
+                    inicioGrupo = fimValido;
+                } else if (tipo == TRANSACAO_CONFIRMADA) {
+                    if (grupo != null) {
+                        for (byte[] registro : grupo) {
+                            if (log.aplicar(ByteBuffer.wrap(registro))) {
+                                aplicados++;
+                            } else {
+                                ignorados++;
+                            }
+                        }
+                    }
+                    grupo = null;
+                } else if (grupo != null) {
+                    grupo.add(Arrays.copyOf(conteudo, tamanho));
+                } else if (log.aplicar(ByteBuffer.wrap(conteudo, 0, tamanho))) {
+                    aplicados++;
+                } else {
+                    ignorados++;
+                }
+                fimValido += CABECALHO_REGISTRO + tamanho;
+            }
+        } finally {
+            Diagnosticos.setDestino(destinoAnterior);
+        }
+
+        if (grupo != null) {
+            // A queda interrompeu a gravação de uma transação: nada dela é reaplicado
+            Diagnosticos.aviso(LogAlteracoes.class, "Transação incompleta no fim do log: {} registro(s) descartados",
+                    grupo.size());
+            fimValido = inicioGrupo;
+        }
+        if (fimValido < canal.size()) {
+            Diagnosticos.aviso(LogAlteracoes.class, "Log de alterações cortado: {} byte(s) descartados no fim",
+                    canal.size() - fimValido);
+            canal.truncate(fimValido);
+            canal.force(true);
+        }
+        if (ignorados > 0) {
+            Diagnosticos.aviso(LogAlteracoes.class, "{} registro(s) do log não puderam ser reaplicados", ignorados);
+        }
+        Diagnosticos.info(LogAlteracoes.class, "{} alteração(ões) recuperada(s) do log", aplicados);
+        return new LogAlteracoes(canal, filmeService, atorService, diretorService, aplicados, geracao);
+    }
+
+    // Posição do primeiro registro ainda não incluído no instantâneo
+    private static long inicioRecuperacao(long geracao, InstantaneoCatalogo retrato) throws IOException {
+        if (retrato == null) {
+            if (geracao > 1) {
+                throw new IOException("Log de alterações da geração " + geracao + " precisa do instantâneo anterior");
+            }
+            return TAMANHO_CABECALHO;
+        }
+        if (geracao == retrato.getGeracaoLog()) {
+            // O log não chegou a ser esvaziado depois do instantâneo
+            return retrato.getPosicaoLog();
+        }
+        if (geracao == retrato.getGeracaoLog() + 1) {
+            return TAMANHO_CABECALHO;
+        }
+        throw new IOException("Log de alterações (geração " + geracao + ") não corresponde ao instantâneo (geração "
+                + retrato.getGeracaoLog() + ")");
+    }
+
+    // Reaplica um registro nos serviços; false se o serviço recusou a alteração
+    private boolean aplicar(ByteBuffer registro) {
+        byte tipo = registro.get();
+        switch (tipo) {
+            case FILME_SALVO:
+                return aplicarFilme(registro);
+            case FILME_REMOVIDO:
+                return filmeService.remover(registro.getInt());
+            case ATOR_SALVO:
+                return aplicarAtor(registro);
+            case ATOR_REMOVIDO:
+                return atorService.remover(registro.getInt());
+            case DIRETOR_SALVO:
+                return aplicarDiretor(registro);
+            case DIRETOR_REMOVIDO:
+                return diretorService.remover(registro.getInt());
+            case ATOR_ASSOCIADO: {
+                Filme filme = filmeService.buscarPorId(registro.getInt());
+                Ator ator = buscarAtor(registro.getInt());
+                String personagem = lerTexto(registro);
+                return filme != null && ator != null && filmeService.associarAtor(filme, ator, personagem);
+            }
+            case ATOR_DESASSOCIADO: {
+                Filme filme = filmeService.buscarPorId(registro.getInt());
+                Ator ator = buscarAtor(registro.getInt());
+                return filme != null && ator != null && filmeService.removerAtor(filme, ator);
+            }
+            case PERSONAGEM_DEFINIDO: {
+                int filmeId = registro.getInt();
+                int atorId = registro.getInt();
+                return filmeService.definirPersonagem(filmeId, atorId, lerTexto(registro));
+            }
+            default:
+                return false;
+        }
+    }
+
+    private boolean aplicarFilme(ByteBuffer registro) {
+        int id = registro.getInt();
+        String nome = lerTexto(registro);
+        LocalDate dataLancamento = LocalDate.ofEpochDay(registro.getLong());
+        BigDecimal orcamento = lerDecimal(registro);
+        String descricao = lerTexto(registro);
+        int diretorId = registro.getInt();
+        Diretor diretor = diretorId > 0 ? diretorService.buscarPorId(diretorId) : null;
+
+        Filme existente = filmeService.buscarPorId(id);
+        if (existente != null) {
+            existente.setNome(nome);
+            existente.setDataLancamento(dataLancamento);
+            existente.setOrcamento(orcamento);
+            existente.setDescricao(descricao);
+            existente.setDiretor(diretor);
+            return filmeService.atualizar(existente);
+        }
+
+        Filme filme = new Filme(nome, dataLancamento);
+        filme.setId(id);
+        filme.setOrcamento(orcamento);
+        filme.setDescricao(descricao);
+        filme.setDiretor(diretor);
+        int atores = registro.getInt();
+        for (int i = 0; i < atores; i++) {
+            Ator ator = buscarAtor(registro.getInt());
+            if (ator != null && !filme.temAtor(ator)) {
+                filme.adicionarAtor(ator);
+            }
+        }
+        return filmeService.restaurar(filme);
+    }
+
+    private boolean aplicarAtor(ByteBuffer registro) {
+        int id = registro.getInt();
+        String nome = lerTexto(registro);
+        int idade = registro.getInt();
+        String nacionalidade = lerTexto(registro);
+
+        Ator ator = buscarAtor(id);
+        boolean novo = ator == null;
+        if (novo) {
+            ator = new Ator(id, nome);
+        } else {
+            ator.setNome(nome);
+        }
+        ator.setIdade(idade >= 0 ? idade : null);
+        ator.setNacionalidade(nacionalidade);
+        return novo ? atorService.cadastrar(ator) : atorService.atualizar(ator);
+    }
+
+    private boolean aplicarDiretor(ByteBuffer registro) {
+        int id = registro.getInt();
+        String nome = lerTexto(registro);
+        int idade = registro.getInt();
+        String nacionalidade = lerTexto(registro);
+        String estilo = lerTexto(registro);
+
+        Diretor diretor = diretorService.buscarPorId(id);
+        boolean novo = diretor == null;
+        if (novo) {
+            diretor = new Diretor(id, nome);
+        } else {
+            diretor.setNome(nome);
+        }
+        diretor.setIdade(idade >= 0 ? idade : null);
+        diretor.setNacionalidade(nacionalidade);
+        diretor.setEstilo(estilo);
+        return novo ? diretorService.cadastrar(diretor) : diretorService.atualizar(diretor);
+    }
+
+    private Ator buscarAtor(int id) {
+        try {
+            return atorService.buscarPorId(id);
+        } catch (PessoaNaoEncontradaException e) {
+            return null;
+        }
+    }
+
+    private static String lerTexto(ByteBuffer registro) {
+        int tamanho = registro.getInt();
+        if (tamanho < 0) {
+            return null;
+        }
+        String texto = new String(registro.array(), registro.arrayOffset() + registro.position(), tamanho,
+                StandardCharsets.UTF_8);
+        registro.position(registro.position() + tamanho);
+        return texto;
+    }
+
+    private static BigDecimal lerDecimal(ByteBuffer registro) {
+        int tamanho = registro.getInt();
+        if (tamanho < 0) {
+            return null;
+        }
+        byte[] semEscala = new byte[tamanho];
+        registro.get(semEscala);
+        return new BigDecimal(new BigInteger(semEscala), registro.getInt());
+    }
+}
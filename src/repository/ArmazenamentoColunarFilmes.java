@@ -0,0 +1,453 @@
+package repository;
+
+import interfaces.IArmazenamento;
+import interfaces.IColunasFilmes;
+import interfaces.IObservadorAlteracao;
+import model.Ator;
+import model.Diretor;
+import model.Filme;
+import util.MapaIntObjeto;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
+
+/**
+ * Classe ArmazenamentoColunarFilmes - Guarda os filmes em arrays primitivos, um por campo
+ *
+ * Cada filme é uma linha: o ID, a data (dia desde 1970), o orçamento (valor
+ * sem escala + escala), o ID do diretor e a posição da descrição e do elenco
+ * ficam em arrays de int/long/byte. As descrições ficam juntas num único
+ * array de bytes UTF-8 e os elencos (IDs dos atores) num único array de int,
+ * no formato CSR: cada linha guarda só onde o seu trecho começa e o tamanho.
+ * Os nomes ficam como String porque os índices de nome do serviço já guardam
+ * essas mesmas instâncias (como são únicos, um dicionário não economizaria nada).
+ *
+ * O objeto Filme é montado quando é pedido e fica guardado por referência
+ * fraca: enquanto alguém o usa, buscar devolve o mesmo objeto (o serviço
+ * compara identidade). Quem altera um filme montado deve chamar substituir.
+ * Atores e diretores são resolvidos pelo ID com as funções recebidas, então
+ * precisam estar cadastrados nos seus serviços. As varreduras do serviço leem
+ * as colunas pela interface IColunasFilmes e só montam os filmes aceitos.
+ *
+ * As alterações (adicionar, substituir, remover) devem ser exclusivas, como
+ * sob a trava de escrita do serviço; as buscas podem ser simultâneas.
+ */
+public class ArmazenamentoColunarFilmes implements IArmazenamento<Filme>, IColunasFilmes {
+
+    private static final int CAPACIDADE_INICIAL = 16;
+    private static final long SEM_DESCRICAO = -1;
+    private static final byte SEM_ORCAMENTO = Byte.MIN_VALUE;
+    // Orçamento que não cabe em long + escala de 1 byte: fica em orcamentosGrandes
+    private static final byte ORCAMENTO_GRANDE = Byte.MIN_VALUE + 1;
+    // O lixo dos arrays de texto e de elenco é compactado quando passa de metade
+    private static final int MINIMO_COMPACTACAO = 1024;
+
+    private final IntFunction<Ator> atores;
+    private final IntFunction<Diretor> diretores;
+    private final IObservadorAlteracao<Filme> observador;
+
+    // Uma posição por linha; uma linha removida fica com ID 0 até a compactação
+    private int[] ids;
+    private int[] datas;
+    private long[] orcamentos;
+    private byte[] escalas;
+    private int[] diretoresIds;
+    private String[] nomes;
+    private long[] descricoes;
+    private int[] inicioElenco;
+    private int[] tamanhoElenco;
+    private int linhas;
+    private int removidas;
+
+    private int[] linhaPorId;
+    private final MapaIntObjeto<BigDecimal> orcamentosGrandes;
+
+    private byte[] textos;
+    private int tamanhoTextos;
+    private int lixoTextos;
+
+    private int[] elenco;
+    private int tamanhoElencos;
+    private int lixoElencos;
+
+    private final EntidadesMontadas<Filme> montados;
+
+    /**
+     * @param atores     busca um ator cadastrado pelo ID (null se não existir)
+     * @param diretores  busca um diretor cadastrado pelo ID (null se não existir)
+     * @param observador observador colocado em cada filme montado
+     */
+    public ArmazenamentoColunarFilmes(IntFunction<Ator> atores, IntFunction<Diretor> diretores,
+                                      IObservadorAlteracao<Filme> observador) {
+        this.atores = atores;
+        this.diretores = diretores;
+        this.observador = observador;
+        this.ids = new int[CAPACIDADE_INICIAL];
+        this.datas = new int[CAPACIDADE_INICIAL];
+        this.orcamentos = new long[CAPACIDADE_INICIAL];
+        this.escalas = new byte[CAPACIDADE_INICIAL];
+        this.diretoresIds = new int[CAPACIDADE_INICIAL];
+        this.nomes = new String[CAPACIDADE_INICIAL];
+        this.descricoes = new long[CAPACIDADE_INICIAL];
+        this.inicioElenco = new int[CAPACIDADE_INICIAL];
+        this.tamanhoElenco = new int[CAPACIDADE_INICIAL];
+        this.linhaPorId = new int[CAPACIDADE_INICIAL];
+        Arrays.fill(linhaPorId, SEM_LINHA);
+        this.orcamentosGrandes = new MapaIntObjeto<>();
+        this.textos = new byte[CAPACIDADE_INICIAL * 16];
+        this.elenco = new int[CAPACIDADE_INICIAL * 4];
+        this.montados = new EntidadesMontadas<>();
+    }
+
+    @Override
+    public boolean adicionar(Filme filme) {
+        int id = filme.getId();
+        if (id <= 0) {
+            throw new IllegalArgumentException("Erro: ID inválido: " + id);
+        }
+        if (contem(id)) {
+            return false;
+        }
+        if (linhas == ids.length) {
+            redimensionarLinhas(ids.length * 2);
+        }
+        if (id >= linhaPorId.length) {
+            int tamanhoAnterior = linhaPorId.length;
+            linhaPorId = Arrays.copyOf(linhaPorId, Math.max(id + 1, tamanhoAnterior * 2));
+            Arrays.fill(linhaPorId, tamanhoAnterior, linhaPorId.length, SEM_LINHA);
+        }
+        int linha = linhas++;
+        ids[linha] = id;
+        descricoes[linha] = SEM_DESCRICAO;
+        tamanhoElenco[linha] = 0;
+        linhaPorId[id] = linha;
+        gravar(linha, filme);
+        montados.lembrar(id, filme);
+        return true;
+    }
+
+    @Override
+    public void reservar(int quantidade) {
+        if (linhas + quantidade > ids.length) {
+            redimensionarLinhas(linhas + quantidade);
+        }
+    }
+
+    @Override
+    public Filme buscar(int id) {
+        int linha = linha(id);
+        if (linha == SEM_LINHA) {
+            return null;
+        }
+        return montados.buscarOuMontar(id, () -> montar(linha));
+    }
+
+    @Override
+    public boolean substituir(Filme filme) {
+        int linha = linha(filme.getId());
+        if (linha == SEM_LINHA) {
+            return false;
+        }
+        gravar(linha, filme);
+        montados.lembrar(filme.getId(), filme);
+        return true;
+    }
+
+    @Override
+    public Filme remover(int id) {
+        Filme filme = buscar(id);
+        if (filme == null) {
+            return null;
+        }
+        int linha = linhaPorId[id];
+        descartarTexto(descricoes[linha]);
+        lixoElencos += tamanhoElenco[linha];
+        orcamentosGrandes.remover(id);
+        ids[linha] = 0;
+        nomes[linha] = null;
+        linhaPorId[id] = SEM_LINHA;
+        removidas++;
+        montados.esquecer(id);
+        if (removidas > MINIMO_COMPACTACAO && removidas * 2 > linhas) {
+            compactarLinhas();
+        }
+        return filme;
+    }
+
+    @Override
+    public boolean contem(int id) {
+        return linha(id) != SEM_LINHA;
+    }
+
+    @Override
+    public int tamanho() {
+        return linhas - removidas;
+    }
+
+    @Override
+    public List<Filme> listar() {
+        List<Filme> lista = new ArrayList<>(tamanho());
+        for (Filme filme : this) {
+            lista.add(filme);
+        }
+        return Collections.unmodifiableList(lista);
+    }
+
+    @Override
+    public Iterator<Filme> iterator() {
+        return new Iterator<Filme>() {
+            private int proxima = avancar(0);
+
+            private int avancar(int linha) {
+                while (linha < linhas && ids[linha] == 0) {
+                    linha++;
+                }
+                return linha;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return proxima < linhas;
+            }
+
+            @Override
+            public Filme next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Filme filme = buscar(ids[proxima]);
+                proxima = avancar(proxima + 1);
+                return filme;
+            }
+        };
+    }
+
+    // ========== COLUNAS ==========
+
+    @Override
+    public int linhas() {
+        return linhas;
+    }
+
+    @Override
+    public int linha(int id) {
+        return id > 0 && id < linhaPorId.length ? linhaPorId[id] : SEM_LINHA;
+    }
+
+    @Override
+    public int id(int linha) {
+        return ids[linha];
+    }
+
+    @Override
+    public String nome(int linha) {
+        return nomes[linha];
+    }
+
+    @Override
+    public int diaLancamento(int linha) {
+        return datas[linha];
+    }
+
+    @Override
+    public BigDecimal orcamento(int linha) {
+        return lerOrcamento(linha);
+    }
+
+    @Override
+    public int diretorId(int linha) {
+        return diretoresIds[linha];
+    }
+
+    // ========== LINHAS ==========
+
+    private void gravar(int linha, Filme filme) {
+        int id = ids[linha];
+        nomes[linha] = filme.getNome();
+        datas[linha] = (int) filme.getDataLancamento().toEpochDay();
+        gravarOrcamento(linha, id, filme.getOrcamento());
+        diretoresIds[linha] = filme.getDiretor() != null ? filme.getDiretor().getId() : SEM_DIRETOR;
+
+        descartarTexto(descricoes[linha]);
+        descricoes[linha] = filme.getDescricao() != null ? guardarTexto(filme.getDescricao()) : SEM_DESCRICAO;
+
+        List<Ator> atoresDoFilme = filme.getAtores();
+        int quantidade = atoresDoFilme.size();
+        if (quantidade > tamanhoElenco[linha]) {
+            // Não cabe no trecho atual: o elenco vai para o fim e o trecho antigo vira lixo
+            lixoElencos += tamanhoElenco[linha];
+            garantirElenco(quantidade);
+            inicioElenco[linha] = tamanhoElencos;
+            tamanhoElencos += quantidade;
+        } else {
+            lixoElencos += tamanhoElenco[linha] - quantidade;
+        }
+        tamanhoElenco[linha] = quantidade;
+        int posicao = inicioElenco[linha];
+        for (Ator ator : atoresDoFilme) {
+            elenco[posicao++] = ator.getId();
+        }
+
+        if (lixoTextos > MINIMO_COMPACTACAO && lixoTextos * 2 > tamanhoTextos) {
+            compactarTextos();
+        }
+        if (lixoElencos > MINIMO_COMPACTACAO && lixoElencos * 2 > tamanhoElencos) {
+            compactarElencos();
+        }
+    }
+
+    private void gravarOrcamento(int linha, int id, BigDecimal orcamento) {
+        orcamentosGrandes.remover(id);
+        if (orcamento == null) {
+            escalas[linha] = SEM_ORCAMENTO;
+        } else if (orcamento.unscaledValue().bitLength() < Long.SIZE
+                && orcamento.scale() > ORCAMENTO_GRANDE && orcamento.scale() <= Byte.MAX_VALUE) {
+            orcamentos[linha] = orcamento.unscaledValue().longValueExact();
+            escalas[linha] = (byte) orcamento.scale();
+        } else {
+            escalas[linha] = ORCAMENTO_GRANDE;
+            orcamentosGrandes.inserir(id, orcamento);
+        }
+    }
+
+    private BigDecimal lerOrcamento(int linha) {
+        byte escala = escalas[linha];
+        if (escala == SEM_ORCAMENTO) {
+            return null;
+        }
+        if (escala == ORCAMENTO_GRANDE) {
+            return orcamentosGrandes.buscar(ids[linha]);
+        }
+        return BigDecimal.valueOf(orcamentos[linha], escala);
+    }
+
+    private Filme montar(int linha) {
+        Filme filme = new Filme(nomes[linha], LocalDate.ofEpochDay(datas[linha]));
+        filme.setId(ids[linha]);
+        filme.setOrcamento(lerOrcamento(linha));
+        long descricao = descricoes[linha];
+        if (descricao != SEM_DESCRICAO) {
+            filme.setDescricao(new String(textos, (int) (descricao >>> 32), (int) descricao, StandardCharsets.UTF_8));
+        }
+        if (diretoresIds[linha] != SEM_DIRETOR) {
+            filme.setDiretor(diretores.apply(diretoresIds[linha]));
+        }
+        List<Ator> atoresDoFilme = new ArrayList<>(tamanhoElenco[linha]);
+        for (int i = inicioElenco[linha], fim = i + tamanhoElenco[linha]; i < fim; i++) {
+            Ator ator = atores.apply(elenco[i]);
+            if (ator != null) {
+                atoresDoFilme.add(ator);
+            }
+        }
+        filme.definirAtores(atoresDoFilme);
+        filme.setObservador(observador);
+        return filme;
+    }
+
+    private void redimensionarLinhas(int capacidade) {
+        ids = Arrays.copyOf(ids, capacidade);
+        datas = Arrays.copyOf(datas, capacidade);
+        orcamentos = Arrays.copyOf(orcamentos, capacidade);
+        escalas = Arrays.copyOf(escalas, capacidade);
+        diretoresIds = Arrays.copyOf(diretoresIds, capacidade);
+        nomes = Arrays.copyOf(nomes, capacidade);
+        descricoes = Arrays.copyOf(descricoes, capacidade);
+        inicioElenco = Arrays.copyOf(inicioElenco, capacidade);
+        tamanhoElenco = Arrays.copyOf(tamanhoElenco, capacidade);
+    }
+
+    // Tira as linhas removidas mantendo a ordem de cadastro
+    private void compactarLinhas() {
+        int destino = 0;
+        for (int origem = 0; origem < linhas; origem++) {
+            if (ids[origem] == 0) {
+                continue;
+            }
+            if (destino != origem) {
+                ids[destino] = ids[origem];
+                datas[destino] = datas[origem];
+                orcamentos[destino] = orcamentos[origem];
+                escalas[destino] = escalas[origem];
+                diretoresIds[destino] = diretoresIds[origem];
+                nomes[destino] = nomes[origem];
+                descricoes[destino] = descricoes[origem];
+                inicioElenco[destino] = inicioElenco[origem];
+                tamanhoElenco[destino] = tamanhoElenco[origem];
+                linhaPorId[ids[destino]] = destino;
+            }
+            destino++;
+        }
+        Arrays.fill(nomes, destino, linhas, null);
+        linhas = destino;
+        removidas = 0;
+    }
+
+    // ========== TEXTOS E ELENCOS ==========
+
+    // Posição no array de textos nos 32 bits altos e tamanho nos baixos
+    private long guardarTexto(String texto) {
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        if (tamanhoTextos + bytes.length > textos.length) {
+            textos = Arrays.copyOf(textos, Math.max(tamanhoTextos + bytes.length, textos.length * 2));
+        }
+        System.arraycopy(bytes, 0, textos, tamanhoTextos, bytes.length);
+        long posicao = ((long) tamanhoTextos << 32) | bytes.length;
+        tamanhoTextos += bytes.length;
+        return posicao;
+    }
+
+    private void descartarTexto(long posicao) {
+        if (posicao != SEM_DESCRICAO) {
+            lixoTextos += (int) posicao;
+        }
+    }
+
+    private void compactarTextos() {
+        byte[] novos = new byte[Math.max(CAPACIDADE_INICIAL, (tamanhoTextos - lixoTextos) * 2)];
+        int tamanho = 0;
+        for (int linha = 0; linha < linhas; linha++) {
+            long posicao = descricoes[linha];
+            if (ids[linha] == 0 || posicao == SEM_DESCRICAO) {
+                continue;
+            }
+            int comprimento = (int) posicao;
+            System.arraycopy(textos, (int) (posicao >>> 32), novos, tamanho, comprimento);
+            descricoes[linha] = ((long) tamanho << 32) | comprimento;
+            tamanho += comprimento;
+        }
+        textos = novos;
+        tamanhoTextos = tamanho;
+        lixoTextos = 0;
+    }
+
+    private void garantirElenco(int quantidade) {
+        if (tamanhoElencos + quantidade > elenco.length) {
+            elenco = Arrays.copyOf(elenco, Math.max(tamanhoElencos + quantidade, elenco.length * 2));
+        }
+    }
+
+    private void compactarElencos() {
+        int[] novos = new int[Math.max(CAPACIDADE_INICIAL, (tamanhoElencos - lixoElencos) * 2)];
+        int tamanho = 0;
+        for (int linha = 0; linha < linhas; linha++) {
+            if (ids[linha] == 0) {
+                continue;
+            }
+            System.arraycopy(elenco, inicioElenco[linha], novos, tamanho, tamanhoElenco[linha]);
+            inicioElenco[linha] = tamanho;
+            tamanho += tamanhoElenco[linha];
+        }
+        elenco = novos;
+        tamanhoElencos = tamanho;
+        lixoElencos = 0;
+    }
+}
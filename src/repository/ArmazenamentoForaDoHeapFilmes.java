@@ -0,0 +1,501 @@
+package repository;
+
+import interfaces.IArmazenamento;
+import interfaces.IColunasFilmes;
+import interfaces.IObservadorAlteracao;
+import model.Ator;
+import model.Diretor;
+import model.Filme;
+import util.MapaIntObjeto;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
+
+/**
+ * Classe ArmazenamentoForaDoHeapFilmes - Guarda os filmes em memória fora do heap da JVM
+ *
+ * Cada filme é um registro de tamanho fixo (REGISTRO bytes) num ByteBuffer
+ * direto: ID, data (dia desde 1970), ID do diretor, orçamento (valor sem
+ * escala + escala) e a posição/tamanho do nome, da descrição e do elenco.
+ * Nomes e descrições ficam em UTF-8 num segundo buffer direto (o conjunto de
+ * textos) e os elencos (IDs dos atores) num terceiro. O mapa ID -> registro
+ * também fica fora do heap. Assim o GC não percorre os dados do catálogo; no
+ * heap ficam só os objetos Filme em uso e os índices do serviço.
+ *
+ * Como no ArmazenamentoColunarFilmes, o Filme é montado quando é pedido e
+ * lembrado por referência fraca; quem altera um filme montado deve chamar
+ * substituir. Atores e diretores são resolvidos pelo ID com as funções recebidas.
+ * As varreduras do serviço leem os registros pela interface IColunasFilmes.
+ *
+ * Cada buffer é limitado a 2 GB (posições int). Quando cresce, o buffer antigo
+ * é liberado quando o GC recolhe o seu objeto ByteBuffer. As alterações devem
+ * ser exclusivas, como sob a trava de escrita do serviço; as buscas podem ser
+ * simultâneas (só usam leituras absolutas).
+ */
+public class ArmazenamentoForaDoHeapFilmes implements IArmazenamento<Filme>, IColunasFilmes {
+
+    // Layout do registro
+    private static final int ID = 0;
+    private static final int DATA = 4;
+    private static final int DIRETOR = 8;
+    private static final int ESCALA = 12;
+    private static final int ORCAMENTO = 16;
+    private static final int NOME = 24;
+    private static final int DESCRICAO = 32;
+    private static final int ELENCO = 40;
+    private static final int REGISTRO = 48;
+
+    private static final int CAPACIDADE_INICIAL = 16;
+    private static final int CAPACIDADE_MAXIMA = Integer.MAX_VALUE - 8;
+    private static final int SEM_TEXTO = -1;
+    private static final byte SEM_ORCAMENTO = Byte.MIN_VALUE;
+    // Orçamento que não cabe em long + escala de 1 byte: fica em orcamentosGrandes (no heap)
+    private static final byte ORCAMENTO_GRANDE = Byte.MIN_VALUE + 1;
+    // O lixo dos buffers de texto e de elenco é compactado quando passa de metade
+    private static final int MINIMO_COMPACTACAO = 1024;
+
+    private final IntFunction<Ator> atores;
+    private final IntFunction<Diretor> diretores;
+    private final IObservadorAlteracao<Filme> observador;
+
+    // Uma linha por registro; uma linha removida fica com ID 0 até a compactação
+    private ByteBuffer registros;
+    private int linhas;
+    private int removidas;
+
+    // Linha de cada ID (int por ID), SEM_LINHA se não houver
+    private ByteBuffer linhaPorId;
+    private int capacidadeIds;
+    private final MapaIntObjeto<BigDecimal> orcamentosGrandes;
+
+    private ByteBuffer textos;
+    private int tamanhoTextos;
+    private int lixoTextos;
+
+    // IDs dos atores (int por posição)
+    private ByteBuffer elencos;
+    private int tamanhoElencos;
+    private int lixoElencos;
+
+    private final EntidadesMontadas<Filme> montados;
+
+    /**
+     * @param atores     busca um ator cadastrado pelo ID (null se não existir)
+     * @param diretores  busca um diretor cadastrado pelo ID (null se não existir)
+     * @param observador observador colocado em cada filme montado
+     */
+    public ArmazenamentoForaDoHeapFilmes(IntFunction<Ator> atores, IntFunction<Diretor> diretores,
+                                         IObservadorAlteracao<Filme> observador) {
+        this.atores = atores;
+        this.diretores = diretores;
+        this.observador = observador;
+        this.registros = alocar(CAPACIDADE_INICIAL * REGISTRO);
+        this.capacidadeIds = CAPACIDADE_INICIAL;
+        this.linhaPorId = alocar(capacidadeIds * Integer.BYTES);
+        preencherSemLinha(0, capacidadeIds);
+        this.orcamentosGrandes = new MapaIntObjeto<>();
+        this.textos = alocar(CAPACIDADE_INICIAL * 64);
+        this.elencos = alocar(CAPACIDADE_INICIAL * 4 * Integer.BYTES);
+        this.montados = new EntidadesMontadas<>();
+    }
+
+    @Override
+    public boolean adicionar(Filme filme) {
+        int id = filme.getId();
+        if (id <= 0) {
+            throw new IllegalArgumentException("Erro: ID inválido: " + id);
+        }
+        if (contem(id)) {
+            return false;
+        }
+        reservar(1);
+        if (id >= capacidadeIds) {
+            int anterior = capacidadeIds;
+            capacidadeIds = (int) Math.min(CAPACIDADE_MAXIMA / Integer.BYTES, Math.max(id + 1L, anterior * 2L));
+            linhaPorId = crescer(linhaPorId, capacidadeIds * Integer.BYTES, anterior * Integer.BYTES);
+            preencherSemLinha(anterior, capacidadeIds);
+        }
+        int linha = linhas++;
+        int base = linha * REGISTRO;
+        registros.putInt(base + ID, id);
+        registros.putLong(base + NOME, trecho(SEM_TEXTO, 0));
+        registros.putLong(base + DESCRICAO, trecho(SEM_TEXTO, 0));
+        registros.putLong(base + ELENCO, trecho(0, 0));
+        linhaPorId.putInt(id * Integer.BYTES, linha);
+        gravar(linha, filme);
+        montados.lembrar(id, filme);
+        return true;
+    }
+
+    @Override
+    public void reservar(int quantidade) {
+        long necessario = (long) (linhas + quantidade) * REGISTRO;
+        if (necessario > registros.capacity()) {
+            registros = crescer(registros, necessario, linhas * REGISTRO);
+        }
+    }
+
+    @Override
+    public Filme buscar(int id) {
+        int linha = linha(id);
+        if (linha == SEM_LINHA) {
+            return null;
+        }
+        return montados.buscarOuMontar(id, () -> montar(linha));
+    }
+
+    @Override
+    public boolean substituir(Filme filme) {
+        int linha = linha(filme.getId());
+        if (linha == SEM_LINHA) {
+            return false;
+        }
+        gravar(linha, filme);
+        montados.lembrar(filme.getId(), filme);
+        return true;
+    }
+
+    @Override
+    public Filme remover(int id) {
+        Filme filme = buscar(id);
+        if (filme == null) {
+            return null;
+        }
+        int linha = linha(id);
+        int base = linha * REGISTRO;
+        descartarTexto(registros.getLong(base + NOME));
+        descartarTexto(registros.getLong(base + DESCRICAO));
+        lixoElencos += tamanho(registros.getLong(base + ELENCO));
+        orcamentosGrandes.remover(id);
+        registros.putInt(base + ID, 0);
+        linhaPorId.putInt(id * Integer.BYTES, SEM_LINHA);
+        removidas++;
+        montados.esquecer(id);
+        if (removidas > MINIMO_COMPACTACAO && removidas * 2 > linhas) {
+            compactarLinhas();
+        }
+        return filme;
+    }
+
+    @Override
+    public boolean contem(int id) {
+        return linha(id) != SEM_LINHA;
+    }
+
+    @Override
+    public int tamanho() {
+        return linhas - removidas;
+    }
+
+    @Override
+    public List<Filme> listar() {
+        List<Filme> lista = new ArrayList<>(tamanho());
+        for (Filme filme : this) {
+            lista.add(filme);
+        }
+        return Collections.unmodifiableList(lista);
+    }
+
+    @Override
+    public Iterator<Filme> iterator() {
+        return new Iterator<Filme>() {
+            private int proxima = avancar(0);
+
+            private int avancar(int linha) {
+                while (linha < linhas && id(linha) == 0) {
+                    linha++;
+                }
+                return linha;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return proxima < linhas;
+            }
+
+            @Override
+            public Filme next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Filme filme = buscar(id(proxima));
+                proxima = avancar(proxima + 1);
+                return filme;
+            }
+        };
+    }
+
+    /**
+     * @return bytes reservados fora do heap pelos buffers deste armazenamento
+     */
+    public long getBytesForaDoHeap() {
+        return (long) registros.capacity() + linhaPorId.capacity() + textos.capacity() + elencos.capacity();
+    }
+
+    // ========== COLUNAS ==========
+
+    @Override
+    public int linhas() {
+        return linhas;
+    }
+
+    @Override
+    public int linha(int id) {
+        return id > 0 && id < capacidadeIds ? linhaPorId.getInt(id * Integer.BYTES) : SEM_LINHA;
+    }
+
+    @Override
+    public int id(int linha) {
+        return registros.getInt(linha * REGISTRO + ID);
+    }
+
+    @Override
+    public String nome(int linha) {
+        return lerTexto(registros.getLong(linha * REGISTRO + NOME));
+    }
+
+    @Override
+    public int diaLancamento(int linha) {
+        return registros.getInt(linha * REGISTRO + DATA);
+    }
+
+    @Override
+    public BigDecimal orcamento(int linha) {
+        return lerOrcamento(linha * REGISTRO);
+    }
+
+    @Override
+    public int diretorId(int linha) {
+        return registros.getInt(linha * REGISTRO + DIRETOR);
+    }
+
+    // ========== REGISTROS ==========
+
+    private void gravar(int linha, Filme filme) {
+        int base = linha * REGISTRO;
+        int id = registros.getInt(base + ID);
+        registros.putInt(base + DATA, (int) filme.getDataLancamento().toEpochDay());
+        registros.putInt(base + DIRETOR, filme.getDiretor() != null ? filme.getDiretor().getId() : SEM_DIRETOR);
+        gravarOrcamento(base, id, filme.getOrcamento());
+
+        descartarTexto(registros.getLong(base + NOME));
+        registros.putLong(base + NOME, guardarTexto(filme.getNome()));
+        descartarTexto(registros.getLong(base + DESCRICAO));
+        registros.putLong(base + DESCRICAO, filme.getDescricao() != null
+                ? guardarTexto(filme.getDescricao()) : trecho(SEM_TEXTO, 0));
+
+        List<Ator> atoresDoFilme = filme.getAtores();
+        int quantidade = atoresDoFilme.size();
+        long atual = registros.getLong(base + ELENCO);
+        int inicio = posicao(atual);
+        if (quantidade > tamanho(atual)) {
+            // Não cabe no trecho atual: o elenco vai para o fim e o trecho antigo vira lixo
+            lixoElencos += tamanho(atual);
+            long necessario = (long) (tamanhoElencos + quantidade) * Integer.BYTES;
+            if (necessario > elencos.capacity()) {
+                elencos = crescer(elencos, necessario, tamanhoElencos * Integer.BYTES);
+            }
+            inicio = tamanhoElencos;
+            tamanhoElencos += quantidade;
+        } else {
+            lixoElencos += tamanho(atual) - quantidade;
+        }
+        registros.putLong(base + ELENCO, trecho(inicio, quantidade));
+        int posicao = inicio * Integer.BYTES;
+        for (Ator ator : atoresDoFilme) {
+            elencos.putInt(posicao, ator.getId());
+            posicao += Integer.BYTES;
+        }
+
+        if (lixoTextos > MINIMO_COMPACTACAO && lixoTextos * 2 > tamanhoTextos) {
+            compactarTextos();
+        }
+        if (lixoElencos > MINIMO_COMPACTACAO && lixoElencos * 2 > tamanhoElencos) {
+            compactarElencos();
+        }
+    }
+
+    private void gravarOrcamento(int base, int id, BigDecimal orcamento) {
+        orcamentosGrandes.remover(id);
+        if (orcamento == null) {
+            registros.put(base + ESCALA, SEM_ORCAMENTO);
+        } else if (orcamento.unscaledValue().bitLength() < Long.SIZE
+                && orcamento.scale() > ORCAMENTO_GRANDE && orcamento.scale() <= Byte.MAX_VALUE) {
+            registros.putLong(base + ORCAMENTO, orcamento.unscaledValue().longValueExact());
+            registros.put(base + ESCALA, (byte) orcamento.scale());
+        } else {
+            registros.put(base + ESCALA, ORCAMENTO_GRANDE);
+            orcamentosGrandes.inserir(id, orcamento);
+        }
+    }
+
+    private BigDecimal lerOrcamento(int base) {
+        byte escala = registros.get(base + ESCALA);
+        if (escala == SEM_ORCAMENTO) {
+            return null;
+        }
+        if (escala == ORCAMENTO_GRANDE) {
+            return orcamentosGrandes.buscar(registros.getInt(base + ID));
+        }
+        return BigDecimal.valueOf(registros.getLong(base + ORCAMENTO), escala);
+    }
+
+    private Filme montar(int linha) {
+        int base = linha * REGISTRO;
+        Filme filme = new Filme(lerTexto(registros.getLong(base + NOME)),
+                LocalDate.ofEpochDay(registros.getInt(base + DATA)));
+        filme.setId(registros.getInt(base + ID));
+        filme.setOrcamento(lerOrcamento(base));
+        long descricao = registros.getLong(base + DESCRICAO);
+        if (posicao(descricao) != SEM_TEXTO) {
+            filme.setDescricao(lerTexto(descricao));
+        }
+        int diretorId = registros.getInt(base + DIRETOR);
+        if (diretorId != SEM_DIRETOR) {
+            filme.setDiretor(diretores.apply(diretorId));
+        }
+        long trechoElenco = registros.getLong(base + ELENCO);
+        List<Ator> atoresDoFilme = new ArrayList<>(tamanho(trechoElenco));
+        for (int i = 0, posicao = posicao(trechoElenco) * Integer.BYTES; i < tamanho(trechoElenco);
+             i++, posicao += Integer.BYTES) {
+            Ator ator = atores.apply(elencos.getInt(posicao));
+            if (ator != null) {
+                atoresDoFilme.add(ator);
+            }
+        }
+        filme.definirAtores(atoresDoFilme);
+        filme.setObservador(observador);
+        return filme;
+    }
+
+    // Tira as linhas removidas mantendo a ordem de cadastro
+    private void compactarLinhas() {
+        int destino = 0;
+        for (int origem = 0; origem < linhas; origem++) {
+            int id = id(origem);
+            if (id == 0) {
+                continue;
+            }
+            if (destino != origem) {
+                registros.put(destino * REGISTRO, registros, origem * REGISTRO, REGISTRO);
+                linhaPorId.putInt(id * Integer.BYTES, destino);
+            }
+            destino++;
+        }
+        linhas = destino;
+        removidas = 0;
+    }
+
+    // ========== TEXTOS E ELENCOS ==========
+
+    // Posição nos 32 bits altos e tamanho nos baixos
+    private static long trecho(int posicao, int tamanho) {
+        return ((long) posicao << 32) | (tamanho & 0xFFFFFFFFL);
+    }
+
+    private static int posicao(long trecho) {
+        return (int) (trecho >>> 32);
+    }
+
+    private static int tamanho(long trecho) {
+        return (int) trecho;
+    }
+
+    private long guardarTexto(String texto) {
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        long necessario = (long) tamanhoTextos + bytes.length;
+        if (necessario > textos.capacity()) {
+            textos = crescer(textos, necessario, tamanhoTextos);
+        }
+        textos.put(tamanhoTextos, bytes);
+        long posicao = trecho(tamanhoTextos, bytes.length);
+        tamanhoTextos += bytes.length;
+        return posicao;
+    }
+
+    private String lerTexto(long trecho) {
+        byte[] bytes = new byte[tamanho(trecho)];
+        textos.get(posicao(trecho), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void descartarTexto(long trecho) {
+        if (posicao(trecho) != SEM_TEXTO) {
+            lixoTextos += tamanho(trecho);
+        }
+    }
+
+    private void compactarTextos() {
+        ByteBuffer novos = alocar(Math.max(CAPACIDADE_INICIAL, (tamanhoTextos - lixoTextos) * 2));
+        int tamanho = 0;
+        for (int linha = 0; linha < linhas; linha++) {
+            if (id(linha) == 0) {
+                continue;
+            }
+            tamanho = moverTexto(linha * REGISTRO + NOME, novos, tamanho);
+            tamanho = moverTexto(linha * REGISTRO + DESCRICAO, novos, tamanho);
+        }
+        textos = novos;
+        tamanhoTextos = tamanho;
+        lixoTextos = 0;
+    }
+
+    // Copia o texto do campo para o fim de novos e devolve o novo tamanho usado
+    private int moverTexto(int campo, ByteBuffer novos, int tamanho) {
+        long atual = registros.getLong(campo);
+        if (posicao(atual) == SEM_TEXTO) {
+            return tamanho;
+        }
+        novos.put(tamanho, textos, posicao(atual), tamanho(atual));
+        registros.putLong(campo, trecho(tamanho, tamanho(atual)));
+        return tamanho + tamanho(atual);
+    }
+
+    private void compactarElencos() {
+        ByteBuffer novos = alocar(Math.max(CAPACIDADE_INICIAL, (tamanhoElencos - lixoElencos) * 2) * Integer.BYTES);
+        int tamanho = 0;
+        for (int linha = 0; linha < linhas; linha++) {
+            if (id(linha) == 0) {
+                continue;
+            }
+            long atual = registros.getLong(linha * REGISTRO + ELENCO);
+            novos.put(tamanho * Integer.BYTES, elencos, posicao(atual) * Integer.BYTES, tamanho(atual) * Integer.BYTES);
+            registros.putLong(linha * REGISTRO + ELENCO, trecho(tamanho, tamanho(atual)));
+            tamanho += tamanho(atual);
+        }
+        elencos = novos;
+        tamanhoElencos = tamanho;
+        lixoElencos = 0;
+    }
+
+    // ========== BUFFERS ==========
+
+    private static ByteBuffer alocar(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    // Novo buffer com pelo menos necessario bytes e os usados primeiros bytes do atual
+    private static ByteBuffer crescer(ByteBuffer atual, long necessario, int usados) {
+        if (necessario > CAPACIDADE_MAXIMA) {
+            throw new IllegalStateException("Erro: Armazenamento fora do heap excedeu 2 GB num buffer!");
+        }
+        ByteBuffer novo = alocar((int) Math.min(CAPACIDADE_MAXIMA, Math.max(necessario, atual.capacity() * 2L)));
+        novo.put(0, atual, 0, usados);
+        return novo;
+    }
+
+    private void preencherSemLinha(int de, int ate) {
+        for (int id = de; id < ate; id++) {
+            linhaPorId.putInt(id * Integer.BYTES, SEM_LINHA);
+        }
+    }
+}
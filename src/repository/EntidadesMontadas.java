@@ -0,0 +1,70 @@
+package repository;
+
+import util.MapaIntObjeto;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.function.Supplier;
+
+/**
+ * Classe EntidadesMontadas - Objetos montados por um armazenamento e ainda em uso, pelo ID
+ *
+ * Guarda cada objeto por referência fraca: enquanto alguém o usa, o
+ * armazenamento devolve o mesmo objeto (os serviços comparam identidade);
+ * quando ninguém mais o usa, o GC o descarta e a entrada sai na próxima busca.
+ * Todos os métodos usam o monitor deste objeto.
+ *
+ * @param <T> O tipo de entidade montada
+ */
+final class EntidadesMontadas<T> {
+
+    private final MapaIntObjeto<Referencia<T>> montadas;
+    private final ReferenceQueue<T> descartadas;
+
+    EntidadesMontadas() {
+        this.montadas = new MapaIntObjeto<>();
+        this.descartadas = new ReferenceQueue<>();
+    }
+
+    /**
+     * @return o objeto em uso com o ID informado, ou o criado por montar (que passa a ser lembrado)
+     */
+    synchronized T buscarOuMontar(int id, Supplier<T> montar) {
+        limparDescartadas();
+        Referencia<T> referencia = montadas.buscar(id);
+        T entidade = referencia != null ? referencia.get() : null;
+        if (entidade == null) {
+            entidade = montar.get();
+            montadas.inserir(id, new Referencia<>(id, entidade, descartadas));
+        }
+        return entidade;
+    }
+
+    synchronized void lembrar(int id, T entidade) {
+        limparDescartadas();
+        montadas.inserir(id, new Referencia<>(id, entidade, descartadas));
+    }
+
+    synchronized void esquecer(int id) {
+        montadas.remover(id);
+    }
+
+    private void limparDescartadas() {
+        Object descartada;
+        while ((descartada = descartadas.poll()) != null) {
+            Referencia<?> referencia = (Referencia<?>) descartada;
+            if (montadas.buscar(referencia.id) == referencia) {
+                montadas.remover(referencia.id);
+            }
+        }
+    }
+
+    private static final class Referencia<T> extends WeakReference<T> {
+        private final int id;
+
+        private Referencia(int id, T entidade, ReferenceQueue<T> fila) {
+            super(entidade, fila);
+            this.id = id;
+        }
+    }
+}
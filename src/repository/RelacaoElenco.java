@@ -0,0 +1,205 @@
+package repository;
+
+import index.IndiceReverso;
+import model.FilmeAtor;
+import util.ConjuntoLong;
+import util.MapaLongObjeto;
+import util.NormalizadorTexto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Classe RelacaoElenco - Tabela de associação N:N entre filmes e atores (model.FilmeAtor)
+ *
+ * É a fonte oficial do elenco. Cada par (filmeId, atorId) vira um único long
+ * guardado num conjunto primitivo, e duas listas de adjacência permitem ir do
+ * filme para os atores e do ator para os filmes. Adicionar, remover e conferir
+ * um par são O(1). O nome do personagem só ocupa memória quando é informado e
+ * também pode ser pesquisado.
+ */
+public class RelacaoElenco {
+
+    private final ConjuntoLong pares;
+    private final IndiceReverso atoresPorFilme;
+    private final IndiceReverso filmesPorAtor;
+    private final MapaLongObjeto<String> personagens;
+    private final Map<String, ConjuntoLong> paresPorPersonagem;
+
+    public RelacaoElenco() {
+        this.pares = new ConjuntoLong();
+        this.atoresPorFilme = new IndiceReverso();
+        this.filmesPorAtor = new IndiceReverso();
+        this.personagens = new MapaLongObjeto<>();
+        this.paresPorPersonagem = new HashMap<>();
+    }
+
+    public static long chave(int filmeId, int atorId) {
+        return ((long) filmeId << 32) | (atorId & 0xFFFFFFFFL);
+    }
+
+    public static int filmeIdDe(long chave) {
+        return (int) (chave >>> 32);
+    }
+
+    public static int atorIdDe(long chave) {
+        return (int) chave;
+    }
+
+    /**
+     * @return false se o ator já fazia parte do elenco do filme
+     */
+    public boolean adicionar(int filmeId, int atorId, String personagem) {
+        long chave = chave(filmeId, atorId);
+        if (!pares.adicionar(chave)) {
+            return false;
+        }
+        atoresPorFilme.adicionar(filmeId, atorId);
+        filmesPorAtor.adicionar(atorId, filmeId);
+        definirPersonagem(filmeId, atorId, personagem);
+        return true;
+    }
+
+    /**
+     * Adiciona os pares (filmeIds[i], atorIds[i]) sem personagem, como adicionar para
+     * cada um, mas monta as listas de adjacência de uma vez. Pares repetidos são ignorados.
+     */
+    public void adicionarTodos(int[] filmeIds, int[] atorIds) {
+        if (filmeIds.length != atorIds.length) {
+            throw new IllegalArgumentException("Erro: Filmes e atores devem ter o mesmo tamanho!");
+        }
+        pares.reservar(filmeIds.length);
+        int novos = 0;
+        int[] filmesNovos = new int[filmeIds.length];
+        int[] atoresNovos = new int[atorIds.length];
+        for (int i = 0; i < filmeIds.length; i++) {
+            if (pares.adicionar(chave(filmeIds[i], atorIds[i]))) {
+                filmesNovos[novos] = filmeIds[i];
+                atoresNovos[novos++] = atorIds[i];
+            }
+        }
+        filmesNovos = Arrays.copyOf(filmesNovos, novos);
+        atoresNovos = Arrays.copyOf(atoresNovos, novos);
+        atoresPorFilme.adicionarTodos(filmesNovos, atoresNovos);
+        filmesPorAtor.adicionarTodos(atoresNovos, filmesNovos);
+    }
+
+    /**
+     * @return false se o ator não fazia parte do elenco do filme
+     */
+    public boolean remover(int filmeId, int atorId) {
+        long chave = chave(filmeId, atorId);
+        if (!pares.remover(chave)) {
+            return false;
+        }
+        atoresPorFilme.remover(filmeId, atorId);
+        filmesPorAtor.remover(atorId, filmeId);
+        desindexarPersonagem(chave, personagens.remover(chave));
+        return true;
+    }
+
+    public boolean contem(int filmeId, int atorId) {
+        return pares.contem(chave(filmeId, atorId));
+    }
+
+    public int tamanho() {
+        return pares.tamanho();
+    }
+
+    public void definirPersonagem(int filmeId, int atorId, String personagem) {
+        long chave = chave(filmeId, atorId);
+        if (!pares.contem(chave)) {
+            throw new IllegalArgumentException("Erro: Ator não está no elenco do filme!");
+        }
+
+        desindexarPersonagem(chave, personagens.remover(chave));
+        if (personagem == null || personagem.trim().isEmpty()) {
+            return;
+        }
+        String nome = personagem.trim();
+        personagens.inserir(chave, nome);
+        paresPorPersonagem.computeIfAbsent(NormalizadorTexto.normalizar(nome), k -> new ConjuntoLong()).adicionar(chave);
+    }
+
+    public String getPersonagem(int filmeId, int atorId) {
+        return personagens.buscar(chave(filmeId, atorId));
+    }
+
+    /**
+     * @return os IDs dos atores do filme, em ordem crescente
+     */
+    public int[] atoresDoFilme(int filmeId) {
+        return atoresPorFilme.buscar(filmeId);
+    }
+
+    /**
+     * @return os IDs dos filmes do ator, em ordem crescente
+     */
+    public int[] filmesDoAtor(int atorId) {
+        return filmesPorAtor.buscar(atorId);
+    }
+
+    public int contarAtores(int filmeId) {
+        return atoresPorFilme.contar(filmeId);
+    }
+
+    public int contarFilmes(int atorId) {
+        return filmesPorAtor.contar(atorId);
+    }
+
+    public void removerFilme(int filmeId) {
+        for (int atorId : atoresDoFilme(filmeId)) {
+            remover(filmeId, atorId);
+        }
+    }
+
+    public void removerAtor(int atorId) {
+        for (int filmeId : filmesDoAtor(atorId)) {
+            remover(filmeId, atorId);
+        }
+    }
+
+    public List<FilmeAtor> listarElenco(int filmeId) {
+        int[] atores = atoresDoFilme(filmeId);
+        List<FilmeAtor> elenco = new ArrayList<>(atores.length);
+        for (int atorId : atores) {
+            elenco.add(criarFilmeAtor(chave(filmeId, atorId)));
+        }
+        return elenco;
+    }
+
+    /**
+     * Busca os papéis pelo nome do personagem, sem diferenciar acentos e maiúsculas.
+     */
+    public List<FilmeAtor> buscarPorPersonagem(String personagem) {
+        List<FilmeAtor> papeis = new ArrayList<>();
+        if (personagem == null) {
+            return papeis;
+        }
+        ConjuntoLong chaves = paresPorPersonagem.get(NormalizadorTexto.normalizar(personagem));
+        if (chaves != null) {
+            chaves.paraCada(chave -> papeis.add(criarFilmeAtor(chave)));
+        }
+        return papeis;
+    }
+
+    private FilmeAtor criarFilmeAtor(long chave) {
+        FilmeAtor filmeAtor = new FilmeAtor(filmeIdDe(chave), atorIdDe(chave));
+        filmeAtor.setPersonagem(personagens.buscar(chave));
+        return filmeAtor;
+    }
+
+    private void desindexarPersonagem(long chave, String personagem) {
+        if (personagem == null) {
+            return;
+        }
+        String normalizado = NormalizadorTexto.normalizar(personagem);
+        ConjuntoLong chaves = paresPorPersonagem.get(normalizado);
+        if (chaves != null && chaves.remover(chave) && chaves.estaVazio()) {
+            paresPorPersonagem.remove(normalizado);
+        }
+    }
+}
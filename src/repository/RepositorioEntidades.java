@@ -0,0 +1,134 @@
+package repository;
+
+import interfaces.IArmazenamento;
+import util.MapaIntObjeto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.ToIntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Classe RepositorioEntidades - Armazena entidades indexadas pelo ID
+ *
+ * Usado pelos serviços que implementam interfaces.ICrudOperations para que
+ * buscar, atualizar e remover por ID sejam O(1), mantendo a ordem de cadastro
+ * nas listagens.
+ *
+ * listar() devolve um retrato somente leitura que é guardado e devolvido de
+ * novo até a próxima alteração, então leituras seguidas não copiam nada. O
+ * retrato nunca muda: quem o recebeu continua vendo o conteúdo daquele momento.
+ *
+ * @param <T> O tipo de entidade armazenada (ex: Filme, Ator, Diretor)
+ */
+public class RepositorioEntidades<T> implements IArmazenamento<T> {
+
+    private final MapaIntObjeto<T> entidades;
+    private final ToIntFunction<T> extratorId;
+    // Montado pelas leituras, que podem ser várias ao mesmo tempo (com a trava de leitura do serviço)
+    private volatile List<T> retrato;
+
+    public RepositorioEntidades(ToIntFunction<T> extratorId) {
+        this.entidades = new MapaIntObjeto<>();
+        this.extratorId = extratorId;
+    }
+
+    /**
+     * @return false se já existir uma entidade com o mesmo ID
+     */
+    @Override
+    public boolean adicionar(T entidade) {
+        int id = extratorId.applyAsInt(entidade);
+        if (entidades.contem(id)) {
+            return false;
+        }
+        entidades.inserir(id, entidade);
+        retrato = null;
+        return true;
+    }
+
+    /**
+     * Prepara o repositório para receber mais quantidade entidades de uma vez (ex: importação em lote).
+     */
+    @Override
+    public void reservar(int quantidade) {
+        entidades.reservar(quantidade);
+    }
+
+    @Override
+    public T buscar(int id) {
+        return entidades.buscar(id);
+    }
+
+    /**
+     * Substitui a entidade de mesmo ID mantendo sua posição na listagem.
+     *
+     * @return false se não houver entidade com o ID informado
+     */
+    @Override
+    public boolean substituir(T entidade) {
+        int id = extratorId.applyAsInt(entidade);
+        T anterior = entidades.buscar(id);
+        if (anterior == null) {
+            return false;
+        }
+        if (anterior != entidade) {
+            entidades.inserir(id, entidade);
+            retrato = null;
+        }
+        return true;
+    }
+
+    /**
+     * @return a entidade removida, ou null se não existia
+     */
+    @Override
+    public T remover(int id) {
+        T removida = entidades.remover(id);
+        if (removida != null) {
+            retrato = null;
+        }
+        return removida;
+    }
+
+    @Override
+    public boolean contem(int id) {
+        return entidades.contem(id);
+    }
+
+    @Override
+    public int tamanho() {
+        return entidades.tamanho();
+    }
+
+    /**
+     * @return as entidades na ordem de cadastro, numa lista somente leitura
+     */
+    @Override
+    public List<T> listar() {
+        List<T> atual = retrato;
+        if (atual == null) {
+            List<T> lista = new ArrayList<>(entidades.tamanho());
+            entidades.paraCada(lista::add);
+            atual = Collections.unmodifiableList(lista);
+            retrato = atual;
+        }
+        return atual;
+    }
+
+    public Stream<T> stream() {
+        Spliterator<T> spliterator = Spliterators.spliterator(
+                entidades.iterator(), entidades.tamanho(), Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return entidades.iterator();
+    }
+}
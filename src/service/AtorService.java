@@ -1,24 +1,77 @@
 package service;
 
+import diagnostico.Diagnosticos;
 import exception.PessoaNaoEncontradaException;
+import index.IndiceAtributo;
+import index.IndiceNome;
+import index.IndicePrefixo;
 import interfaces.ICrudOperations;
+import interfaces.IObservadorAlteracao;
+import interfaces.IOuvinteCatalogo;
 import model.Ator;
+import model.Pessoa;
+import model.ResultadoOperacao;
+import repository.RepositorioEntidades;
+import util.ConjuntoLong;
+import util.TravaLeituraEscrita;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Contém a lógica de negócio para manipulação da entidade model.Ator.
  * Implementa as operações básicas de CRUD definidas em interfaces.ICrudOperations.
+ * Pode ser usado por várias threads: consultas compartilham a trava e alterações são exclusivas.
+ * Cada alteração é avisada ao IOuvinteCatalogo configurado (ex: o log de persistência).
+ * Se ele deixar de aceitar alterações (o log falhou), elas são recusadas antes de ser aplicadas.
+ * Os atores ficam indexados pela nacionalidade num IndiceAtributo deste serviço.
  */
 public class AtorService implements ICrudOperations<Ator> {
 
-    private final List<Ator> atores;
+    /** Quantas nacionalidades diferentes ganham código no índice (as demais ficam como texto). */
+    public static final int LIMITE_NACIONALIDADES = 1024;
+
+    private final RepositorioEntidades<Ator> atores;
+    private final IndiceNome indiceNome;
+    private final IndicePrefixo indicePrefixo;
+    private final IndiceAtributo porNacionalidade;
+    private ToDoubleFunction<Ator> pontuacaoAutocompletar = ator -> 0;
+    private final IObservadorAlteracao<Pessoa> observador;
+    private final TravaLeituraEscrita trava;
+    private final OuvintesCatalogo ouvinte = new OuvintesCatalogo();
+    // Definida pelo FilmeService que usa este serviço: tira o ator dos filmes antes de removê-lo
+    private volatile IntPredicate remocaoEmCascata;
 
     public AtorService() {
-        this.atores = new ArrayList<>();
+        this.atores = new RepositorioEntidades<>(Ator::getId);
+        this.indiceNome = new IndiceNome();
+        this.indicePrefixo = new IndicePrefixo();
+        this.porNacionalidade = new IndiceAtributo(LIMITE_NACIONALIDADES);
+        this.observador = new IObservadorAlteracao<>() {
+            @Override
+            public boolean aceitaAlteracao(Pessoa ator, String campo) {
+                return ouvinte.aceitaAlteracoes();
+            }
+
+            @Override
+            public void aoAlterar(Pessoa ator, String campo, Object valorAnterior) {
+                aoAlterarAtor(ator, campo, valorAnterior);
+            }
+        };
+        this.trava = new TravaLeituraEscrita();
     }
 
     @Override
@@ -27,16 +80,95 @@ public class AtorService implements ICrudOperations<Ator> {
             return false;
         }
 
-        this.atores.add(ator);
-        return true;
+        return escrever(() -> {
+            if (!aceitaAlteracoes()) {
+                return false;
+            }
+            if (!this.atores.adicionar(ator)) {
+                return false;
+            }
+            indexar(ator);
+            ouvinte.atorSalvo(ator);
+            return true;
+        });
+    }
+
+    public ResultadoOperacao importar(Iterator<Ator> lote) {
+        if (lote == null) {
+            return ResultadoOperacao.criarErro("Lote de atores não pode ser null!");
+        }
+        return importar(StreamSupport.stream(Spliterators.spliteratorUnknownSize(lote, Spliterator.ORDERED), false));
+    }
+
+    /**
+     * Cadastra um lote de atores de uma só vez: ou todos entram, ou nenhum. O lote
+     * é recusado se trouxer o mesmo ID duas vezes; homônimos (mesmo nome, idade e
+     * nacionalidade) são aceitos, como em cadastrar.
+     *
+     * @return sucesso com a lista dos atores cadastrados em getDados(), ou erro com o primeiro problema
+     */
+    public ResultadoOperacao importar(Stream<Ator> lote) {
+        if (lote == null) {
+            return ResultadoOperacao.criarErro("Lote de atores não pode ser null!");
+        }
+
+        List<Ator> novos = lote.collect(Collectors.toList());
+        int quantidade = novos.size();
+        String[] problemas = new String[quantidade];
+        IntStream.range(0, quantidade).parallel().forEach(i -> {
+            Ator ator = novos.get(i);
+            problemas[i] = ator == null ? "Ator não pode ser null!"
+                    : ator.getNome() == null || ator.getNome().trim().isEmpty() ? "Nome do ator não pode ser vazio!" : null;
+        });
+        ConjuntoLong ids = new ConjuntoLong();
+        for (int i = 0; i < quantidade; i++) {
+            if (problemas[i] == null && !ids.adicionar(novos.get(i).getId())) {
+                problemas[i] = "Ator repetido no lote: " + novos.get(i).getNome();
+            }
+            if (problemas[i] != null) {
+                return recusarLote("Ator " + (i + 1) + " do lote: " + problemas[i]);
+            }
+        }
+
+        return trava.escrever(() -> {
+            if (!aceitaAlteracoes()) {
+                return ResultadoOperacao.criarErro("O catálogo não consegue mais registrar alterações!");
+            }
+            for (Ator ator : novos) {
+                if (atores.contem(ator.getId())) {
+                    return recusarLote("Ator já cadastrado: " + ator.getNome());
+                }
+            }
+
+            atores.reservar(quantidade);
+            ouvinte.agrupar(() -> {
+                for (Ator ator : novos) {
+                    atores.adicionar(ator);
+                    indexar(ator);
+                    ouvinte.atorSalvo(ator);
+                }
+                return null;
+            });
+            Diagnosticos.info(AtorService.class, "{} ator(es) importado(s) com sucesso!", quantidade);
+
+            ResultadoOperacao sucesso = ResultadoOperacao.criarSucesso(quantidade + " ator(es) importado(s)!");
+            sucesso.setDados(novos);
+            return sucesso;
+        }, ouvinte::sincronizar);
+    }
+
+    private static ResultadoOperacao recusarLote(String mensagem) {
+        Diagnosticos.aviso(AtorService.class, "Lote recusado. {}", mensagem);
+        return ResultadoOperacao.criarErro(mensagem);
     }
 
     @Override
     public Ator buscarPorId(int id) {
-        return atores.stream()
-                .filter(ator -> id == ator.getId())
-                .findFirst()
-                .orElseThrow(() -> new PessoaNaoEncontradaException("Ator com o ID: " + id + " não encontrado"));
+        Ator ator = trava.ler(() -> atores.buscar(id));
+        if (ator == null) {
+            throw new PessoaNaoEncontradaException("Ator com o ID: " + id + " não encontrado");
+        }
+        return ator;
     }
 
     public Ator buscarPorNome(String nome) {
@@ -44,15 +176,80 @@ public class AtorService implements ICrudOperations<Ator> {
             return null;
         }
 
-        return atores.stream()
-                .filter(ator -> nome.equals(ator.getNome()))
-                .findFirst()
-                .orElseThrow(() -> new PessoaNaoEncontradaException("Ator com o nome: " + nome + " não encontrado"));
+        Ator encontrado = trava.ler(() -> {
+            for (int id : indiceNome.buscar(nome)) {
+                Ator ator = atores.buscar(id);
+                if (ator != null && nome.equals(ator.getNome())) {
+                    return ator;
+                }
+            }
+            return null;
+        });
+        if (encontrado != null) {
+            return encontrado;
+        }
+        throw new PessoaNaoEncontradaException("Ator com o nome: " + nome + " não encontrado");
+    }
+
+    /**
+     * Sugere atores cujo nome começa com o prefixo, do maior para o menor valor de pontuação.
+     */
+    public List<Ator> autocompletar(String prefixo, int limite) {
+        if (prefixo == null || prefixo.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        return trava.ler(() -> {
+            List<Ator> sugestoes = new ArrayList<>();
+            for (int id : indicePrefixo.buscar(prefixo, limite)) {
+                sugestoes.add(atores.buscar(id));
+            }
+            return sugestoes;
+        });
+    }
+
+    /**
+     * Define o critério de ranking do autocompletar e reindexa os atores já cadastrados.
+     */
+    public void setPontuacaoAutocompletar(ToDoubleFunction<Ator> pontuacao) {
+        if (pontuacao == null) {
+            throw new IllegalArgumentException("Erro: Pontuação não pode ser null!");
+        }
+        trava.executar(() -> {
+            this.pontuacaoAutocompletar = pontuacao;
+            for (Ator ator : atores) {
+                indicePrefixo.atualizar(ator.getId(), ator.getNome(), pontuacao.applyAsDouble(ator));
+            }
+        });
+    }
+
+    public List<Ator> buscarPorNacionalidade(String nacionalidade) {
+        if (nacionalidade == null) {
+            return new ArrayList<>();
+        }
+        return trava.ler(() -> buscarTodos(porNacionalidade.buscar(nacionalidade.trim())));
+    }
+
+    public int contarPorNacionalidade(String nacionalidade) {
+        if (nacionalidade == null) {
+            return 0;
+        }
+        return trava.ler(() -> porNacionalidade.contar(nacionalidade.trim()));
+    }
+
+    public int contarAtores() {
+        return trava.ler(atores::tamanho);
+    }
+
+    /**
+     * @return quantos atores há de cada nacionalidade, na ordem em que as nacionalidades apareceram
+     */
+    public Map<String, Integer> contarPorNacionalidade() {
+        return trava.ler(porNacionalidade::contarPorValor);
     }
 
     @Override
     public List<Ator> listarTodos() {
-        return new ArrayList<>(this.atores);
+        return trava.ler(this.atores::listar);
     }
 
     @Override
@@ -61,21 +258,160 @@ public class AtorService implements ICrudOperations<Ator> {
             return false;
         }
 
-        for (int i = 0; i < atores.size(); i++) {
-            if (atores.get(i).getId().equals(ator.getId())) {
-                atores.set(i, ator);
-                return true;
+        return escrever(() -> {
+            if (!aceitaAlteracoes()) {
+                return false;
             }
-        }
-        return false;
+            Ator anterior = atores.buscar(ator.getId());
+            if (anterior == null || !atores.substituir(ator)) {
+                return false;
+            }
+            if (anterior != ator) {
+                anterior.setObservador(null);
+                porNacionalidade.remover(anterior.getNacionalidade(), anterior.getId());
+            }
+            indexar(ator);
+            ouvinte.atorSalvo(ator);
+            return true;
+        });
     }
 
+    /**
+     * Remove o ator e, se houver um FilmeService usando este serviço, antes o tira
+     * dos filmes, para que nenhum filme continue apontando para ele.
+     */
     @Override
     public boolean remover(int id) {
-        return atores.removeIf(ator -> id == ator.getId());
+        IntPredicate cascata = remocaoEmCascata;
+        if (cascata != null) {
+            return cascata.test(id);
+        }
+        return escrever(() -> removerCadastro(id));
+    }
+
+    // Sem sincronizar o ouvinte: quem remove em cascata sincroniza ao terminar
+    boolean removerCadastro(int id) {
+        return trava.escrever(() -> {
+            if (!aceitaAlteracoes()) {
+                return false;
+            }
+            Ator removido = atores.remover(id);
+            if (removido == null) {
+                return false;
+            }
+            removido.setObservador(null);
+            porNacionalidade.remover(removido.getNacionalidade(), id);
+            indiceNome.remover(id);
+            indicePrefixo.remover(id);
+            ouvinte.atorRemovido(id);
+            return true;
+        });
+    }
+
+    /**
+     * Executa a consulta com a trava de leitura do serviço: nenhum ator muda enquanto ela roda.
+     */
+    public <R> R lerSemAlteracoes(Supplier<R> consulta) {
+        return trava.ler(consulta);
+    }
+
+    /**
+     * Define quem recebe as alterações do serviço; null volta a não avisar ninguém.
+     */
+    public void setOuvinte(IOuvinteCatalogo ouvinte) {
+        this.ouvinte.setPrincipal(ouvinte);
+    }
+
+    /**
+     * Acrescenta um ouvinte que recebe as alterações além do definido por setOuvinte
+     * (ex: um cache que precisa saber o que mudou); não é afetado por setOuvinte.
+     */
+    public void adicionarOuvinte(IOuvinteCatalogo ouvinte) {
+        this.ouvinte.adicionar(ouvinte);
+    }
+
+    public boolean removerOuvinte(IOuvinteCatalogo ouvinte) {
+        return this.ouvinte.remover(ouvinte);
+    }
+
+    void setRemocaoEmCascata(IntPredicate remocao) {
+        this.remocaoEmCascata = remocao;
+    }
+
+    /**
+     * Executa a alteração com a trava de escrita do serviço, sem sincronizar o ouvinte
+     * (ver FilmeService.alterarCatalogo).
+     */
+    <R> R escreverSemSincronizar(Supplier<R> alteracao) {
+        return trava.escrever(alteracao);
+    }
+
+    // Com a trava de escrita, antes de aplicar a alteração: se um ouvinte não pode mais recebê-la
+    // (ex: o log de alterações falhou) ela é recusada e o catálogo fica como estava
+    private boolean aceitaAlteracoes() {
+        if (ouvinte.aceitaAlteracoes()) {
+            return true;
+        }
+        Diagnosticos.aviso(AtorService.class, "Alteração recusada: o catálogo não consegue mais registrar alterações!");
+        return false;
+    }
+
+    // Os ouvintes são sincronizados ao fim da escrita mais externa, mesmo se ela foi recusada ou
+    // lançou exceção depois de avisar algo (ex: o catálogo multiversão solta a versão pendente)
+    private boolean escrever(Supplier<Boolean> alteracao) {
+        return trava.escrever(alteracao, ouvinte::sincronizar);
+    }
+
+    private void executar(Runnable alteracao) {
+        escrever(() -> {
+            alteracao.run();
+            return true;
+        });
+    }
+
+    /**
+     * Chamado pelo FilmeService ao fim de uma operação que alterou este serviço sem sincronizá-lo.
+     */
+    void sincronizarOuvintes() {
+        if (!trava.escrevendo()) {
+            ouvinte.sincronizar();
+        }
+    }
+
+    private void indexar(Ator ator) {
+        ator.setObservador(observador);
+        indiceNome.atualizar(ator.getId(), ator.getNome());
+        indicePrefixo.atualizar(ator.getId(), ator.getNome(), pontuacaoAutocompletar.applyAsDouble(ator));
+        ator.compartilharNacionalidade(porNacionalidade.adicionar(ator.getNacionalidade(), ator.getId()));
+    }
+
+    private List<Ator> buscarTodos(int[] ids) {
+        List<Ator> encontrados = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            encontrados.add(atores.buscar(id));
+        }
+        return encontrados;
+    }
+
+    private void aoAlterarAtor(Pessoa ator, String campo, Object valorAnterior) {
+        if (IObservadorAlteracao.CAMPO_NOME.equals(campo)) {
+            executar(() -> {
+                indiceNome.atualizar(ator.getId(), ator.getNome());
+                indicePrefixo.atualizar(ator.getId(), ator.getNome(), pontuacaoAutocompletar.applyAsDouble((Ator) ator));
+                ouvinte.atorSalvo((Ator) ator);
+            });
+        } else if (IObservadorAlteracao.CAMPO_NACIONALIDADE.equals(campo)) {
+            executar(() -> {
+                porNacionalidade.remover((String) valorAnterior, ator.getId());
+                ator.compartilharNacionalidade(porNacionalidade.adicionar(ator.getNacionalidade(), ator.getId()));
+                ouvinte.atorSalvo((Ator) ator);
+            });
+        } else if (IObservadorAlteracao.CAMPO_IDADE.equals(campo)) {
+            executar(() -> ouvinte.atorSalvo((Ator) ator));
+        }
     }
 
     private boolean validarAtorExiste(int id) {
-        return atores.stream().anyMatch(ator -> id == ator.getId());
+        return trava.ler(() -> atores.contem(id));
     }
 }
\ No newline at end of file
@@ -0,0 +1,102 @@
+package service;
+
+import model.Filme;
+import util.MapaIntObjeto;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Classe ContadoresFilmes - Totais do catálogo de filmes mantidos a cada alteração
+ *
+ * Guarda quantos filmes há por ano de lançamento, quantos têm orçamento e a
+ * soma dos orçamentos, para que as estatísticas do FilmeService não precisem
+ * percorrer o catálogo. Não é sincronizada: o FilmeService só a altera com a
+ * trava de escrita e só a lê com a de leitura.
+ */
+class ContadoresFilmes {
+
+    private final MapaIntObjeto<int[]> porAno = new MapaIntObjeto<>();
+    private BigDecimal orcamentoTotal = BigDecimal.ZERO;
+    private int comOrcamento;
+
+    void somar(Filme filme) {
+        contarAno(filme.getDataLancamento(), 1);
+        contarOrcamento(filme.getOrcamento(), 1);
+    }
+
+    void subtrair(Filme filme) {
+        contarAno(filme.getDataLancamento(), -1);
+        contarOrcamento(filme.getOrcamento(), -1);
+    }
+
+    void trocarData(LocalDate anterior, LocalDate atual) {
+        contarAno(anterior, -1);
+        contarAno(atual, 1);
+    }
+
+    void trocarOrcamento(BigDecimal anterior, BigDecimal atual) {
+        contarOrcamento(anterior, -1);
+        contarOrcamento(atual, 1);
+    }
+
+    int contarPorAno(int ano) {
+        int[] quantidade = porAno.buscar(ano);
+        return quantidade != null ? quantidade[0] : 0;
+    }
+
+    /**
+     * @return ano -> quantidade, em ordem de ano (só os anos com filmes)
+     */
+    Map<Integer, Integer> contarPorAno() {
+        Map<Integer, Integer> contagem = new TreeMap<>();
+        porAno.paraCadaEntrada((ano, quantidade) -> contagem.put(ano, quantidade[0]));
+        return contagem;
+    }
+
+    int getComOrcamento() {
+        return comOrcamento;
+    }
+
+    BigDecimal getOrcamentoTotal() {
+        return orcamentoTotal;
+    }
+
+    /**
+     * @return a média dos orçamentos informados, com duas casas (null se nenhum filme tem orçamento)
+     */
+    BigDecimal getOrcamentoMedio() {
+        if (comOrcamento == 0) {
+            return null;
+        }
+        return orcamentoTotal.divide(BigDecimal.valueOf(comOrcamento), 2, RoundingMode.HALF_EVEN);
+    }
+
+    // Cada ano guarda um int[1] para somar sem trocar o valor no mapa; anos que ficam sem filmes saem
+    private void contarAno(LocalDate data, int diferenca) {
+        if (data == null) {
+            return;
+        }
+        int ano = data.getYear();
+        int[] quantidade = porAno.buscar(ano);
+        if (quantidade == null) {
+            quantidade = new int[1];
+            porAno.inserir(ano, quantidade);
+        }
+        quantidade[0] += diferenca;
+        if (quantidade[0] == 0) {
+            porAno.remover(ano);
+        }
+    }
+
+    private void contarOrcamento(BigDecimal orcamento, int sinal) {
+        if (orcamento == null) {
+            return;
+        }
+        orcamentoTotal = sinal > 0 ? orcamentoTotal.add(orcamento) : orcamentoTotal.subtract(orcamento);
+        comOrcamento += sinal;
+    }
+}
@@ -1,22 +1,80 @@
 package service;
 
+import diagnostico.Diagnosticos;
+import index.IndiceAtributo;
+import index.IndiceNome;
+import index.IndicePrefixo;
 import interfaces.ICrudOperations;
+import interfaces.IObservadorAlteracao;
+import interfaces.IOuvinteCatalogo;
 import model.Diretor;
+import model.Pessoa;
+import model.ResultadoOperacao;
+import repository.RepositorioEntidades;
+import util.ConjuntoLong;
+import util.TravaLeituraEscrita;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Contém a lógica de negócio para manipulação da entidade model.Diretor.
  * Implementa as operações básicas de CRUD definidas em interfaces.ICrudOperations.
+ * Pode ser usado por várias threads: consultas compartilham a trava e alterações são exclusivas.
+ * Cada alteração é avisada ao IOuvinteCatalogo configurado (ex: o log de persistência).
+ * Se ele deixar de aceitar alterações (o log falhou), elas são recusadas antes de ser aplicadas.
+ * Os diretores ficam indexados pela nacionalidade e pelo estilo em IndiceAtributos deste
+ * serviço, então os filtros por esses atributos comparam códigos, não textos.
  */
 public class DiretorService implements ICrudOperations<Diretor> {
 
-    private final List<Diretor> diretores;
+    /** Quantas nacionalidades diferentes ganham código no índice (as demais ficam como texto). */
+    public static final int LIMITE_NACIONALIDADES = 1024;
+    /** Quantos estilos diferentes ganham código no índice (os demais ficam como texto). */
+    public static final int LIMITE_ESTILOS = 256;
+
+    private final RepositorioEntidades<Diretor> diretores;
+    private final IndiceNome indiceNome;
+    private final IndicePrefixo indicePrefixo;
+    private final IndiceAtributo porNacionalidade;
+    private final IndiceAtributo porEstilo;
+    private ToDoubleFunction<Diretor> pontuacaoAutocompletar = diretor -> 0;
+    private final IObservadorAlteracao<Pessoa> observador;
+    private final TravaLeituraEscrita trava;
+    private final OuvintesCatalogo ouvinte = new OuvintesCatalogo();
+    // Definida pelo FilmeService que usa este serviço: tira o diretor dos filmes antes de removê-lo
+    private volatile IntPredicate remocaoEmCascata;
     private int proximoId = 1;
 
     public DiretorService() {
-        this.diretores = new ArrayList<>();
+        this.diretores = new RepositorioEntidades<>(Diretor::getId);
+        this.indiceNome = new IndiceNome();
+        this.indicePrefixo = new IndicePrefixo();
+        this.porNacionalidade = new IndiceAtributo(LIMITE_NACIONALIDADES);
+        this.porEstilo = new IndiceAtributo(LIMITE_ESTILOS);
+        this.observador = new IObservadorAlteracao<>() {
+            @Override
+            public boolean aceitaAlteracao(Pessoa diretor, String campo) {
+                return ouvinte.aceitaAlteracoes();
+            }
+
+            @Override
+            public void aoAlterar(Pessoa diretor, String campo, Object valorAnterior) {
+                aoAlterarDiretor(diretor, campo, valorAnterior);
+            }
+        };
+        this.trava = new TravaLeituraEscrita();
     }
 
     @Override
@@ -24,31 +82,193 @@ public class DiretorService implements ICrudOperations<Diretor> {
         if (diretor == null || !diretor.validarDados()) {
             return false;
         }
-        this.diretores.add(diretor);
-        return true;
+        return escrever(() -> {
+            if (!aceitaAlteracoes()) {
+                return false;
+            }
+            if (!this.diretores.adicionar(diretor)) {
+                return false;
+            }
+            indexar(diretor);
+            ouvinte.diretorSalvo(diretor);
+            return true;
+        });
+    }
+
+    public ResultadoOperacao importar(Iterator<Diretor> lote) {
+        if (lote == null) {
+            return ResultadoOperacao.criarErro("Lote de diretores não pode ser null!");
+        }
+        return importar(StreamSupport.stream(Spliterators.spliteratorUnknownSize(lote, Spliterator.ORDERED), false));
+    }
+
+    /**
+     * Cadastra um lote de diretores de uma só vez: ou todos entram, ou nenhum. O lote
+     * é recusado se trouxer o mesmo ID duas vezes; homônimos (mesmo nome, idade e
+     * nacionalidade) são aceitos, como em cadastrar.
+     *
+     * @return sucesso com a lista dos diretores cadastrados em getDados(), ou erro com o primeiro problema
+     */
+    public ResultadoOperacao importar(Stream<Diretor> lote) {
+        if (lote == null) {
+            return ResultadoOperacao.criarErro("Lote de diretores não pode ser null!");
+        }
+
+        List<Diretor> novos = lote.collect(Collectors.toList());
+        int quantidade = novos.size();
+        String[] problemas = new String[quantidade];
+        IntStream.range(0, quantidade).parallel().forEach(i -> {
+            Diretor diretor = novos.get(i);
+            problemas[i] = diretor == null ? "Diretor não pode ser null!"
+                    : diretor.verificarDados();
+        });
+        ConjuntoLong ids = new ConjuntoLong();
+        for (int i = 0; i < quantidade; i++) {
+            if (problemas[i] == null && !ids.adicionar(novos.get(i).getId())) {
+                problemas[i] = "Diretor repetido no lote: " + novos.get(i).getNome();
+            }
+            if (problemas[i] != null) {
+                return recusarLote("Diretor " + (i + 1) + " do lote: " + problemas[i]);
+            }
+        }
+
+        return trava.escrever(() -> {
+            if (!aceitaAlteracoes()) {
+                return ResultadoOperacao.criarErro("O catálogo não consegue mais registrar alterações!");
+            }
+            for (Diretor diretor : novos) {
+                if (diretores.contem(diretor.getId())) {
+                    return recusarLote("Diretor já cadastrado: " + diretor.getNome());
+                }
+            }
+
+            diretores.reservar(quantidade);
+            ouvinte.agrupar(() -> {
+                for (Diretor diretor : novos) {
+                    diretores.adicionar(diretor);
+                    indexar(diretor);
+                    ouvinte.diretorSalvo(diretor);
+                }
+                return null;
+            });
+            Diagnosticos.info(DiretorService.class, "{} diretor(es) importado(s) com sucesso!", quantidade);
+
+            ResultadoOperacao sucesso = ResultadoOperacao.criarSucesso(quantidade + " diretor(es) importado(s)!");
+            sucesso.setDados(novos);
+            return sucesso;
+        }, ouvinte::sincronizar);
+    }
+
+    private static ResultadoOperacao recusarLote(String mensagem) {
+        Diagnosticos.aviso(DiretorService.class, "Lote recusado. {}", mensagem);
+        return ResultadoOperacao.criarErro(mensagem);
     }
 
     @Override
     public Diretor buscarPorId(int id) {
-        return diretores.stream()
-                .filter(d -> id == d.getId())
-                .findFirst()
-                .orElse(null);
+        return trava.ler(() -> diretores.buscar(id));
     }
 
     public Diretor buscarPorNome(String nome) {
         if (nome == null || nome.trim().isEmpty()) {
             return null;
         }
-        return diretores.stream()
-                .filter(d -> nome.equals(d.getNome()))
-                .findFirst()
-                .orElse(null);
+        return trava.ler(() -> {
+            for (int id : indiceNome.buscar(nome)) {
+                Diretor diretor = diretores.buscar(id);
+                if (diretor != null && nome.equals(diretor.getNome())) {
+                    return diretor;
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Sugere diretores cujo nome começa com o prefixo, do maior para o menor valor de pontuação.
+     */
+    public List<Diretor> autocompletar(String prefixo, int limite) {
+        if (prefixo == null || prefixo.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        return trava.ler(() -> {
+            List<Diretor> sugestoes = new ArrayList<>();
+            for (int id : indicePrefixo.buscar(prefixo, limite)) {
+                sugestoes.add(diretores.buscar(id));
+            }
+            return sugestoes;
+        });
+    }
+
+    /**
+     * Define o critério de ranking do autocompletar e reindexa os diretores já cadastrados.
+     */
+    public void setPontuacaoAutocompletar(ToDoubleFunction<Diretor> pontuacao) {
+        if (pontuacao == null) {
+            throw new IllegalArgumentException("Erro: Pontuação não pode ser null!");
+        }
+        trava.executar(() -> {
+            this.pontuacaoAutocompletar = pontuacao;
+            for (Diretor diretor : diretores) {
+                indicePrefixo.atualizar(diretor.getId(), diretor.getNome(), pontuacao.applyAsDouble(diretor));
+            }
+        });
+    }
+
+    public List<Diretor> buscarPorNacionalidade(String nacionalidade) {
+        if (nacionalidade == null) {
+            return new ArrayList<>();
+        }
+        return trava.ler(() -> buscarTodos(porNacionalidade.buscar(nacionalidade.trim())));
+    }
+
+    public List<Diretor> buscarPorEstilo(String estilo) {
+        if (estilo == null) {
+            return new ArrayList<>();
+        }
+        return trava.ler(() -> buscarTodos(porEstilo.buscar(estilo.trim())));
+    }
+
+    public int contarPorNacionalidade(String nacionalidade) {
+        return nacionalidade == null ? 0 : trava.ler(() -> porNacionalidade.contar(nacionalidade.trim()));
+    }
+
+    public int contarPorEstilo(String estilo) {
+        return estilo == null ? 0 : trava.ler(() -> porEstilo.contar(estilo.trim()));
+    }
+
+    public int contarDiretores() {
+        return trava.ler(diretores::tamanho);
+    }
+
+    /**
+     * Diretores com o estilo e a nacionalidade informados (ex: "Ação/Aventura" e "Estadunidense").
+     */
+    public List<Diretor> buscarPorEstiloENacionalidade(String estilo, String nacionalidade) {
+        if (estilo == null || nacionalidade == null) {
+            return new ArrayList<>();
+        }
+        return trava.ler(() -> buscarTodos(porEstilo.buscarEmComum(estilo.trim(), porNacionalidade,
+                nacionalidade.trim())));
+    }
+
+    /**
+     * @return quantos diretores há de cada nacionalidade, na ordem em que as nacionalidades apareceram
+     */
+    public Map<String, Integer> contarPorNacionalidade() {
+        return trava.ler(porNacionalidade::contarPorValor);
+    }
+
+    /**
+     * @return quantos diretores há de cada estilo, na ordem em que os estilos apareceram
+     */
+    public Map<String, Integer> contarPorEstilo() {
+        return trava.ler(porEstilo::contarPorValor);
     }
 
     @Override
     public List<Diretor> listarTodos() {
-        return new ArrayList<>(this.diretores);
+        return trava.ler(this.diretores::listar);
     }
 
     @Override
@@ -57,21 +277,175 @@ public class DiretorService implements ICrudOperations<Diretor> {
             return false;
         }
 
-        for (int i = 0; i < diretores.size(); i++) {
-            if (diretores.get(i).getId() == diretor.getId()) {
-                diretores.set(i, diretor);
-                return true;
+        return escrever(() -> {
+            if (!aceitaAlteracoes()) {
+                return false;
             }
-        }
-        return false;
+            Diretor anterior = diretores.buscar(diretor.getId());
+            if (anterior == null || !diretores.substituir(diretor)) {
+                return false;
+            }
+            if (anterior != diretor) {
+                anterior.setObservador(null);
+                desindexarAtributos(anterior);
+            }
+            indexar(diretor);
+            ouvinte.diretorSalvo(diretor);
+            return true;
+        });
     }
 
+    /**
+     * Remove o diretor e, se houver um FilmeService usando este serviço, antes o tira
+     * dos filmes, para que nenhum filme continue apontando para ele.
+     */
     @Override
     public boolean remover(int id) {
-        return diretores.removeIf(d -> id == d.getId());
+        IntPredicate cascata = remocaoEmCascata;
+        if (cascata != null) {
+            return cascata.test(id);
+        }
+        return escrever(() -> removerCadastro(id));
+    }
+
+    // Sem sincronizar o ouvinte: quem remove em cascata sincroniza ao terminar
+    boolean removerCadastro(int id) {
+        return trava.escrever(() -> {
+            if (!aceitaAlteracoes()) {
+                return false;
+            }
+            Diretor removido = diretores.remover(id);
+            if (removido == null) {
+                return false;
+            }
+            removido.setObservador(null);
+            desindexarAtributos(removido);
+            indiceNome.remover(id);
+            indicePrefixo.remover(id);
+            ouvinte.diretorRemovido(id);
+            return true;
+        });
+    }
+
+    /**
+     * Executa a consulta com a trava de leitura do serviço: nenhum diretor muda enquanto ela roda.
+     */
+    public <R> R lerSemAlteracoes(Supplier<R> consulta) {
+        return trava.ler(consulta);
+    }
+
+    /**
+     * Define quem recebe as alterações do serviço; null volta a não avisar ninguém.
+     */
+    public void setOuvinte(IOuvinteCatalogo ouvinte) {
+        this.ouvinte.setPrincipal(ouvinte);
+    }
+
+    /**
+     * Acrescenta um ouvinte que recebe as alterações além do definido por setOuvinte
+     * (ex: um cache que precisa saber o que mudou); não é afetado por setOuvinte.
+     */
+    public void adicionarOuvinte(IOuvinteCatalogo ouvinte) {
+        this.ouvinte.adicionar(ouvinte);
+    }
+
+    public boolean removerOuvinte(IOuvinteCatalogo ouvinte) {
+        return this.ouvinte.remover(ouvinte);
+    }
+
+    void setRemocaoEmCascata(IntPredicate remocao) {
+        this.remocaoEmCascata = remocao;
+    }
+
+    /**
+     * Executa a alteração com a trava de escrita do serviço, sem sincronizar o ouvinte
+     * (ver FilmeService.alterarCatalogo).
+     */
+    <R> R escreverSemSincronizar(Supplier<R> alteracao) {
+        return trava.escrever(alteracao);
+    }
+
+    // Com a trava de escrita, antes de aplicar a alteração: se um ouvinte não pode mais recebê-la
+    // (ex: o log de alterações falhou) ela é recusada e o catálogo fica como estava
+    private boolean aceitaAlteracoes() {
+        if (ouvinte.aceitaAlteracoes()) {
+            return true;
+        }
+        Diagnosticos.aviso(DiretorService.class, "Alteração recusada: o catálogo não consegue mais registrar alterações!");
+        return false;
+    }
+
+    // Os ouvintes são sincronizados ao fim da escrita mais externa, mesmo se ela foi recusada ou
+    // lançou exceção depois de avisar algo (ex: o catálogo multiversão solta a versão pendente)
+    private boolean escrever(Supplier<Boolean> alteracao) {
+        return trava.escrever(alteracao, ouvinte::sincronizar);
+    }
+
+    private void executar(Runnable alteracao) {
+        escrever(() -> {
+            alteracao.run();
+            return true;
+        });
+    }
+
+    /**
+     * Chamado pelo FilmeService ao fim de uma operação que alterou este serviço sem sincronizá-lo.
+     */
+    void sincronizarOuvintes() {
+        if (!trava.escrevendo()) {
+            ouvinte.sincronizar();
+        }
+    }
+
+    private void indexar(Diretor diretor) {
+        diretor.setObservador(observador);
+        indiceNome.atualizar(diretor.getId(), diretor.getNome());
+        indicePrefixo.atualizar(diretor.getId(), diretor.getNome(), pontuacaoAutocompletar.applyAsDouble(diretor));
+        diretor.compartilharNacionalidade(porNacionalidade.adicionar(diretor.getNacionalidade(), diretor.getId()));
+        diretor.compartilharEstilo(porEstilo.adicionar(diretor.getEstilo(), diretor.getId()));
+    }
+
+    private void desindexarAtributos(Diretor diretor) {
+        porNacionalidade.remover(diretor.getNacionalidade(), diretor.getId());
+        porEstilo.remover(diretor.getEstilo(), diretor.getId());
+    }
+
+    private List<Diretor> buscarTodos(int[] ids) {
+        List<Diretor> encontrados = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            encontrados.add(diretores.buscar(id));
+        }
+        return encontrados;
+    }
+
+    private void aoAlterarDiretor(Pessoa diretor, String campo, Object valorAnterior) {
+        if (IObservadorAlteracao.CAMPO_NOME.equals(campo)) {
+            executar(() -> {
+                indiceNome.atualizar(diretor.getId(), diretor.getNome());
+                indicePrefixo.atualizar(diretor.getId(), diretor.getNome(), pontuacaoAutocompletar.applyAsDouble((Diretor) diretor));
+                ouvinte.diretorSalvo((Diretor) diretor);
+            });
+        } else if (IObservadorAlteracao.CAMPO_NACIONALIDADE.equals(campo)
+                || IObservadorAlteracao.CAMPO_ESTILO.equals(campo)) {
+            boolean estilo = IObservadorAlteracao.CAMPO_ESTILO.equals(campo);
+            executar(() -> {
+                Diretor alterado = (Diretor) diretor;
+                if (estilo) {
+                    porEstilo.remover((String) valorAnterior, alterado.getId());
+                    alterado.compartilharEstilo(porEstilo.adicionar(alterado.getEstilo(), alterado.getId()));
+                } else {
+                    porNacionalidade.remover((String) valorAnterior, alterado.getId());
+                    alterado.compartilharNacionalidade(
+                            porNacionalidade.adicionar(alterado.getNacionalidade(), alterado.getId()));
+                }
+                ouvinte.diretorSalvo(alterado);
+            });
+        } else if (IObservadorAlteracao.CAMPO_IDADE.equals(campo)) {
+            executar(() -> ouvinte.diretorSalvo((Diretor) diretor));
+        }
     }
 
     private boolean validarDiretorExiste(int id) {
-        return diretores.stream().anyMatch(d -> id == d.getId());
+        return trava.ler(() -> diretores.contem(id));
     }
 }
\ No newline at end of file
@@ -1,293 +1,1302 @@
 package service;
 
+import consulta.ConsultaFilmes;
+import diagnostico.Diagnosticos;
+import exception.PessoaNaoEncontradaException;
+import index.IndiceIntervalo;
+import index.IndiceNome;
+import index.IndiceOrdenado;
+import index.IndicePrefixo;
+import index.IndiceReverso;
+import index.IndiceTrigrama;
+import interfaces.IArmazenamento;
 import interfaces.ICrudOperations;
+import interfaces.IObservadorAlteracao;
+import interfaces.IOuvinteCatalogo;
 import model.Ator;
 import model.Diretor;
 import model.Filme;
+import model.FilmeAtor;
+import model.ResultadoOperacao;
+import repository.ArmazenamentoColunarFilmes;
+import repository.ArmazenamentoForaDoHeapFilmes;
+import repository.RelacaoElenco;
+import repository.RepositorioEntidades;
+import util.ChavesOrdenacao;
+import util.NormalizadorTexto;
+import util.TravaLeituraEscrita;
+import util.VarreduraParalela;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Contém a lógica de negócio para manipulação de Filmes.
  * Implementa as operações básicas de CRUD definidas em interfaces.ICrudOperations.
+ *
+ * Pode ser usado por várias threads. Consultas compartilham a trava do serviço;
+ * cadastros, alterações e associações são exclusivos, então o elenco, os índices
+ * e as listas de Ator/Diretor mudam juntos. Com a trava de escrita este serviço
+ * ainda consulta AtorService/DiretorService, nunca o contrário.
+ *
+ * Cada alteração é avisada ao IOuvinteCatalogo configurado (ex: o log de
+ * persistência), que é sincronizado antes de o método retornar. Se o ouvinte
+ * deixar de aceitar alterações (o log falhou), elas são recusadas antes de
+ * mexer em qualquer coisa: o catálogo em memória nunca fica à frente do log.
+ *
+ * Os filmes ficam num IArmazenamento escolhido pelo ModoArmazenamento; quando
+ * um filme guardado muda, ele é regravado com substituir. Os totais usados
+ * nas estatísticas (por ano, orçamentos) ficam em ContadoresFilmes e mudam
+ * junto com os índices.
+ *
+ * Atores e diretores removidos pelos seus serviços saem antes dos filmes,
+ * na mesma operação, então nenhum filme fica apontando para quem já saiu.
  */
 public class FilmeService implements ICrudOperations<Filme> {
 
-    private final List<Filme> filmes;
-    private static int proximoId = 1;
+    private final IArmazenamento<Filme> filmes;
+    // No modo OBJETOS atores e diretores também guardam a lista dos seus filmes
+    private final boolean vinculaPessoas;
+    private final IndiceNome indiceNome;
+    private final IndicePrefixo indicePrefixo;
+    private final IndiceOrdenado<String> indicePorNome;
+    private final IndiceIntervalo indicePorData;
+    private final IndiceIntervalo indicePorOrcamento;
+    private final RelacaoElenco elenco;
+    private final IndiceReverso filmesPorDiretor;
+    private final ContadoresFilmes contadores;
+    private final AtorService atorService;
+    private final DiretorService diretorService;
+    private final IndiceTrigrama indiceTrigrama;
+    private ToDoubleFunction<Filme> pontuacaoAutocompletar = filme -> 0;
+    private final IObservadorAlteracao<Filme> observador;
+    private final TravaLeituraEscrita trava;
+    private final PlanejadorConsultas planejador;
+    private final VarreduraParalela varredura;
+    private final OuvintesCatalogo ouvinte = new OuvintesCatalogo();
+    private static final AtomicInteger proximoId = new AtomicInteger(1);
 
     public FilmeService() {
-        this.filmes = new ArrayList<>();
+        this(null, null);
+    }
+
+    /**
+     * Os serviços de atores e diretores são usados pelas associações feitas por ID.
+     */
+    public FilmeService(AtorService atorService, DiretorService diretorService) {
+        this(atorService, diretorService, ModoArmazenamento.OBJETOS);
+    }
+
+    /**
+     * @throws IllegalArgumentException se o modo não for OBJETOS e faltar um dos serviços
+     */
+    public FilmeService(AtorService atorService, DiretorService diretorService, ModoArmazenamento modo) {
+        if (modo == null) {
+            throw new IllegalArgumentException("Erro: Modo de armazenamento não pode ser null!");
+        }
+        if (modo != ModoArmazenamento.OBJETOS && (atorService == null || diretorService == null)) {
+            throw new IllegalArgumentException("Erro: O modo " + modo + " precisa dos serviços de atores e diretores!");
+        }
+        this.atorService = atorService;
+        this.diretorService = diretorService;
+        this.observador = new IObservadorAlteracao<>() {
+            @Override
+            public boolean aceitaAlteracao(Filme filme, String campo) {
+                return ouvinte.aceitaAlteracoes();
+            }
+
+            @Override
+            public void aoAlterar(Filme filme, String campo, Object valorAnterior) {
+                aoAlterarFilme(filme, campo, valorAnterior);
+            }
+        };
+        this.vinculaPessoas = modo == ModoArmazenamento.OBJETOS;
+        if (modo == ModoArmazenamento.COLUNAR) {
+            this.filmes = new ArmazenamentoColunarFilmes(this::buscarAtorCadastrado, diretorService::buscarPorId,
+                    observador);
+        } else if (modo == ModoArmazenamento.FORA_DO_HEAP) {
+            this.filmes = new ArmazenamentoForaDoHeapFilmes(this::buscarAtorCadastrado, diretorService::buscarPorId,
+                    observador);
+        } else {
+            this.filmes = new RepositorioEntidades<>(Filme::getId);
+        }
+        this.indiceNome = new IndiceNome();
+        this.indicePrefixo = new IndicePrefixo();
+        this.indicePorNome = new IndiceOrdenado<>();
+        this.indicePorData = new IndiceIntervalo();
+        this.indicePorOrcamento = new IndiceIntervalo();
+        this.elenco = new RelacaoElenco();
+        this.filmesPorDiretor = new IndiceReverso();
+        this.contadores = new ContadoresFilmes();
+        this.varredura = new VarreduraParalela();
+        this.indiceTrigrama = new IndiceTrigrama(varredura);
+        this.trava = new TravaLeituraEscrita();
+        this.planejador = new PlanejadorConsultas(filmes, indiceNome, indiceTrigrama, indicePorNome, indicePorData,
+                indicePorOrcamento, filmesPorDiretor, elenco, diretorService, varredura);
+        if (atorService != null) {
+            atorService.setRemocaoEmCascata(this::removerAtorEmCascata);
+        }
+        if (diretorService != null) {
+            diretorService.setRemocaoEmCascata(this::removerDiretorEmCascata);
+        }
     }
 
     @Override
     public boolean cadastrar(Filme filme) {
         if (filme == null) {
-            System.out.println("Filme não pode ser null!");
+            Diagnosticos.aviso(FilmeService.class, "Filme não pode ser null!");
             return false;
         }
         
         if (!filme.validarCamposObrigatorios()) {
-            System.out.println("Campos obrigatórios do filme não estão válidos!");
+            Diagnosticos.aviso(FilmeService.class, "Campos obrigatórios do filme não estão válidos!");
             return false;
         }
         
-        List<Filme> filmesExistentes = buscarPorNome(filme.getNome());
-        if (!filmesExistentes.isEmpty()) {
-            System.out.println("Já existe um filme com o nome: " + filme.getNome());
+        return escrever(() -> {
+            if (!aceitaAlteracoes()) {
+                return false;
+            }
+            if (indiceNome.buscar(filme.getNome()).length > 0) {
+                Diagnosticos.aviso(FilmeService.class, "Já existe um filme com o nome: {}", filme.getNome());
+                return false;
+            }
+
+            filme.setId(proximoId.getAndIncrement());
+
+            boolean adicionado = incluir(filme);
+            if (adicionado) {
+                Diagnosticos.info(FilmeService.class, "Filme '{}' cadastrado com sucesso! (ID: {})", filme.getNome(), filme.getId());
+            }
+
+            return adicionado;
+        });
+    }
+
+    /**
+     * Cadastra um filme mantendo o ID que ele já tem, como ao recuperar o catálogo do
+     * disco. Os próximos IDs gerados por cadastrar serão maiores que ele.
+     */
+    public boolean restaurar(Filme filme) {
+        if (filme == null || filme.getId() <= 0 || filme.verificarCamposObrigatorios() != null) {
             return false;
         }
-        
-        filme.setId(proximoId++);
-        
-        boolean adicionado = this.filmes.add(filme);
-        if (adicionado) {
-            System.out.println("Filme '" + filme.getNome() + "' cadastrado com sucesso! (ID: " + filme.getId() + ")");
+
+        return escrever(() -> {
+            if (!aceitaAlteracoes()) {
+                return false;
+            }
+            if (filmes.contem(filme.getId()) || indiceNome.buscar(filme.getNome()).length > 0) {
+                return false;
+            }
+            proximoId.accumulateAndGet(filme.getId() + 1, Math::max);
+            return incluir(filme);
+        });
+    }
+
+    private boolean incluir(Filme filme) {
+        if (!this.filmes.adicionar(filme)) {
+            return false;
         }
-        
-        return adicionado;
+        indexar(filme);
+        vincularAssociacoes(filme);
+        contadores.somar(filme);
+        ouvinte.filmeSalvo(filme);
+        return true;
+    }
+
+    /**
+     * Executa a consulta com filmes, atores e diretores parados: segura a trava de
+     * leitura deste serviço e depois as dos serviços de atores e diretores, na
+     * mesma ordem usada pelas alterações. Serve para ler um retrato coerente do
+     * catálogo inteiro (ex: gravar um instantâneo).
+     */
+    public <R> R lerCatalogoSemAlteracoes(Supplier<R> consulta) {
+        return trava.ler(() -> {
+            Supplier<R> comDiretores = diretorService != null
+                    ? () -> diretorService.lerSemAlteracoes(consulta) : consulta;
+            return atorService != null ? atorService.lerSemAlteracoes(comDiretores) : comDiretores.get();
+        });
+    }
+
+    /**
+     * Executa várias alterações como uma só: segura a trava de escrita deste serviço e
+     * depois as dos serviços de atores e diretores, na mesma ordem das outras operações.
+     * As operações dos serviços chamadas dentro dela não sincronizam os ouvintes; eles são
+     * sincronizados uma vez, ao final, então o log e os retratos do catálogo recebem as
+     * alterações todas juntas (ex: transacao.TransacaoCatalogo). Os avisos dela formam um
+     * grupo só (transacaoIniciada / transacaoConcluida): o log guarda todos ou nenhum.
+     */
+    public <R> R alterarCatalogo(Supplier<R> alteracao) {
+        return alterarCatalogo(alteracao, true, true);
+    }
+
+    /**
+     * Como alterarCatalogo(alteracao), mas só segura as travas de atores e de diretores
+     * pedidas; as outras ficam livres para os demais escritores. A alteração pode ler
+     * os serviços que ficaram de fora, mas não deve alterá-los (senão aquela parte é
+     * sincronizada sozinha, antes do resto).
+     */
+    public <R> R alterarCatalogo(Supplier<R> alteracao, boolean travarAtores, boolean travarDiretores) {
+        Supplier<R> agrupada = () -> ouvinte.agrupar(alteracao);
+        return trava.escrever(() -> {
+            Supplier<R> comDiretores = travarDiretores && diretorService != null
+                    ? () -> diretorService.escreverSemSincronizar(agrupada) : agrupada;
+            return travarAtores && atorService != null
+                    ? atorService.escreverSemSincronizar(comDiretores) : comDiretores.get();
+        }, this::sincronizarServicos);
+    }
+
+    /**
+     * Define quem recebe as alterações do serviço; null volta a não avisar ninguém.
+     */
+    public void setOuvinte(IOuvinteCatalogo ouvinte) {
+        this.ouvinte.setPrincipal(ouvinte);
+    }
+
+    /**
+     * Acrescenta um ouvinte que recebe as alterações além do definido por setOuvinte
+     * (ex: um cache que precisa saber o que mudou); não é afetado por setOuvinte.
+     */
+    public void adicionarOuvinte(IOuvinteCatalogo ouvinte) {
+        this.ouvinte.adicionar(ouvinte);
+    }
+
+    public boolean removerOuvinte(IOuvinteCatalogo ouvinte) {
+        return this.ouvinte.remover(ouvinte);
+    }
+
+    // Com a trava de escrita, antes de aplicar a alteração: se um ouvinte não pode mais recebê-la
+    // (ex: o log de alterações falhou) ela é recusada e o catálogo fica como estava
+    private boolean aceitaAlteracoes() {
+        if (ouvinte.aceitaAlteracoes()) {
+            return true;
+        }
+        Diagnosticos.aviso(FilmeService.class, "Alteração recusada: o catálogo não consegue mais registrar alterações!");
+        return false;
+    }
+
+    // Os ouvintes são sincronizados ao fim da escrita mais externa, mesmo se ela foi recusada ou
+    // lançou exceção depois de avisar algo (ex: o catálogo multiversão solta a versão pendente)
+    private boolean escrever(Supplier<Boolean> alteracao) {
+        return trava.escrever(alteracao, ouvinte::sincronizar);
+    }
+
+    private void sincronizarServicos() {
+        try {
+            ouvinte.sincronizar();
+        } finally {
+            try {
+                if (atorService != null) {
+                    atorService.sincronizarOuvintes();
+                }
+            } finally {
+                if (diretorService != null) {
+                    diretorService.sincronizarOuvintes();
+                }
+            }
+        }
+    }
+
+    public ResultadoOperacao importar(Iterator<Filme> lote) {
+        if (lote == null) {
+            return ResultadoOperacao.criarErro("Lote de filmes não pode ser null!");
+        }
+        return importar(StreamSupport.stream(Spliterators.spliteratorUnknownSize(lote, Spliterator.ORDERED), false));
+    }
+
+    /**
+     * Cadastra um lote de filmes de uma só vez: ou todos entram, ou nenhum.
+     * Os campos são validados em paralelo, um nome repetido dentro do lote ou já
+     * cadastrado recusa o lote inteiro e os IDs são reservados num único bloco.
+     * Se a indexação falhar no meio, o que já foi indexado é desfeito e o lote é recusado.
+     *
+     * @return sucesso com a lista dos filmes cadastrados em getDados(), ou erro com o primeiro problema
+     */
+    public ResultadoOperacao importar(Stream<Filme> lote) {
+        if (lote == null) {
+            return ResultadoOperacao.criarErro("Lote de filmes não pode ser null!");
+        }
+
+        return incluirLote(lote.collect(Collectors.toList()), false, List.of());
+    }
+
+    /**
+     * Como importar, mas mantém os IDs que os filmes já têm (ex: ao carregar um
+     * instantâneo do catálogo). Um ID repetido ou já cadastrado recusa o lote.
+     */
+    public ResultadoOperacao restaurar(List<Filme> lote) {
+        if (lote == null) {
+            return ResultadoOperacao.criarErro("Lote de filmes não pode ser null!");
+        }
+        return incluirLote(new ArrayList<>(lote), true, List.of());
+    }
+
+    /**
+     * Como restaurar(lote), e já define os personagens dos papéis informados, que
+     * devem estar no elenco dos filmes do lote (ex: ao carregar um instantâneo).
+     * Um papel fora do elenco recusa o lote.
+     */
+    public ResultadoOperacao restaurar(List<Filme> lote, List<FilmeAtor> papeis) {
+        if (lote == null || papeis == null) {
+            return ResultadoOperacao.criarErro("Lote de filmes e papéis não podem ser null!");
+        }
+        return incluirLote(new ArrayList<>(lote), true, papeis);
+    }
+
+    private ResultadoOperacao incluirLote(List<Filme> novos, boolean manterIds, List<FilmeAtor> papeis) {
+        int quantidade = novos.size();
+        String[] problemas = new String[quantidade];
+        IntStream.range(0, quantidade).parallel().forEach(i -> {
+            Filme filme = novos.get(i);
+            if (filme == null) {
+                problemas[i] = "Filme não pode ser null!";
+            } else if (manterIds && filme.getId() <= 0) {
+                problemas[i] = "ID inválido: " + filme.getId();
+            } else {
+                problemas[i] = filme.verificarCamposObrigatorios();
+            }
+        });
+        for (int i = 0; i < quantidade; i++) {
+            if (problemas[i] != null) {
+                return recusarLote("Filme " + (i + 1) + " do lote: " + problemas[i]);
+            }
+        }
+
+        Set<String> nomes = new HashSet<>(quantidade * 2);
+        for (Filme filme : novos) {
+            if (!nomes.add(NormalizadorTexto.normalizar(filme.getNome()))) {
+                return recusarLote("Nome repetido no lote: " + filme.getNome());
+            }
+        }
+
+        int[] ids = new int[quantidade];
+        if (manterIds) {
+            for (int i = 0; i < quantidade; i++) {
+                ids[i] = novos.get(i).getId();
+            }
+            int[] ordenados = ids.clone();
+            Arrays.sort(ordenados);
+            for (int i = 1; i < quantidade; i++) {
+                if (ordenados[i] == ordenados[i - 1]) {
+                    return recusarLote("ID repetido no lote: " + ordenados[i]);
+                }
+            }
+            for (FilmeAtor papel : papeis) {
+                if (papel == null || Arrays.binarySearch(ordenados, papel.getFilmeId()) < 0) {
+                    return recusarLote("Papel de um filme fora do lote: " + papel);
+                }
+            }
+        }
+
+        return trava.escrever(() -> {
+            if (!aceitaAlteracoes()) {
+                return ResultadoOperacao.criarErro("O catálogo não consegue mais registrar alterações!");
+            }
+            // Com o catálogo vazio (ex: carga de um instantâneo) não há com o que conflitar
+            if (filmes.tamanho() > 0) {
+                for (Filme filme : novos) {
+                    if (indiceNome.buscar(filme.getNome()).length > 0) {
+                        return recusarLote("Já existe um filme com o nome: " + filme.getNome());
+                    }
+                    if (manterIds && filmes.contem(filme.getId())) {
+                        return recusarLote("Já existe um filme com o ID: " + filme.getId());
+                    }
+                }
+            }
+
+            if (manterIds) {
+                int maiorId = quantidade > 0 ? Arrays.stream(ids).max().getAsInt() : 0;
+                proximoId.accumulateAndGet(maiorId + 1, Math::max);
+            } else {
+                int primeiroId = proximoId.getAndAdd(quantidade);
+                for (int i = 0; i < quantidade; i++) {
+                    ids[i] = primeiroId + i;
+                    novos.get(i).setId(ids[i]);
+                }
+            }
+            try {
+                indexarLote(novos, ids);
+                for (FilmeAtor papel : papeis) {
+                    elenco.definirPersonagem(papel.getFilmeId(), papel.getAtorId(), papel.getPersonagem());
+                }
+            } catch (RuntimeException e) {
+                desfazerLote(novos, ids, manterIds);
+                return recusarLote("Erro ao indexar o lote: " + e.getMessage());
+            }
+            novos.forEach(contadores::somar);
+            ouvinte.agrupar(() -> {
+                novos.forEach(ouvinte::filmeSalvo);
+                papeis.forEach(papel -> ouvinte.personagemDefinido(papel.getFilmeId(), papel.getAtorId(),
+                        papel.getPersonagem()));
+                return null;
+            });
+            Diagnosticos.info(FilmeService.class, "{} filme(s) importado(s) com sucesso!", quantidade);
+
+            ResultadoOperacao sucesso = ResultadoOperacao.criarSucesso(quantidade + " filme(s) importado(s)!");
+            sucesso.setDados(novos);
+            return sucesso;
+        }, ouvinte::sincronizar);
+    }
+
+    // Mesmo efeito de indexar e vincularAssociacoes para cada filme. Todas as chaves (inclusive a
+    // pontuação do autocompletar) são calculadas antes de mexer em qualquer estrutura; depois cada
+    // estrutura é montada por uma tarefa própria, e as tarefas rodam em paralelo porque não
+    // compartilham nada. Se uma tarefa falhar, as outras terminam antes de a exceção sair.
+    private void indexarLote(List<Filme> novos, int[] ids) {
+        List<String> nomes = novos.stream().map(Filme::getNome).collect(Collectors.toList());
+        long[] datas = new long[ids.length];
+        double[] pontuacoes = new double[ids.length];
+        int comOrcamento = 0;
+        for (int i = 0; i < ids.length; i++) {
+            Filme filme = novos.get(i);
+            datas[i] = ChavesOrdenacao.deData(filme.getDataLancamento());
+            pontuacoes[i] = pontuacaoAutocompletar.applyAsDouble(filme);
+            if (filme.getOrcamento() != null) {
+                comOrcamento++;
+            }
+        }
+        int[] idsComOrcamento = new int[comOrcamento];
+        long[] orcamentos = new long[comOrcamento];
+        for (int i = 0, j = 0; i < ids.length; i++) {
+            BigDecimal orcamento = novos.get(i).getOrcamento();
+            if (orcamento != null) {
+                idsComOrcamento[j] = ids[i];
+                orcamentos[j++] = ChavesOrdenacao.deOrcamento(orcamento);
+            }
+        }
+
+        List<Runnable> tarefas = List.of(
+                () -> {
+                    this.filmes.reservar(ids.length);
+                    for (Filme filme : novos) {
+                        this.filmes.adicionar(filme);
+                        filme.setObservador(observador);
+                    }
+                },
+                () -> {
+                    for (int i = 0; i < ids.length; i++) {
+                        indiceNome.adicionar(ids[i], nomes.get(i));
+                    }
+                },
+                () -> {
+                    for (int i = 0; i < ids.length; i++) {
+                        indiceTrigrama.adicionar(ids[i], nomes.get(i));
+                    }
+                },
+                () -> {
+                    for (int i = 0; i < ids.length; i++) {
+                        indicePrefixo.adicionar(ids[i], nomes.get(i), pontuacoes[i]);
+                    }
+                },
+                () -> indicePorNome.adicionarTodos(ids, nomes),
+                () -> indicePorData.adicionarTodos(ids, datas),
+                () -> indicePorOrcamento.adicionarTodos(idsComOrcamento, orcamentos),
+                () -> vincularLote(novos, ids));
+        List<ForkJoinTask<?>> execucoes = new ArrayList<>(tarefas.size());
+        for (Runnable tarefa : tarefas) {
+            execucoes.add(ForkJoinPool.commonPool().submit(tarefa));
+        }
+        RuntimeException falha = null;
+        for (ForkJoinTask<?> execucao : execucoes) {
+            try {
+                execucao.join();
+            } catch (RuntimeException e) {
+                if (falha == null) {
+                    falha = e;
+                } else {
+                    falha.addSuppressed(e);
+                }
+            }
+        }
+        if (falha != null) {
+            throw falha;
+        }
+    }
+
+    // Desfaz um indexarLote interrompido: remover um ID que a estrutura não recebeu não faz nada
+    private void desfazerLote(List<Filme> novos, int[] ids, boolean manterIds) {
+        for (int i = 0; i < ids.length; i++) {
+            Filme filme = novos.get(i);
+            desvincularAssociacoes(filme);
+            desindexar(filme);
+            filmes.remover(ids[i]);
+            if (!manterIds) {
+                filme.setId(0);
+            }
+        }
+    }
+
+    private static ResultadoOperacao recusarLote(String mensagem) {
+        Diagnosticos.aviso(FilmeService.class, "Lote recusado. {}", mensagem);
+        return ResultadoOperacao.criarErro(mensagem);
     }
 
     @Override
     public Filme buscarPorId(int id) {
         if (id <= 0) {
-            System.out.println("ID inválido!");
+            Diagnosticos.aviso(FilmeService.class, "ID inválido!");
             return null;
         }
 
-        return this.filmes.stream()
-                .filter(filme -> filme.getId() == id)
-                .findFirst()
-                .orElse(null);
+        return trava.ler(() -> this.filmes.buscar(id));
     }
 
     public List<Filme> buscarPorNome(String nome) {
         if (nome == null || nome.trim().isEmpty()) {
             return new ArrayList<>();
         }
-        return this.filmes.stream()
-                .filter(filme -> filme.getNome().equalsIgnoreCase(nome.trim()))
-                .collect(Collectors.toList());
+        return trava.ler(() -> resolverIds(indiceNome.buscar(nome)));
     }
 
     public List<Filme> buscarPorNomeParcial(String nome) {
         if (nome == null || nome.trim().isEmpty()) {
             return new ArrayList<>();
         }
-        String nomeLowerCase = nome.toLowerCase().trim();
-        return this.filmes.stream()
-                .filter(filme -> filme.getNome().toLowerCase().contains(nomeLowerCase))
-                .collect(Collectors.toList());
+        return trava.ler(() -> resolverIds(indiceTrigrama.buscar(nome)));
+    }
+
+    /**
+     * Sugere filmes cujo nome começa com o prefixo, do maior para o menor valor de pontuação.
+     */
+    public List<Filme> autocompletar(String prefixo, int limite) {
+        if (prefixo == null || prefixo.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        return trava.ler(() -> resolverIds(indicePrefixo.buscar(prefixo, limite)));
+    }
+
+    /**
+     * Define o critério de ranking do autocompletar e reindexa os filmes já cadastrados.
+     */
+    public void setPontuacaoAutocompletar(ToDoubleFunction<Filme> pontuacao) {
+        if (pontuacao == null) {
+            throw new IllegalArgumentException("Erro: Pontuação não pode ser null!");
+        }
+        trava.executar(() -> {
+            this.pontuacaoAutocompletar = pontuacao;
+            for (Filme filme : filmes) {
+                indicePrefixo.atualizar(filme.getId(), filme.getNome(), pontuacao.applyAsDouble(filme));
+            }
+        });
     }
 
     @Override
     public List<Filme> listarTodos() {
-        return new ArrayList<>(this.filmes);
+        return trava.ler(this.filmes::listar);
     }
 
     public List<Filme> listarOrdenadoPorNome() {
-        return this.filmes.stream()
-                .sorted(Comparator.comparing(Filme::getNome))
-                .collect(Collectors.toList());
+        return trava.ler(() -> resolverIds(indicePorNome.listar()));
+    }
+
+    /**
+     * Página da listagem por nome. O deslocamento percorre o índice até a posição pedida;
+     * para catálogos grandes prefira listarOrdenadoPorNomeApos.
+     */
+    public List<Filme> listarOrdenadoPorNome(int deslocamento, int limite) {
+        return trava.ler(() -> resolverIds(indicePorNome.pagina(deslocamento, limite)));
+    }
+
+    /**
+     * Próxima página da listagem por nome, a partir do último filme da página anterior.
+     */
+    public List<Filme> listarOrdenadoPorNomeApos(Filme ultimo, int limite) {
+        if (ultimo == null) {
+            return listarOrdenadoPorNome(0, limite);
+        }
+        return trava.ler(() -> resolverIds(indicePorNome.paginaApos(ultimo.getNome(), ultimo.getId(), limite)));
     }
 
     public List<Filme> listarOrdenadoPorData() {
-        return this.filmes.stream()
-                .sorted(Comparator.comparing(Filme::getDataLancamento))
-                .collect(Collectors.toList());
+        return trava.ler(() -> resolverIds(indicePorData.listar()));
+    }
+
+    public List<Filme> listarOrdenadoPorData(int deslocamento, int limite) {
+        return trava.ler(() -> resolverIds(indicePorData.pagina(deslocamento, limite)));
+    }
+
+    /**
+     * Próxima página da listagem por data, a partir do último filme da página anterior.
+     */
+    public List<Filme> listarOrdenadoPorDataApos(Filme ultimo, int limite) {
+        if (ultimo == null) {
+            return listarOrdenadoPorData(0, limite);
+        }
+        long chave = ChavesOrdenacao.deData(ultimo.getDataLancamento());
+        return trava.ler(() -> resolverIds(indicePorData.paginaApos(chave, ultimo.getId(), limite)));
+    }
+
+    /**
+     * Filmes que atendem todos os critérios da consulta, na ordem e na página pedidas.
+     * O índice usado para começar a busca é escolhido pela seletividade de cada critério.
+     */
+    public List<Filme> buscar(ConsultaFilmes consulta) {
+        if (consulta == null) {
+            return new ArrayList<>();
+        }
+        return trava.ler(() -> planejador.executar(consulta, null));
+    }
+
+    /**
+     * Varredura usada quando nenhum índice ajuda (buscar sem critério seletivo, buscarPorNomeParcial
+     * com menos de 3 letras). Ajuste o mínimo paralelo e o número de threads por ela.
+     */
+    public VarreduraParalela getVarredura() {
+        return varredura;
+    }
+
+    /**
+     * @return os passos que buscar(consulta) seguiria agora (ex: "índice ator 7 (12) → filtro orçamento")
+     */
+    public String explicar(ConsultaFilmes consulta) {
+        if (consulta == null) {
+            return "";
+        }
+        StringBuilder plano = new StringBuilder();
+        trava.ler(() -> planejador.executar(consulta, plano));
+        return plano.toString();
+    }
+
+    /**
+     * Filmes lançados entre as datas informadas (inclusive), em ordem de lançamento.
+     * Um limite null deixa a faixa aberta daquele lado. Os filmes da faixa são lidos do índice
+     * enquanto a trava está com o serviço, então o stream não vê alterações feitas depois.
+     */
+    public Stream<Filme> buscarPorPeriodo(LocalDate inicio, LocalDate fim) {
+        long minimo = inicio != null ? ChavesOrdenacao.deData(inicio) : Long.MIN_VALUE;
+        long maximo = fim != null ? ChavesOrdenacao.deData(fim) : Long.MAX_VALUE;
+        if (minimo > maximo) {
+            Diagnosticos.aviso(FilmeService.class, "Data inicial posterior à data final!");
+            return Stream.empty();
+        }
+        return trava.ler(() -> indicePorData.buscarIntervalo(minimo, maximo)
+                .mapToObj(this.filmes::buscar)
+                .collect(Collectors.toList()))
+                .stream();
+    }
+
+    /**
+     * Filmes com orçamento entre os valores informados (inclusive), do menor para o maior.
+     * Um limite null deixa a faixa aberta daquele lado; filmes sem orçamento não entram.
+     */
+    public Stream<Filme> buscarPorFaixaOrcamento(BigDecimal minimo, BigDecimal maximo) {
+        if (minimo != null && maximo != null && minimo.compareTo(maximo) > 0) {
+            Diagnosticos.aviso(FilmeService.class, "Orçamento mínimo maior que o máximo!");
+            return Stream.empty();
+        }
+        long chaveMinima = minimo != null ? ChavesOrdenacao.deOrcamento(minimo) : Long.MIN_VALUE;
+        long chaveMaxima = maximo != null ? ChavesOrdenacao.deOrcamento(maximo) : Long.MAX_VALUE;
+
+        // Só as chaves das pontas podem conter valores fora da faixa (frações de centavo)
+        return trava.ler(() -> indicePorOrcamento.buscarIntervalo(chaveMinima, chaveMaxima)
+                .mapToObj(this.filmes::buscar)
+                .collect(Collectors.toList()))
+                .stream()
+                .filter(filme -> dentroDaFaixa(filme.getOrcamento(), minimo, maximo, chaveMinima, chaveMaxima));
+    }
+
+    private static boolean dentroDaFaixa(BigDecimal orcamento, BigDecimal minimo, BigDecimal maximo,
+                                         long chaveMinima, long chaveMaxima) {
+        long chave = ChavesOrdenacao.deOrcamento(orcamento);
+        if (minimo != null && chave == chaveMinima && orcamento.compareTo(minimo) < 0) {
+            return false;
+        }
+        return maximo == null || chave != chaveMaxima || orcamento.compareTo(maximo) <= 0;
     }
 
     @Override
     public boolean atualizar(Filme filmeAtualizado) {
         if (filmeAtualizado == null) {
-            System.out.println("Filme não pode ser null!");
+            Diagnosticos.aviso(FilmeService.class, "Filme não pode ser null!");
             return false;
         }
 
         if (!filmeAtualizado.validarCamposObrigatorios()) {
-            System.out.println("Campos obrigatórios do filme não estão válidos!");
+            Diagnosticos.aviso(FilmeService.class, "Campos obrigatórios do filme não estão válidos!");
             return false;
         }
 
-        Filme filmeExistente = buscarPorId(filmeAtualizado.getId());
-        if (filmeExistente == null) {
-            System.out.println("Filme com ID " + filmeAtualizado.getId() + " não encontrado!");
-            return false;
-        }
+        return escrever(() -> {
+            if (!aceitaAlteracoes()) {
+                return false;
+            }
+            Filme filmeExistente = buscarPorId(filmeAtualizado.getId());
+            if (filmeExistente == null) {
+                Diagnosticos.aviso(FilmeService.class, "Filme com ID {} não encontrado!", filmeAtualizado.getId());
+                return false;
+            }
 
-        List<Filme> filmesComMesmoNome = buscarPorNome(filmeAtualizado.getNome());
-        for (Filme filme : filmesComMesmoNome) {
-            if (filme.getId() != filmeAtualizado.getId()) {
-                System.out.println("Já existe outro filme com o nome: " + filmeAtualizado.getNome());
+            if (indiceNome.existeOutro(filmeAtualizado.getNome(), filmeAtualizado.getId())) {
+                Diagnosticos.aviso(FilmeService.class, "Já existe outro filme com o nome: {}", filmeAtualizado.getNome());
                 return false;
             }
-        }
 
-        int index = this.filmes.indexOf(filmeExistente);
-        this.filmes.set(index, filmeAtualizado);
-        System.out.println("Filme '" + filmeAtualizado.getNome() + "' atualizado com sucesso!");
-        return true;
+            if (filmeExistente != filmeAtualizado) {
+                filmeExistente.setObservador(null);
+                substituirAssociacoes(filmeExistente, filmeAtualizado);
+                contadores.subtrair(filmeExistente);
+                contadores.somar(filmeAtualizado);
+            }
+            this.filmes.substituir(filmeAtualizado);
+            indexar(filmeAtualizado);
+            ouvinte.filmeSalvo(filmeAtualizado);
+            Diagnosticos.info(FilmeService.class, "Filme '{}' atualizado com sucesso!", filmeAtualizado.getNome());
+            return true;
+        });
     }
 
     @Override
     public boolean remover(int id) {
         if (id <= 0) {
-            System.out.println("ID inválido!");
+            Diagnosticos.aviso(FilmeService.class, "ID inválido!");
             return false;
         }
 
-        Filme filme = buscarPorId(id);
-        if (filme == null) {
-            System.out.println("Filme com ID " + id + " não encontrado!");
-            return false;
-        }
+        return escrever(() -> {
+            if (!aceitaAlteracoes()) {
+                return false;
+            }
+            Filme filme = this.filmes.remover(id);
+            if (filme == null) {
+                Diagnosticos.aviso(FilmeService.class, "Filme com ID {} não encontrado!", id);
+                return false;
+            }
 
-        boolean removido = this.filmes.removeIf(f -> f.getId() == id);
-        if (removido) {
-            System.out.println("Filme '" + filme.getNome() + "' removido com sucesso!");
-        }
-        
-        return removido;
+            desindexar(filme);
+            desvincularAssociacoes(filme);
+            contadores.subtrair(filme);
+            ouvinte.filmeRemovido(id);
+            Diagnosticos.info(FilmeService.class, "Filme '{}' removido com sucesso!", filme.getNome());
+            return true;
+        });
     }
 
     public boolean associarAtor(int filmeId, int atorId) {
         if (filmeId <= 0 || atorId <= 0) {
-            System.out.println("IDs inválidos!");
+            Diagnosticos.aviso(FilmeService.class, "IDs inválidos!");
             return false;
         }
 
-        Filme filme = buscarPorId(filmeId);
-        if (filme == null) {
-            System.out.println("Filme com ID " + filmeId + " não encontrado!");
-            return false;
-        }
+        return escrever(() -> {
+            Filme filme = buscarPorId(filmeId);
+            if (filme == null) {
+                Diagnosticos.aviso(FilmeService.class, "Filme com ID {} não encontrado!", filmeId);
+                return false;
+            }
 
-        Ator ator = new Ator("Ator Temporário");
-        
-        try {
-            filme.adicionarAtor(ator);
-            return true;
-        } catch (IllegalArgumentException e) {
-            System.out.println(" " + e.getMessage());
-            return false;
-        }
+            Ator ator = buscarAtor(atorId);
+            if (ator == null) {
+                return false;
+            }
+            return associarAtor(filme, ator);
+        });
     }
 
     public boolean associarAtor(Filme filme, Ator ator) {
+        return associarAtor(filme, ator, null);
+    }
+
+    /**
+     * Adiciona o ator ao elenco do filme, opcionalmente com o nome do personagem.
+     * O filme deve ser o objeto cadastrado neste serviço; senão nada muda e o retorno é false.
+     */
+    public boolean associarAtor(Filme filme, Ator ator, String personagem) {
         if (filme == null || ator == null) {
-            System.out.println(" Filme e ator não podem ser null!");
+            Diagnosticos.aviso(FilmeService.class, " Filme e ator não podem ser null!");
             return false;
         }
 
-        try {
-            filme.adicionarAtor(ator);
-            return true;
-        } catch (IllegalArgumentException e) {
-            System.out.println(" " + e.getMessage());
-            return false;
-        }
+        return escrever(() -> {
+            if (!aceitaAlteracoes()) {
+                return false;
+            }
+            try {
+                if (filmes.buscar(filme.getId()) != filme) {
+                    Diagnosticos.aviso(FilmeService.class, " Filme '{}' não está cadastrado!", filme.getNome());
+                    return false;
+                }
+                if (!elenco.adicionar(filme.getId(), ator.getId(), personagem)) {
+                    throw new IllegalArgumentException("Erro: Ator já está na lista do filme!");
+                }
+                if (!filme.temAtor(ator)) {
+                    filme.adicionarAtor(ator);
+                    filmes.substituir(filme);
+                }
+                if (vinculaPessoas && !ator.temFilme(filme)) {
+                    ator.adicionarFilme(filme);
+                }
+                ouvinte.atorAssociado(filme.getId(), ator.getId(), personagem);
+                return true;
+            } catch (IllegalArgumentException e) {
+                Diagnosticos.aviso(FilmeService.class, " {}", e.getMessage());
+                return false;
+            }
+        });
     }
 
     public boolean removerAtor(int filmeId, int atorId) {
         if (filmeId <= 0 || atorId <= 0) {
-            System.out.println(" IDs inválidos!");
+            Diagnosticos.aviso(FilmeService.class, " IDs inválidos!");
             return false;
         }
 
-        Filme filme = buscarPorId(filmeId);
-        if (filme == null) {
-            System.out.println(" Filme com ID " + filmeId + " não encontrado!");
-            return false;
-        }
+        return escrever(() -> {
+            Filme filme = buscarPorId(filmeId);
+            if (filme == null) {
+                Diagnosticos.aviso(FilmeService.class, " Filme com ID {} não encontrado!", filmeId);
+                return false;
+            }
 
-        Ator ator = new Ator("Ator Temporário");
-        
-        try {
-            filme.removerAtor(ator);
-            return true;
-        } catch (IllegalArgumentException e) {
-            System.out.println(" " + e.getMessage());
-            return false;
-        }
+            Ator ator = buscarAtor(atorId);
+            if (ator == null) {
+                return false;
+            }
+            return removerAtor(filme, ator);
+        });
     }
 
     public boolean removerAtor(Filme filme, Ator ator) {
         if (filme == null || ator == null) {
-            System.out.println(" Filme e ator não podem ser null!");
+            Diagnosticos.aviso(FilmeService.class, " Filme e ator não podem ser null!");
             return false;
         }
 
-        try {
-            filme.removerAtor(ator);
-            return true;
-        } catch (IllegalArgumentException e) {
-            System.out.println(" " + e.getMessage());
-            return false;
-        }
+        return escrever(() -> {
+            if (!aceitaAlteracoes()) {
+                return false;
+            }
+            try {
+                if (filmes.buscar(filme.getId()) != filme) {
+                    Diagnosticos.aviso(FilmeService.class, " Filme '{}' não está cadastrado!", filme.getNome());
+                    return false;
+                }
+                if (!elenco.remover(filme.getId(), ator.getId())) {
+                    throw new IllegalArgumentException("Erro: Ator não está na lista do filme!");
+                }
+                if (filme.temAtor(ator)) {
+                    filme.removerAtor(ator);
+                    filmes.substituir(filme);
+                }
+                if (vinculaPessoas && ator.temFilme(filme)) {
+                    ator.removerFilme(filme);
+                }
+                ouvinte.atorDesassociado(filme.getId(), ator.getId());
+                return true;
+            } catch (IllegalArgumentException e) {
+                Diagnosticos.aviso(FilmeService.class, " {}", e.getMessage());
+                return false;
+            }
+        });
     }
 
     public boolean associarDiretor(int filmeId, int diretorId) {
         if (filmeId <= 0 || diretorId <= 0) {
-            System.out.println(" IDs inválidos!");
+            Diagnosticos.aviso(FilmeService.class, " IDs inválidos!");
             return false;
         }
 
-        Filme filme = buscarPorId(filmeId);
-        if (filme == null) {
-            System.out.println(" Filme com ID " + filmeId + " não encontrado!");
+        if (diretorService == null) {
+            Diagnosticos.aviso(FilmeService.class, " Serviço de diretores não configurado!");
             return false;
         }
 
-        Diretor diretor = new Diretor("Diretor Temporário");
-        
-        filme.setDiretor(diretor);
-        System.out.println(" Diretor associado ao filme '" + filme.getNome() + "' com sucesso!");
-        return true;
+        return escrever(() -> {
+            Filme filme = buscarPorId(filmeId);
+            if (filme == null) {
+                Diagnosticos.aviso(FilmeService.class, " Filme com ID {} não encontrado!", filmeId);
+                return false;
+            }
+
+            Diretor diretor = diretorService.buscarPorId(diretorId);
+            if (diretor == null) {
+                Diagnosticos.aviso(FilmeService.class, " Diretor com ID {} não encontrado!", diretorId);
+                return false;
+            }
+            return associarDiretor(filme, diretor);
+        });
     }
 
     public boolean associarDiretor(Filme filme, Diretor diretor) {
         if (filme == null || diretor == null) {
-            System.out.println(" Filme e diretor não podem ser null!");
+            Diagnosticos.aviso(FilmeService.class, " Filme e diretor não podem ser null!");
             return false;
         }
 
-        filme.setDiretor(diretor);
-        System.out.println(" Diretor '" + diretor.getNome() + "' associado ao filme '" + filme.getNome() + "' com sucesso!");
-        return true;
+        return escrever(() -> {
+            if (!aceitaAlteracoes()) {
+                return false;
+            }
+            if (filmes.buscar(filme.getId()) != filme) {
+                Diagnosticos.aviso(FilmeService.class, " Filme '{}' não está cadastrado!", filme.getNome());
+                return false;
+            }
+            filme.setDiretor(diretor);
+            Diagnosticos.info(FilmeService.class, " Diretor '{}' associado ao filme '{}' com sucesso!", diretor.getNome(), filme.getNome());
+            return true;
+        });
+    }
+
+    // Chamada por AtorService.remover: o ator sai dos elencos e do cadastro numa operação só
+    private boolean removerAtorEmCascata(int atorId) {
+        return trava.escrever(() -> {
+            if (!aceitaAlteracoes()) {
+                return false;
+            }
+            Ator ator = buscarAtorCadastrado(atorId);
+            if (ator == null) {
+                return false;
+            }
+            for (int filmeId : elenco.filmesDoAtor(atorId)) {
+                Filme filme = filmes.buscar(filmeId);
+                if (filme != null) {
+                    removerAtor(filme, ator);
+                }
+            }
+            return atorService.removerCadastro(atorId);
+        }, this::sincronizarServicos);
+    }
+
+    // Chamada por DiretorService.remover: os filmes ficam sem diretor antes de ele sair do cadastro
+    private boolean removerDiretorEmCascata(int diretorId) {
+        return trava.escrever(() -> {
+            if (!aceitaAlteracoes()) {
+                return false;
+            }
+            for (Filme filme : resolverIds(filmesPorDiretor.buscar(diretorId))) {
+                filme.setDiretor(null);
+            }
+            return diretorService.removerCadastro(diretorId);
+        }, this::sincronizarServicos);
     }
 
     private boolean validarFilmeExiste(int id) {
         if (id <= 0) {
             return false;
         }
-        return this.filmes.stream()
-                .anyMatch(filme -> filme.getId() == id);
+        return trava.ler(() -> this.filmes.contem(id));
     }
 
     public List<Filme> buscarPorDiretor(Diretor diretor) {
         if (diretor == null) {
             return new ArrayList<>();
         }
-        return this.filmes.stream()
-                .filter(filme -> diretor.equals(filme.getDiretor()))
-                .collect(Collectors.toList());
+        return trava.ler(() -> resolverIds(filmesPorDiretor.buscar(diretor.getId())));
     }
 
     public List<Filme> buscarPorAtor(Ator ator) {
         if (ator == null) {
             return new ArrayList<>();
         }
-        return this.filmes.stream()
-                .filter(filme -> filme.temAtor(ator))
-                .collect(Collectors.toList());
+        return trava.ler(() -> resolverIds(elenco.filmesDoAtor(ator.getId())));
+    }
+
+    public boolean filmeTemAtor(int filmeId, int atorId) {
+        return trava.ler(() -> elenco.contem(filmeId, atorId));
+    }
+
+    public boolean definirPersonagem(int filmeId, int atorId, String personagem) {
+        return escrever(() -> {
+            if (!aceitaAlteracoes()) {
+                return false;
+            }
+            if (!elenco.contem(filmeId, atorId)) {
+                Diagnosticos.aviso(FilmeService.class, " Ator com ID {} não está no elenco do filme {}!", atorId, filmeId);
+                return false;
+            }
+            elenco.definirPersonagem(filmeId, atorId, personagem);
+            ouvinte.personagemDefinido(filmeId, atorId, personagem);
+            return true;
+        });
+    }
+
+    /**
+     * @return os papéis do filme (ator e personagem), na ordem dos IDs dos atores
+     */
+    public List<FilmeAtor> listarElenco(int filmeId) {
+        return trava.ler(() -> elenco.listarElenco(filmeId));
+    }
+
+    public List<FilmeAtor> buscarPorPersonagem(String personagem) {
+        if (personagem == null || personagem.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        return trava.ler(() -> elenco.buscarPorPersonagem(personagem));
+    }
+
+    // Usada pelo armazenamento colunar para montar o elenco, sem mensagens
+    private Ator buscarAtorCadastrado(int atorId) {
+        try {
+            return atorService.buscarPorId(atorId);
+        } catch (PessoaNaoEncontradaException e) {
+            return null;
+        }
+    }
+
+    private Ator buscarAtor(int atorId) {
+        if (atorService == null) {
+            Diagnosticos.aviso(FilmeService.class, " Serviço de atores não configurado!");
+            return null;
+        }
+        try {
+            return atorService.buscarPorId(atorId);
+        } catch (PessoaNaoEncontradaException e) {
+            Diagnosticos.aviso(FilmeService.class, " {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private List<Filme> resolverIds(int[] ids) {
+        List<Filme> encontrados = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Filme filme = this.filmes.buscar(id);
+            if (filme != null) {
+                encontrados.add(filme);
+            }
+        }
+        return encontrados;
+    }
+
+    private void indexar(Filme filme) {
+        filme.setObservador(observador);
+        indiceNome.atualizar(filme.getId(), filme.getNome());
+        indiceTrigrama.atualizar(filme.getId(), filme.getNome());
+        indicePrefixo.atualizar(filme.getId(), filme.getNome(), pontuacaoAutocompletar.applyAsDouble(filme));
+        indicePorNome.atualizar(filme.getId(), filme.getNome());
+        indicePorData.atualizar(filme.getId(), ChavesOrdenacao.deData(filme.getDataLancamento()));
+        indexarOrcamento(filme);
+    }
+
+    private void indexarOrcamento(Filme filme) {
+        if (filme.getOrcamento() != null) {
+            indicePorOrcamento.atualizar(filme.getId(), ChavesOrdenacao.deOrcamento(filme.getOrcamento()));
+        } else {
+            indicePorOrcamento.remover(filme.getId());
+        }
+    }
+
+    private void desindexar(Filme filme) {
+        filme.setObservador(null);
+        indiceNome.remover(filme.getId());
+        indiceTrigrama.remover(filme.getId());
+        indicePrefixo.remover(filme.getId());
+        indicePorNome.remover(filme.getId());
+        indicePorData.remover(filme.getId());
+        indicePorOrcamento.remover(filme.getId());
+    }
+
+    // Mantém o elenco, o índice de diretores e as listas de Ator/Diretor coerentes com o filme cadastrado
+    private void vincularAssociacoes(Filme filme) {
+        for (Ator ator : filme.getAtores()) {
+            elenco.adicionar(filme.getId(), ator.getId(), null);
+            if (vinculaPessoas && !ator.temFilme(filme)) {
+                ator.adicionarFilme(filme);
+            }
+        }
+        vincularDiretor(filme, filme.getDiretor());
+    }
+
+    // Mesmo efeito de vincularAssociacoes para cada filme do lote, com o elenco e o índice
+    // de diretores montados de uma vez
+    private void vincularLote(List<Filme> novos, int[] ids) {
+        int associacoes = 0;
+        int comDiretor = 0;
+        List<List<Ator>> atoresPorFilme = new ArrayList<>(novos.size());
+        for (Filme filme : novos) {
+            List<Ator> atores = filme.getAtores();
+            atoresPorFilme.add(atores);
+            associacoes += atores.size();
+            if (filme.getDiretor() != null) {
+                comDiretor++;
+            }
+        }
+        int[] filmesElenco = new int[associacoes];
+        int[] atoresElenco = new int[associacoes];
+        Ator[] atores = new Ator[associacoes];
+        Filme[] filmesAtuados = new Filme[associacoes];
+        int[] diretorIds = new int[comDiretor];
+        int[] filmesDirigidos = new int[comDiretor];
+        Diretor[] diretores = new Diretor[comDiretor];
+        Filme[] filmesDosDiretores = new Filme[comDiretor];
+        for (int i = 0, a = 0, d = 0; i < ids.length; i++) {
+            Filme filme = novos.get(i);
+            for (Ator ator : atoresPorFilme.get(i)) {
+                filmesElenco[a] = ids[i];
+                atoresElenco[a] = ator.getId();
+                atores[a] = ator;
+                filmesAtuados[a++] = filme;
+            }
+            Diretor diretor = filme.getDiretor();
+            if (diretor != null) {
+                diretorIds[d] = diretor.getId();
+                filmesDirigidos[d] = ids[i];
+                diretores[d] = diretor;
+                filmesDosDiretores[d++] = filme;
+            }
+        }
+        elenco.adicionarTodos(filmesElenco, atoresElenco);
+        filmesPorDiretor.adicionarTodos(diretorIds, filmesDirigidos);
+        if (vinculaPessoas) {
+            entregarPorPessoa(atoresElenco, atores, filmesAtuados, Ator::adicionarFilmesNovos);
+            entregarPorPessoa(diretorIds, diretores, filmesDosDiretores, Diretor::adicionarFilmesNovos);
+        }
+    }
+
+    // Agrupa as associações pelo ID da pessoa (ordenando, sem um mapa por pessoa) e entrega a
+    // cada uma, de uma vez e na ordem do lote, os filmes em que ela aparece
+    private static <P> void entregarPorPessoa(int[] pessoaIds, P[] pessoas, Filme[] filmes,
+                                              BiConsumer<P, List<Filme>> entrega) {
+        long[] ordem = new long[pessoaIds.length];
+        for (int i = 0; i < ordem.length; i++) {
+            ordem[i] = ((long) pessoaIds[i] << 32) | i;
+        }
+        Arrays.sort(ordem);
+        for (int inicio = 0; inicio < ordem.length; ) {
+            P pessoa = pessoas[(int) ordem[inicio]];
+            int fim = inicio + 1;
+            while (fim < ordem.length && pessoas[(int) ordem[fim]] == pessoa) {
+                fim++;
+            }
+            List<Filme> doGrupo = new ArrayList<>(fim - inicio);
+            for (int i = inicio; i < fim; i++) {
+                doGrupo.add(filmes[(int) ordem[i]]);
+            }
+            entrega.accept(pessoa, doGrupo);
+            inicio = fim;
+        }
+    }
+
+    private void desvincularAssociacoes(Filme filme) {
+        elenco.removerFilme(filme.getId());
+        for (Ator ator : filme.getAtores()) {
+            if (vinculaPessoas && ator.temFilme(filme)) {
+                ator.removerFilme(filme);
+            }
+        }
+        desvincularDiretor(filme, filme.getDiretor());
+    }
+
+    // O elenco (com os personagens) pertence ao ID do filme e passa para o novo objeto
+    private void substituirAssociacoes(Filme anterior, Filme novo) {
+        for (Ator ator : anterior.getAtores()) {
+            if (elenco.contem(novo.getId(), ator.getId()) && !novo.temAtor(ator)) {
+                novo.adicionarAtor(ator);
+            }
+        }
+        if (anterior.getDiretor() != novo.getDiretor()) {
+            desvincularDiretor(anterior, anterior.getDiretor());
+        }
+        vincularAssociacoes(novo);
+    }
+
+    private void vincularDiretor(Filme filme, Diretor diretor) {
+        if (diretor == null) {
+            return;
+        }
+        filmesPorDiretor.adicionar(diretor.getId(), filme.getId());
+        if (vinculaPessoas && !diretor.dirigiuFilme(filme)) {
+            diretor.adicionarFilme(filme);
+        }
+    }
+
+    private void desvincularDiretor(Filme filme, Diretor diretor) {
+        if (diretor == null) {
+            return;
+        }
+        filmesPorDiretor.remover(diretor.getId(), filme.getId());
+        if (vinculaPessoas && diretor.dirigiuFilme(filme)) {
+            diretor.removerFilme(filme);
+        }
+    }
+
+    private void aoAlterarFilme(Filme filme, String campo, Object valorAnterior) {
+        escrever(() -> {
+            reindexarCampo(filme, campo, valorAnterior);
+            if (filmes.buscar(filme.getId()) == filme) {
+                filmes.substituir(filme);
+                contarCampo(filme, campo, valorAnterior);
+                ouvinte.filmeSalvo(filme);
+            }
+            return true;
+        });
+    }
+
+    private void reindexarCampo(Filme filme, String campo, Object valorAnterior) {
+        if (IObservadorAlteracao.CAMPO_NOME.equals(campo)) {
+            indiceNome.atualizar(filme.getId(), filme.getNome());
+            indiceTrigrama.atualizar(filme.getId(), filme.getNome());
+            indicePrefixo.atualizar(filme.getId(), filme.getNome(), pontuacaoAutocompletar.applyAsDouble(filme));
+            indicePorNome.atualizar(filme.getId(), filme.getNome());
+        } else if (IObservadorAlteracao.CAMPO_DATA_LANCAMENTO.equals(campo)) {
+            indicePorData.atualizar(filme.getId(), ChavesOrdenacao.deData(filme.getDataLancamento()));
+        } else if (IObservadorAlteracao.CAMPO_ORCAMENTO.equals(campo)) {
+            indexarOrcamento(filme);
+        } else if (IObservadorAlteracao.CAMPO_DIRETOR.equals(campo) && valorAnterior != filme.getDiretor()) {
+            desvincularDiretor(filme, (Diretor) valorAnterior);
+            vincularDiretor(filme, filme.getDiretor());
+        }
+    }
+
+    // Só o filme guardado conta: um objeto antigo alterado é contado quando for passado para atualizar
+    private void contarCampo(Filme filme, String campo, Object valorAnterior) {
+        if (IObservadorAlteracao.CAMPO_DATA_LANCAMENTO.equals(campo)) {
+            contadores.trocarData((LocalDate) valorAnterior, filme.getDataLancamento());
+        } else if (IObservadorAlteracao.CAMPO_ORCAMENTO.equals(campo)) {
+            contadores.trocarOrcamento((BigDecimal) valorAnterior, filme.getOrcamento());
+        }
     }
 
     public int contarFilmes() {
-        return this.filmes.size();
+        return trava.ler(this.filmes::tamanho);
+    }
+
+    public int contarPorAno(int ano) {
+        return trava.ler(() -> contadores.contarPorAno(ano));
+    }
+
+    /**
+     * @return ano de lançamento -> quantidade de filmes, em ordem de ano
+     */
+    public Map<Integer, Integer> contarPorAno() {
+        return trava.ler(() -> contadores.contarPorAno());
+    }
+
+    public int contarComOrcamento() {
+        return trava.ler(contadores::getComOrcamento);
+    }
+
+    /**
+     * @return a soma dos orçamentos informados (filmes sem orçamento não entram)
+     */
+    public BigDecimal getOrcamentoTotal() {
+        return trava.ler(contadores::getOrcamentoTotal);
+    }
+
+    /**
+     * @return a média dos orçamentos informados, com duas casas; null se nenhum filme tem orçamento
+     */
+    public BigDecimal getOrcamentoMedio() {
+        return trava.ler(contadores::getOrcamentoMedio);
     }
 
     public boolean filmeExiste(int id) {
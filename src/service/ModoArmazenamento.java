@@ -0,0 +1,16 @@
+package service;
+
+/**
+ * Enum ModoArmazenamento - Como FilmeService guarda os filmes cadastrados
+ *
+ * Nos modos COLUNAR e FORA_DO_HEAP atores e diretores precisam estar cadastrados nos seus
+ * serviços e não guardam a lista dos seus filmes (use buscarPorAtor/buscarPorDiretor).
+ */
+public enum ModoArmazenamento {
+    /** Os próprios objetos Filme (padrão). */
+    OBJETOS,
+    /** Um array primitivo por campo; cada Filme é montado quando é pedido (repository.ArmazenamentoColunarFilmes). */
+    COLUNAR,
+    /** Registros de tamanho fixo em buffers diretos, fora do heap (repository.ArmazenamentoForaDoHeapFilmes). */
+    FORA_DO_HEAP
+}
@@ -0,0 +1,151 @@
+package service;
+
+import interfaces.IOuvinteCatalogo;
+import model.Ator;
+import model.Diretor;
+import model.Filme;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Classe OuvintesCatalogo - Repassa os avisos de um serviço ao ouvinte principal e aos adicionais
+ *
+ * O principal é o definido por setOuvinte (ex: o log de persistência, que o
+ * troca ao abrir e ao fechar); os adicionais (ex: o cache de visualizações do
+ * controller) continuam recebendo os avisos quando o principal é trocado.
+ *
+ * Um ouvinte que lança exceção não impede os outros de receberem o aviso: todos
+ * são avisados e só então a primeira exceção é relançada (as demais vão como
+ * suprimidas), para o serviço ficar sabendo.
+ */
+class OuvintesCatalogo implements IOuvinteCatalogo {
+
+    private volatile IOuvinteCatalogo principal = IOuvinteCatalogo.NENHUM;
+    private final CopyOnWriteArrayList<IOuvinteCatalogo> adicionais = new CopyOnWriteArrayList<>();
+
+    void setPrincipal(IOuvinteCatalogo principal) {
+        this.principal = principal != null ? principal : IOuvinteCatalogo.NENHUM;
+    }
+
+    void adicionar(IOuvinteCatalogo ouvinte) {
+        if (ouvinte == null) {
+            throw new IllegalArgumentException("Erro: Ouvinte não pode ser null!");
+        }
+        adicionais.addIfAbsent(ouvinte);
+    }
+
+    boolean remover(IOuvinteCatalogo ouvinte) {
+        return adicionais.remove(ouvinte);
+    }
+
+    @Override
+    public void filmeSalvo(Filme filme) {
+        avisar(ouvinte -> ouvinte.filmeSalvo(filme));
+    }
+
+    @Override
+    public void filmeRemovido(int id) {
+        avisar(ouvinte -> ouvinte.filmeRemovido(id));
+    }
+
+    @Override
+    public void atorSalvo(Ator ator) {
+        avisar(ouvinte -> ouvinte.atorSalvo(ator));
+    }
+
+    @Override
+    public void atorRemovido(int id) {
+        avisar(ouvinte -> ouvinte.atorRemovido(id));
+    }
+
+    @Override
+    public void diretorSalvo(Diretor diretor) {
+        avisar(ouvinte -> ouvinte.diretorSalvo(diretor));
+    }
+
+    @Override
+    public void diretorRemovido(int id) {
+        avisar(ouvinte -> ouvinte.diretorRemovido(id));
+    }
+
+    @Override
+    public void atorAssociado(int filmeId, int atorId, String personagem) {
+        avisar(ouvinte -> ouvinte.atorAssociado(filmeId, atorId, personagem));
+    }
+
+    @Override
+    public void atorDesassociado(int filmeId, int atorId) {
+        avisar(ouvinte -> ouvinte.atorDesassociado(filmeId, atorId));
+    }
+
+    @Override
+    public void personagemDefinido(int filmeId, int atorId, String personagem) {
+        avisar(ouvinte -> ouvinte.personagemDefinido(filmeId, atorId, personagem));
+    }
+
+    @Override
+    public void transacaoIniciada() {
+        avisar(ouvinte -> ouvinte.transacaoIniciada());
+    }
+
+    @Override
+    public void transacaoConcluida() {
+        avisar(ouvinte -> ouvinte.transacaoConcluida());
+    }
+
+    /**
+     * Executa a alteração entre transacaoIniciada() e transacaoConcluida(), para os avisos dela irem num grupo só.
+     */
+    <R> R agrupar(Supplier<R> alteracao) {
+        transacaoIniciada();
+        try {
+            return alteracao.get();
+        } finally {
+            transacaoConcluida();
+        }
+    }
+
+    private void avisar(Consumer<IOuvinteCatalogo> aviso) {
+        RuntimeException erro = avisar(principal, aviso, null);
+        for (IOuvinteCatalogo ouvinte : adicionais) {
+            erro = avisar(ouvinte, aviso, erro);
+        }
+        if (erro != null) {
+            throw erro;
+        }
+    }
+
+    private static RuntimeException avisar(IOuvinteCatalogo ouvinte, Consumer<IOuvinteCatalogo> aviso,
+                                           RuntimeException anterior) {
+        try {
+            aviso.accept(ouvinte);
+            return anterior;
+        } catch (RuntimeException e) {
+            if (anterior == null) {
+                return e;
+            }
+            anterior.addSuppressed(e);
+            return anterior;
+        }
+    }
+
+    @Override
+    public boolean aceitaAlteracoes() {
+        if (!principal.aceitaAlteracoes()) {
+            return false;
+        }
+        for (IOuvinteCatalogo ouvinte : adicionais) {
+            if (!ouvinte.aceitaAlteracoes()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void sincronizar() {
+        avisar(ouvinte -> ouvinte.sincronizar());
+    }
+}
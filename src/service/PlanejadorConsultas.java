@@ -0,0 +1,557 @@
+package service;
+
+import consulta.ConsultaFilmes;
+import consulta.OrdemConsulta;
+import index.IndiceIntervalo;
+import index.IndiceNome;
+import index.IndiceOrdenado;
+import index.IndiceReverso;
+import index.IndiceTrigrama;
+import interfaces.IArmazenamento;
+import interfaces.IColunasFilmes;
+import model.Diretor;
+import model.Filme;
+import repository.RelacaoElenco;
+import util.ChavesOrdenacao;
+import util.NormalizadorTexto;
+import util.VarreduraParalela;
+
+import java.math.BigDecimal;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Locale;
+import java.util.PrimitiveIterator;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * Classe PlanejadorConsultas - Executa uma ConsultaFilmes escolhendo os índices do FilmeService
+ *
+ * Cada critério da consulta informa quantos filmes o seu índice devolveria
+ * (a estimativa, que para a maioria é exata e custa O(1) ou O(log n)). O
+ * plano começa pelo critério mais seletivo, intersecta as listas de IDs dos
+ * critérios que ainda são baratos perto dos candidatos que restam e confere
+ * os demais em cada filme candidato. Se nem o melhor índice descarta a maior
+ * parte do catálogo, percorre todos os filmes (com a VarreduraParalela do serviço,
+ * que divide entre as threads os catálogos grandes).
+ *
+ * Se o armazenamento expõe as colunas (IColunasFilmes), os filtros e a escolha
+ * da página são feitos sobre as linhas e só os filmes devolvidos são montados.
+ *
+ * Deve ser usado com a trava de leitura do FilmeService.
+ */
+final class PlanejadorConsultas {
+
+    // Sem índice que devolva menos de 1/FRACAO_VARREDURA do catálogo, vale mais percorrer tudo
+    private static final int FRACAO_VARREDURA = 4;
+    // Um índice só é intersectado se devolver até FATOR_INTERSECAO vezes os candidatos atuais
+    private static final int FATOR_INTERSECAO = 4;
+    // Páginas que terminam antes de 1/FRACAO_SELECAO do resultado são selecionadas num heap, sem ordenar o resto
+    private static final int FRACAO_SELECAO = 4;
+
+    private final IArmazenamento<Filme> filmes;
+    // null quando o armazenamento guarda os próprios objetos
+    private final IColunasFilmes colunas;
+    private final IndiceNome indiceNome;
+    private final IndiceTrigrama indiceTrigrama;
+    private final IndiceOrdenado<String> indicePorNome;
+    private final IndiceIntervalo indicePorData;
+    private final IndiceIntervalo indicePorOrcamento;
+    private final IndiceReverso filmesPorDiretor;
+    private final RelacaoElenco elenco;
+    private final DiretorService diretorService;
+    private final VarreduraParalela varredura;
+
+    PlanejadorConsultas(IArmazenamento<Filme> filmes, IndiceNome indiceNome, IndiceTrigrama indiceTrigrama,
+                        IndiceOrdenado<String> indicePorNome, IndiceIntervalo indicePorData,
+                        IndiceIntervalo indicePorOrcamento, IndiceReverso filmesPorDiretor, RelacaoElenco elenco,
+                        DiretorService diretorService, VarreduraParalela varredura) {
+        this.filmes = filmes;
+        this.colunas = filmes instanceof IColunasFilmes ? (IColunasFilmes) filmes : null;
+        this.indiceNome = indiceNome;
+        this.indiceTrigrama = indiceTrigrama;
+        this.indicePorNome = indicePorNome;
+        this.indicePorData = indicePorData;
+        this.indicePorOrcamento = indicePorOrcamento;
+        this.filmesPorDiretor = filmesPorDiretor;
+        this.elenco = elenco;
+        this.diretorService = diretorService;
+        this.varredura = varredura;
+    }
+
+    /**
+     * @param plano se não for null, recebe a descrição dos passos escolhidos
+     */
+    List<Filme> executar(ConsultaFilmes consulta, StringBuilder plano) {
+        List<Criterio> criterios = montarCriterios(consulta);
+        criterios.sort(Comparator.comparingLong(criterio -> criterio.estimativa));
+        int total = filmes.tamanho();
+
+        List<Filme> resultado;
+        if (criterios.isEmpty() || criterios.get(0).estimativa > total / FRACAO_VARREDURA) {
+            PrimitiveIterator.OfInt ordem = ordemIndexada(consulta, total);
+            if (ordem != null) {
+                return percorrerIndiceDeOrdem(ordem, consulta, criterios, plano);
+            }
+            if (colunas != null) {
+                return paginaDasLinhas(varrerLinhas(criterios, total, plano), consulta, plano);
+            }
+            resultado = varrer(criterios, total, plano);
+        } else if (colunas != null) {
+            return paginaDasLinhas(linhasDosIndices(criterios, plano), consulta, plano);
+        } else {
+            resultado = usarIndices(criterios, plano);
+        }
+        return ordenarPagina(resultado, consulta, plano);
+    }
+
+    // ========== CRITÉRIOS ==========
+
+    private static final class Criterio {
+        private final String descricao;
+        // Quantos IDs o índice devolveria; Long.MAX_VALUE quando não há índice
+        private final long estimativa;
+        private final Supplier<int[]> ids;
+        private final Predicate<Filme> teste;
+        // O mesmo teste sobre uma linha das colunas; só é usado quando o armazenamento as expõe
+        private final IntPredicate testeLinha;
+        // Os IDs do índice já atendem o critério, sem precisar do teste
+        private final boolean exato;
+
+        private Criterio(String descricao, long estimativa, Supplier<int[]> ids, Predicate<Filme> teste,
+                         IntPredicate testeLinha, boolean exato) {
+            this.descricao = descricao;
+            this.estimativa = estimativa;
+            this.ids = ids;
+            this.teste = teste;
+            this.testeLinha = testeLinha;
+            this.exato = exato;
+        }
+    }
+
+    private List<Criterio> montarCriterios(ConsultaFilmes consulta) {
+        List<Criterio> criterios = new ArrayList<>();
+
+        if (consulta.getNome() != null) {
+            String chave = NormalizadorTexto.normalizar(consulta.getNome());
+            int[] ids = indiceNome.buscar(consulta.getNome());
+            criterios.add(new Criterio("nome = '" + consulta.getNome().trim() + "'", ids.length, () -> ids,
+                    filme -> chave.equals(NormalizadorTexto.normalizar(filme.getNome())),
+                    linha -> chave.equals(NormalizadorTexto.normalizar(colunas.nome(linha))), true));
+        }
+
+        if (consulta.getTrechoNome() != null) {
+            String termo = consulta.getTrechoNome().toLowerCase(Locale.ROOT).trim();
+            int[] ids = indiceTrigrama.buscar(consulta.getTrechoNome());
+            criterios.add(new Criterio("nome contém '" + termo + "'", ids.length, () -> ids,
+                    filme -> filme.getNome().toLowerCase(Locale.ROOT).contains(termo),
+                    linha -> colunas.nome(linha).toLowerCase(Locale.ROOT).contains(termo), true));
+        }
+
+        if (consulta.filtraData()) {
+            long minimo = consulta.getLancadoDesde() != null
+                    ? ChavesOrdenacao.deData(consulta.getLancadoDesde()) : Long.MIN_VALUE;
+            long maximo = consulta.getLancadoAte() != null
+                    ? ChavesOrdenacao.deData(consulta.getLancadoAte()) : Long.MAX_VALUE;
+            criterios.add(new Criterio("data de lançamento", indicePorData.contarIntervalo(minimo, maximo),
+                    () -> ordenados(indicePorData.buscarIntervalo(minimo, maximo).toArray()),
+                    filme -> {
+                        long chave = ChavesOrdenacao.deData(filme.getDataLancamento());
+                        return chave >= minimo && chave <= maximo;
+                    },
+                    linha -> colunas.diaLancamento(linha) >= minimo && colunas.diaLancamento(linha) <= maximo, true));
+        }
+
+        if (consulta.filtraOrcamento()) {
+            BigDecimal minimo = consulta.getOrcamentoMinimo();
+            BigDecimal maximo = consulta.getOrcamentoMaximo();
+            long chaveMinima = minimo != null ? ChavesOrdenacao.deOrcamento(minimo) : Long.MIN_VALUE;
+            long chaveMaxima = maximo != null ? ChavesOrdenacao.deOrcamento(maximo) : Long.MAX_VALUE;
+            // As chaves são em centavos: as pontas da faixa ainda precisam ser conferidas
+            criterios.add(new Criterio("orçamento", indicePorOrcamento.contarIntervalo(chaveMinima, chaveMaxima),
+                    () -> ordenados(indicePorOrcamento.buscarIntervalo(chaveMinima, chaveMaxima).toArray()),
+                    filme -> naFaixa(filme.getOrcamento(), minimo, maximo),
+                    linha -> naFaixa(colunas.orcamento(linha), minimo, maximo), false));
+        }
+
+        if (consulta.getDiretorId() != null) {
+            int diretorId = consulta.getDiretorId();
+            criterios.add(new Criterio("diretor " + diretorId, filmesPorDiretor.contar(diretorId),
+                    () -> filmesPorDiretor.buscar(diretorId),
+                    filme -> filme.getDiretor() != null && filme.getDiretor().getId() == diretorId,
+                    linha -> colunas.diretorId(linha) == diretorId, true));
+        }
+
+        for (int atorId : consulta.getAtoresIds()) {
+            criterios.add(new Criterio("ator " + atorId, elenco.contarFilmes(atorId),
+                    () -> elenco.filmesDoAtor(atorId),
+                    filme -> elenco.contem(filme.getId(), atorId),
+                    linha -> elenco.contem(colunas.id(linha), atorId), true));
+        }
+
+        if (consulta.getNacionalidadeDiretor() != null) {
+            criterios.add(criterioNacionalidade(consulta.getNacionalidadeDiretor()));
+        }
+        return criterios;
+    }
+
+    private Criterio criterioNacionalidade(String nacionalidade) {
+        String descricao = "diretor de nacionalidade '" + nacionalidade + "'";
+        Predicate<Filme> teste = filme -> filme.getDiretor() != null
+                && nacionalidade.equals(filme.getDiretor().getNacionalidade());
+        if (diretorService == null) {
+            return new Criterio(descricao, Long.MAX_VALUE, null, teste,
+                    linha -> teste.test(filmes.buscar(colunas.id(linha))), false);
+        }
+
+        List<Diretor> diretores = diretorService.buscarPorNacionalidade(nacionalidade);
+        long estimativa = 0;
+        int[] diretoresIds = new int[diretores.size()];
+        for (int i = 0; i < diretoresIds.length; i++) {
+            diretoresIds[i] = diretores.get(i).getId();
+            estimativa += filmesPorDiretor.contar(diretoresIds[i]);
+        }
+        Arrays.sort(diretoresIds);
+        IntPredicate testeLinha = linha -> Arrays.binarySearch(diretoresIds, colunas.diretorId(linha)) >= 0;
+        return new Criterio(descricao, estimativa, () -> {
+            int[][] listas = new int[diretores.size()][];
+            int quantidade = 0;
+            for (int i = 0; i < listas.length; i++) {
+                listas[i] = filmesPorDiretor.buscar(diretores.get(i).getId());
+                quantidade += listas[i].length;
+            }
+            int[] ids = new int[quantidade];
+            int posicao = 0;
+            for (int[] lista : listas) {
+                System.arraycopy(lista, 0, ids, posicao, lista.length);
+                posicao += lista.length;
+            }
+            // Cada filme tem um só diretor, então as listas não se repetem
+            return ordenados(ids);
+        }, teste, testeLinha, true);
+    }
+
+    private static boolean naFaixa(BigDecimal orcamento, BigDecimal minimo, BigDecimal maximo) {
+        return orcamento != null
+                && (minimo == null || orcamento.compareTo(minimo) >= 0)
+                && (maximo == null || orcamento.compareTo(maximo) <= 0);
+    }
+
+    // ========== EXECUÇÃO ==========
+
+    private List<Filme> usarIndices(List<Criterio> criterios, StringBuilder plano) {
+        List<Criterio> conferidos = new ArrayList<>();
+        int[] candidatos = candidatos(criterios, conferidos, plano);
+        List<Filme> resultado = new ArrayList<>(candidatos.length);
+        for (int id : candidatos) {
+            Filme filme = filmes.buscar(id);
+            if (filme != null && atende(filme, conferidos)) {
+                resultado.add(filme);
+            }
+        }
+        return resultado;
+    }
+
+    // Como usarIndices, mas confere os candidatos nas colunas: devolve as linhas aceitas, sem montar nenhum filme
+    private int[] linhasDosIndices(List<Criterio> criterios, StringBuilder plano) {
+        List<Criterio> conferidos = new ArrayList<>();
+        int[] candidatos = candidatos(criterios, conferidos, plano);
+        int[] linhas = new int[candidatos.length];
+        int quantidade = 0;
+        for (int id : candidatos) {
+            int linha = colunas.linha(id);
+            if (linha != IColunasFilmes.SEM_LINHA && atendeLinha(linha, conferidos)) {
+                linhas[quantidade++] = linha;
+            }
+        }
+        return Arrays.copyOf(linhas, quantidade);
+    }
+
+    // IDs (crescentes) dos índices intersectados; os critérios que ainda precisam ser conferidos vão para conferidos
+    private int[] candidatos(List<Criterio> criterios, List<Criterio> conferidos, StringBuilder plano) {
+        Criterio inicial = criterios.get(0);
+        int[] candidatos = inicial.ids.get();
+        descrever(plano, "índice " + inicial.descricao + " (" + candidatos.length + ")");
+
+        if (!inicial.exato) {
+            conferidos.add(inicial);
+        }
+        for (Criterio criterio : criterios.subList(1, criterios.size())) {
+            if (candidatos.length > 0 && criterio.ids != null
+                    && criterio.estimativa <= (long) candidatos.length * FATOR_INTERSECAO) {
+                candidatos = intersectar(candidatos, criterio.ids.get());
+                descrever(plano, "∩ índice " + criterio.descricao + " (" + candidatos.length + ")");
+                if (!criterio.exato) {
+                    conferidos.add(criterio);
+                }
+            } else {
+                conferidos.add(criterio);
+            }
+        }
+        for (Criterio criterio : conferidos) {
+            descrever(plano, "filtro " + criterio.descricao);
+        }
+        return candidatos;
+    }
+
+    private List<Filme> varrer(List<Criterio> criterios, int total, StringBuilder plano) {
+        descrever(plano, (varredura.dividiria(total) ? "varredura paralela" : "varredura") + " de " + total + " filme(s)");
+        for (Criterio criterio : criterios) {
+            descrever(plano, "filtro " + criterio.descricao);
+        }
+        if (criterios.isEmpty()) {
+            // Somente leitura: ordenarPagina só copia se for ordenar tudo
+            return filmes.listar();
+        }
+        // A varredura decide se divide (e mede de novo de tempos em tempos), então passa por ela sempre que puder dividir
+        if (total >= varredura.getMinimoParalelo() && varredura.getParalelismo() > 1) {
+            return varredura.filtrar(filmes.listar(), filme -> atende(filme, criterios));
+        }
+        List<Filme> resultado = new ArrayList<>();
+        for (Filme filme : filmes) {
+            if (atende(filme, criterios)) {
+                resultado.add(filme);
+            }
+        }
+        return resultado;
+    }
+
+    // Como varrer, mas sobre as colunas: devolve as linhas aceitas, em ordem, sem montar nenhum filme
+    private int[] varrerLinhas(List<Criterio> criterios, int total, StringBuilder plano) {
+        descrever(plano, (varredura.dividiria(total) ? "varredura paralela" : "varredura") + " das colunas de " + total + " filme(s)");
+        for (Criterio criterio : criterios) {
+            descrever(plano, "filtro " + criterio.descricao);
+        }
+        return varredura.filtrar(colunas.linhas(), linha -> colunas.id(linha) != 0 && atendeLinha(linha, criterios));
+    }
+
+    /**
+     * Para ordem por nome ou data com limite: percorre o índice da ordem (lido sob
+     * demanda) conferindo cada filme e para ao completar a página, sem ordenar nada.
+     */
+    private List<Filme> percorrerIndiceDeOrdem(PrimitiveIterator.OfInt ordem, ConsultaFilmes consulta,
+                                               List<Criterio> criterios, StringBuilder plano) {
+        descrever(plano, "índice de ordem " + consulta.getOrdem() + (consulta.isDecrescente() ? " (decrescente)" : "")
+                + " até completar a página");
+        for (Criterio criterio : criterios) {
+            descrever(plano, "filtro " + criterio.descricao);
+        }
+        List<Filme> pagina = new ArrayList<>(Math.min(consulta.getLimite(), filmes.tamanho()));
+        int pular = consulta.getDeslocamento();
+        while (ordem.hasNext() && pagina.size() < consulta.getLimite()) {
+            int id = ordem.nextInt();
+            if (colunas != null) {
+                // Os pulados nem chegam a ser montados
+                int linha = colunas.linha(id);
+                if (linha == IColunasFilmes.SEM_LINHA || !atendeLinha(linha, criterios)) {
+                    continue;
+                }
+                if (pular > 0) {
+                    pular--;
+                } else {
+                    pagina.add(filmes.buscar(id));
+                }
+                continue;
+            }
+            Filme filme = filmes.buscar(id);
+            if (filme == null || !atende(filme, criterios)) {
+                continue;
+            }
+            if (pular > 0) {
+                pular--;
+            } else {
+                pagina.add(filme);
+            }
+        }
+        return pagina;
+    }
+
+    // IDs na ordem pedida, lidos do índice sob demanda, quando vale percorrer o índice de ordem; null se não valer
+    private PrimitiveIterator.OfInt ordemIndexada(ConsultaFilmes consulta, int total) {
+        if (consulta.getLimite() == Integer.MAX_VALUE || total == 0) {
+            return null;
+        }
+        if (consulta.getOrdem() == OrdemConsulta.NOME) {
+            return indicePorNome.percorrer(consulta.isDecrescente()).iterator();
+        }
+        if (consulta.getOrdem() == OrdemConsulta.DATA_LANCAMENTO) {
+            return indicePorData.percorrer(consulta.isDecrescente()).iterator();
+        }
+        return null;
+    }
+
+    private static boolean atende(Filme filme, List<Criterio> criterios) {
+        for (Criterio criterio : criterios) {
+            if (!criterio.teste.test(filme)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean atendeLinha(int linha, List<Criterio> criterios) {
+        for (Criterio criterio : criterios) {
+            if (!criterio.testeLinha.test(linha)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Ordena e pagina as linhas aceitas por varrerLinhas ou linhasDosIndices. Uma página pequena é
+     * escolhida sobre as colunas e só os seus filmes são montados; se a página
+     * cobre boa parte do resultado, monta os aceitos e segue como ordenarPagina.
+     */
+    private List<Filme> paginaDasLinhas(int[] linhas, ConsultaFilmes consulta, StringBuilder plano) {
+        long fim = (long) consulta.getDeslocamento() + consulta.getLimite();
+        if (fim > 0 && fim * FRACAO_SELECAO <= linhas.length) {
+            Comparator<Integer> comparador = comparador(consulta, colunas::id, colunas::nome, colunas::diaLancamento,
+                    colunas::orcamento);
+            List<Integer> aceitas = new AbstractList<Integer>() {
+                @Override
+                public Integer get(int posicao) {
+                    return linhas[posicao];
+                }
+
+                @Override
+                public int size() {
+                    return linhas.length;
+                }
+            };
+            descrever(plano, "selecionar nas colunas os " + fim + " primeiros por " + consulta.getOrdem()
+                    + (consulta.isDecrescente() ? " (decrescente)" : ""));
+            List<Integer> escolhidas = paginar(primeiros(aceitas, comparador, (int) fim, consulta.isDecrescente()),
+                    consulta, plano);
+            List<Filme> pagina = new ArrayList<>(escolhidas.size());
+            for (int linha : escolhidas) {
+                pagina.add(filmes.buscar(colunas.id(linha)));
+            }
+            return pagina;
+        }
+        List<Filme> resultado = new ArrayList<>(linhas.length);
+        for (int linha : linhas) {
+            resultado.add(filmes.buscar(colunas.id(linha)));
+        }
+        return ordenarPagina(resultado, consulta, plano);
+    }
+
+    private static List<Filme> ordenarPagina(List<Filme> resultado, ConsultaFilmes consulta, StringBuilder plano) {
+        Comparator<Filme> comparador = comparador(consulta);
+        String ordem = consulta.getOrdem() + (consulta.isDecrescente() ? " (decrescente)" : "");
+        long fim = (long) consulta.getDeslocamento() + consulta.getLimite();
+        if (fim > 0 && fim * FRACAO_SELECAO <= resultado.size()) {
+            descrever(plano, "selecionar os " + fim + " primeiros por " + ordem);
+            return paginar(primeiros(resultado, comparador, (int) fim, consulta.isDecrescente()), consulta, plano);
+        }
+        // A listagem do armazenamento é somente leitura
+        List<Filme> ordenados = resultado instanceof ArrayList ? resultado : new ArrayList<>(resultado);
+        ordenados.sort(comparador);
+        descrever(plano, "ordenar por " + ordem);
+        return paginar(ordenados, consulta, plano);
+    }
+
+    // Os quantidade menores pelo comparador, em ordem: um heap com o pior dos escolhidos no topo
+    private static <T> List<T> primeiros(List<T> itens, Comparator<T> comparador, int quantidade,
+                                         boolean decrescente) {
+        PriorityQueue<T> escolhidos = new PriorityQueue<>(quantidade + 1, comparador.reversed());
+        // Os itens vêm por ID crescente: de trás para frente, a ordem decrescente não troca o topo a cada item
+        ListIterator<T> iterador = itens.listIterator(decrescente ? itens.size() : 0);
+        while (decrescente ? iterador.hasPrevious() : iterador.hasNext()) {
+            T item = decrescente ? iterador.previous() : iterador.next();
+            if (escolhidos.size() < quantidade) {
+                escolhidos.add(item);
+            } else if (comparador.compare(item, escolhidos.peek()) < 0) {
+                escolhidos.poll();
+                escolhidos.add(item);
+            }
+        }
+        List<T> ordenados = new ArrayList<>(escolhidos);
+        ordenados.sort(comparador);
+        return ordenados;
+    }
+
+    private static Comparator<Filme> comparador(ConsultaFilmes consulta) {
+        return comparador(consulta, Filme::getId, Filme::getNome,
+                filme -> ChavesOrdenacao.deData(filme.getDataLancamento()), Filme::getOrcamento);
+    }
+
+    // A ordem da consulta sobre filmes ou linhas, dados os campos usados em cada ordem
+    private static <T> Comparator<T> comparador(ConsultaFilmes consulta, ToIntFunction<T> id, Function<T, String> nome,
+                                                ToLongFunction<T> dia, Function<T, BigDecimal> orcamento) {
+        Comparator<T> porId = Comparator.comparingInt(id);
+        Comparator<T> comparador;
+        switch (consulta.getOrdem()) {
+            case NOME:
+                comparador = Comparator.comparing(nome).thenComparing(porId);
+                break;
+            case DATA_LANCAMENTO:
+                comparador = Comparator.comparingLong(dia).thenComparing(porId);
+                break;
+            case ORCAMENTO:
+                comparador = Comparator.comparing(orcamento, Comparator.nullsLast(Comparator.<BigDecimal>naturalOrder()))
+                        .thenComparing(porId);
+                break;
+            default:
+                comparador = porId;
+        }
+        if (consulta.isDecrescente()) {
+            comparador = comparador.reversed();
+        }
+        if (consulta.getOrdem() == OrdemConsulta.ORCAMENTO) {
+            // Os sem orçamento ficam no fim nas duas direções
+            comparador = Comparator.comparing((T item) -> orcamento.apply(item) == null).thenComparing(comparador);
+        }
+        return comparador;
+    }
+
+    private static <T> List<T> paginar(List<T> resultado, ConsultaFilmes consulta, StringBuilder plano) {
+        if (consulta.getDeslocamento() == 0 && consulta.getLimite() >= resultado.size()) {
+            return resultado;
+        }
+        descrever(plano, "pular " + consulta.getDeslocamento() + ", limitar a " + consulta.getLimite());
+        int inicio = Math.min(consulta.getDeslocamento(), resultado.size());
+        int fim = (int) Math.min(resultado.size(), (long) inicio + consulta.getLimite());
+        return new ArrayList<>(resultado.subList(inicio, fim));
+    }
+
+    // ========== LISTAS DE IDS ==========
+
+    private static int[] ordenados(int[] ids) {
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    // Interseção de duas listas crescentes
+    private static int[] intersectar(int[] a, int[] b) {
+        int[] comuns = new int[Math.min(a.length, b.length)];
+        int quantidade = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                comuns[quantidade++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(comuns, quantidade);
+    }
+
+    private static void descrever(StringBuilder plano, String passo) {
+        if (plano != null) {
+            plano.append(plano.length() == 0 ? "" : " → ").append(passo);
+        }
+    }
+}
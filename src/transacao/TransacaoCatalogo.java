@@ -0,0 +1,466 @@
+package transacao;
+
+import cache.VersoesCatalogo;
+import diagnostico.Diagnosticos;
+import exception.PessoaNaoEncontradaException;
+import model.Ator;
+import model.Diretor;
+import model.Filme;
+import model.FilmeAtor;
+import model.ResultadoOperacao;
+import service.AtorService;
+import service.DiretorService;
+import service.FilmeService;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Classe TransacaoCatalogo - Grupo de cadastros, associações e remoções confirmado de uma vez
+ *
+ * Criada por TransacoesCatalogo.iniciar(). As buscas leem o catálogo atual e
+ * guardam a versão de cada entidade vista; as alterações só são anotadas e
+ * acontecem em confirmar(), na ordem em que foram anotadas, com a trava do
+ * serviço de filmes e só as dos serviços de atores e de diretores que a
+ * transação leu ou altera. A confirmação é recusada (teveConflito) se alguma
+ * entidade vista mudou desde então, e desfaz tudo se um serviço recusar uma
+ * alteração, devolvendo a mensagem dela. Um ator tirado de um elenco volta à
+ * mesma posição dele.
+ *
+ * Filmes, atores e diretores cadastrados na própria transação podem ser usados
+ * nas alterações seguintes dela. Os objetos devolvidos pelas buscas são os
+ * cadastrados nos serviços: não devem ser alterados diretamente dentro da
+ * transação. Uma transação é usada por uma thread só.
+ */
+public class TransacaoCatalogo {
+
+    /**
+     * Uma alteração anotada: aplica no catálogo e devolve como desfazê-la, ou null se o serviço a recusou.
+     */
+    private interface Passo {
+        Desfazer aplicar();
+    }
+
+    /**
+     * Desfaz um passo aplicado; false se um serviço recusou alguma parte.
+     */
+    private interface Desfazer {
+        boolean executar();
+    }
+
+    // Serviços, além do de filmes, cujas travas confirmar() precisa segurar
+    private static final int ATORES = 1;
+    private static final int DIRETORES = 2;
+
+    private final TransacoesCatalogo transacoes;
+    private final FilmeService filmeService;
+    private final AtorService atorService;
+    private final DiretorService diretorService;
+    private final VersoesCatalogo versoes;
+    private final Map<Long, Long> vistas = new LinkedHashMap<>();
+    private final Set<Object> novas = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final List<Passo> passos = new ArrayList<>();
+    private final List<String> erros = new ArrayList<>();
+    private int servicos;
+    private String cancelamento;
+    private boolean encerrada;
+    private boolean conflito;
+
+    TransacaoCatalogo(TransacoesCatalogo transacoes) {
+        this.transacoes = transacoes;
+        this.filmeService = transacoes.getFilmeService();
+        this.atorService = transacoes.getAtorService();
+        this.diretorService = transacoes.getDiretorService();
+        this.versoes = transacoes.getVersoes();
+    }
+
+    // ========== LEITURAS ==========
+
+    public Filme buscarFilme(int id) {
+        verificarAberta();
+        if (id <= 0) {
+            return null;
+        }
+        ver(VersoesCatalogo.FILME, id);
+        return filmeService.buscarPorId(id);
+    }
+
+    public Ator buscarAtor(int id) {
+        verificarAberta();
+        ver(VersoesCatalogo.ATOR, id);
+        return atorCadastrado(id);
+    }
+
+    public Diretor buscarDiretor(int id) {
+        verificarAberta();
+        ver(VersoesCatalogo.DIRETOR, id);
+        return diretorService.buscarPorId(id);
+    }
+
+    // ========== ALTERAÇÕES ==========
+
+    public TransacaoCatalogo cadastrarFilme(Filme filme) {
+        exigir(filme, "Filme");
+        novas.add(filme);
+        return anotar("Erro ao cadastrar o filme: " + filme.getNome(), 0,
+                () -> filmeService.cadastrar(filme) ? () -> filmeService.remover(filme.getId()) : null);
+    }
+
+    public TransacaoCatalogo cadastrarAtor(Ator ator) {
+        exigir(ator, "Ator");
+        novas.add(ator);
+        return anotar("Erro ao cadastrar o ator: " + ator.getNome(), ATORES,
+                () -> atorService.cadastrar(ator) ? () -> atorService.remover(ator.getId()) : null);
+    }
+
+    public TransacaoCatalogo cadastrarDiretor(Diretor diretor) {
+        exigir(diretor, "Diretor");
+        novas.add(diretor);
+        return anotar("Erro ao cadastrar o diretor: " + diretor.getNome(), DIRETORES,
+                () -> diretorService.cadastrar(diretor) ? () -> diretorService.remover(diretor.getId()) : null);
+    }
+
+    public TransacaoCatalogo associarAtor(Filme filme, Ator ator, String personagem) {
+        exigir(filme, "Filme");
+        exigir(ator, "Ator");
+        verFilme(filme);
+        verAtor(ator);
+        return anotar("Erro ao associar ator", 0, () -> {
+            Filme cadastrado = filmeCadastrado(filme.getId());
+            Ator atorCadastrado = atorCadastrado(ator.getId());
+            if (cadastrado == null || atorCadastrado == null
+                    || !filmeService.associarAtor(cadastrado, atorCadastrado, personagem)) {
+                return null;
+            }
+            return () -> filmeService.removerAtor(filme.getId(), ator.getId());
+        });
+    }
+
+    public TransacaoCatalogo removerAtorDoFilme(Filme filme, Ator ator) {
+        exigir(filme, "Filme");
+        exigir(ator, "Ator");
+        verFilme(filme);
+        verAtor(ator);
+        return anotar("Erro ao remover ator do filme", 0, () -> {
+            Filme cadastrado = filmeCadastrado(filme.getId());
+            Ator atorCadastrado = atorCadastrado(ator.getId());
+            if (cadastrado == null || atorCadastrado == null) {
+                return null;
+            }
+            String personagem = personagem(cadastrado.getId(), atorCadastrado.getId());
+            List<Ator> elencoOriginal = cadastrado.getAtores();
+            if (!filmeService.removerAtor(cadastrado, atorCadastrado)) {
+                return null;
+            }
+            return () -> reassociar(filme.getId(), atorCadastrado, personagem, elencoOriginal);
+        });
+    }
+
+    public TransacaoCatalogo definirPersonagem(Filme filme, Ator ator, String personagem) {
+        exigir(filme, "Filme");
+        exigir(ator, "Ator");
+        verFilme(filme);
+        return anotar("Erro ao definir o personagem", 0, () -> {
+            String anterior = personagem(filme.getId(), ator.getId());
+            if (!filmeService.definirPersonagem(filme.getId(), ator.getId(), personagem)) {
+                return null;
+            }
+            return () -> filmeService.definirPersonagem(filme.getId(), ator.getId(), anterior);
+        });
+    }
+
+    public TransacaoCatalogo associarDiretor(Filme filme, Diretor diretor) {
+        exigir(filme, "Filme");
+        exigir(diretor, "Diretor");
+        verFilme(filme);
+        if (!novas.contains(diretor)) {
+            ver(VersoesCatalogo.DIRETOR, diretor.getId());
+        }
+        return anotar("Erro ao associar diretor", 0, () -> {
+            Filme cadastrado = filmeCadastrado(filme.getId());
+            Diretor diretorCadastrado = diretorService.buscarPorId(diretor.getId());
+            if (cadastrado == null || diretorCadastrado == null) {
+                return null;
+            }
+            Diretor anterior = cadastrado.getDiretor();
+            if (!filmeService.associarDiretor(cadastrado, diretorCadastrado)) {
+                return null;
+            }
+            return () -> {
+                Filme atual = filmeCadastrado(filme.getId());
+                if (atual == null) {
+                    return false;
+                }
+                atual.setDiretor(anterior);
+                return true;
+            };
+        });
+    }
+
+    /**
+     * Remove o filme; ao desfazer ele volta com o mesmo ID, o elenco e os personagens.
+     */
+    public TransacaoCatalogo removerFilme(int id) {
+        verificarAberta();
+        ver(VersoesCatalogo.FILME, id);
+        return anotar("Erro ao remover o filme ID " + id, 0, () -> {
+            Filme filme = filmeCadastrado(id);
+            if (filme == null) {
+                return null;
+            }
+            List<FilmeAtor> papeis = filmeService.listarElenco(id);
+            if (!filmeService.remover(id)) {
+                return null;
+            }
+            return () -> {
+                boolean desfeito = filmeService.restaurar(filme);
+                for (FilmeAtor papel : papeis) {
+                    if (papel.getPersonagem() != null) {
+                        desfeito &= filmeService.definirPersonagem(id, papel.getAtorId(), papel.getPersonagem());
+                    }
+                }
+                return desfeito;
+            };
+        });
+    }
+
+    /**
+     * Remove o ator, que sai antes dos elencos; ao desfazer ele volta aos mesmos filmes, nas mesmas posições.
+     * Nas listagens do serviço de atores ele passa a aparecer por último, como um cadastro novo.
+     */
+    public TransacaoCatalogo removerAtor(int id) {
+        verificarAberta();
+        ver(VersoesCatalogo.ATOR, id);
+        return anotar("Erro ao remover o ator ID " + id, ATORES, () -> {
+            Ator ator = atorCadastrado(id);
+            if (ator == null) {
+                return null;
+            }
+            List<FilmeAtor> papeis = new ArrayList<>();
+            List<List<Ator>> elencos = new ArrayList<>();
+            for (Filme filme : filmeService.buscarPorAtor(ator)) {
+                FilmeAtor papel = new FilmeAtor(filme.getId(), id);
+                papel.setPersonagem(personagem(filme.getId(), id));
+                papeis.add(papel);
+                elencos.add(filme.getAtores());
+            }
+            if (!atorService.remover(id)) {
+                return null;
+            }
+            return () -> {
+                boolean desfeito = atorService.cadastrar(ator);
+                for (int i = 0; i < papeis.size(); i++) {
+                    FilmeAtor papel = papeis.get(i);
+                    desfeito &= reassociar(papel.getFilmeId(), ator, papel.getPersonagem(), elencos.get(i));
+                }
+                return desfeito;
+            };
+        });
+    }
+
+    /**
+     * Remove o diretor, e os filmes dele ficam sem diretor; ao desfazer ele volta a dirigi-los
+     * (e aparece por último nas listagens do serviço de diretores).
+     */
+    public TransacaoCatalogo removerDiretor(int id) {
+        verificarAberta();
+        ver(VersoesCatalogo.DIRETOR, id);
+        return anotar("Erro ao remover o diretor ID " + id, DIRETORES, () -> {
+            Diretor diretor = diretorService.buscarPorId(id);
+            if (diretor == null) {
+                return null;
+            }
+            List<Integer> filmes = new ArrayList<>();
+            for (Filme filme : filmeService.buscarPorDiretor(diretor)) {
+                filmes.add(filme.getId());
+            }
+            if (!diretorService.remover(id)) {
+                return null;
+            }
+            return () -> {
+                boolean desfeito = diretorService.cadastrar(diretor);
+                for (int filmeId : filmes) {
+                    Filme filme = filmeCadastrado(filmeId);
+                    desfeito &= filme != null && filmeService.associarDiretor(filme, diretor);
+                }
+                return desfeito;
+            };
+        });
+    }
+
+    /**
+     * Desiste da transação: confirmar() não altera nada e devolve erro com o motivo.
+     */
+    public void cancelar(String motivo) {
+        verificarAberta();
+        cancelamento = motivo != null ? motivo : "Transação cancelada!";
+    }
+
+    // ========== CONFIRMAÇÃO ==========
+
+    /**
+     * Aplica as alterações anotadas de uma vez (ou nenhuma). A transação não pode mais ser usada depois.
+     *
+     * @return sucesso, ou erro com o motivo do cancelamento, do conflito ou da alteração recusada
+     * @throws IllegalStateException se uma alteração foi recusada e um serviço também recusou
+     * desfazer alguma das anteriores: o catálogo pode ter ficado com parte da transação
+     */
+    public ResultadoOperacao confirmar() {
+        verificarAberta();
+        encerrada = true;
+        if (cancelamento != null) {
+            return ResultadoOperacao.criarErro(cancelamento);
+        }
+        return filmeService.alterarCatalogo(() -> {
+            for (Map.Entry<Long, Long> vista : vistas.entrySet()) {
+                if (versoes.versao(vista.getKey()) != vista.getValue()) {
+                    conflito = true;
+                    transacoes.contarConflito();
+                    return ResultadoOperacao.criarErro("Conflito: o catálogo foi alterado durante a transação!");
+                }
+            }
+            List<Desfazer> desfazer = new ArrayList<>(passos.size());
+            for (int i = 0; i < passos.size(); i++) {
+                Desfazer desfazerPasso;
+                try {
+                    desfazerPasso = passos.get(i).aplicar();
+                } catch (RuntimeException e) {
+                    Diagnosticos.aviso(TransacaoCatalogo.class, "{}", e.getMessage());
+                    desfazerPasso = null;
+                }
+                if (desfazerPasso == null) {
+                    desfazerAte(desfazer, erros.get(i));
+                    transacoes.contarDesfeita();
+                    Diagnosticos.aviso(TransacaoCatalogo.class, "Transação desfeita. {}", erros.get(i));
+                    return ResultadoOperacao.criarErro(erros.get(i));
+                }
+                desfazer.add(desfazerPasso);
+            }
+            transacoes.contarConfirmada();
+            return ResultadoOperacao.criarSucesso(passos.size() + " alteração(ões) confirmada(s)!");
+        }, (servicos & ATORES) != 0, (servicos & DIRETORES) != 0);
+    }
+
+    /**
+     * @return true se a confirmação foi recusada porque o catálogo mudou (vale a pena tentar de novo)
+     */
+    public boolean teveConflito() {
+        return conflito;
+    }
+
+    public boolean isEncerrada() {
+        return encerrada;
+    }
+
+    // ========== AUXILIARES ==========
+
+    // servicosAlterados: serviços de atores / diretores em que o passo escreve (o de filmes sempre é travado)
+    private TransacaoCatalogo anotar(String erro, int servicosAlterados, Passo passo) {
+        passos.add(passo);
+        erros.add(erro);
+        servicos |= servicosAlterados;
+        return this;
+    }
+
+    // Na ordem inversa: cada passo desfeito encontra o catálogo como o deixou. Todos são tentados;
+    // se algum falhar o catálogo ficou com parte da transação, e quem confirmou precisa saber
+    private static void desfazerAte(List<Desfazer> desfazer, String motivo) {
+        List<String> falhas = new ArrayList<>();
+        for (int i = desfazer.size() - 1; i >= 0; i--) {
+            try {
+                if (!desfazer.get(i).executar()) {
+                    falhas.add("passo " + (i + 1) + " recusado");
+                }
+            } catch (RuntimeException e) {
+                falhas.add("passo " + (i + 1) + ": " + e.getMessage());
+            }
+        }
+        if (!falhas.isEmpty()) {
+            Diagnosticos.aviso(TransacaoCatalogo.class, "Transação não pôde ser desfeita: {}", falhas);
+            throw new IllegalStateException("Erro: Transação não pôde ser desfeita (" + motivo + "): " + falhas);
+        }
+    }
+
+    // A primeira versão vista é a que vale: se a entidade mudou entre duas leituras, é conflito.
+    // A entidade vista não pode mudar durante a confirmação, então o serviço dela é travado
+    private void ver(int tipo, int id) {
+        vistas.putIfAbsent(VersoesCatalogo.chave(tipo, id), versoes.versao(tipo, id));
+        if (tipo == VersoesCatalogo.ATOR) {
+            servicos |= ATORES;
+        } else if (tipo == VersoesCatalogo.DIRETOR) {
+            servicos |= DIRETORES;
+        }
+    }
+
+    private void verFilme(Filme filme) {
+        if (!novas.contains(filme)) {
+            ver(VersoesCatalogo.FILME, filme.getId());
+        }
+    }
+
+    private void verAtor(Ator ator) {
+        if (!novas.contains(ator)) {
+            ver(VersoesCatalogo.ATOR, ator.getId());
+        }
+    }
+
+    private Filme filmeCadastrado(int id) {
+        return id > 0 ? filmeService.buscarPorId(id) : null;
+    }
+
+    private Ator atorCadastrado(int id) {
+        try {
+            return atorService.buscarPorId(id);
+        } catch (PessoaNaoEncontradaException e) {
+            return null;
+        }
+    }
+
+    private String personagem(int filmeId, int atorId) {
+        for (FilmeAtor papel : filmeService.listarElenco(filmeId)) {
+            if (papel.getAtorId() == atorId) {
+                return papel.getPersonagem();
+            }
+        }
+        return null;
+    }
+
+    // Devolve o ator ao elenco na posição que tinha: quem vinha depois dele sai e entra de novo, na mesma ordem
+    private boolean reassociar(int filmeId, Ator ator, String personagem, List<Ator> elencoOriginal) {
+        Filme filme = filmeCadastrado(filmeId);
+        if (filme == null || !filmeService.associarAtor(filme, ator, personagem)) {
+            return false;
+        }
+        int posicao = elencoOriginal.indexOf(ator);
+        if (posicao < 0) {
+            return true;
+        }
+        for (Ator seguinte : elencoOriginal.subList(posicao + 1, elencoOriginal.size())) {
+            if (filmeService.filmeTemAtor(filmeId, seguinte.getId())) {
+                String papel = personagem(filmeId, seguinte.getId());
+                if (!filmeService.removerAtor(filme, seguinte) || !filmeService.associarAtor(filme, seguinte, papel)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private void exigir(Object entidade, String nome) {
+        verificarAberta();
+        if (entidade == null) {
+            throw new IllegalArgumentException("Erro: " + nome + " não pode ser null!");
+        }
+    }
+
+    private void verificarAberta() {
+        if (encerrada) {
+            throw new IllegalStateException("Erro: Transação já foi encerrada!");
+        }
+    }
+}
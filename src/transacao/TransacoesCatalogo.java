@@ -0,0 +1,148 @@
+package transacao;
+
+import cache.VersoesCatalogo;
+import diagnostico.Diagnosticos;
+import model.ResultadoOperacao;
+import service.AtorService;
+import service.DiretorService;
+import service.FilmeService;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Classe TransacoesCatalogo - Cria as transações sobre filmes, atores e diretores e guarda as versões usadas por elas
+ *
+ * Uma TransacaoCatalogo lê o catálogo sem travas e só anota as alterações.
+ * Ao confirmar, segura a trava do serviço de filmes e as dos serviços de
+ * atores e diretores que a transação usa (FilmeService.alterarCatalogo) e
+ * confere se alguma entidade lida ou alterada por ela mudou desde que foi
+ * vista (controle otimista: as versões vêm de um VersoesCatalogo que recebe os
+ * avisos dos serviços). Se nada mudou, as alterações são aplicadas em ordem;
+ * se uma delas for recusada, as já aplicadas são desfeitas antes de as travas
+ * serem soltas. Como os ouvintes dos serviços só são sincronizados no fim, o
+ * log e os retratos do catálogo veem a transação inteira ou nada dela; no
+ * arquivo do log ela fica num grupo, que a recuperação descarta se a queda
+ * cortou a confirmação.
+ *
+ * Escritores concorrentes só disputam as travas durante a conferência e a
+ * aplicação; o tempo gasto lendo e decidindo fica fora delas. A trava do
+ * serviço de filmes é sempre segurada, então duas confirmações nunca correm
+ * ao mesmo tempo, mesmo mexendo em entidades diferentes.
+ */
+public class TransacoesCatalogo {
+
+    public static final int TENTATIVAS_PADRAO = 5;
+
+    private final FilmeService filmeService;
+    private final AtorService atorService;
+    private final DiretorService diretorService;
+    private final VersoesCatalogo versoes = new VersoesCatalogo();
+    private final LongAdder confirmadas = new LongAdder();
+    private final LongAdder conflitos = new LongAdder();
+    private final LongAdder desfeitas = new LongAdder();
+
+    private TransacoesCatalogo(FilmeService filmeService, AtorService atorService, DiretorService diretorService) {
+        this.filmeService = filmeService;
+        this.atorService = atorService;
+        this.diretorService = diretorService;
+    }
+
+    /**
+     * Passa a acompanhar as alterações dos serviços; só as transações iniciadas depois disso são conferidas.
+     */
+    public static TransacoesCatalogo acompanhar(FilmeService filmeService, AtorService atorService,
+                                                DiretorService diretorService) {
+        if (filmeService == null || atorService == null || diretorService == null) {
+            throw new IllegalArgumentException("Erro: Os três serviços são obrigatórios!");
+        }
+        TransacoesCatalogo transacoes = new TransacoesCatalogo(filmeService, atorService, diretorService);
+        filmeService.adicionarOuvinte(transacoes.versoes);
+        atorService.adicionarOuvinte(transacoes.versoes);
+        diretorService.adicionarOuvinte(transacoes.versoes);
+        return transacoes;
+    }
+
+    /**
+     * Deixa de acompanhar os serviços; transações ainda abertas passam a não detectar conflitos.
+     */
+    public void encerrar() {
+        filmeService.removerOuvinte(versoes);
+        atorService.removerOuvinte(versoes);
+        diretorService.removerOuvinte(versoes);
+    }
+
+    public TransacaoCatalogo iniciar() {
+        return new TransacaoCatalogo(this);
+    }
+
+    /**
+     * Monta e confirma uma transação com o corpo informado. Em caso de conflito o corpo
+     * é executado de novo numa transação nova, até TENTATIVAS_PADRAO vezes, então ele
+     * deve só ler e anotar alterações na transação recebida.
+     *
+     * @return o resultado da última tentativa (erro com a mensagem de TransacaoCatalogo.cancelar se o corpo cancelou)
+     */
+    public ResultadoOperacao executar(Consumer<TransacaoCatalogo> corpo) {
+        if (corpo == null) {
+            return ResultadoOperacao.criarErro("Corpo da transação não pode ser null!");
+        }
+        ResultadoOperacao resultado = null;
+        for (int tentativa = 1; tentativa <= TENTATIVAS_PADRAO; tentativa++) {
+            TransacaoCatalogo transacao = iniciar();
+            corpo.accept(transacao);
+            resultado = transacao.confirmar();
+            if (!transacao.teveConflito()) {
+                return resultado;
+            }
+        }
+        Diagnosticos.aviso(TransacoesCatalogo.class, "Transação desistiu após {} conflito(s)", TENTATIVAS_PADRAO);
+        return resultado;
+    }
+
+    public long getConfirmadas() {
+        return confirmadas.sum();
+    }
+
+    /**
+     * @return quantas confirmações foram recusadas porque o catálogo mudou durante a transação
+     */
+    public long getConflitos() {
+        return conflitos.sum();
+    }
+
+    /**
+     * @return quantas transações tiveram uma alteração recusada e foram desfeitas
+     */
+    public long getDesfeitas() {
+        return desfeitas.sum();
+    }
+
+    FilmeService getFilmeService() {
+        return filmeService;
+    }
+
+    AtorService getAtorService() {
+        return atorService;
+    }
+
+    DiretorService getDiretorService() {
+        return diretorService;
+    }
+
+    VersoesCatalogo getVersoes() {
+        return versoes;
+    }
+
+    void contarConfirmada() {
+        confirmadas.increment();
+    }
+
+    void contarConflito() {
+        conflitos.increment();
+    }
+
+    void contarDesfeita() {
+        desfeitas.increment();
+    }
+}
@@ -0,0 +1,39 @@
+package util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+
+/**
+ * Classe ChavesOrdenacao - Converte datas e valores monetários em chaves long
+ * 
+ * As chaves preservam a ordem dos valores originais, permitindo que os índices
+ * comparem números primitivos em vez de LocalDate e BigDecimal.
+ */
+public final class ChavesOrdenacao {
+
+    // Orçamentos são guardados em centavos
+    public static final int CASAS_ORCAMENTO = 2;
+
+    private ChavesOrdenacao() {
+    }
+
+    public static long deData(LocalDate data) {
+        return data.toEpochDay();
+    }
+
+    /**
+     * Arredonda para baixo na casa dos centavos; valores com mais casas decimais
+     * caem na mesma chave que o centavo inferior e precisam ser conferidos.
+     */
+    public static long deOrcamento(BigDecimal valor) {
+        BigDecimal escalado = valor.movePointRight(CASAS_ORCAMENTO).setScale(0, RoundingMode.FLOOR);
+        if (escalado.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) >= 0) {
+            return Long.MAX_VALUE;
+        }
+        if (escalado.compareTo(BigDecimal.valueOf(Long.MIN_VALUE)) <= 0) {
+            return Long.MIN_VALUE;
+        }
+        return escalado.longValue();
+    }
+}
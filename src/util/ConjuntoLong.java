@@ -0,0 +1,151 @@
+package util;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Classe ConjuntoLong - Conjunto de longs primitivos com endereçamento aberto
+ *
+ * Usa sondagem linear e, na remoção, desloca os elementos seguintes para trás,
+ * então não acumula marcas de removido. Cada elemento ocupa apenas um long na
+ * tabela. O valor 0 é tratado à parte porque marca as posições vazias.
+ */
+public class ConjuntoLong {
+
+    private static final int CAPACIDADE_INICIAL = 16;
+
+    private long[] tabela;
+    private int tamanho;
+    private boolean contemZero;
+
+    public ConjuntoLong() {
+        this.tabela = new long[CAPACIDADE_INICIAL];
+    }
+
+    public int tamanho() {
+        return tamanho + (contemZero ? 1 : 0);
+    }
+
+    public boolean estaVazio() {
+        return tamanho() == 0;
+    }
+
+    /**
+     * @return false se o valor já estava no conjunto
+     */
+    public boolean adicionar(long valor) {
+        if (valor == 0) {
+            boolean novo = !contemZero;
+            contemZero = true;
+            return novo;
+        }
+
+        int mascara = tabela.length - 1;
+        int posicao = espalhar(valor) & mascara;
+        while (tabela[posicao] != 0) {
+            if (tabela[posicao] == valor) {
+                return false;
+            }
+            posicao = (posicao + 1) & mascara;
+        }
+        tabela[posicao] = valor;
+        tamanho++;
+        if (tamanho * 2 > tabela.length) {
+            redimensionar(tabela.length * 2);
+        }
+        return true;
+    }
+
+    /**
+     * Prepara o conjunto para receber mais quantidade valores sem redimensionar no meio das inserções.
+     */
+    public void reservar(int quantidade) {
+        int capacidade = tabela.length;
+        while ((long) (tamanho + quantidade) * 2 > capacidade) {
+            capacidade *= 2;
+        }
+        if (capacidade > tabela.length) {
+            redimensionar(capacidade);
+        }
+    }
+
+    public boolean contem(long valor) {
+        if (valor == 0) {
+            return contemZero;
+        }
+        int mascara = tabela.length - 1;
+        int posicao = espalhar(valor) & mascara;
+        while (tabela[posicao] != 0) {
+            if (tabela[posicao] == valor) {
+                return true;
+            }
+            posicao = (posicao + 1) & mascara;
+        }
+        return false;
+    }
+
+    /**
+     * @return false se o valor não estava no conjunto
+     */
+    public boolean remover(long valor) {
+        if (valor == 0) {
+            boolean existia = contemZero;
+            contemZero = false;
+            return existia;
+        }
+
+        int mascara = tabela.length - 1;
+        int posicao = espalhar(valor) & mascara;
+        while (tabela[posicao] != valor) {
+            if (tabela[posicao] == 0) {
+                return false;
+            }
+            posicao = (posicao + 1) & mascara;
+        }
+
+        // Puxa para trás os elementos do mesmo agrupamento que ficariam inalcançáveis
+        int vazia = posicao;
+        int proxima = (vazia + 1) & mascara;
+        while (tabela[proxima] != 0) {
+            int ideal = espalhar(tabela[proxima]) & mascara;
+            if (((proxima - ideal) & mascara) >= ((proxima - vazia) & mascara)) {
+                tabela[vazia] = tabela[proxima];
+                vazia = proxima;
+            }
+            proxima = (proxima + 1) & mascara;
+        }
+        tabela[vazia] = 0;
+        tamanho--;
+        return true;
+    }
+
+    public void paraCada(LongConsumer acao) {
+        if (contemZero) {
+            acao.accept(0);
+        }
+        for (long valor : tabela) {
+            if (valor != 0) {
+                acao.accept(valor);
+            }
+        }
+    }
+
+    private void redimensionar(int capacidade) {
+        long[] antiga = tabela;
+        tabela = new long[capacidade];
+        int mascara = capacidade - 1;
+        for (long valor : antiga) {
+            if (valor != 0) {
+                int posicao = espalhar(valor) & mascara;
+                while (tabela[posicao] != 0) {
+                    posicao = (posicao + 1) & mascara;
+                }
+                tabela[posicao] = valor;
+            }
+        }
+    }
+
+    private static int espalhar(long valor) {
+        long h = valor * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,114 @@
+package util;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Classe Dicionario - Códigos int para valores de texto repetidos (codificação por dicionário)
+ *
+ * Cada valor diferente recebe um código na primeira vez em que aparece e
+ * fica guardado uma única vez; quem usa o dicionário guarda só o código.
+ * Serve para atributos com poucos valores distintos (ex: nacionalidade,
+ * estilo), que assim ocupam 4 bytes por entidade e podem ser comparados e
+ * agrupados pelo código, sem comparar textos.
+ *
+ * Os códigos nunca mudam nem são reaproveitados, então o dicionário só
+ * cresce: um valor continua guardado mesmo que ninguém mais o use. Por isso
+ * ele tem um limite de valores diferentes; atingido o limite, valores novos
+ * ficam sem código (NAO_ENCONTRADO) e quem usa o dicionário guarda o texto
+ * deles (ex: index.IndiceAtributo). Pode ser usado por
+ * várias threads: buscas não travam e só a criação de um código novo é
+ * sincronizada.
+ */
+public class Dicionario {
+
+    /** Código de null. */
+    public static final int SEM_VALOR = 0;
+    /** Devolvido quando o valor não tem código (nunca foi codificado, ou o dicionário está cheio). */
+    public static final int NAO_ENCONTRADO = -1;
+
+    private final int limite;
+    private final ConcurrentHashMap<String, Integer> codigos;
+    private volatile String[] valores;
+    private volatile int tamanho;
+
+    /**
+     * @param limite quantos valores diferentes o dicionário aceita
+     */
+    public Dicionario(int limite) {
+        if (limite <= 0) {
+            throw new IllegalArgumentException("Erro: Limite do dicionário deve ser positivo!");
+        }
+        this.limite = limite;
+        this.codigos = new ConcurrentHashMap<>();
+        this.valores = new String[16];
+        this.tamanho = 1;
+    }
+
+    /**
+     * @return o código do valor, criando um se ele ainda não existir (SEM_VALOR para null),
+     * ou NAO_ENCONTRADO se o valor é novo e o dicionário já está no limite
+     */
+    public int codificar(String valor) {
+        if (valor == null) {
+            return SEM_VALOR;
+        }
+        Integer codigo = codigos.get(valor);
+        return codigo != null ? codigo : criarCodigo(valor);
+    }
+
+    /**
+     * @return o código do valor sem criar um novo: SEM_VALOR para null, NAO_ENCONTRADO se não existir
+     */
+    public int buscarCodigo(String valor) {
+        if (valor == null) {
+            return SEM_VALOR;
+        }
+        Integer codigo = codigos.get(valor);
+        return codigo != null ? codigo : NAO_ENCONTRADO;
+    }
+
+    /**
+     * @return a instância única guardada para o código (null para SEM_VALOR)
+     */
+    public String valor(int codigo) {
+        if (codigo <= SEM_VALOR || codigo >= tamanho) {
+            if (codigo == SEM_VALOR) {
+                return null;
+            }
+            throw new IllegalArgumentException("Erro: Código fora do dicionário: " + codigo);
+        }
+        return valores[codigo];
+    }
+
+    /**
+     * @return quantos valores diferentes já foram codificados
+     */
+    public int tamanho() {
+        return tamanho - 1;
+    }
+
+    public int getLimite() {
+        return limite;
+    }
+
+    private synchronized int criarCodigo(String valor) {
+        Integer existente = codigos.get(valor);
+        if (existente != null) {
+            return existente;
+        }
+        int codigo = tamanho;
+        if (codigo > limite) {
+            return NAO_ENCONTRADO;
+        }
+        String[] atuais = valores;
+        if (codigo == atuais.length) {
+            atuais = Arrays.copyOf(atuais, atuais.length * 2);
+        }
+        atuais[codigo] = valor;
+        valores = atuais;
+        tamanho = codigo + 1;
+        codigos.put(valor, codigo);
+        return codigo;
+    }
+}
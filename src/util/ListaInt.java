@@ -0,0 +1,97 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Classe ListaInt - Lista ordenada e sem repetição de ints primitivos
+ *
+ * Usada como lista de ocorrências (posting list) nos índices: como os IDs são
+ * gerados em ordem crescente, a inserção quase sempre é um simples acréscimo
+ * no final do array.
+ */
+public class ListaInt {
+
+    private int[] valores;
+    private int tamanho;
+
+    public ListaInt() {
+        this(4);
+    }
+
+    public ListaInt(int capacidadeInicial) {
+        this.valores = new int[Math.max(1, capacidadeInicial)];
+    }
+
+    /**
+     * @return false se o valor já estava na lista
+     */
+    public boolean adicionar(int valor) {
+        if (tamanho == 0 || valores[tamanho - 1] < valor) {
+            garantirCapacidade();
+            valores[tamanho++] = valor;
+            return true;
+        }
+
+        int posicao = Arrays.binarySearch(valores, 0, tamanho, valor);
+        if (posicao >= 0) {
+            return false;
+        }
+        posicao = -posicao - 1;
+        garantirCapacidade();
+        System.arraycopy(valores, posicao, valores, posicao + 1, tamanho - posicao);
+        valores[posicao] = valor;
+        tamanho++;
+        return true;
+    }
+
+    /**
+     * @return false se o valor não estava na lista
+     */
+    public boolean remover(int valor) {
+        int posicao = Arrays.binarySearch(valores, 0, tamanho, valor);
+        if (posicao < 0) {
+            return false;
+        }
+        System.arraycopy(valores, posicao + 1, valores, posicao, tamanho - posicao - 1);
+        tamanho--;
+        return true;
+    }
+
+    public boolean contem(int valor) {
+        return Arrays.binarySearch(valores, 0, tamanho, valor) >= 0;
+    }
+
+    /**
+     * Procura o valor a partir da posição informada.
+     *
+     * @return a posição do valor, ou (-(ponto de inserção) - 1) se não existir
+     */
+    public int procurar(int valor, int inicio) {
+        return Arrays.binarySearch(valores, inicio, tamanho, valor);
+    }
+
+    public int get(int posicao) {
+        if (posicao < 0 || posicao >= tamanho) {
+            throw new IndexOutOfBoundsException("Posição " + posicao + " fora da lista de tamanho " + tamanho);
+        }
+        return valores[posicao];
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    public boolean estaVazia() {
+        return tamanho == 0;
+    }
+
+    public int[] paraArray() {
+        return Arrays.copyOf(valores, tamanho);
+    }
+
+    private void garantirCapacidade() {
+        if (tamanho == valores.length) {
+            valores = Arrays.copyOf(valores, valores.length * 2);
+        }
+    }
+}
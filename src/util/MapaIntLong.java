@@ -0,0 +1,161 @@
+package util;
+
+/**
+ * Classe MapaIntLong - Mapa de chaves int para valores long, ambos primitivos
+ *
+ * Como o ConjuntoLong: sondagem linear e, na remoção, os elementos seguintes
+ * são deslocados para trás, sem marcas de removido. Cada entrada ocupa um int
+ * e um long em dois arrays paralelos. A chave 0 é tratada à parte porque marca
+ * as posições vazias.
+ */
+public class MapaIntLong {
+
+    private static final int CAPACIDADE_INICIAL = 16;
+
+    private int[] chaves;
+    private long[] valores;
+    private int tamanho;
+    private boolean contemZero;
+    private long valorZero;
+
+    public MapaIntLong() {
+        this.chaves = new int[CAPACIDADE_INICIAL];
+        this.valores = new long[CAPACIDADE_INICIAL];
+    }
+
+    public int tamanho() {
+        return tamanho + (contemZero ? 1 : 0);
+    }
+
+    public boolean estaVazio() {
+        return tamanho() == 0;
+    }
+
+    public boolean contem(int chave) {
+        if (chave == 0) {
+            return contemZero;
+        }
+        return localizar(chave) >= 0;
+    }
+
+    /**
+     * @return o valor da chave, ou padrao se ela não existir
+     */
+    public long buscar(int chave, long padrao) {
+        if (chave == 0) {
+            return contemZero ? valorZero : padrao;
+        }
+        int posicao = localizar(chave);
+        return posicao >= 0 ? valores[posicao] : padrao;
+    }
+
+    /**
+     * Insere ou substitui o valor da chave.
+     */
+    public void inserir(int chave, long valor) {
+        if (chave == 0) {
+            contemZero = true;
+            valorZero = valor;
+            return;
+        }
+
+        int mascara = chaves.length - 1;
+        int posicao = espalhar(chave) & mascara;
+        while (chaves[posicao] != 0) {
+            if (chaves[posicao] == chave) {
+                valores[posicao] = valor;
+                return;
+            }
+            posicao = (posicao + 1) & mascara;
+        }
+        chaves[posicao] = chave;
+        valores[posicao] = valor;
+        tamanho++;
+        if (tamanho * 2 > chaves.length) {
+            redimensionar(chaves.length * 2);
+        }
+    }
+
+    /**
+     * Prepara o mapa para receber mais quantidade chaves sem redimensionar no meio das inserções.
+     */
+    public void reservar(int quantidade) {
+        long necessario = ((long) tamanho + quantidade) * 2;
+        int capacidade = chaves.length;
+        while (capacidade < necessario && capacidade < (1 << 30)) {
+            capacidade *= 2;
+        }
+        if (capacidade > chaves.length) {
+            redimensionar(capacidade);
+        }
+    }
+
+    /**
+     * @return false se a chave não existia
+     */
+    public boolean remover(int chave) {
+        if (chave == 0) {
+            boolean existia = contemZero;
+            contemZero = false;
+            return existia;
+        }
+
+        int posicao = localizar(chave);
+        if (posicao < 0) {
+            return false;
+        }
+
+        // Puxa para trás as entradas do mesmo agrupamento que ficariam inalcançáveis
+        int mascara = chaves.length - 1;
+        int vazia = posicao;
+        int proxima = (vazia + 1) & mascara;
+        while (chaves[proxima] != 0) {
+            int ideal = espalhar(chaves[proxima]) & mascara;
+            if (((proxima - ideal) & mascara) >= ((proxima - vazia) & mascara)) {
+                chaves[vazia] = chaves[proxima];
+                valores[vazia] = valores[proxima];
+                vazia = proxima;
+            }
+            proxima = (proxima + 1) & mascara;
+        }
+        chaves[vazia] = 0;
+        valores[vazia] = 0;
+        tamanho--;
+        return true;
+    }
+
+    private int localizar(int chave) {
+        int mascara = chaves.length - 1;
+        int posicao = espalhar(chave) & mascara;
+        while (chaves[posicao] != 0) {
+            if (chaves[posicao] == chave) {
+                return posicao;
+            }
+            posicao = (posicao + 1) & mascara;
+        }
+        return -1;
+    }
+
+    private void redimensionar(int capacidade) {
+        int[] chavesAntigas = chaves;
+        long[] valoresAntigos = valores;
+        chaves = new int[capacidade];
+        valores = new long[capacidade];
+        int mascara = capacidade - 1;
+        for (int i = 0; i < chavesAntigas.length; i++) {
+            if (chavesAntigas[i] != 0) {
+                int posicao = espalhar(chavesAntigas[i]) & mascara;
+                while (chaves[posicao] != 0) {
+                    posicao = (posicao + 1) & mascara;
+                }
+                chaves[posicao] = chavesAntigas[i];
+                valores[posicao] = valoresAntigos[i];
+            }
+        }
+    }
+
+    private static int espalhar(int chave) {
+        int h = chave * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
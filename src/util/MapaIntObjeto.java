@@ -0,0 +1,306 @@
+package util;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * Classe MapaIntObjeto - Mapa com chaves int primitivas (sem boxing para Integer)
+ *
+ * As entradas ficam em arrays densos na ordem de inserção e uma tabela de
+ * endereçamento aberto aponta para elas. Assim busca, atualização e remoção
+ * são O(1) e a iteração preserva a ordem em que as chaves foram inseridas.
+ *
+ * @param <V> O tipo dos valores armazenados (não aceita null)
+ */
+public class MapaIntObjeto<V> implements Iterable<V> {
+
+    private static final int VAZIO = 0;
+    private static final int REMOVIDO = -1;
+    private static final int CAPACIDADE_INICIAL = 16;
+
+    // Posições da tabela guardam (índice da entrada + 1), VAZIO ou REMOVIDO
+    private int[] tabela;
+    private int ocupadosTabela;
+
+    private int[] chaves;
+    private Object[] valores;
+    private int totalEntradas;
+    private int tamanho;
+
+    public MapaIntObjeto() {
+        this(CAPACIDADE_INICIAL);
+    }
+
+    public MapaIntObjeto(int capacidadeInicial) {
+        int capacidade = Math.max(CAPACIDADE_INICIAL, capacidadeInicial);
+        this.tabela = new int[potenciaDeDois(capacidade * 2)];
+        this.chaves = new int[capacidade];
+        this.valores = new Object[capacidade];
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    public boolean estaVazio() {
+        return tamanho == 0;
+    }
+
+    public boolean contem(int chave) {
+        return localizarEntrada(chave) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V buscar(int chave) {
+        int entrada = localizarEntrada(chave);
+        return entrada >= 0 ? (V) valores[entrada] : null;
+    }
+
+    /**
+     * Insere ou substitui o valor da chave. Uma substituição mantém a posição
+     * original da chave na ordem de iteração.
+     *
+     * @return o valor anterior, ou null se a chave não existia
+     */
+    @SuppressWarnings("unchecked")
+    public V inserir(int chave, V valor) {
+        if (valor == null) {
+            throw new IllegalArgumentException("Erro: Valor não pode ser null!");
+        }
+
+        int mascara = tabela.length - 1;
+        int posicao = espalhar(chave) & mascara;
+        int primeiroRemovido = -1;
+
+        while (tabela[posicao] != VAZIO) {
+            int marcador = tabela[posicao];
+            if (marcador == REMOVIDO) {
+                if (primeiroRemovido < 0) {
+                    primeiroRemovido = posicao;
+                }
+            } else if (chaves[marcador - 1] == chave) {
+                V anterior = (V) valores[marcador - 1];
+                valores[marcador - 1] = valor;
+                return anterior;
+            }
+            posicao = (posicao + 1) & mascara;
+        }
+
+        if (totalEntradas == chaves.length) {
+            garantirCapacidadeEntradas();
+            return inserir(chave, valor);
+        }
+
+        int entrada = totalEntradas++;
+        chaves[entrada] = chave;
+        valores[entrada] = valor;
+        tamanho++;
+
+        if (primeiroRemovido >= 0) {
+            tabela[primeiroRemovido] = entrada + 1;
+        } else {
+            tabela[posicao] = entrada + 1;
+            ocupadosTabela++;
+            if (ocupadosTabela * 2 > tabela.length) {
+                reconstruirTabela(potenciaDeDois(Math.max(CAPACIDADE_INICIAL, tamanho * 4)));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Prepara o mapa para receber mais quantidade chaves sem redimensionar no meio das inserções.
+     */
+    public void reservar(int quantidade) {
+        int necessario = tamanho + quantidade;
+        if (totalEntradas + quantidade <= chaves.length) {
+            return;
+        }
+        if (necessario > chaves.length) {
+            chaves = Arrays.copyOf(chaves, necessario);
+            valores = Arrays.copyOf(valores, necessario);
+        }
+        // reconstruirTabela também compacta as entradas removidas
+        reconstruirTabela(potenciaDeDois(Math.max(CAPACIDADE_INICIAL, necessario * 2)));
+    }
+
+    /**
+     * @return o valor removido, ou null se a chave não existia
+     */
+    @SuppressWarnings("unchecked")
+    public V remover(int chave) {
+        int mascara = tabela.length - 1;
+        int posicao = espalhar(chave) & mascara;
+
+        while (tabela[posicao] != VAZIO) {
+            int marcador = tabela[posicao];
+            if (marcador != REMOVIDO && chaves[marcador - 1] == chave) {
+                V anterior = (V) valores[marcador - 1];
+                valores[marcador - 1] = null;
+                tabela[posicao] = REMOVIDO;
+                tamanho--;
+                if (tamanho == 0) {
+                    limpar();
+                }
+                return anterior;
+            }
+            posicao = (posicao + 1) & mascara;
+        }
+        return null;
+    }
+
+    public void limpar() {
+        Arrays.fill(tabela, VAZIO);
+        Arrays.fill(valores, 0, totalEntradas, null);
+        ocupadosTabela = 0;
+        totalEntradas = 0;
+        tamanho = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void paraCada(Consumer<? super V> acao) {
+        for (int i = 0; i < totalEntradas; i++) {
+            Object valor = valores[i];
+            if (valor != null) {
+                acao.accept((V) valor);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public void paraCadaEntrada(ConsumidorEntrada<? super V> acao) {
+        for (int i = 0; i < totalEntradas; i++) {
+            Object valor = valores[i];
+            if (valor != null) {
+                acao.aceitar(chaves[i], (V) valor);
+            }
+        }
+    }
+
+    /**
+     * @return quantas posições as entradas ocupam, contando as removidas (ver valorNaPosicao)
+     */
+    public int totalPosicoes() {
+        return totalEntradas;
+    }
+
+    public int chaveNaPosicao(int posicao) {
+        return chaves[posicao];
+    }
+
+    /**
+     * Acesso direto às entradas, na ordem de inserção, para dividi-las em trechos.
+     *
+     * @return o valor da posição, ou null se a entrada foi removida
+     */
+    @SuppressWarnings("unchecked")
+    public V valorNaPosicao(int posicao) {
+        return (V) valores[posicao];
+    }
+
+    @Override
+    public Iterator<V> iterator() {
+        return new Iterator<V>() {
+            private int proxima = avancar(0);
+
+            private int avancar(int inicio) {
+                int i = inicio;
+                while (i < totalEntradas && valores[i] == null) {
+                    i++;
+                }
+                return i;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return proxima < totalEntradas;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public V next() {
+                if (proxima >= totalEntradas) {
+                    throw new NoSuchElementException();
+                }
+                V valor = (V) valores[proxima];
+                proxima = avancar(proxima + 1);
+                return valor;
+            }
+        };
+    }
+
+    private int localizarEntrada(int chave) {
+        int mascara = tabela.length - 1;
+        int posicao = espalhar(chave) & mascara;
+
+        while (tabela[posicao] != VAZIO) {
+            int marcador = tabela[posicao];
+            if (marcador != REMOVIDO && chaves[marcador - 1] == chave) {
+                return marcador - 1;
+            }
+            posicao = (posicao + 1) & mascara;
+        }
+        return -1;
+    }
+
+    // Compacta as entradas removidas ou, se não houver muitas, dobra os arrays
+    private void garantirCapacidadeEntradas() {
+        if (tamanho * 2 <= totalEntradas) {
+            compactarEntradas();
+        } else {
+            int novaCapacidade = chaves.length * 2;
+            chaves = Arrays.copyOf(chaves, novaCapacidade);
+            valores = Arrays.copyOf(valores, novaCapacidade);
+        }
+        reconstruirTabela(potenciaDeDois(Math.max(CAPACIDADE_INICIAL, chaves.length * 2)));
+    }
+
+    private void compactarEntradas() {
+        int destino = 0;
+        for (int i = 0; i < totalEntradas; i++) {
+            if (valores[i] != null) {
+                chaves[destino] = chaves[i];
+                valores[destino] = valores[i];
+                destino++;
+            }
+        }
+        Arrays.fill(valores, destino, totalEntradas, null);
+        totalEntradas = destino;
+    }
+
+    private void reconstruirTabela(int capacidade) {
+        if (tamanho < totalEntradas) {
+            compactarEntradas();
+        }
+        tabela = new int[capacidade];
+        int mascara = capacidade - 1;
+        for (int i = 0; i < totalEntradas; i++) {
+            int posicao = espalhar(chaves[i]) & mascara;
+            while (tabela[posicao] != VAZIO) {
+                posicao = (posicao + 1) & mascara;
+            }
+            tabela[posicao] = i + 1;
+        }
+        ocupadosTabela = totalEntradas;
+    }
+
+    private static int espalhar(int chave) {
+        int h = chave * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int potenciaDeDois(int valor) {
+        int resultado = Integer.highestOneBit(Math.max(1, valor - 1)) << 1;
+        return resultado < 0 ? 1 << 30 : resultado;
+    }
+
+    /**
+     * Recebe cada par chave/valor sem converter a chave para objeto.
+     */
+    @FunctionalInterface
+    public interface ConsumidorEntrada<V> {
+        void aceitar(int chave, V valor);
+    }
+}
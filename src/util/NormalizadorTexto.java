@@ -0,0 +1,46 @@
+package util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Classe NormalizadorTexto - Gera a forma canônica de nomes para comparação
+ * 
+ * Remove espaços nas pontas, acentos e diferenças de maiúsculas/minúsculas,
+ * de modo que "Ação", " acao" e "AÇÃO" tenham a mesma chave.
+ */
+public final class NormalizadorTexto {
+
+    private NormalizadorTexto() {
+    }
+
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return null;
+        }
+
+        String semEspacos = texto.trim();
+        if (!contemNaoAscii(semEspacos)) {
+            return semEspacos.toLowerCase(Locale.ROOT);
+        }
+
+        String decomposto = Normalizer.normalize(semEspacos, Normalizer.Form.NFD);
+        StringBuilder resultado = new StringBuilder(decomposto.length());
+        for (int i = 0; i < decomposto.length(); i++) {
+            char c = decomposto.charAt(i);
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                resultado.append(c);
+            }
+        }
+        return resultado.toString().toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean contemNaoAscii(String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) > 0x7F) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
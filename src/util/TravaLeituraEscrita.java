@@ -0,0 +1,90 @@
+package util;
+
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Classe TravaLeituraEscrita - Trava de leitura/escrita de um repositório
+ *
+ * Várias leituras podem acontecer ao mesmo tempo; uma escrita espera as leituras
+ * em andamento e segura as novas até terminar. A trava é reentrante: quem está
+ * escrevendo pode ler e escrever de novo (inclusive pelos observadores das
+ * entidades) sem travar a si mesmo. Uma leitura não pode virar escrita.
+ */
+public class TravaLeituraEscrita {
+
+    private final ReentrantReadWriteLock trava;
+
+    public TravaLeituraEscrita() {
+        this.trava = new ReentrantReadWriteLock();
+    }
+
+    public <R> R ler(Supplier<R> consulta) {
+        trava.readLock().lock();
+        try {
+            return consulta.get();
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    public <R> R escrever(Supplier<R> alteracao) {
+        trava.writeLock().lock();
+        try {
+            return alteracao.get();
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Escrita que, quando é a mais externa da thread, executa aoTerminar logo depois de
+     * soltar a trava, tenha ela terminado bem, sido recusada ou lançado exceção (ex: um
+     * serviço sincronizando os seus ouvintes). Uma exceção de aoTerminar não esconde a
+     * da alteração: vai como suprimida.
+     */
+    public <R> R escrever(Supplier<R> alteracao, Runnable aoTerminar) {
+        boolean externa = !escrevendo();
+        Throwable erro = null;
+        try {
+            return escrever(alteracao);
+        } catch (RuntimeException | Error e) {
+            erro = e;
+            throw e;
+        } finally {
+            if (externa) {
+                terminar(aoTerminar, erro);
+            }
+        }
+    }
+
+    private static void terminar(Runnable aoTerminar, Throwable erro) {
+        try {
+            aoTerminar.run();
+        } catch (RuntimeException e) {
+            if (erro == null) {
+                throw e;
+            }
+            erro.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Escrita sem valor de retorno.
+     */
+    public void executar(Runnable alteracao) {
+        trava.writeLock().lock();
+        try {
+            alteracao.run();
+        } finally {
+            trava.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return true se a thread atual está dentro de uma escrita (útil para adiar trabalho até o fim dela)
+     */
+    public boolean escrevendo() {
+        return trava.isWriteLockedByCurrentThread();
+    }
+}
@@ -0,0 +1,279 @@
+package util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Classe VarreduraParalela - Filtra uma sequência inteira dividindo-a entre as threads de um ForkJoinPool próprio
+ *
+ * A sequência é cortada em trechos de TAMANHO_TRECHO posições; cada trecho é
+ * conferido por uma tarefa e os aceitos são juntados na ordem original.
+ * Sequências menores que o mínimo paralelo são conferidas na própria thread
+ * de quem chamou, porque dividir o trabalho custaria mais que fazê-lo.
+ *
+ * Cada varredura dividida mede a própria aceleração: o tempo de CPU somado dos
+ * trechos dividido pelo tempo total. Se ficar abaixo de ACELERACAO_MINIMA (uma
+ * máquina com um só processador, ou com os processadores ocupados), as
+ * próximas varreduras ficam na thread de quem chamou, e a cada SONDAGEM delas
+ * uma volta a ser dividida para medir de novo.
+ *
+ * O pool é deste objeto (e não o comum da JVM), então uma varredura longa não
+ * disputa threads com os parallel streams do resto do programa. Os testes
+ * rodam nas threads do pool: não devem pegar travas dos serviços (quem chama
+ * já deve estar com a trava de leitura).
+ */
+public class VarreduraParalela {
+
+    public static final int MINIMO_PARALELO_PADRAO = 50_000;
+    public static final double ACELERACAO_MINIMA = 1.2;
+    public static final int SONDAGEM = 64;
+    private static final int TAMANHO_TRECHO = 8_192;
+
+    // Sem tempo de CPU por thread, o tempo de relógio do trecho (que inclui as esperas pelo processador)
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_POR_THREAD =
+            THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled();
+
+    private volatile int minimoParalelo;
+    private volatile int paralelismo;
+    private PoolEmUso pool;
+
+    private volatile boolean compensa = true;
+    private volatile double aceleracaoMedida = Double.NaN;
+    private int semDividir;
+
+    public VarreduraParalela() {
+        this(MINIMO_PARALELO_PADRAO, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param minimoParalelo tamanho a partir do qual a varredura é dividida (Integer.MAX_VALUE desliga)
+     * @param paralelismo    número de threads do pool
+     */
+    public VarreduraParalela(int minimoParalelo, int paralelismo) {
+        setMinimoParalelo(minimoParalelo);
+        setParalelismo(paralelismo);
+    }
+
+    public int getMinimoParalelo() {
+        return minimoParalelo;
+    }
+
+    public void setMinimoParalelo(int minimoParalelo) {
+        if (minimoParalelo < 1) {
+            throw new IllegalArgumentException("Erro: Mínimo paralelo deve ser positivo!");
+        }
+        this.minimoParalelo = minimoParalelo;
+    }
+
+    public int getParalelismo() {
+        return paralelismo;
+    }
+
+    /**
+     * Troca o número de threads; o pool anterior termina as varreduras em andamento e é desligado.
+     * A aceleração é medida de novo com as novas threads.
+     */
+    public synchronized void setParalelismo(int paralelismo) {
+        if (paralelismo < 1) {
+            throw new IllegalArgumentException("Erro: Paralelismo deve ser positivo!");
+        }
+        if (pool != null) {
+            pool.trocado = true;
+            if (pool.varreduras == 0) {
+                pool.pool.shutdown();
+            }
+            pool = null;
+        }
+        this.paralelismo = paralelismo;
+        compensa = true;
+        aceleracaoMedida = Double.NaN;
+        semDividir = 0;
+    }
+
+    /**
+     * @return a aceleração da última varredura dividida, ou NaN se nenhuma foi dividida ainda
+     */
+    public double getAceleracaoMedida() {
+        return aceleracaoMedida;
+    }
+
+    /**
+     * @return se uma varredura desse tamanho seria dividida agora (sem contar as de sondagem)
+     */
+    public boolean dividiria(int quantidade) {
+        return quantidade >= minimoParalelo && paralelismo > 1 && compensa;
+    }
+
+    /**
+     * @return as posições de 0 a quantidade - 1 aceitas pelo teste, em ordem crescente
+     */
+    public int[] filtrar(int quantidade, IntPredicate teste) {
+        if (!dividir(quantidade)) {
+            return filtrarTrecho(0, quantidade, teste);
+        }
+        return filtrarDividindo(quantidade, teste);
+    }
+
+    private int[] filtrarDividindo(int quantidade, IntPredicate teste) {
+        int[][] aceitas = new int[(quantidade + TAMANHO_TRECHO - 1) / TAMANHO_TRECHO][];
+        long[] tempos = new long[aceitas.length];
+        PoolEmUso uso = reservarPool();
+        long inicio = System.nanoTime();
+        try {
+            uso.pool.invoke(new Tarefa(0, aceitas.length, quantidade, teste, aceitas, tempos));
+        } finally {
+            liberarPool(uso);
+        }
+        registrarAceleracao(tempos, System.nanoTime() - inicio);
+
+        int total = 0;
+        for (int[] trecho : aceitas) {
+            total += trecho.length;
+        }
+        int[] posicoes = new int[total];
+        int destino = 0;
+        for (int[] trecho : aceitas) {
+            System.arraycopy(trecho, 0, posicoes, destino, trecho.length);
+            destino += trecho.length;
+        }
+        return posicoes;
+    }
+
+    /**
+     * @return os itens aceitos pelo teste, na ordem da lista (que deve ter acesso direto, como ArrayList)
+     */
+    public <T> List<T> filtrar(List<T> itens, Predicate<? super T> teste) {
+        if (!dividir(itens.size())) {
+            List<T> aceitos = new ArrayList<>();
+            for (T item : itens) {
+                if (teste.test(item)) {
+                    aceitos.add(item);
+                }
+            }
+            return aceitos;
+        }
+        int[] posicoes = filtrarDividindo(itens.size(), posicao -> teste.test(itens.get(posicao)));
+        List<T> aceitos = new ArrayList<>(posicoes.length);
+        for (int posicao : posicoes) {
+            aceitos.add(itens.get(posicao));
+        }
+        return aceitos;
+    }
+
+    private boolean dividir(int quantidade) {
+        return quantidade >= minimoParalelo && paralelismo > 1 && dividirAgora();
+    }
+
+    // Enquanto medir bem, sempre divide; senão divide uma a cada SONDAGEM varreduras
+    private synchronized boolean dividirAgora() {
+        if (compensa || ++semDividir >= SONDAGEM) {
+            semDividir = 0;
+            return true;
+        }
+        return false;
+    }
+
+    private synchronized void registrarAceleracao(long[] tempos, long total) {
+        long trabalho = 0;
+        for (long tempo : tempos) {
+            trabalho += tempo;
+        }
+        aceleracaoMedida = (double) trabalho / Math.max(1, total);
+        compensa = aceleracaoMedida >= ACELERACAO_MINIMA;
+    }
+
+    private synchronized PoolEmUso reservarPool() {
+        if (pool == null) {
+            pool = new PoolEmUso(new ForkJoinPool(paralelismo, VarreduraParalela::criarThread, null, false));
+        }
+        pool.varreduras++;
+        return pool;
+    }
+
+    // O pool trocado por setParalelismo no meio de uma varredura é desligado quando a última dele termina
+    private synchronized void liberarPool(PoolEmUso uso) {
+        uso.varreduras--;
+        if (uso.trocado && uso.varreduras == 0) {
+            uso.pool.shutdown();
+        }
+    }
+
+    private static ForkJoinWorkerThread criarThread(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName("varredura-catalogo-" + thread.getPoolIndex());
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static int[] filtrarTrecho(int inicio, int fim, IntPredicate teste) {
+        int[] aceitas = new int[Math.min(fim - inicio, 16)];
+        int quantidade = 0;
+        for (int posicao = inicio; posicao < fim; posicao++) {
+            if (teste.test(posicao)) {
+                if (quantidade == aceitas.length) {
+                    aceitas = Arrays.copyOf(aceitas, Math.min(fim - inicio, aceitas.length * 2));
+                }
+                aceitas[quantidade++] = posicao;
+            }
+        }
+        return quantidade == aceitas.length ? aceitas : Arrays.copyOf(aceitas, quantidade);
+    }
+
+    private static long tempoDaThread() {
+        return CPU_POR_THREAD ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    private static final class PoolEmUso {
+        private final ForkJoinPool pool;
+        private int varreduras;
+        private boolean trocado;
+
+        private PoolEmUso(ForkJoinPool pool) {
+            this.pool = pool;
+        }
+    }
+
+    // Divide os trechos [primeiro, ultimo) ao meio até sobrar um, que é conferido
+    private static final class Tarefa extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int primeiro;
+        private final int ultimo;
+        private final int quantidade;
+        private final IntPredicate teste;
+        private final int[][] aceitas;
+        private final long[] tempos;
+
+        private Tarefa(int primeiro, int ultimo, int quantidade, IntPredicate teste, int[][] aceitas, long[] tempos) {
+            this.primeiro = primeiro;
+            this.ultimo = ultimo;
+            this.quantidade = quantidade;
+            this.teste = teste;
+            this.aceitas = aceitas;
+            this.tempos = tempos;
+        }
+
+        @Override
+        protected void compute() {
+            if (ultimo - primeiro == 1) {
+                int inicio = primeiro * TAMANHO_TRECHO;
+                long antes = tempoDaThread();
+                aceitas[primeiro] = filtrarTrecho(inicio, Math.min(quantidade, inicio + TAMANHO_TRECHO), teste);
+                tempos[primeiro] = tempoDaThread() - antes;
+                return;
+            }
+            int meio = (primeiro + ultimo) >>> 1;
+            invokeAll(new Tarefa(primeiro, meio, quantidade, teste, aceitas, tempos),
+                    new Tarefa(meio, ultimo, quantidade, teste, aceitas, tempos));
+        }
+    }
+}